@@ -1,6 +1,35 @@
 package Main;
 
+import hwSystem.BinaryConfig;
+import hwSystem.ConsoleRouter;
 import hwSystem.hwSystem;
+import hwSystem.Host.RigHost;
+import hwSystem.Protocols.LogArchiveReader;
+import hwSystem.Protocols.LogContainer;
+import hwSystem.Replay.SessionJournal;
+import hwSystem.Scenario.BinaryScenario;
+import hwSystem.Scenario.Scenario;
+import hwSystem.Scenario.ScenarioCompiler;
+import hwSystem.Replay.SessionRecorder;
+import hwSystem.Replay.SessionReplayer;
+import hwSystem.Server.CommandServer;
+import hwSystem.Server.RingClient;
+import hwSystem.Server.RingFile;
+import hwSystem.Server.RingServer;
+import hwSystem.Shard.ShardCoordinator;
+import hwSystem.Signals.TraceWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 /**
 * Main class for running the hardware system simulation.
 * Loads configuration and executes all commands.
@@ -16,13 +45,120 @@ public class Main {
     /**
     * The main method of the program.
     * Accepts two command-line arguments: configuration file path and log output directory.
-    * Loads the configuration and executes commands from the input scenario.
+    * Loads the configuration and executes commands from the input scenario. An optional third
+    * argument names a scenario file to run instead of standard input, either text or a binary
+    * scenario, which is executed straight from the mapped file.
+    *
+    * <p>Tool mode: {@code --csv2trace <in.csv> <out.trace>} converts a recorded CSV
+    * trace into the memory-mapped trace format used by {@code replayTrace}.
+    *
+    * <p>Host mode: {@code --host <hostFile> [threads] [slice]} runs every rig listed
+    * in the host file in this JVM on a shared worker pool.
+    *
+    * <p>Server mode: {@code --serve <configFilePath> <logDirectoryPath> <port|unix:path>}
+    * accepts commands from local socket clients instead of standard input.
+    * Ring mode: {@code --ring <configFilePath> <logDirectoryPath> <ringFile>} accepts commands
+    * from one driver process through shared-memory rings; {@code --ringSend <ringFile> [scenarioFile]}
+    * is such a driver, sending a scenario and printing the responses like the default mode.
+    *
+    * <p>Shard mode: {@code --shard <workers> <configFilePath> <logDirectoryPath> [scenarioFile]}
+    * runs the rig as several worker processes that share the ports, with the same output.
+    *
+    * <p>Record mode: {@code --record <journal> <configFilePath> <logDirectoryPath>} runs like the
+    * default mode and records every command with its timing and output into a journal.
+    * Replay mode: {@code --replay <journal> <logDirectoryPath> [original|max|<N>x]}
+    * re-executes a journal and verifies the outputs.
+    *
+    * <p>Tool mode: {@code --readArchive <file.logz> [segment]} prints the entries of a rotated
+    * log archive, newest first like the .log files. {@code --compileConfig <config.txt> <config.hwc>}
+    * converts a text configuration into the binary form, which loads faster for large port counts.
+    * {@code --compileScenario <scenario.txt> <scenario.hws>} validates a scenario and compiles it
+    * into the binary form. {@code --extractLogs <ports.hwl> <outDir> [name...]} writes the
+    * logs of a log container, or only the named ones (e.g. {@code I2C_0}), as .log files.
     *
     * @param args Command-line arguments: [0] = config file path, [1] = log directory
     */
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.err.println("Usage: java Main <configFilePath> <logDirectoryPath>");
+        if (args.length == 3 && args[0].equals("--csv2trace")) {
+            try {
+                long rows = TraceWriter.convertCsv(args[1], args[2]);
+                System.out.println("Converted " + rows + " rows to " + args[2] + ".");
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length >= 2 && args.length <= 4 && args[0].equals("--host")) {
+            runHost(args);
+            return;
+        }
+        if (args.length == 4 && args[0].equals("--serve")) {
+            runServer(args);
+            return;
+        }
+        if (args.length == 4 && args[0].equals("--ring")) {
+            runRing(args);
+            return;
+        }
+        if ((args.length == 2 || args.length == 3) && args[0].equals("--ringSend")) {
+            runRingSend(args);
+            return;
+        }
+        if ((args.length == 4 || args.length == 5) && args[0].equals("--shard")) {
+            runShard(args);
+            return;
+        }
+        if (args.length == 4 && args[0].equals("--record")) {
+            runRecord(args);
+            return;
+        }
+        if ((args.length == 3 || args.length == 4) && args[0].equals("--replay")) {
+            runReplay(args);
+            return;
+        }
+        if ((args.length == 2 || args.length == 3) && args[0].equals("--readArchive")) {
+            readArchive(args);
+            return;
+        }
+        if (args.length == 3 && args[0].equals("--compileConfig")) {
+            try {
+                int ports = BinaryConfig.compile(args[1], args[2]);
+                System.out.println("Compiled " + ports + " ports to " + args[2] + ".");
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length == 3 && args[0].equals("--compileScenario")) {
+            try {
+                long commands = BinaryScenario.compile(args[1], args[2]);
+                System.out.println("Compiled " + commands + " commands to " + args[2] + ".");
+            } catch (IOException e) {
+                System.err.println("Error: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("--extractLogs")) {
+            extractLogs(args);
+            return;
+        }
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: java Main <configFilePath> <logDirectoryPath> [scenarioFile]");
+            System.err.println("       java Main --csv2trace <in.csv> <out.trace>");
+            System.err.println("       java Main --host <hostFile> [threads] [slice]");
+            System.err.println("       java Main --serve <configFilePath> <logDirectoryPath> <port|unix:path>");
+            System.err.println("       java Main --ring <configFilePath> <logDirectoryPath> <ringFile>");
+            System.err.println("       java Main --ringSend <ringFile> [scenarioFile]");
+            System.err.println("       java Main --shard <workers> <configFilePath> <logDirectoryPath> [scenarioFile]");
+            System.err.println("       java Main --record <journal> <configFilePath> <logDirectoryPath>");
+            System.err.println("       java Main --replay <journal> <logDirectoryPath> [original|max|<N>x]");
+            System.err.println("       java Main --readArchive <file.logz> [segment]");
+            System.err.println("       java Main --compileConfig <config.txt> <config.hwc>");
+            System.err.println("       java Main --compileScenario <scenario.txt> <scenario.hws>");
+            System.err.println("       java Main --extractLogs <ports.hwl> <outDir> [name...]");
             System.exit(1);
         }
 
@@ -31,7 +167,322 @@ public class Main {
 
         hwSystem system = new hwSystem(logDirPath);
         system.loadConfiguration(configPath);
-        system.run();           // run the system
-        system.runCommands();   // after exit command, run all commands in the queue
+        if (args.length == 3) {
+            runScenarioFile(system, args[2]);
+        } else {
+            system.run();           // run the system
+            system.runCommands();   // after exit command, run all commands in the queue
+        }
+        system.close();
+    }
+    /**
+    * Runs a scenario file, mapping it directly if it is a binary scenario.
+    *
+    * @param system The configured simulator.
+    * @param path   The text or binary scenario file.
+    */
+    private static void runScenarioFile(hwSystem system, String path) {
+        try {
+            if (BinaryScenario.isBinary(path)) {
+                system.runScenario(BinaryScenario.open(path));
+            } else {
+                try (InputStream in = new FileInputStream(path)) {
+                    system.run(in);
+                }
+                system.runCommands();
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    /**
+    * Runs all rigs of a host file and reports the totals.
+    *
+    * @param args Command-line arguments: --host hostFile [threads] [slice]
+    */
+    private static void runHost(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int slice = 64;
+        try {
+            if (args.length >= 3) threads = Integer.parseInt(args[2]);
+            if (args.length == 4) slice = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: threads and slice must be integers.");
+            System.exit(1);
+        }
+
+        try {
+            RigHost host = new RigHost(threads, slice);
+            host.load(args[1]);
+            ConsoleRouter.install();
+            long start = System.nanoTime();
+            long commands = host.runAll();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Hosted %d rigs, %d commands in %d ms.\n", host.getRigCount(), commands, elapsedMs);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Error: Interrupted.");
+            System.exit(1);
+        }
+    }
+    /**
+    * Serves one simulator instance to local socket clients until a client sends shutdown.
+    *
+    * @param args Command-line arguments: --serve configFile logDirectory address
+    */
+    private static void runServer(String[] args) {
+        hwSystem system = new hwSystem(args[2]);
+        system.loadConfiguration(args[1]);
+        try {
+            CommandServer server = new CommandServer(system, args[3]);
+            server.open();
+            System.out.println("Listening on " + server.getLocalAddress() + ".");
+            server.serve();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            system.close();
+        }
+    }
+    /**
+    * Serves one simulator instance to a driver process through a shared-memory ring file
+    * until the driver sends exit or ends the session.
+    *
+    * @param args Command-line arguments: --ring configFile logDirectory ringFile
+    */
+    private static void runRing(String[] args) {
+        hwSystem system = new hwSystem(args[2]);
+        system.loadConfiguration(args[1]);
+        try {
+            RingServer server = new RingServer(system, RingFile.create(Path.of(args[3]), RingFile.DEFAULT_CAPACITY));
+            System.out.println("Serving on " + args[3] + ".");
+            server.serve();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            system.close();
+        }
+    }
+    /**
+    * Sends a scenario to a simulator in ring mode and prints the responses in order.
+    * A second thread receives while the commands are sent, so the rings never stall.
+    *
+    * @param args Command-line arguments: --ringSend ringFile [scenarioFile]
+    */
+    private static void runRingSend(String[] args) {
+        try {
+            Scenario scenario;
+            if (args.length == 3 && BinaryScenario.isBinary(args[2])) {
+                scenario = BinaryScenario.open(args[2]);
+            } else if (args.length == 3) {
+                try (InputStream in = new FileInputStream(args[2])) {
+                    scenario = compile(in);
+                }
+            } else {
+                scenario = compile(System.in);
+            }
+            RingClient client = new RingClient(Path.of(args[1]), 10_000);
+            Thread sender = new Thread(() -> {
+                Scenario.Cursor cursor = scenario.cursor();
+                while (cursor.next() && client.send(cursor.getCommand())) {
+                    // Published in batches by the ring
+                }
+                client.close();
+            }, "ring-sender");
+            sender.start();
+
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16);
+            OutputStream err = new FileOutputStream(FileDescriptor.err);
+            RingClient.Response response;
+            while ((response = client.take()) != null) {
+                out.write(response.getOut());
+                if (response.getErr().length > 0) {
+                    // Keep the order of the two streams, as on a console
+                    out.flush();
+                    err.write(response.getErr());
+                }
+            }
+            out.flush();
+            sender.join();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.err.println("Error: Interrupted.");
+            System.exit(1);
+        }
+    }
+    /**
+    * Runs a scenario on a rig sharded over worker processes.
+    *
+    * @param args Command-line arguments: --shard workers configFile logDirectory [scenarioFile]
+    */
+    private static void runShard(String[] args) {
+        int workers = 0;
+        try {
+            workers = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: workers must be an integer.");
+            System.exit(1);
+        }
+
+        ShardCoordinator coordinator = null;
+        try {
+            coordinator = new ShardCoordinator(args[2], args[3], workers);
+            coordinator.start();
+            Scenario scenario;
+            if (args.length == 5 && BinaryScenario.isBinary(args[4])) {
+                scenario = BinaryScenario.open(args[4]);
+            } else if (args.length == 5) {
+                try (InputStream in = new FileInputStream(args[4])) {
+                    scenario = compile(in);
+                }
+            } else {
+                scenario = compile(System.in);
+            }
+            coordinator.run(scenario);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            if (coordinator != null) coordinator.close();
+            System.exit(1);
+        }
+        coordinator.close();
+    }
+    /**
+    * Compiles a text scenario up to its exit command.
+    *
+    * @param input The scenario text.
+    * @return The compiled scenario.
+    * @throws IOException If the scenario cannot be read.
+    */
+    private static Scenario compile(InputStream input) throws IOException {
+        ScenarioCompiler compiler = new ScenarioCompiler();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input), 1 << 16);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!compiler.addLine(line)) break;
+        }
+        return compiler.finish();
+    }
+    /**
+    * Runs commands from standard input while recording them into a journal.
+    *
+    * @param args Command-line arguments: --record journal configFile logDirectory
+    */
+    private static void runRecord(String[] args) {
+        hwSystem system = new hwSystem(args[3]);
+        try {
+            // The journal keeps the file as is; a binary configuration is not text
+            byte[] config = Files.readAllBytes(Path.of(args[2]));
+            system.loadConfiguration(new ByteArrayInputStream(config));
+            try (SessionJournal journal = SessionJournal.create(args[1], config)) {
+                new SessionRecorder(system, journal).record(System.in);
+            }
+            system.close();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    /**
+    * Replays a journal and exits with status 2 if any output differs from the recording.
+    *
+    * @param args Command-line arguments: --replay journal logDirectory [pace]
+    */
+    private static void runReplay(String[] args) {
+        double speed = 0;
+        if (args.length == 4) {
+            String pace = args[3];
+            if (pace.equals("original")) {
+                speed = 1;
+            } else if (!pace.equals("max")) {
+                try {
+                    speed = Double.parseDouble(pace.endsWith("x") ? pace.substring(0, pace.length() - 1) : pace);
+                } catch (NumberFormatException e) {
+                    System.err.println("Error: pace must be original, max or <N>x.");
+                    System.exit(1);
+                }
+            }
+        }
+
+        boolean matched = false;
+        try (SessionJournal journal = SessionJournal.open(args[1])) {
+            SessionReplayer replayer = new SessionReplayer(args[2], speed);
+            matched = replayer.replay(journal);
+            replayer.printSummary(ConsoleRouter.originalOut());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+        if (!matched) System.exit(2);
+    }
+    /**
+    * Prints one segment or all segments of a rotated log archive, newest entries first.
+    *
+    * @param args Command-line arguments: --readArchive archive [segment]
+    */
+    private static void readArchive(String[] args) {
+        try {
+            LogArchiveReader reader = new LogArchiveReader(args[1]);
+            int first = 0;
+            int last = reader.getSegmentCount() - 1;
+            if (args.length == 3) {
+                first = Integer.parseInt(args[2]);
+                last = first;
+                if (first < 0 || first >= reader.getSegmentCount()) {
+                    System.err.println("Error: Archive has " + reader.getSegmentCount() + " segments.");
+                    System.exit(1);
+                }
+            }
+            int segment = last;
+            while (segment >= first) {
+                String[] entries = reader.readSegment(segment);
+                int i = entries.length - 1;
+                while (i >= 0) {
+                    System.out.println(entries[i]);
+                    i--;
+                }
+                segment--;
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    /**
+    * Extracts logs from a log container into .log files.
+    *
+    * @param args [1] = container file, [2] = output directory, [3...] = log names (all if none).
+    */
+    private static void extractLogs(String[] args) {
+        try {
+            LogContainer container = new LogContainer(args[1]);
+            int extracted = 0;
+            if (args.length == 3) {
+                container.extractAll(args[2]);
+                extracted = container.getEntryCount();
+            } else {
+                int i = 3;
+                while (i < args.length) {
+                    int entry = container.find(args[i]);
+                    if (entry < 0) {
+                        System.err.println("Error: No log named " + args[i] + " in " + args[1] + ".");
+                    } else {
+                        container.extract(entry, args[2]);
+                        extracted++;
+                    }
+                    i++;
+                }
+            }
+            System.out.println("Extracted " + extracted + " logs to " + args[2] + ".");
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
     }
 }
@@ -0,0 +1,31 @@
+package hwSystem.Api;
+/**
+ * The device models that can be added to a port, with the name the command
+ * interface uses for them (e.g. "addDev SparkFunMD 3 0").
+ */
+public enum DeviceModel {
+    DHT11("DHT11"),
+    BME280("BME280"),
+    MPU6050("MPU6050"),
+    GY951("GY951"),
+    LCD("LCD"),
+    OLED("OLED"),
+    BLUETOOTH("Bluetooth"),
+    WIFI("Wifi"),
+    PCA9685("PCA9685"),
+    SPARKFUN_MD("SparkFunMD");
+
+    private final String commandName;
+
+    DeviceModel(String commandName) {
+        this.commandName = commandName;
+    }
+    /**
+     * Returns the device name used by the addDev command.
+     *
+     * @return The name, e.g. "Bluetooth".
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+}
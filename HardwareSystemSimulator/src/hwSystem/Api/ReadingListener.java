@@ -0,0 +1,20 @@
+package hwSystem.Api;
+/**
+ * Receives every sensor reading and every received wireless message of a simulator,
+ * whether it was triggered by a command or through the typed API.
+ * Called on the thread executing the command, so implementations must return quickly.
+ */
+public interface ReadingListener {
+    /**
+     * Called after a sensor was read.
+     *
+     * @param reading The reading.
+     */
+    void sensorRead(SensorReading reading);
+    /**
+     * Called after a wireless IO device received a message.
+     *
+     * @param message The message.
+     */
+    void messageReceived(WirelessMessage message);
+}
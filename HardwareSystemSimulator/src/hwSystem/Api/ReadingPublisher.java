@@ -0,0 +1,293 @@
+package hwSystem.Api;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+/**
+ * Publishes items (sensor readings, wireless messages) to {@link Flow.Subscriber}s
+ * with demand-based backpressure.
+ *
+ * <p>Each subscriber has its own bounded buffer. One unit of demand is one
+ * {@code onNext} call, which delivers everything buffered for that subscriber as a
+ * batch: a subscriber that keeps up receives batches of one, a subscriber that falls
+ * behind receives fewer, larger batches instead of holding up the simulator. When a
+ * buffer is full the oldest item is dropped and counted in {@link #getDroppedCount()}.
+ *
+ * <p>Signals to a subscriber, {@code onSubscribe} included, are delivered one at a time
+ * on the executor, never on the thread that published the item or subscribed. All subscribers of publishers sharing an executor
+ * are served by its threads: a subscriber that blocks in {@code onNext} holds up the
+ * others on a single-threaded executor, so each {@link Simulator} delivers on its own
+ * thread. Signals that arrive after the executor was shut down, e.g. a late
+ * {@code subscribe}, are delivered on the calling thread.
+ *
+ * @param <T> The item type.
+ */
+public class ReadingPublisher<T> implements Flow.Publisher<List<T>> {
+    /** Default number of items buffered per subscriber. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final ExecutorService DELIVERY = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reading-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor executor;
+    private final int capacity;
+    private final LongAdder dropped = new LongAdder();
+    // Replaced, never modified, so publish() iterates without locking
+    private volatile ArrayList<ReadingSubscription> subscriptions = new ArrayList<>();
+    private boolean closed;
+    /**
+     * Constructs a publisher delivering on a background thread shared by all publishers
+     * constructed this way, which is never shut down.
+     */
+    public ReadingPublisher() {
+        this(DELIVERY, DEFAULT_CAPACITY);
+    }
+    /**
+     * Constructs a publisher.
+     *
+     * @param executor The executor delivering the signals to subscribers.
+     * @param capacity The number of items buffered per subscriber.
+     */
+    public ReadingPublisher(Executor executor, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<T>> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        ReadingSubscription subscription = new ReadingSubscription(subscriber);
+        boolean alreadyClosed;
+        synchronized (this) {
+            alreadyClosed = closed;
+            if (!alreadyClosed) {
+                ArrayList<ReadingSubscription> copy = new ArrayList<>(subscriptions);
+                copy.add(subscription);
+                subscriptions = copy;
+            }
+        }
+        // onSubscribe is the first signal of the drain loop, so it never overlaps onNext
+        if (alreadyClosed) subscription.complete();
+        else subscription.schedule();
+    }
+    /**
+     * Offers an item to every current subscriber.
+     *
+     * @param item The item.
+     */
+    public void publish(T item) {
+        Iterator<ReadingSubscription> it = subscriptions.iterator();
+        while (it.hasNext()) {
+            it.next().offer(item);
+        }
+    }
+    /**
+     * Returns whether there is at least one subscriber, so callers can skip building items.
+     *
+     * @return true if items are delivered to someone.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+    /**
+     * Returns the number of items dropped because a subscriber's buffer was full.
+     *
+     * @return The dropped item count over all subscribers.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    /**
+     * Completes every subscriber once its buffered items are delivered.
+     * Later subscribers are completed immediately.
+     */
+    public void close() {
+        ArrayList<ReadingSubscription> current;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            current = subscriptions;
+        }
+        Iterator<ReadingSubscription> it = current.iterator();
+        while (it.hasNext()) {
+            it.next().complete();
+        }
+    }
+
+    private synchronized void remove(ReadingSubscription subscription) {
+        if (!subscriptions.contains(subscription)) return;
+        ArrayList<ReadingSubscription> copy = new ArrayList<>(subscriptions);
+        copy.remove(subscription);
+        subscriptions = copy;
+    }
+    /**
+     * The buffer and demand of one subscriber. Item state is guarded by the
+     * subscription's lock; delivery runs on the executor, one drain at a time.
+     */
+    private final class ReadingSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super List<T>> subscriber;
+        private final Object[] buffer = new Object[capacity];
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private int head;
+        private int count;
+        private long demand;
+        // Touched only by the drain loop
+        private boolean subscribed;
+        private boolean completed;
+        private boolean terminated;
+        private Throwable error;
+
+        ReadingSubscription(Flow.Subscriber<? super List<T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(T item) {
+            synchronized (this) {
+                if (terminated) return;
+                if (count == buffer.length) {
+                    // Full: the oldest item makes room
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                    count--;
+                    dropped.increment();
+                }
+                buffer[(head + count) % buffer.length] = item;
+                count++;
+                if (demand == 0) return;
+            }
+            schedule();
+        }
+
+        void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (terminated) return;
+                if (n <= 0) {
+                    error = new IllegalArgumentException("non-positive request: " + n);
+                } else {
+                    demand += n;
+                    if (demand < 0) demand = Long.MAX_VALUE;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                terminated = true;
+                clear();
+            }
+            remove(this);
+        }
+
+        private void schedule() {
+            if (pendingDrains.getAndIncrement() != 0) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The executor was shut down with its simulator; only final signals are left
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                drain();
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+
+        private void drain() {
+            if (!subscribed) {
+                subscribed = true;
+                try {
+                    subscriber.onSubscribe(this);
+                } catch (RuntimeException e) {
+                    // A failing subscriber is treated as cancelled
+                    cancel();
+                    return;
+                }
+            }
+            while (true) {
+                List<T> batch = null;
+                Throwable failure = null;
+                boolean done = false;
+                synchronized (this) {
+                    if (terminated) return;
+                    if (error != null) {
+                        failure = error;
+                        terminated = true;
+                        clear();
+                    } else if (demand > 0 && count > 0) {
+                        batch = takeAll();
+                        demand--;
+                    } else if (completed && count == 0) {
+                        done = true;
+                        terminated = true;
+                    } else {
+                        return;
+                    }
+                }
+                if (failure != null) {
+                    remove(this);
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (done) {
+                    remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                try {
+                    subscriber.onNext(batch);
+                } catch (RuntimeException e) {
+                    // A failing subscriber is treated as cancelled
+                    cancel();
+                    return;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<T> takeAll() {
+            ArrayList<T> batch = new ArrayList<>(count);
+            while (count > 0) {
+                batch.add((T) buffer[head]);
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                count--;
+            }
+            return batch;
+        }
+
+        private void clear() {
+            while (count > 0) {
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                count--;
+            }
+        }
+    }
+}
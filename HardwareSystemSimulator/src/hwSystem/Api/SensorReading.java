@@ -0,0 +1,126 @@
+package hwSystem.Api;
+
+import hwSystem.Devices.Sensor;
+/**
+ * One reading of a sensor, as returned by the typed simulator API.
+ * Temperature sensors fill in the temperature; IMU sensors fill in acceleration
+ * and rotation. Values a sensor does not have are NaN. The text printed by readSensor
+ * is only formatted when {@link #getText()} is called.
+ */
+public final class SensorReading {
+    private final int devID;
+    private final int portID;
+    private final String name;
+    private final String sensorType;
+    private final float temperature;
+    private final float accel;
+    private final float rot;
+    // Formatted on first use unless given
+    private String text;
+    /**
+     * Constructs a reading whose text is formatted when it is requested.
+     *
+     * @param devID       The devID of the sensor.
+     * @param portID      The port the sensor is connected to.
+     * @param name        The device name, e.g. "DHT11".
+     * @param sensorType  "TempSensor" or "IMUSensor".
+     * @param temperature The temperature in Celsius, or NaN.
+     * @param accel       The acceleration, or NaN.
+     * @param rot         The rotation, or NaN.
+     */
+    public SensorReading(int devID, int portID, String name, String sensorType, float temperature, float accel, float rot) {
+        this(devID, portID, name, sensorType, temperature, accel, rot, null);
+    }
+    /**
+     * Constructs a reading.
+     *
+     * @param devID       The devID of the sensor.
+     * @param portID      The port the sensor is connected to.
+     * @param name        The device name, e.g. "DHT11".
+     * @param sensorType  "TempSensor" or "IMUSensor".
+     * @param temperature The temperature in Celsius, or NaN.
+     * @param accel       The acceleration, or NaN.
+     * @param rot         The rotation, or NaN.
+     * @param text        The line readSensor prints for this reading, or null to format it when requested.
+     */
+    public SensorReading(int devID, int portID, String name, String sensorType, float temperature, float accel, float rot, String text) {
+        this.devID = devID;
+        this.portID = portID;
+        this.name = name;
+        this.sensorType = sensorType;
+        this.temperature = temperature;
+        this.accel = accel;
+        this.rot = rot;
+        this.text = text;
+    }
+    /**
+     * Returns the devID of the sensor.
+     *
+     * @return The devID.
+     */
+    public int getDevID() {
+        return devID;
+    }
+    /**
+     * Returns the port the sensor is connected to.
+     *
+     * @return The portID.
+     */
+    public int getPortID() {
+        return portID;
+    }
+    /**
+     * Returns the device name.
+     *
+     * @return The name, e.g. "DHT11".
+     */
+    public String getName() {
+        return name;
+    }
+    /**
+     * Returns the sensor type.
+     *
+     * @return "TempSensor" or "IMUSensor".
+     */
+    public String getSensorType() {
+        return sensorType;
+    }
+    /**
+     * Returns the temperature.
+     *
+     * @return The temperature in Celsius, or NaN for an IMU sensor.
+     */
+    public float getTemperature() {
+        return temperature;
+    }
+    /**
+     * Returns the acceleration.
+     *
+     * @return The acceleration, or NaN for a temperature sensor.
+     */
+    public float getAccel() {
+        return accel;
+    }
+    /**
+     * Returns the rotation.
+     *
+     * @return The rotation, or NaN for a temperature sensor.
+     */
+    public float getRot() {
+        return rot;
+    }
+    /**
+     * Returns the reading formatted like the output of the readSensor command.
+     *
+     * @return The formatted reading.
+     */
+    public String getText() {
+        if (text == null) text = Sensor.formatReading(name, sensorType, temperature, accel, rot);
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
@@ -0,0 +1,457 @@
+package hwSystem.Api;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.Devices.Device;
+import hwSystem.Devices.DeviceChange;
+import hwSystem.hwSystem;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+/**
+ * Typed API for embedding the simulator in a Java program, e.g. a test harness.
+ *
+ * <p>Operations call the simulator directly, without formatting a command line and
+ * parsing it again. An operation the command interface would reject throws a
+ * {@link SimulatorException} carrying the message the command would print after
+ * "Error: ". Port logs are the same as when the equivalent commands are executed.
+ *
+ * <p>Every operation has a synchronous form, which runs on the calling thread, and
+ * an asynchronous form returning a {@link CompletableFuture}. Asynchronous operations
+ * run on one worker thread per simulator in the order they were submitted. Both forms
+ * hold the simulator's lock while they run, so one simulator can be shared between
+ * threads.
+ *
+ * <p>Sensor readings and received wireless messages are also available as
+ * {@link Flow.Publisher}s ({@link #sensorReadings(int)}, {@link #wirelessMessages(int)}),
+ * fed by every read, including reads by commands such as pollSensors. Device changes
+ * (add, remove, ON, OFF, motor speed) are available the same way from {@link #changes()},
+ * and can be caught up on with {@link #changesSince(long)}. Their subscribers are
+ * called on one delivery thread per simulator.
+ *
+ * <p>Device messages such as "DHT11: Turning ON." go to System.out, or to the console
+ * stream given to the constructor.
+ */
+public class Simulator implements AutoCloseable {
+    private final hwSystem system;
+    private final PrintStream console;
+    private final ExecutorService worker;
+    // Delivers to the subscribers of this simulator's publishers
+    private final ExecutorService delivery;
+    // Publishers by devID, guarded by the simulator's lock
+    private final ArrayList<ReadingPublisher<SensorReading>> sensorPublishers = new ArrayList<>();
+    private final ArrayList<ReadingPublisher<WirelessMessage>> wirelessPublishers = new ArrayList<>();
+    private ReadingPublisher<DeviceChange> changePublisher;
+    private final ReadingListener listener = new ReadingListener() {
+        @Override
+        public void sensorRead(SensorReading reading) {
+            publish(sensorPublishers, reading.getDevID(), reading);
+        }
+
+        @Override
+        public void messageReceived(WirelessMessage message) {
+            publish(wirelessPublishers, message.getDevID(), message);
+        }
+    };
+    /**
+     * Creates a simulator and loads its configuration.
+     *
+     * @param configPath   The configuration file (text or binary).
+     * @param logDirectory The directory for the port logs.
+     */
+    public Simulator(String configPath, String logDirectory) {
+        this(configPath, logDirectory, null);
+    }
+    /**
+     * Creates a simulator whose device messages and errors go to the given stream.
+     *
+     * @param configPath   The configuration file (text or binary).
+     * @param logDirectory The directory for the port logs.
+     * @param console      The stream receiving the simulator's output, or null for System.out and System.err.
+     */
+    public Simulator(String configPath, String logDirectory, PrintStream console) {
+        this.system = new hwSystem(logDirectory);
+        this.console = console;
+        if (console != null) ConsoleRouter.install();
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulator-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reading-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        run(() -> system.loadConfiguration(configPath));
+    }
+    /**
+     * Adds a device to a port.
+     *
+     * @param model  The device model.
+     * @param portID The port to connect the device to.
+     * @param devID  The devID within the device's category.
+     * @throws SimulatorException If the device cannot be added.
+     */
+    public void addDevice(DeviceModel model, int portID, int devID) {
+        run(() -> system.addDevice(model.getCommandName(), portID, devID));
+    }
+    /**
+     * Adds a device to a port on the worker thread.
+     *
+     * @param model  The device model.
+     * @param portID The port to connect the device to.
+     * @param devID  The devID within the device's category.
+     * @return A future completed when the device was added.
+     */
+    public CompletableFuture<Void> addDeviceAsync(DeviceModel model, int portID, int devID) {
+        return CompletableFuture.runAsync(() -> addDevice(model, portID, devID), worker);
+    }
+    /**
+     * Removes the device connected to a port. The device must be OFF.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port has no device or the device is ON.
+     */
+    public void removeDevice(int portID) {
+        run(() -> system.removeDevice(portID));
+    }
+    /**
+     * Removes the device connected to a port on the worker thread.
+     *
+     * @param portID The port of the device.
+     * @return A future completed when the device was removed.
+     */
+    public CompletableFuture<Void> removeDeviceAsync(int portID) {
+        return CompletableFuture.runAsync(() -> removeDevice(portID), worker);
+    }
+    /**
+     * Turns ON the device connected to a port.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public void turnOn(int portID) {
+        run(() -> system.turnOn(portID));
+    }
+    /**
+     * Turns ON the device connected to a port on the worker thread.
+     *
+     * @param portID The port of the device.
+     * @return A future completed when the device is ON.
+     */
+    public CompletableFuture<Void> turnOnAsync(int portID) {
+        return CompletableFuture.runAsync(() -> turnOn(portID), worker);
+    }
+    /**
+     * Turns OFF the device connected to a port.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public void turnOff(int portID) {
+        run(() -> system.turnOff(portID));
+    }
+    /**
+     * Turns OFF the device connected to a port on the worker thread.
+     *
+     * @param portID The port of the device.
+     * @return A future completed when the device is OFF.
+     */
+    public CompletableFuture<Void> turnOffAsync(int portID) {
+        return CompletableFuture.runAsync(() -> turnOff(portID), worker);
+    }
+    /**
+     * Returns whether the device connected to a port is ON.
+     *
+     * @param portID The port of the device.
+     * @return true if the device is ON.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public boolean isOn(int portID) {
+        return call(() -> system.getDeviceState(portID) == Device.State.ON);
+    }
+    /**
+     * Returns whether the device connected to a port is ON, on the worker thread.
+     *
+     * @param portID The port of the device.
+     * @return A future with true if the device is ON.
+     */
+    public CompletableFuture<Boolean> isOnAsync(int portID) {
+        return CompletableFuture.supplyAsync(() -> isOn(portID), worker);
+    }
+    /**
+     * Reads a sensor.
+     *
+     * @param devID The devID of the sensor.
+     * @return The reading.
+     * @throws SimulatorException If there is no such sensor or it is OFF.
+     */
+    public SensorReading readSensor(int devID) {
+        return call(() -> system.readSensor(devID));
+    }
+    /**
+     * Reads a sensor on the worker thread.
+     *
+     * @param devID The devID of the sensor.
+     * @return A future with the reading.
+     */
+    public CompletableFuture<SensorReading> readSensorAsync(int devID) {
+        return CompletableFuture.supplyAsync(() -> readSensor(devID), worker);
+    }
+    /**
+     * Prints a message on a display.
+     *
+     * @param devID   The devID of the display.
+     * @param message The text to print.
+     * @throws SimulatorException If there is no such display or it is OFF.
+     */
+    public void printDisplay(int devID, String message) {
+        run(() -> system.printDisplay(devID, message));
+    }
+    /**
+     * Prints a message on a display on the worker thread.
+     *
+     * @param devID   The devID of the display.
+     * @param message The text to print.
+     * @return A future completed when the message was printed.
+     */
+    public CompletableFuture<Void> printDisplayAsync(int devID, String message) {
+        return CompletableFuture.runAsync(() -> printDisplay(devID, message), worker);
+    }
+    /**
+     * Sends a message via a wireless IO device.
+     *
+     * @param devID   The devID of the wireless IO device.
+     * @param message The text to send.
+     * @throws SimulatorException If there is no such device or it is OFF.
+     */
+    public void writeWireless(int devID, String message) {
+        run(() -> system.writeWireless(devID, message));
+    }
+    /**
+     * Sends a message via a wireless IO device on the worker thread.
+     *
+     * @param devID   The devID of the wireless IO device.
+     * @param message The text to send.
+     * @return A future completed when the message was sent.
+     */
+    public CompletableFuture<Void> writeWirelessAsync(int devID, String message) {
+        return CompletableFuture.runAsync(() -> writeWireless(devID, message), worker);
+    }
+    /**
+     * Receives the last message of a wireless IO device.
+     *
+     * @param devID The devID of the wireless IO device.
+     * @return The received message.
+     * @throws SimulatorException If there is no such device or it is OFF.
+     */
+    public String readWireless(int devID) {
+        return call(() -> system.readWireless(devID));
+    }
+    /**
+     * Receives the last message of a wireless IO device on the worker thread.
+     *
+     * @param devID The devID of the wireless IO device.
+     * @return A future with the received message.
+     */
+    public CompletableFuture<String> readWirelessAsync(int devID) {
+        return CompletableFuture.supplyAsync(() -> readWireless(devID), worker);
+    }
+    /**
+     * Sets the speed of a motor driver.
+     *
+     * @param devID The devID of the motor driver.
+     * @param speed The new speed.
+     * @throws SimulatorException If there is no such motor driver or it is OFF.
+     */
+    public void setMotorSpeed(int devID, int speed) {
+        run(() -> system.setMotorSpeed(devID, speed));
+    }
+    /**
+     * Sets the speed of a motor driver on the worker thread.
+     *
+     * @param devID The devID of the motor driver.
+     * @param speed The new speed.
+     * @return A future completed when the speed was set.
+     */
+    public CompletableFuture<Void> setMotorSpeedAsync(int devID, int speed) {
+        return CompletableFuture.runAsync(() -> setMotorSpeed(devID, speed), worker);
+    }
+    /**
+     * Returns the stream of readings of the sensor with the given devID. Subscribers
+     * receive the readings taken after they subscribed, in batches (see {@link ReadingPublisher}).
+     * The stream follows the devID, also across removing and adding sensors, and
+     * completes when the simulator is closed.
+     *
+     * @param devID The devID of the sensor.
+     * @return The publisher of the sensor's readings.
+     */
+    public Flow.Publisher<List<SensorReading>> sensorReadings(int devID) {
+        return call(() -> publisher(sensorPublishers, devID));
+    }
+    /**
+     * Returns the stream of messages received by the wireless IO device with the given devID.
+     *
+     * @param devID The devID of the wireless IO device.
+     * @return The publisher of the received messages.
+     */
+    public Flow.Publisher<List<WirelessMessage>> wirelessMessages(int devID) {
+        return call(() -> publisher(wirelessPublishers, devID));
+    }
+    /**
+     * Returns the stream of device changes. Subscribers receive the changes made after
+     * they subscribed, in sequence order and in batches (see {@link ReadingPublisher}).
+     * To mirror the device state, subscribe first and then catch up with
+     * {@link #changesSince(long)}, skipping changes already seen by sequence number.
+     *
+     * @return The publisher of device changes.
+     */
+    public Flow.Publisher<List<DeviceChange>> changes() {
+        return call(() -> {
+            if (changePublisher == null) {
+                changePublisher = new ReadingPublisher<>(delivery, ReadingPublisher.DEFAULT_CAPACITY);
+                system.getChangeFeed().setListener(changePublisher::publish);
+            }
+            return changePublisher;
+        });
+    }
+    /**
+     * Returns the device changes after the given sequence number, oldest first.
+     *
+     * @param seq The last sequence number seen (0 for all changes).
+     * @return The changes.
+     * @throws SimulatorException If some of the changes are no longer kept.
+     */
+    public List<DeviceChange> changesSince(long seq) {
+        return call(() -> {
+            List<DeviceChange> changes = system.getChangeFeed().since(seq);
+            if (changes == null) {
+                throw new SimulatorException("Changes after " + seq + " are no longer kept (oldest kept: "
+                        + system.getChangeFeed().getOldestSeq() + ").");
+            }
+            return changes;
+        });
+    }
+    /**
+     * Returns the device changes after the given sequence number on the worker thread.
+     *
+     * @param seq The last sequence number seen (0 for all changes).
+     * @return A future with the changes.
+     */
+    public CompletableFuture<List<DeviceChange>> changesSinceAsync(long seq) {
+        return CompletableFuture.supplyAsync(() -> changesSince(seq), worker);
+    }
+    /**
+     * Executes a command line, for commands without a typed form (e.g. "setSignal").
+     * Output and errors are printed as in the command interface.
+     *
+     * @param command The command line.
+     */
+    public void execute(String command) {
+        run(() -> system.execute(command));
+    }
+    /**
+     * Executes a command line on the worker thread.
+     *
+     * @param command The command line.
+     * @return A future completed when the command was executed.
+     */
+    public CompletableFuture<Void> executeAsync(String command) {
+        return CompletableFuture.runAsync(() -> execute(command), worker);
+    }
+    /**
+     * Writes the port logs to the log directory, like the exit command.
+     */
+    public void writeLogs() {
+        run(system::writeLogs);
+    }
+    /**
+     * Writes the port logs to the log directory on the worker thread.
+     *
+     * @return A future completed when the logs were written.
+     */
+    public CompletableFuture<Void> writeLogsAsync() {
+        return CompletableFuture.runAsync(this::writeLogs, worker);
+    }
+    /**
+     * Finishes the asynchronous operations already submitted and releases the
+     * simulator. The port logs are not written; call {@link #writeLogs()} first.
+     * The streams complete once their buffered items are delivered, and the
+     * delivery thread then ends.
+     */
+    @Override
+    public void close() {
+        worker.shutdown();
+        try {
+            while (!worker.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting for the submitted operations
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        run(() -> {
+            system.setReadingListener(null);
+            system.getChangeFeed().setListener(null);
+            if (changePublisher != null) changePublisher.close();
+            closePublishers(sensorPublishers);
+            closePublishers(wirelessPublishers);
+            system.close();
+        });
+        // Buffered items and the completions are still delivered
+        delivery.shutdown();
+    }
+
+    private <T> ReadingPublisher<T> publisher(ArrayList<ReadingPublisher<T>> publishers, int devID) {
+        if (devID < 0) throw new SimulatorException("Invalid devID.");
+        while (publishers.size() <= devID) publishers.add(null);
+        ReadingPublisher<T> publisher = publishers.get(devID);
+        if (publisher == null) {
+            publisher = new ReadingPublisher<>(delivery, ReadingPublisher.DEFAULT_CAPACITY);
+            publishers.set(devID, publisher);
+            system.setReadingListener(listener);
+        }
+        return publisher;
+    }
+
+    private static <T> void publish(ArrayList<ReadingPublisher<T>> publishers, int devID, T item) {
+        if (devID >= publishers.size()) return;
+        ReadingPublisher<T> publisher = publishers.get(devID);
+        if (publisher != null) publisher.publish(item);
+    }
+
+    private static <T> void closePublishers(ArrayList<ReadingPublisher<T>> publishers) {
+        Iterator<ReadingPublisher<T>> it = publishers.iterator();
+        while (it.hasNext()) {
+            ReadingPublisher<T> publisher = it.next();
+            if (publisher != null) publisher.close();
+        }
+    }
+
+    private void run(Runnable operation) {
+        call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    private <T> T call(Supplier<T> operation) {
+        synchronized (system) {
+            if (console == null) return operation.get();
+            PrintStream out = ConsoleRouter.currentOut();
+            PrintStream err = ConsoleRouter.currentErr();
+            ConsoleRouter.bind(console, console);
+            try {
+                return operation.get();
+            } finally {
+                ConsoleRouter.bind(out, err);
+            }
+        }
+    }
+}
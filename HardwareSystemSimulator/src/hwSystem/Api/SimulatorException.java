@@ -0,0 +1,17 @@
+package hwSystem.Api;
+/**
+ * Thrown by the typed simulator API when an operation is rejected.
+ * The message is the text the command interface prints after "Error: ",
+ * e.g. "Device is OFF. Turn it ON to read data."
+ */
+public class SimulatorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Constructs an exception with the given message.
+     *
+     * @param message The reason the operation was rejected.
+     */
+    public SimulatorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,61 @@
+package hwSystem.Api;
+/**
+ * A message received by a wireless IO device, as published by the typed simulator API.
+ */
+public final class WirelessMessage {
+    private final int devID;
+    private final int portID;
+    private final String name;
+    private final String text;
+    /**
+     * Constructs a message.
+     *
+     * @param devID  The devID of the wireless IO device.
+     * @param portID The port the device is connected to.
+     * @param name   The device name, e.g. "Bluetooth".
+     * @param text   The received text.
+     */
+    public WirelessMessage(int devID, int portID, String name, String text) {
+        this.devID = devID;
+        this.portID = portID;
+        this.name = name;
+        this.text = text;
+    }
+    /**
+     * Returns the devID of the wireless IO device.
+     *
+     * @return The devID.
+     */
+    public int getDevID() {
+        return devID;
+    }
+    /**
+     * Returns the port the device is connected to.
+     *
+     * @return The portID.
+     */
+    public int getPortID() {
+        return portID;
+    }
+    /**
+     * Returns the device name.
+     *
+     * @return The name, e.g. "Bluetooth".
+     */
+    public String getName() {
+        return name;
+    }
+    /**
+     * Returns the received text.
+     *
+     * @return The text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,128 @@
+package hwSystem;
+
+import hwSystem.Protocols.PortTable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+/**
+ * Binary form of the configuration, for configurations with very many ports.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * int     magic "HWC1"
+ * int     setting count, then per setting: UTF key, UTF value
+ * int     port count, then one byte per port: the protocol kind
+ * </pre>
+ * The port kinds are read in bulk, so loading is bounded by I/O.
+ * Create a binary configuration with {@link #compile(String, String)}.
+ */
+public final class BinaryConfig {
+    /** The magic number at the start of a binary configuration. */
+    public static final int MAGIC = 0x48574331;
+
+    private static final int CHUNK = 1 << 16;
+
+    private BinaryConfig() {
+    }
+    /**
+     * Returns whether a stream starts with a binary configuration.
+     * The stream position is not changed.
+     *
+     * @param in A stream that supports mark/reset.
+     * @return true if the stream starts with {@link #MAGIC}.
+     * @throws IOException If reading fails.
+     */
+    public static boolean isBinary(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        byte[] head = in.readNBytes(4);
+        in.reset();
+        return head.length == 4
+                && ((head[0] & 0xff) << 24 | (head[1] & 0xff) << 16 | (head[2] & 0xff) << 8 | (head[3] & 0xff)) == MAGIC;
+    }
+    /**
+     * Reads a binary configuration.
+     *
+     * @param in      The stream, positioned at the magic number.
+     * @param handler The receiver of the configuration.
+     * @throws IOException If reading fails or the data is not a valid configuration.
+     */
+    public static void read(InputStream in, ConfigReader.Handler handler) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a binary configuration.");
+        }
+        int settings = data.readInt();
+        int i = 0;
+        while (i < settings) {
+            String key = data.readUTF();
+            handler.setting(key, data.readUTF());
+            i++;
+        }
+        int remaining = data.readInt();
+        byte[] kinds = new byte[CHUNK];
+        while (remaining > 0) {
+            int count = Math.min(remaining, CHUNK);
+            data.readFully(kinds, 0, count);
+            int k = 0;
+            while (k < count) {
+                if (kinds[k] < 0 || kinds[k] >= PortTable.KIND_NAMES.length) {
+                    throw new IOException("Invalid protocol kind in binary configuration: " + kinds[k]);
+                }
+                k++;
+            }
+            handler.ports(kinds, count);
+            remaining -= count;
+        }
+    }
+    /**
+     * Converts a text configuration into a binary configuration.
+     *
+     * @param textPath   The text configuration.
+     * @param binaryPath The binary configuration to write.
+     * @return The number of ports written.
+     * @throws IOException If reading or writing fails.
+     */
+    public static int compile(String textPath, String binaryPath) throws IOException {
+        ArrayList<String> settings = new ArrayList<>();
+        byte[][] kinds = new byte[1][CHUNK];
+        int[] count = new int[1];
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(textPath))) {
+            new ConfigReader(reader).parse(new ConfigReader.Handler() {
+                @Override
+                public void setting(String key, String value) {
+                    settings.add(key);
+                    settings.add(value);
+                }
+
+                @Override
+                public void ports(byte[] newKinds, int n) {
+                    if (count[0] + n > kinds[0].length) {
+                        kinds[0] = Arrays.copyOf(kinds[0], Math.max(count[0] + n, kinds[0].length * 2));
+                    }
+                    System.arraycopy(newKinds, 0, kinds[0], count[0], n);
+                    count[0] += n;
+                }
+            });
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(settings.size() / 2);
+            int i = 0;
+            while (i < settings.size()) {
+                out.writeUTF(settings.get(i));
+                i++;
+            }
+            out.writeInt(count[0]);
+            out.write(kinds[0], 0, count[0]);
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,192 @@
+package hwSystem;
+
+import hwSystem.Protocols.PortTable;
+import java.io.IOException;
+import java.io.Reader;
+/**
+ * Streaming parser for the text configuration ("key: value" lines).
+ *
+ * <p>The input is read through a fixed-size buffer and never held as whole lines,
+ * so a "Port Configuration:" line with hundreds of thousands of ports is parsed
+ * item by item: each protocol name is matched in place against the known names and
+ * reported as a kind, without allocating a string per port.
+ */
+public class ConfigReader {
+    /**
+     * Receives the parsed configuration.
+     */
+    public interface Handler {
+        /**
+         * Called for every "key: value" line other than the port configuration.
+         *
+         * @param key   The trimmed key.
+         * @param value The trimmed value.
+         */
+        void setting(String key, String value);
+        /**
+         * Called with consecutive ports of the port configuration.
+         *
+         * @param kinds The protocol kinds (see {@link PortTable#KIND_NAMES}).
+         * @param count The number of kinds to take from the array.
+         */
+        void ports(byte[] kinds, int count);
+    }
+
+    private static final String PORT_KEY = "Port Configuration";
+    private static final int EOF = -1;
+
+    private final Reader in;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+    private char[] item = new char[32];
+    private final byte[] kinds = new byte[1 << 16];
+    private int kindCount;
+    /**
+     * Constructs a parser over a character stream.
+     *
+     * @param in The configuration text.
+     */
+    public ConfigReader(Reader in) {
+        this.in = in;
+    }
+    /**
+     * Parses the whole input.
+     * Unknown protocol names are reported on System.err and skipped.
+     *
+     * @param handler The receiver of the configuration.
+     * @throws IOException If reading fails.
+     */
+    public void parse(Handler handler) throws IOException {
+        StringBuilder key = new StringBuilder();
+        while (true) {
+            skipWhitespace(true);
+            if (peek() == EOF) break;
+            key.setLength(0);
+            int c = read();
+            while (c != EOF && c != '\n' && c != ':') {
+                key.append((char) c);
+                c = read();
+            }
+            if (c != ':') continue; // Not a "key: value" line
+            String name = key.toString().trim();
+            if (name.equals(PORT_KEY)) {
+                parsePorts(handler);
+            } else {
+                handler.setting(name, readRestOfLine().trim());
+            }
+        }
+    }
+
+    private void parsePorts(Handler handler) throws IOException {
+        int pendingEmpty = 0;
+        while (true) {
+            int length = readItem();
+            int end = peek();
+            if (length == 0) {
+                // Empty items are errors unless only empty items follow (like String.split)
+                pendingEmpty++;
+            } else {
+                while (pendingEmpty > 0) {
+                    unknownProtocol("");
+                    pendingEmpty--;
+                }
+                int kind = match(length);
+                if (kind >= 0) {
+                    kinds[kindCount] = (byte) kind;
+                    kindCount++;
+                    if (kindCount == kinds.length) flushPorts(handler);
+                } else {
+                    unknownProtocol(new String(item, 0, length));
+                }
+            }
+            if (end != ',') break;
+            read();
+        }
+        flushPorts(handler);
+    }
+
+    private void unknownProtocol(String name) {
+        System.err.println("Error: Unknown protocol in configuration: " + name);
+    }
+
+    private void flushPorts(Handler handler) {
+        if (kindCount == 0) return;
+        handler.ports(kinds, kindCount);
+        kindCount = 0;
+    }
+    /**
+     * Reads one list item up to a ',' or the end of the line, trimmed, into the item buffer.
+     */
+    private int readItem() throws IOException {
+        skipWhitespace(false);
+        int length = 0;
+        int trimmed = 0;
+        int c = peek();
+        while (c != EOF && c != '\n' && c != ',') {
+            if (length == item.length) {
+                char[] larger = new char[length * 2];
+                System.arraycopy(item, 0, larger, 0, length);
+                item = larger;
+            }
+            item[length] = (char) c;
+            length++;
+            if (c > ' ') trimmed = length;
+            read();
+            c = peek();
+        }
+        return trimmed;
+    }
+
+    private int match(int length) {
+        int kind = 0;
+        while (kind < PortTable.KIND_NAMES.length) {
+            String name = PortTable.KIND_NAMES[kind];
+            if (name.length() == length) {
+                int i = 0;
+                while (i < length && name.charAt(i) == item[i]) i++;
+                if (i == length) return kind;
+            }
+            kind++;
+        }
+        return -1;
+    }
+
+    private String readRestOfLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = read();
+        while (c != EOF && c != '\n') {
+            line.append((char) c);
+            c = read();
+        }
+        return line.toString();
+    }
+    /**
+     * Skips whitespace, including line breaks only if requested.
+     */
+    private void skipWhitespace(boolean lineBreaks) throws IOException {
+        int c = peek();
+        while (c != EOF && c <= ' ' && (lineBreaks || c != '\n')) {
+            read();
+            c = peek();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != EOF) position++;
+        return c;
+    }
+}
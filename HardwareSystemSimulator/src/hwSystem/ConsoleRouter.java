@@ -0,0 +1,155 @@
+package hwSystem;
+
+import java.io.PrintStream;
+import java.util.Locale;
+/**
+ * A PrintStream that forwards everything to a stream bound to the current thread.
+ * Once installed as System.out and System.err, devices and handlers keep printing
+ * to System.out as usual while each simulator instance (rig, client connection, ...)
+ * receives only its own output.
+ *
+ * <p>Threads without a binding print to the original console streams.
+ */
+public class ConsoleRouter extends PrintStream {
+    private static ConsoleRouter out;
+    private static ConsoleRouter err;
+
+    private final PrintStream fallback;
+    private final ThreadLocal<PrintStream> target;
+
+    private ConsoleRouter(PrintStream fallback) {
+        super(fallback, true);
+        this.fallback = fallback;
+        this.target = new ThreadLocal<>();
+    }
+    /**
+     * Replaces System.out and System.err with routing streams.
+     * Calling this method more than once has no further effect.
+     */
+    public static synchronized void install() {
+        if (out != null) return;
+        out = new ConsoleRouter(System.out);
+        err = new ConsoleRouter(System.err);
+        System.setOut(out);
+        System.setErr(err);
+    }
+    /**
+     * Routes the current thread's System.out and System.err to the given streams.
+     * {@link #install()} must have been called before.
+     *
+     * @param threadOut The stream receiving standard output of this thread.
+     * @param threadErr The stream receiving error output of this thread.
+     */
+    public static void bind(PrintStream threadOut, PrintStream threadErr) {
+        out.target.set(threadOut);
+        err.target.set(threadErr);
+    }
+    /**
+     * Routes the current thread back to the original console streams.
+     */
+    public static void unbind() {
+        out.target.remove();
+        err.target.remove();
+    }
+    /**
+     * Returns the stream the current thread's standard output goes to.
+     *
+     * @return The bound stream, the console output stream, or System.out if not installed.
+     */
+    public static PrintStream currentOut() {
+        return out == null ? System.out : out.current();
+    }
+    /**
+     * Returns the stream the current thread's error output goes to.
+     *
+     * @return The bound stream, the console error stream, or System.err if not installed.
+     */
+    public static PrintStream currentErr() {
+        return err == null ? System.err : err.current();
+    }
+    /**
+     * Returns the original standard output stream.
+     *
+     * @return The console output stream, or System.out if not installed.
+     */
+    public static PrintStream originalOut() {
+        return out == null ? System.out : out.fallback;
+    }
+    /**
+     * Returns the original error output stream.
+     *
+     * @return The console error stream, or System.err if not installed.
+     */
+    public static PrintStream originalErr() {
+        return err == null ? System.err : err.fallback;
+    }
+
+    private PrintStream current() {
+        PrintStream stream = target.get();
+        return stream == null ? fallback : stream;
+    }
+
+    @Override
+    public void write(int b) {
+        current().write(b);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        current().write(buf, off, len);
+    }
+
+    @Override
+    public void flush() {
+        current().flush();
+    }
+
+    @Override
+    public void print(String s) {
+        current().print(s);
+    }
+
+    @Override
+    public void print(Object obj) {
+        current().print(obj);
+    }
+
+    @Override
+    public void println() {
+        current().println();
+    }
+
+    @Override
+    public void println(String s) {
+        current().println(s);
+    }
+
+    @Override
+    public void println(Object obj) {
+        current().println(obj);
+    }
+
+    @Override
+    public PrintStream printf(String format, Object... args) {
+        current().printf(format, args);
+        return this;
+    }
+
+    @Override
+    public PrintStream printf(Locale l, String format, Object... args) {
+        current().printf(l, format, args);
+        return this;
+    }
+
+    @Override
+    public PrintStream format(String format, Object... args) {
+        current().format(format, args);
+        return this;
+    }
+
+    @Override
+    public PrintStream format(Locale l, String format, Object... args) {
+        current().format(l, format, args);
+        return this;
+    }
+}
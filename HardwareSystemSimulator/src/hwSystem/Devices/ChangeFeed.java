@@ -0,0 +1,209 @@
+package hwSystem.Devices;
+
+import java.util.ArrayList;
+/**
+ * Append-only feed of device changes (add, remove, ON, OFF, motor speed), numbered with
+ * a sequence number that increases by one per change.
+ *
+ * <p>Clients that mirror the device state read the full listing once and then only the
+ * changes after the last sequence number they have seen ({@link #since(long)}), instead
+ * of listing all ports again. The most recent changes, up to the retention limit, are
+ * kept in ring buffers of primitive columns; a client that falls further behind than that
+ * must list the ports again.
+ *
+ * <p>The feed is thread-safe. Pipeline lanes execute commands out of command order, so
+ * a lane holds the changes of each command ({@link #hold()}) and the pipeline records
+ * them in command order ({@link #recordAll(ArrayList)}); the sequence numbers are then
+ * the same as when the commands run one by one.
+ */
+public class ChangeFeed {
+    /**
+     * Receives every change as it is recorded.
+     */
+    public interface Listener {
+        /**
+         * Called after a change was recorded, in sequence order.
+         *
+         * @param change The change.
+         */
+        void changed(DeviceChange change);
+    }
+
+    /** Default number of changes kept. */
+    public static final int DEFAULT_RETENTION = 1 << 16;
+
+    private static final DeviceChange.Kind[] KINDS = DeviceChange.Kind.values();
+
+    private int retention = DEFAULT_RETENTION;
+    private byte[] kinds = new byte[16];
+    private int[] ports = new int[16];
+    private String[] names = new String[16];
+    private int[] devIDs = new int[16];
+    private int[] speeds = new int[16];
+    private int head;
+    private int count;
+    private long nextSeq = 1;
+    private Listener listener;
+    // Changes held by the calling thread instead of recorded, see hold()
+    private final ThreadLocal<ArrayList<DeviceChange>> held = new ThreadLocal<>();
+    /**
+     * Sets the number of changes kept. Older changes are dropped if there are more.
+     *
+     * @param retention The maximum number of changes kept (at least 1).
+     */
+    public synchronized void setRetention(int retention) {
+        if (retention < 1) throw new IllegalArgumentException("retention must be positive");
+        this.retention = retention;
+        while (count > retention) {
+            names[head] = null;
+            head = (head + 1) % kinds.length;
+            count--;
+        }
+        if (kinds.length > retention) resize(Math.max(count, 1));
+    }
+    /**
+     * Sets the listener receiving every new change.
+     *
+     * @param listener The listener, or null for none.
+     */
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+    /**
+     * Records a change.
+     *
+     * @param kind   The kind of change.
+     * @param portID The port of the device.
+     * @param name   The device name.
+     * @param devID  The devID of the device.
+     * @param speed  The new motor speed, or 0 for other kinds.
+     * @return The sequence number of the change, or 0 if the calling thread holds its changes.
+     */
+    public long record(DeviceChange.Kind kind, int portID, String name, int devID, int speed) {
+        ArrayList<DeviceChange> changes = held.get();
+        if (changes != null) {
+            changes.add(new DeviceChange(0, kind, portID, name, devID, speed));
+            return 0;
+        }
+        return append(kind, portID, name, devID, speed);
+    }
+    /**
+     * Records changes returned by {@link #takeHeld()}, numbering them in list order.
+     *
+     * @param changes The changes; their sequence numbers are ignored.
+     */
+    public synchronized void recordAll(ArrayList<DeviceChange> changes) {
+        int i = 0;
+        while (i < changes.size()) {
+            DeviceChange change = changes.get(i);
+            append(change.getKind(), change.getPortID(), change.getName(), change.getDevID(), change.getSpeed());
+            i++;
+        }
+    }
+    /**
+     * Makes the calling thread hold its changes until {@link #takeHeld()} instead of
+     * recording them.
+     */
+    public void hold() {
+        held.set(new ArrayList<>());
+    }
+    /**
+     * Returns the changes the calling thread has held since the last call.
+     *
+     * @return The changes, or null if there are none.
+     */
+    public ArrayList<DeviceChange> takeHeld() {
+        ArrayList<DeviceChange> changes = held.get();
+        if (changes == null || changes.isEmpty()) return null;
+        held.set(new ArrayList<>());
+        return changes;
+    }
+    /**
+     * Makes the calling thread record its changes again.
+     */
+    public void release() {
+        held.remove();
+    }
+
+    private synchronized long append(DeviceChange.Kind kind, int portID, String name, int devID, int speed) {
+        if (count == kinds.length && count < retention) {
+            resize(Math.min(count * 2, retention));
+        }
+        int slot;
+        if (count == kinds.length) {
+            // Full: overwrite the oldest change
+            slot = head;
+            head = (head + 1) % kinds.length;
+        } else {
+            slot = (head + count) % kinds.length;
+            count++;
+        }
+        kinds[slot] = (byte) kind.ordinal();
+        ports[slot] = portID;
+        names[slot] = name;
+        devIDs[slot] = devID;
+        speeds[slot] = speed;
+        long seq = nextSeq;
+        nextSeq++;
+        if (listener != null) listener.changed(new DeviceChange(seq, kind, portID, name, devID, speed));
+        return seq;
+    }
+    /**
+     * Returns the sequence number of the latest change.
+     *
+     * @return The latest sequence number, or 0 if nothing changed yet.
+     */
+    public synchronized long getLatestSeq() {
+        return nextSeq - 1;
+    }
+    /**
+     * Returns the sequence number of the oldest change still kept.
+     *
+     * @return The oldest kept sequence number; {@link #getLatestSeq()} + 1 if none is kept.
+     */
+    public synchronized long getOldestSeq() {
+        return nextSeq - count;
+    }
+    /**
+     * Returns the changes after the given sequence number, oldest first.
+     *
+     * @param seq The last sequence number the caller has seen (0 for all changes).
+     * @return The changes, or null if some of them are no longer kept.
+     */
+    public synchronized ArrayList<DeviceChange> since(long seq) {
+        long oldest = nextSeq - count;
+        if (seq < oldest - 1) return null;
+        ArrayList<DeviceChange> changes = new ArrayList<>();
+        long current = Math.max(seq + 1, oldest);
+        while (current < nextSeq) {
+            int slot = (int) ((head + (current - oldest)) % kinds.length);
+            changes.add(new DeviceChange(current, KINDS[kinds[slot]], ports[slot], names[slot], devIDs[slot], speeds[slot]));
+            current++;
+        }
+        return changes;
+    }
+
+    private void resize(int capacity) {
+        byte[] newKinds = new byte[capacity];
+        int[] newPorts = new int[capacity];
+        String[] newNames = new String[capacity];
+        int[] newDevIDs = new int[capacity];
+        int[] newSpeeds = new int[capacity];
+        int i = 0;
+        while (i < count) {
+            int slot = (head + i) % kinds.length;
+            newKinds[i] = kinds[slot];
+            newPorts[i] = ports[slot];
+            newNames[i] = names[slot];
+            newDevIDs[i] = devIDs[slot];
+            newSpeeds[i] = speeds[slot];
+            i++;
+        }
+        kinds = newKinds;
+        ports = newPorts;
+        names = newNames;
+        devIDs = newDevIDs;
+        speeds = newSpeeds;
+        head = 0;
+    }
+}
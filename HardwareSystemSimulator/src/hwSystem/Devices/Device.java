@@ -10,10 +10,11 @@ public abstract class Device {
      * The communication protocol used by the device.
      */
     protected Protocol protocol;
-    /**
-     * The current state of the device (ON or OFF).
-     */
-    protected State state;
+    // The state (ON or OFF) while the device has no row in a device table
+    private State state;
+    // The device table row holding the state, if any
+    private DeviceStore store;
+    private int slot;
     /**
      * Constructs a device with the specified communication protocol.
      * Devices are OFF by default upon creation.
@@ -30,7 +31,42 @@ public abstract class Device {
      * @return The state of the device.
      */
     public State getState() {
-        return state;
+        DeviceStore rows = store;
+        if (rows == null) return state;
+        return (rows.getFlags(slot) & DeviceStore.FLAG_ON) != 0 ? State.ON : State.OFF;
+    }
+    /**
+     * Changes the ON/OFF state of the device, in its device table row if it has one.
+     *
+     * @param newState The new state.
+     */
+    protected void setState(State newState) {
+        DeviceStore rows = store;
+        if (rows == null) {
+            state = newState;
+            return;
+        }
+        byte flags = rows.getFlags(slot);
+        rows.setFlags(slot, (byte) (newState == State.ON ? flags | DeviceStore.FLAG_ON : flags & ~DeviceStore.FLAG_ON));
+    }
+    /**
+     * Moves the state of the device into a device table row, which holds it from now on.
+     *
+     * @param rows The store of the table.
+     * @param row  The row of the device's port.
+     */
+    void bind(DeviceStore rows, int row) {
+        rows.setFlags(row, getState() == State.ON ? DeviceStore.FLAG_ON : 0);
+        this.slot = row;
+        this.store = rows;
+    }
+    /**
+     * Takes the state of the device back from its device table row, e.g. when the
+     * device is removed and the row may be reused.
+     */
+    void unbind() {
+        state = getState();
+        store = null;
     }
     /**
      * Returns the communication protocol associated with the device.
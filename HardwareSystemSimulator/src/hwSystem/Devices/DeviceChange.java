@@ -0,0 +1,115 @@
+package hwSystem.Devices;
+/**
+ * One entry of the {@link ChangeFeed}: a device was added, removed, turned ON or OFF,
+ * or a motor speed was set.
+ */
+public final class DeviceChange {
+    /**
+     * The kinds of change, named after the command that causes them.
+     */
+    public enum Kind {
+        ADDED("addDev"),
+        REMOVED("rmDev"),
+        TURNED_ON("turnON"),
+        TURNED_OFF("turnOFF"),
+        SPEED_SET("setMotorSpeed");
+
+        private final String command;
+
+        Kind(String command) {
+            this.command = command;
+        }
+        /**
+         * Returns the command that causes this kind of change.
+         *
+         * @return The command verb, e.g. "turnON".
+         */
+        public String getCommand() {
+            return command;
+        }
+    }
+
+    private final long seq;
+    private final Kind kind;
+    private final int portID;
+    private final String name;
+    private final int devID;
+    private final int speed;
+    /**
+     * Constructs a change.
+     *
+     * @param seq    The sequence number of the change.
+     * @param kind   The kind of change.
+     * @param portID The port of the device.
+     * @param name   The device name, e.g. "DHT11".
+     * @param devID  The devID of the device.
+     * @param speed  The new motor speed, or 0 for other kinds.
+     */
+    public DeviceChange(long seq, Kind kind, int portID, String name, int devID, int speed) {
+        this.seq = seq;
+        this.kind = kind;
+        this.portID = portID;
+        this.name = name;
+        this.devID = devID;
+        this.speed = speed;
+    }
+    /**
+     * Returns the sequence number. Numbers start at 1 and increase by one per change.
+     *
+     * @return The sequence number.
+     */
+    public long getSeq() {
+        return seq;
+    }
+    /**
+     * Returns the kind of change.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+    /**
+     * Returns the port of the device.
+     *
+     * @return The portID.
+     */
+    public int getPortID() {
+        return portID;
+    }
+    /**
+     * Returns the device name.
+     *
+     * @return The name, e.g. "DHT11".
+     */
+    public String getName() {
+        return name;
+    }
+    /**
+     * Returns the devID of the device.
+     *
+     * @return The devID.
+     */
+    public int getDevID() {
+        return devID;
+    }
+    /**
+     * Returns the new motor speed of a {@link Kind#SPEED_SET} change.
+     *
+     * @return The speed, or 0 for other kinds.
+     */
+    public int getSpeed() {
+        return speed;
+    }
+    /**
+     * Returns the change as printed by the changesSince command,
+     * e.g. "7 turnON 0 DHT11 0" or "8 setMotorSpeed 1 PCA9685 0 100".
+     *
+     * @return The formatted change.
+     */
+    @Override
+    public String toString() {
+        String text = seq + " " + kind.getCommand() + " " + portID + " " + name + " " + devID;
+        return kind == Kind.SPEED_SET ? text + " " + speed : text;
+    }
+}
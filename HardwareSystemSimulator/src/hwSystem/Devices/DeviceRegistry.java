@@ -0,0 +1,241 @@
+package hwSystem.Devices;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+/**
+ * The connected devices, by portID and by devID per category, published in immutable
+ * snapshots so that commands can read them without locks while devices are added and
+ * removed.
+ *
+ * <p>A reader loads the current {@link Snapshot} with one volatile read and sees a
+ * consistent state: a device is either on its port and in its category, or in neither.
+ * {@code addDev} and {@code rmDev} copy only what they change and publish a new snapshot
+ * with one volatile write (copy-on-write). The slots are kept in chunks of
+ * {@value #CHUNK_SIZE}, so a change copies one chunk and the short array of chunks,
+ * not all ports. Writers are serialized among themselves; readers never wait for them
+ * and keep using the snapshot they loaded until they load the next one.
+ */
+public class DeviceRegistry {
+    /** Slots per chunk. */
+    public static final int CHUNK_SIZE = 256;
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Shared by all chunks not written yet; copied before the first write
+    private static final Object[] EMPTY_CHUNK = new Object[CHUNK_SIZE];
+    /**
+     * An immutable array of device slots. Empty slots hold null.
+     *
+     * @param <T> The type of device in the slots.
+     */
+    public static final class Slots<T extends Device> implements Iterable<T> {
+        private static final Slots<Device> EMPTY = new Slots<>(new Object[0][], 0);
+
+        private final Object[][] chunks;
+        private final int size;
+
+        private Slots(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+        /**
+         * Returns the number of slots.
+         *
+         * @return The slot count.
+         */
+        public int size() {
+            return size;
+        }
+        /**
+         * Returns the device in a slot.
+         *
+         * @param index The slot.
+         * @return The device, or null if the slot is empty.
+         * @throws IndexOutOfBoundsException If the slot does not exist, as for an ArrayList.
+         */
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return (T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public T next() {
+                    if (next >= size) throw new NoSuchElementException();
+                    T device = get(next);
+                    next++;
+                    return device;
+                }
+            };
+        }
+        /**
+         * Returns a copy with one slot changed, growing the slots up to it with empty ones.
+         */
+        private Slots<T> with(int index, Device device) {
+            Slots<T> grown = grow(index + 1);
+            Object[][] copy = grown == this ? chunks.clone() : grown.chunks;
+            Object[] chunk = copy[index >>> CHUNK_BITS].clone();
+            chunk[index & CHUNK_MASK] = device;
+            copy[index >>> CHUNK_BITS] = chunk;
+            return new Slots<>(copy, grown.size);
+        }
+        /**
+         * Returns a copy with at least the given number of slots, or this if it has them.
+         */
+        private Slots<T> grow(int minSize) {
+            if (minSize <= size) return this;
+            int chunkCount = (minSize + CHUNK_MASK) >>> CHUNK_BITS;
+            Object[][] copy = Arrays.copyOf(chunks, chunkCount);
+            Arrays.fill(copy, chunks.length, chunkCount, EMPTY_CHUNK);
+            return new Slots<>(copy, minSize);
+        }
+    }
+    /**
+     * The devices at one point in time.
+     */
+    public static final class Snapshot {
+        private final Slots<Device> ports;
+        private final Slots<?>[] categories;
+
+        private Snapshot(Slots<Device> ports, Slots<?>[] categories) {
+            this.ports = ports;
+            this.categories = categories;
+        }
+        /**
+         * Returns the devices by portID.
+         *
+         * @return The port slots.
+         */
+        public Slots<Device> getPorts() {
+            return ports;
+        }
+        /**
+         * Returns the devices of a category by devID.
+         *
+         * @param category The category, e.g. {@link DeviceTable#SENSOR}.
+         * @return The devID slots.
+         */
+        public Slots<?> getCategory(int category) {
+            return categories[category];
+        }
+        /**
+         * Returns the sensors by devID.
+         *
+         * @return The sensor slots.
+         */
+        @SuppressWarnings("unchecked")
+        public Slots<Sensor> getSensors() {
+            return (Slots<Sensor>) categories[DeviceTable.SENSOR];
+        }
+        /**
+         * Returns the displays by devID.
+         *
+         * @return The display slots.
+         */
+        @SuppressWarnings("unchecked")
+        public Slots<Display> getDisplays() {
+            return (Slots<Display>) categories[DeviceTable.DISPLAY];
+        }
+        /**
+         * Returns the wireless I/O devices by devID.
+         *
+         * @return The wireless I/O slots.
+         */
+        @SuppressWarnings("unchecked")
+        public Slots<WirelessIO> getWirelessIOs() {
+            return (Slots<WirelessIO>) categories[DeviceTable.WIRELESS_IO];
+        }
+        /**
+         * Returns the motor drivers by devID.
+         *
+         * @return The motor driver slots.
+         */
+        @SuppressWarnings("unchecked")
+        public Slots<MotorDriver> getMotorDrivers() {
+            return (Slots<MotorDriver>) categories[DeviceTable.MOTOR_DRIVER];
+        }
+    }
+
+    private volatile Snapshot current = new Snapshot(Slots.EMPTY,
+            new Slots<?>[] { Slots.EMPTY, Slots.EMPTY, Slots.EMPTY, Slots.EMPTY });
+    /**
+     * Returns the current devices. The snapshot does not change; load a new one to see
+     * later changes.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+    /**
+     * Returns the device on a port.
+     *
+     * @param portID The port.
+     * @return The device, or null if there is none.
+     */
+    public Device getDevice(int portID) {
+        Slots<Device> ports = current.ports;
+        return portID >= 0 && portID < ports.size() ? ports.get(portID) : null;
+    }
+    /**
+     * Returns the device with a devID.
+     *
+     * @param category The category, e.g. {@link DeviceTable#SENSOR}.
+     * @param devID    The devID.
+     * @return The device, or null if there is none.
+     */
+    public Device getDevice(int category, int devID) {
+        Slots<?> slots = current.categories[category];
+        return devID >= 0 && devID < slots.size() ? slots.get(devID) : null;
+    }
+    /**
+     * Connects a device: publishes it on its port and under its devID at once.
+     *
+     * @param portID   The port.
+     * @param category The category of the device.
+     * @param devID    The devID within the category.
+     * @param device   The device.
+     */
+    public synchronized void add(int portID, int category, int devID, Device device) {
+        publish(current.ports.with(portID, device), category, current.categories[category].with(devID, device));
+    }
+    /**
+     * Disconnects a device: empties its port and devID slots at once.
+     *
+     * @param portID   The port.
+     * @param category The category of the device.
+     * @param devID    The devID within the category.
+     */
+    public synchronized void remove(int portID, int category, int devID) {
+        publish(current.ports.with(portID, null), category, current.categories[category].with(devID, null));
+    }
+    /**
+     * Grows the devID slots of a category up to a devID, as adding a device there would.
+     *
+     * @param category The category.
+     * @param devID    The devID.
+     */
+    public synchronized void reserve(int category, int devID) {
+        Slots<?> slots = current.categories[category];
+        Slots<?> grown = slots.grow(devID + 1);
+        if (grown != slots) publish(current.ports, category, grown);
+    }
+
+    private void publish(Slots<Device> ports, int category, Slots<?> slots) {
+        Slots<?>[] categories = current.categories.clone();
+        categories[category] = slots;
+        current = new Snapshot(ports, categories);
+    }
+}
@@ -0,0 +1,122 @@
+package hwSystem.Devices;
+/**
+ * Storage of the per-port rows of a {@link DeviceTable}.
+ *
+ * <p>A row ("slot") holds the protocol and model ids, the devID, state bits, a read
+ * counter and a ring of the last {@link #RING_SIZE} samples of up to two channels.
+ * The state bits are the power state of the device itself: a {@link Device} attached
+ * to a row reads and writes its state there.
+ * Implementations keep the rows on the heap ({@link HeapDeviceStore}) or in native
+ * memory ({@link OffHeapDeviceStore}).
+ */
+public interface DeviceStore {
+    /** Number of samples kept per slot. */
+    int RING_SIZE = 8;
+    /** State bit set while the device of a slot is ON. */
+    byte FLAG_ON = 1;
+    /**
+     * Makes room for at least the given number of slots. New slots are zeroed.
+     *
+     * @param slots The required slot count.
+     */
+    void ensureCapacity(int slots);
+    /**
+     * Returns the protocol id of a slot.
+     *
+     * @param slot The slot (port) index.
+     * @return The protocol id.
+     */
+    byte getProtocol(int slot);
+    /**
+     * Sets the protocol id of a slot.
+     *
+     * @param slot The slot index.
+     * @param id   The protocol id.
+     */
+    void setProtocol(int slot, byte id);
+    /**
+     * Returns the model id of a slot.
+     *
+     * @param slot The slot index.
+     * @return The model id, or -1 if no device is attached.
+     */
+    byte getModel(int slot);
+    /**
+     * Sets the model id of a slot.
+     *
+     * @param slot The slot index.
+     * @param id   The model id, or -1 for no device.
+     */
+    void setModel(int slot, byte id);
+    /**
+     * Returns the devID of a slot.
+     *
+     * @param slot The slot index.
+     * @return The devID.
+     */
+    int getDevID(int slot);
+    /**
+     * Sets the devID of a slot.
+     *
+     * @param slot  The slot index.
+     * @param devID The devID.
+     */
+    void setDevID(int slot, int devID);
+    /**
+     * Returns the state bits of a slot.
+     *
+     * @param slot The slot index.
+     * @return The state bits.
+     */
+    byte getFlags(int slot);
+    /**
+     * Sets the state bits of a slot.
+     *
+     * @param slot  The slot index.
+     * @param flags The state bits.
+     */
+    void setFlags(int slot, byte flags);
+    /**
+     * Appends a sample to the ring of a slot and counts the read.
+     *
+     * @param slot The slot index.
+     * @param a    The first channel value.
+     * @param b    The second channel value.
+     */
+    void addSample(int slot, float a, float b);
+    /**
+     * Returns the number of samples recorded for a slot since the device was attached.
+     *
+     * @param slot The slot index.
+     * @return The read count.
+     */
+    long getReadCount(int slot);
+    /**
+     * Returns a first-channel sample from the ring.
+     *
+     * @param slot The slot index.
+     * @param age  0 for the newest sample, up to {@link #RING_SIZE} - 1.
+     * @return The sample value.
+     */
+    float getSampleA(int slot, int age);
+    /**
+     * Returns a second-channel sample from the ring.
+     *
+     * @param slot The slot index.
+     * @param age  0 for the newest sample, up to {@link #RING_SIZE} - 1.
+     * @return The sample value.
+     */
+    float getSampleB(int slot, int age);
+    /**
+     * Resets the read counter and the sample ring of a slot.
+     *
+     * @param slot The slot index.
+     */
+    void resetSamples(int slot);
+    /**
+     * Returns the number of bytes held by the store.
+     *
+     * @return The store size in bytes.
+     */
+    long getSizeInBytes();
+}
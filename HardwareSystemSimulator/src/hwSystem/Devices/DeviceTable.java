@@ -0,0 +1,251 @@
+package hwSystem.Devices;
+
+import java.util.Arrays;
+/**
+ * Columnar (structure-of-arrays) view of all ports and the devices attached to them.
+ *
+ * <p>Each port is a row of a {@link DeviceStore}: protocol id, model id, devID,
+ * state bits, a read counter and the last sampled values. Device names, types and
+ * protocol names are interned once per distinct value, so a row holds no references.
+ * Bulk scans walk the rows linearly instead of visiting every
+ * {@link Device} object. Use {@link DeviceView} to inspect a single row.
+ *
+ * <p>For every device category the table also keeps the port of each devID, so
+ * per-category scans run in devID order without searching the port list.
+ */
+public class DeviceTable {
+    /** Category of sensors. */
+    public static final int SENSOR = 0;
+    /** Category of displays. */
+    public static final int DISPLAY = 1;
+    /** Category of wireless adapters. */
+    public static final int WIRELESS_IO = 2;
+    /** Category of motor drivers. */
+    public static final int MOTOR_DRIVER = 3;
+
+    private static final byte NO_MODEL = -1;
+    private static final byte FLAG_ON = DeviceStore.FLAG_ON;
+
+    // Interned names: protocols, and name/type/category per device model
+    private String[] protocolNames = new String[4];
+    private int protocolCount;
+    private String[] modelNames = new String[16];
+    private String[] modelTypes = new String[16];
+    private byte[] modelCategories = new byte[16];
+    private int modelCount;
+
+    // One row per port
+    private final DeviceStore store;
+    private int portCount;
+
+    // Port of each devID, per category (-1 if the devID is free)
+    private final int[][] portsByDevID = new int[4][0];
+    /**
+     * Constructs an empty table over the given row storage.
+     *
+     * @param store The storage of the port rows.
+     */
+    public DeviceTable(DeviceStore store) {
+        this.store = store;
+    }
+    /**
+     * Returns the storage of the port rows.
+     *
+     * @return The device store.
+     */
+    public DeviceStore getStore() {
+        return store;
+    }
+    /**
+     * Appends a port row. Ports must be added in portID order.
+     *
+     * @param protocolName The protocol name of the port, e.g. "I2C".
+     */
+    public void addPort(String protocolName) {
+        store.ensureCapacity(portCount + 1);
+        store.setProtocol(portCount, internProtocol(protocolName));
+        store.setModel(portCount, NO_MODEL);
+        portCount++;
+    }
+    /**
+     * Records a device attached to a port. From now on the device keeps its power
+     * state in the port's row.
+     *
+     * @param portID   The port the device is attached to.
+     * @param category The device category, e.g. {@link #SENSOR}.
+     * @param devID    The devID of the device within its category.
+     * @param device   The device.
+     */
+    public void attach(int portID, int category, int devID, Device device) {
+        store.setModel(portID, internModel(device.getName(), device.getDevType(), category));
+        store.setDevID(portID, devID);
+        store.resetSamples(portID);
+        device.bind(store, portID);
+        int[] byDevID = portsByDevID[category];
+        if (devID >= byDevID.length) {
+            int old = byDevID.length;
+            byDevID = Arrays.copyOf(byDevID, Math.max(devID + 1, old * 2));
+            Arrays.fill(byDevID, old, byDevID.length, -1);
+            portsByDevID[category] = byDevID;
+        }
+        byDevID[devID] = portID;
+    }
+    /**
+     * Clears the device row of a port. The device takes its power state back.
+     *
+     * @param portID The port whose device was removed.
+     * @param device The device that was removed.
+     */
+    public void detach(int portID, Device device) {
+        byte model = store.getModel(portID);
+        if (model == NO_MODEL) return;
+        device.unbind();
+        portsByDevID[modelCategories[model]][store.getDevID(portID)] = -1;
+        store.setModel(portID, NO_MODEL);
+        store.setFlags(portID, (byte) 0);
+    }
+    /**
+     * Records the values just read from the sensor on a port.
+     *
+     * @param portID The port of the sensor.
+     * @param a      The first channel (temperature, or acceleration).
+     * @param b      The second channel (rotation), 0 for single-channel sensors.
+     */
+    public void recordSample(int portID, float a, float b) {
+        store.addSample(portID, a, b);
+    }
+    /**
+     * Returns the number of ports.
+     *
+     * @return The port count.
+     */
+    public int getPortCount() {
+        return portCount;
+    }
+    /**
+     * Returns whether the device on a port is ON.
+     *
+     * @param portID The port.
+     * @return true if a device is attached and ON.
+     */
+    public boolean isOn(int portID) {
+        return (store.getFlags(portID) & FLAG_ON) != 0;
+    }
+    /**
+     * Returns the port of a device.
+     *
+     * @param category The device category.
+     * @param devID    The devID within the category.
+     * @return The port, or -1 if no such device is attached.
+     */
+    public int findPort(int category, int devID) {
+        int[] byDevID = portsByDevID[category];
+        return devID >= 0 && devID < byDevID.length ? byDevID[devID] : -1;
+    }
+    /**
+     * Returns whether a device is attached to a port.
+     *
+     * @param portID The port.
+     * @return true if the port is occupied.
+     */
+    public boolean isOccupied(int portID) {
+        return store.getModel(portID) != NO_MODEL;
+    }
+    /**
+     * Returns the name of the device on a port.
+     *
+     * @param portID An occupied port.
+     * @return The device name, e.g. "DHT11".
+     */
+    public String getName(int portID) {
+        return modelNames[store.getModel(portID)];
+    }
+    /**
+     * Returns the type of the device on a port.
+     *
+     * @param portID An occupied port.
+     * @return The device type, e.g. "TempSensor Sensor".
+     */
+    public String getDevType(int portID) {
+        return modelTypes[store.getModel(portID)];
+    }
+    /**
+     * Returns the category of the device on a port.
+     *
+     * @param portID An occupied port.
+     * @return The category, e.g. {@link #SENSOR}.
+     */
+    public int getCategory(int portID) {
+        return modelCategories[store.getModel(portID)];
+    }
+    /**
+     * Returns the devID of the device on a port.
+     *
+     * @param portID An occupied port.
+     * @return The devID.
+     */
+    public int getDevID(int portID) {
+        return store.getDevID(portID);
+    }
+    /**
+     * Returns the protocol name of a port.
+     *
+     * @param portID The port.
+     * @return The protocol name.
+     */
+    public String getProtocolName(int portID) {
+        return protocolNames[store.getProtocol(portID)];
+    }
+    /**
+     * Collects the devIDs of all devices of a category that are ON, in devID order.
+     *
+     * @param category The device category.
+     * @return The devIDs.
+     */
+    public int[] findOn(int category) {
+        int[] byDevID = portsByDevID[category];
+        int[] result = new int[byDevID.length];
+        int count = 0;
+        int devID = 0;
+        while (devID < byDevID.length) {
+            int port = byDevID[devID];
+            if (port >= 0 && (store.getFlags(port) & FLAG_ON) != 0) {
+                result[count] = devID;
+                count++;
+            }
+            devID++;
+        }
+        return Arrays.copyOf(result, count);
+    }
+    private byte internProtocol(String name) {
+        int i = 0;
+        while (i < protocolCount) {
+            if (protocolNames[i].equals(name)) return (byte) i;
+            i++;
+        }
+        if (protocolCount == protocolNames.length) {
+            protocolNames = Arrays.copyOf(protocolNames, protocolCount * 2);
+        }
+        protocolNames[protocolCount] = name;
+        protocolCount++;
+        return (byte) (protocolCount - 1);
+    }
+
+    private byte internModel(String name, String devType, int category) {
+        int i = 0;
+        while (i < modelCount) {
+            if (modelNames[i].equals(name) && modelTypes[i].equals(devType)) return (byte) i;
+            i++;
+        }
+        if (modelCount == modelNames.length) {
+            modelNames = Arrays.copyOf(modelNames, modelCount * 2);
+            modelTypes = Arrays.copyOf(modelTypes, modelCount * 2);
+            modelCategories = Arrays.copyOf(modelCategories, modelCount * 2);
+        }
+        modelNames[modelCount] = name;
+        modelTypes[modelCount] = devType;
+        modelCategories[modelCount] = (byte) category;
+        modelCount++;
+        return (byte) (modelCount - 1);
+    }
+}
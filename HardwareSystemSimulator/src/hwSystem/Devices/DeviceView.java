@@ -0,0 +1,113 @@
+package hwSystem.Devices;
+/**
+ * Flyweight, read-only view of one port row of a {@link DeviceTable}.
+ *
+ * <p>A single view is moved from row to row with {@link #moveTo(int)}, so inspecting
+ * any number of devices allocates nothing and does not touch the device objects.
+ */
+public class DeviceView {
+    private final DeviceTable table;
+    private final DeviceStore store;
+    private int portID;
+    /**
+     * Constructs a view over a table, positioned at port 0.
+     *
+     * @param table The device table.
+     */
+    public DeviceView(DeviceTable table) {
+        this.table = table;
+        this.store = table.getStore();
+    }
+    /**
+     * Moves the view to another port.
+     *
+     * @param portID The port to view.
+     * @return This view.
+     */
+    public DeviceView moveTo(int portID) {
+        this.portID = portID;
+        return this;
+    }
+    /**
+     * Returns the port the view is positioned at.
+     *
+     * @return The portID.
+     */
+    public int getPortID() {
+        return portID;
+    }
+    /**
+     * Returns whether a device is attached to the port.
+     *
+     * @return true if the port is occupied.
+     */
+    public boolean isOccupied() {
+        return table.isOccupied(portID);
+    }
+    /**
+     * Returns the name of the device.
+     *
+     * @return The device name.
+     */
+    public String getName() {
+        return table.getName(portID);
+    }
+    /**
+     * Returns the type of the device.
+     *
+     * @return The device type.
+     */
+    public String getDevType() {
+        return table.getDevType(portID);
+    }
+    /**
+     * Returns the devID of the device.
+     *
+     * @return The devID.
+     */
+    public int getDevID() {
+        return table.getDevID(portID);
+    }
+    /**
+     * Returns the ON/OFF state of the device.
+     *
+     * @return The state.
+     */
+    public Device.State getState() {
+        return table.isOn(portID) ? Device.State.ON : Device.State.OFF;
+    }
+    /**
+     * Returns the number of readings taken since the device was attached.
+     *
+     * @return The read count.
+     */
+    public long getReadCount() {
+        return store.getReadCount(portID);
+    }
+    /**
+     * Returns the number of samples held in the ring.
+     *
+     * @return At most {@link DeviceStore#RING_SIZE}.
+     */
+    public int getSampleCount() {
+        return (int) Math.min(store.getReadCount(portID), DeviceStore.RING_SIZE);
+    }
+    /**
+     * Returns a first-channel sample (temperature or acceleration).
+     *
+     * @param age 0 for the newest sample.
+     * @return The sample value.
+     */
+    public float getSampleA(int age) {
+        return store.getSampleA(portID, age);
+    }
+    /**
+     * Returns a second-channel sample (rotation, 0 for temperature sensors).
+     *
+     * @param age 0 for the newest sample.
+     * @return The sample value.
+     */
+    public float getSampleB(int age) {
+        return store.getSampleB(portID, age);
+    }
+}
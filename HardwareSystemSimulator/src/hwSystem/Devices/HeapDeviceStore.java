@@ -0,0 +1,107 @@
+package hwSystem.Devices;
+
+import java.util.Arrays;
+/**
+ * Device store backed by parallel primitive arrays on the heap.
+ */
+public class HeapDeviceStore implements DeviceStore {
+    private byte[] protocols = new byte[16];
+    private byte[] models = new byte[16];
+    private int[] devIDs = new int[16];
+    private byte[] flags = new byte[16];
+    private long[] readCounts = new long[16];
+    private float[] ringA = new float[16 * RING_SIZE];
+    private float[] ringB = new float[16 * RING_SIZE];
+
+    @Override
+    public void ensureCapacity(int slots) {
+        if (slots <= protocols.length) return;
+        int capacity = Math.max(slots, protocols.length * 2);
+        protocols = Arrays.copyOf(protocols, capacity);
+        models = Arrays.copyOf(models, capacity);
+        devIDs = Arrays.copyOf(devIDs, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        readCounts = Arrays.copyOf(readCounts, capacity);
+        ringA = Arrays.copyOf(ringA, capacity * RING_SIZE);
+        ringB = Arrays.copyOf(ringB, capacity * RING_SIZE);
+    }
+
+    @Override
+    public byte getProtocol(int slot) {
+        return protocols[slot];
+    }
+
+    @Override
+    public void setProtocol(int slot, byte id) {
+        protocols[slot] = id;
+    }
+
+    @Override
+    public byte getModel(int slot) {
+        return models[slot];
+    }
+
+    @Override
+    public void setModel(int slot, byte id) {
+        models[slot] = id;
+    }
+
+    @Override
+    public int getDevID(int slot) {
+        return devIDs[slot];
+    }
+
+    @Override
+    public void setDevID(int slot, int devID) {
+        devIDs[slot] = devID;
+    }
+
+    @Override
+    public byte getFlags(int slot) {
+        return flags[slot];
+    }
+
+    @Override
+    public void setFlags(int slot, byte value) {
+        flags[slot] = value;
+    }
+
+    @Override
+    public void addSample(int slot, float a, float b) {
+        int i = slot * RING_SIZE + (int) (readCounts[slot] % RING_SIZE);
+        ringA[i] = a;
+        ringB[i] = b;
+        readCounts[slot]++;
+    }
+
+    @Override
+    public long getReadCount(int slot) {
+        return readCounts[slot];
+    }
+
+    @Override
+    public float getSampleA(int slot, int age) {
+        return ringA[ringIndex(slot, age)];
+    }
+
+    @Override
+    public float getSampleB(int slot, int age) {
+        return ringB[ringIndex(slot, age)];
+    }
+
+    @Override
+    public void resetSamples(int slot) {
+        readCounts[slot] = 0;
+        Arrays.fill(ringA, slot * RING_SIZE, (slot + 1) * RING_SIZE, 0f);
+        Arrays.fill(ringB, slot * RING_SIZE, (slot + 1) * RING_SIZE, 0f);
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return protocols.length * (3L + 4 + 8 + 8L * RING_SIZE);
+    }
+
+    private int ringIndex(int slot, int age) {
+        return slot * RING_SIZE + (int) ((readCounts[slot] - 1 - age) % RING_SIZE + RING_SIZE) % RING_SIZE;
+    }
+}
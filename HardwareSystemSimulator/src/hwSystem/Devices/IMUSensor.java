@@ -1,11 +1,21 @@
 package hwSystem.Devices;
 
 import hwSystem.Protocols.Protocol;
+import hwSystem.Signals.ConstantSignal;
+import hwSystem.Signals.SignalSource;
 /**
  * Abstract base class representing an IMU (Inertial Measurement Unit) sensor.
  * This sensor provides both acceleration and rotation data.
  */
 public abstract class IMUSensor extends Sensor {
+    /**
+     * The source of acceleration values, constant 1.00 by default.
+     */
+    protected SignalSource accelSource = new ConstantSignal(1.00f);
+    /**
+     * The source of rotation values, constant 0.50 by default.
+     */
+    protected SignalSource rotSource = new ConstantSignal(0.50f);
     /**
      * Constructs an IMUSensor with the given communication protocol.
      *
@@ -44,4 +54,32 @@ public abstract class IMUSensor extends Sensor {
      * @return A float representing rotation.
      */
     public abstract float getRot();
+    /**
+     * Sets the source of the "accel" or "rot" channel.
+     *
+     * @param channel The channel name.
+     * @param source  The new signal source.
+     * @return true if the channel exists.
+     */
+    @Override
+    public boolean setSignal(String channel, SignalSource source) {
+        if (channel.equals("accel")) {
+            accelSource = source;
+            return true;
+        }
+        if (channel.equals("rot")) {
+            rotSource = source;
+            return true;
+        }
+        return false;
+    }
+    /**
+     * Returns the channel names of an IMU sensor.
+     *
+     * @return The string "accel|rot".
+     */
+    @Override
+    public String getChannels() {
+        return "accel|rot";
+    }
 }
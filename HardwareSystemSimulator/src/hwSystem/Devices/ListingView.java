@@ -0,0 +1,138 @@
+package hwSystem.Devices;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * A listing ("list ports", "list Sensor", ...) kept pre-rendered as one byte buffer.
+ *
+ * <p>The rows are grouped into blocks of {@value #BLOCK_ROWS}. A change to a row only
+ * marks its block stale ({@link #invalidate(int)}); the next {@link #writeTo(PrintStream)}
+ * renders the stale blocks again and copies the others unchanged, then writes the whole
+ * listing with a single write. Without changes a listing is just that write, however
+ * many rows it has.
+ */
+public class ListingView {
+    /**
+     * Renders the rows of a listing.
+     */
+    public interface Renderer {
+        /**
+         * Appends one row, including its line break, or nothing if the row is not listed.
+         *
+         * @param row The row index, e.g. the portID or devID.
+         * @param out The builder to append to.
+         */
+        void appendRow(int row, StringBuilder out);
+    }
+
+    /** Number of rows rendered together. */
+    public static final int BLOCK_ROWS = 256;
+
+    private final byte[] header;
+    private final Renderer renderer;
+    private int rowCount;
+    private byte[] buffer;
+    // End offset of each block in the buffer
+    private int[] blockEnds = new int[0];
+    private boolean[] stale = new boolean[0];
+    private boolean dirty;
+    /**
+     * Constructs an empty listing.
+     *
+     * @param header   The first line, without line break, e.g. "list of ports:".
+     * @param renderer The renderer of the rows.
+     */
+    public ListingView(String header, Renderer renderer) {
+        this.header = (header + "\n").getBytes(StandardCharsets.UTF_8);
+        this.renderer = renderer;
+        this.buffer = this.header;
+    }
+    /**
+     * Grows the listing to the given number of rows. The new rows are rendered on the next write.
+     *
+     * @param rows The new row count; smaller counts are ignored.
+     */
+    public synchronized void setRowCount(int rows) {
+        if (rows <= rowCount) return;
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        if (blocks > stale.length) stale = Arrays.copyOf(stale, Math.max(blocks, stale.length * 2));
+        // The last block so far gains rows too
+        int block = rowCount / BLOCK_ROWS;
+        while (block < blocks) {
+            stale[block] = true;
+            block++;
+        }
+        rowCount = rows;
+        dirty = true;
+    }
+    /**
+     * Marks a row as changed, growing the listing if needed.
+     *
+     * @param row The row index.
+     */
+    public synchronized void invalidate(int row) {
+        if (row >= rowCount) {
+            setRowCount(row + 1);
+            return;
+        }
+        stale[row / BLOCK_ROWS] = true;
+        dirty = true;
+    }
+    /**
+     * Writes the listing, rendering the changed blocks first.
+     *
+     * @param out The stream to write to.
+     */
+    public synchronized void writeTo(PrintStream out) {
+        if (dirty) rebuild();
+        out.write(buffer, 0, buffer.length);
+    }
+
+    private void rebuild() {
+        int blocks = (rowCount + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        byte[][] rendered = new byte[blocks][];
+        int[] newEnds = new int[blocks];
+        StringBuilder text = new StringBuilder();
+        int size = header.length;
+        int block = 0;
+        while (block < blocks) {
+            if (stale[block] || block >= blockEnds.length) {
+                text.setLength(0);
+                int row = block * BLOCK_ROWS;
+                int end = Math.min(row + BLOCK_ROWS, rowCount);
+                while (row < end) {
+                    renderer.appendRow(row, text);
+                    row++;
+                }
+                rendered[block] = text.toString().getBytes(StandardCharsets.UTF_8);
+                size += rendered[block].length;
+            } else {
+                size += blockEnds[block] - blockStart(block);
+            }
+            newEnds[block] = size;
+            block++;
+        }
+        byte[] newBuffer = new byte[size];
+        System.arraycopy(header, 0, newBuffer, 0, header.length);
+        block = 0;
+        while (block < blocks) {
+            int start = block == 0 ? header.length : newEnds[block - 1];
+            if (rendered[block] != null) {
+                System.arraycopy(rendered[block], 0, newBuffer, start, rendered[block].length);
+                stale[block] = false;
+            } else {
+                int oldStart = blockStart(block);
+                System.arraycopy(buffer, oldStart, newBuffer, start, blockEnds[block] - oldStart);
+            }
+            block++;
+        }
+        buffer = newBuffer;
+        blockEnds = newEnds;
+        dirty = false;
+    }
+
+    private int blockStart(int block) {
+        return block == 0 ? header.length : blockEnds[block - 1];
+    }
+}
@@ -0,0 +1,141 @@
+package hwSystem.Devices;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+/**
+ * Device store backed by direct (native) memory.
+ *
+ * <p>Slots are fixed-size records in direct {@link ByteBuffer} chunks of
+ * {@link #SLOTS_PER_CHUNK} slots, so a fleet of any size costs the garbage collector
+ * only one small object per chunk. Record layout:
+ * <pre>
+ *  0  protocol id   byte
+ *  1  model id      byte
+ *  2  state bits    byte
+ *  4  devID         int
+ *  8  read count    long
+ * 16  ring A        float[RING_SIZE]
+ * 16 + 4 * RING_SIZE  ring B  float[RING_SIZE]
+ * </pre>
+ */
+public class OffHeapDeviceStore implements DeviceStore {
+    /** Number of slots per direct buffer. */
+    public static final int SLOTS_PER_CHUNK = 1 << 16;
+    /** Size of one slot record in bytes. */
+    public static final int SLOT_SIZE = 16 + 8 * RING_SIZE;
+
+    private static final int PROTOCOL = 0;
+    private static final int MODEL = 1;
+    private static final int FLAGS = 2;
+    private static final int DEV_ID = 4;
+    private static final int READ_COUNT = 8;
+    private static final int RING_A = 16;
+    private static final int RING_B = 16 + 4 * RING_SIZE;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+
+    @Override
+    public void ensureCapacity(int slots) {
+        while ((long) chunks.size() * SLOTS_PER_CHUNK < slots) {
+            // Direct buffers are zeroed on allocation
+            chunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE).order(ByteOrder.nativeOrder()));
+        }
+    }
+
+    @Override
+    public byte getProtocol(int slot) {
+        return chunk(slot).get(offset(slot) + PROTOCOL);
+    }
+
+    @Override
+    public void setProtocol(int slot, byte id) {
+        chunk(slot).put(offset(slot) + PROTOCOL, id);
+    }
+
+    @Override
+    public byte getModel(int slot) {
+        return chunk(slot).get(offset(slot) + MODEL);
+    }
+
+    @Override
+    public void setModel(int slot, byte id) {
+        chunk(slot).put(offset(slot) + MODEL, id);
+    }
+
+    @Override
+    public int getDevID(int slot) {
+        return chunk(slot).getInt(offset(slot) + DEV_ID);
+    }
+
+    @Override
+    public void setDevID(int slot, int devID) {
+        chunk(slot).putInt(offset(slot) + DEV_ID, devID);
+    }
+
+    @Override
+    public byte getFlags(int slot) {
+        return chunk(slot).get(offset(slot) + FLAGS);
+    }
+
+    @Override
+    public void setFlags(int slot, byte value) {
+        chunk(slot).put(offset(slot) + FLAGS, value);
+    }
+
+    @Override
+    public void addSample(int slot, float a, float b) {
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        long count = chunk.getLong(base + READ_COUNT);
+        int i = (int) (count % RING_SIZE) * 4;
+        chunk.putFloat(base + RING_A + i, a);
+        chunk.putFloat(base + RING_B + i, b);
+        chunk.putLong(base + READ_COUNT, count + 1);
+    }
+
+    @Override
+    public long getReadCount(int slot) {
+        return chunk(slot).getLong(offset(slot) + READ_COUNT);
+    }
+
+    @Override
+    public float getSampleA(int slot, int age) {
+        return chunk(slot).getFloat(offset(slot) + RING_A + ringOffset(slot, age));
+    }
+
+    @Override
+    public float getSampleB(int slot, int age) {
+        return chunk(slot).getFloat(offset(slot) + RING_B + ringOffset(slot, age));
+    }
+
+    @Override
+    public void resetSamples(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        chunk.putLong(base + READ_COUNT, 0);
+        int i = RING_A;
+        while (i < SLOT_SIZE) {
+            chunk.putLong(base + i, 0);
+            i += 8;
+        }
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return (long) chunks.size() * SLOTS_PER_CHUNK * SLOT_SIZE;
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks.get(slot / SLOTS_PER_CHUNK);
+    }
+
+    private static int offset(int slot) {
+        return (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+    }
+
+    private int ringOffset(int slot, int age) {
+        long count = getReadCount(slot);
+        return (int) ((count - 1 - age) % RING_SIZE + RING_SIZE) % RING_SIZE * 4;
+    }
+}
@@ -1,5 +1,6 @@
 package hwSystem.Devices;
 
+import hwSystem.Protocols.LogOp;
 import hwSystem.Protocols.Protocol;
 /**
  * Represents the PCA9685 motor driver device.
@@ -29,9 +30,9 @@ public class PCA9685 extends MotorDriver {
     */
     @Override
     public void turnON() {
-        if (state == State.OFF) {
-            protocol.write("Writing \"turnON\".");
-            state = State.ON;
+        if (getState() == State.OFF) {
+            protocol.write(LogOp.TURN_ON);
+            setState(State.ON);
             System.out.println(getName() + ": Turning ON.");
         }
     }
@@ -41,9 +42,9 @@ public class PCA9685 extends MotorDriver {
      */
     @Override
     public void turnOFF() {
-        if (state == State.ON) {
-            protocol.write("Writing \"turnOFF\".");
-            state = State.OFF;
+        if (getState() == State.ON) {
+            protocol.write(LogOp.TURN_OFF);
+            setState(State.OFF);
             System.out.println(getName() + ": Turning OFF.");
         }
     }
@@ -54,7 +55,7 @@ public class PCA9685 extends MotorDriver {
      */
     @Override
     public void setMotorSpeed(int speed) {
-        protocol.write("setMotorSpeed " + speed);
+        protocol.write(LogOp.SET_MOTOR_SPEED, speed);
         System.out.println(getName() + ": Setting speed to " + speed + ".");
     }
 }
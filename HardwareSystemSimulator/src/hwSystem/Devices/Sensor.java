@@ -1,45 +1,91 @@
-package hwSystem.Devices;
-
-import hwSystem.Protocols.Protocol;
-/**
- * Abstract base class for all sensor devices in the system.
- * Sensors can be temperature sensors or IMU sensors, and provide readable data.
- */
-public abstract class Sensor extends Device {
-    /**
-     * Constructs a sensor with the specified communication protocol.
-     *
-     * @param protocol The communication protocol used by the sensor.
-     */
-    public Sensor(Protocol protocol) {
-        super(protocol);
-    }
-    /**
-     * Returns the specific sensor type (e.g., "TempSensor", "IMUSensor").
-     *
-     * @return A string indicating the sensor type.
-     */
-    public abstract String getSensType();        // "TempSensor", "IMUSensor"
-    /**
-     * Returns the sensor data as a formatted string for display or logging.
-     *
-     * @return Formatted string with sensor data.
-     */
-    public abstract String data2String();        // "Temperature: ..." or "Accel: ... Rot: ..."
-    /**
-     * Returns the full device type including sensor classification.
-     *
-     * @return A string like "TempSensor Sensor".
-     */
-    @Override
-    public String getDevType() {
-        return getSensType() + " Sensor";
-    }
-    /**
-     * Reads the sensor using the associated protocol.
-     * May log the operation or return formatted data.
-     *
-     * @return A string containing the sensor's reading.
-     */
-    public abstract String readSensor(); 
-}
+package hwSystem.Devices;
+
+import hwSystem.Protocols.Protocol;
+import hwSystem.Signals.SignalSource;
+/**
+ * Abstract base class for all sensor devices in the system.
+ * Sensors can be temperature sensors or IMU sensors, and provide readable data.
+ */
+public abstract class Sensor extends Device {
+    /**
+     * The sample index of the sensor, incremented once per read.
+     * Signal sources are evaluated at this tick.
+     */
+    protected long sampleTick;
+    /**
+     * Constructs a sensor with the specified communication protocol.
+     *
+     * @param protocol The communication protocol used by the sensor.
+     */
+    public Sensor(Protocol protocol) {
+        super(protocol);
+    }
+    /**
+     * Returns the specific sensor type (e.g., "TempSensor", "IMUSensor").
+     *
+     * @return A string indicating the sensor type.
+     */
+    public abstract String getSensType();        // "TempSensor", "IMUSensor"
+    /**
+     * Returns the sensor data as a formatted string for display or logging.
+     *
+     * @return Formatted string with sensor data.
+     */
+    public abstract String data2String();        // "Temperature: ..." or "Accel: ... Rot: ..."
+    /**
+     * Returns the full device type including sensor classification.
+     *
+     * @return A string like "TempSensor Sensor".
+     */
+    @Override
+    public String getDevType() {
+        return getSensType() + " Sensor";
+    }
+    /**
+     * Reads the sensor using the associated protocol.
+     * May log the operation or return formatted data.
+     *
+     * @return A string containing the sensor's reading.
+     */
+    public abstract String readSensor(); 
+    /**
+     * Reads the sensor through its protocol like {@link #readSensor()}, without
+     * formatting the reading. The getters of the sensor return the values of this read.
+     */
+    public void sample() {
+        sampleTick++;
+        protocol.read();
+    }
+    /**
+     * Formats a reading the way {@link #readSensor()} returns it.
+     *
+     * @param name        The device name, e.g. "DHT11".
+     * @param sensType    "TempSensor" or "IMUSensor".
+     * @param temperature The temperature, used by temperature sensors.
+     * @param accel       The acceleration, used by IMU sensors.
+     * @param rot         The rotation, used by IMU sensors.
+     * @return The formatted reading.
+     */
+    public static String formatReading(String name, String sensType, float temperature, float accel, float rot) {
+        String prefix = name + " " + sensType + " Sensor: ";
+        if (sensType.equals("TempSensor")) {
+            // data2String of a temperature sensor repeats the name and type
+            return prefix + prefix + "Temp: " + String.format("%.2fC.", temperature) + ".";
+        }
+        return prefix + String.format("Accel: %.2f, Rot: %.2f", accel, rot) + ".";
+    }
+    /**
+     * Replaces the signal source of one of the sensor's channels.
+     *
+     * @param channel The channel name (e.g., "temp", "accel", "rot").
+     * @param source  The new signal source.
+     * @return true if the channel exists and was updated, false otherwise.
+     */
+    public abstract boolean setSignal(String channel, SignalSource source);
+    /**
+     * Returns the names of the sensor's channels.
+     *
+     * @return A string like "temp" or "accel|rot".
+     */
+    public abstract String getChannels();
+}
@@ -1,11 +1,17 @@
 package hwSystem.Devices;
 
 import hwSystem.Protocols.Protocol;
+import hwSystem.Signals.ConstantSignal;
+import hwSystem.Signals.SignalSource;
 /**
  * Abstract base class for temperature sensor devices.
  * Devices such as DHT11 and BME280 extend this class.
  */
 public abstract class TempSensor extends Sensor {
+    /**
+     * The source of temperature values, constant 24.00C by default.
+     */
+    protected SignalSource tempSource = new ConstantSignal(24.00f);
     /**
      * Constructs a temperature sensor with the given communication protocol.
      *
@@ -29,4 +35,28 @@ public abstract class TempSensor extends Sensor {
      * @return Temperature as a float value in Celsius.
      */
     public abstract float getTemp();
+    /**
+     * Sets the source of the "temp" channel.
+     *
+     * @param channel The channel name.
+     * @param source  The new signal source.
+     * @return true if the channel is "temp".
+     */
+    @Override
+    public boolean setSignal(String channel, SignalSource source) {
+        if (!channel.equals("temp")) {
+            return false;
+        }
+        tempSource = source;
+        return true;
+    }
+    /**
+     * Returns the channel names of a temperature sensor.
+     *
+     * @return The string "temp".
+     */
+    @Override
+    public String getChannels() {
+        return "temp";
+    }
 }
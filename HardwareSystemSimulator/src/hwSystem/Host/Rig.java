@@ -0,0 +1,155 @@
+package hwSystem.Host;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.hwSystem;
+import hwSystem.Scenario.Scenario;
+import hwSystem.Scenario.ScenarioCompiler;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+/**
+ * One isolated simulator instance hosted by a {@link RigHost}.
+ * A rig owns its hwSystem, configuration, log directory, scenario and output file,
+ * and executes its scenario in slices so many rigs can share a worker pool.
+ * The scenario is compiled when the rig opens, so it may use repeat blocks, macros
+ * and ranges like a scenario run from a file.
+ */
+public class Rig {
+    private final String name;
+    private final String configPath;
+    private final String logDirectory;
+    private final String scenarioPath;
+    private final String outputPath;
+    private final String errorPath;
+
+    private hwSystem system;
+    private Scenario.Cursor scenario;
+    private PrintStream out;
+    private PrintStream err;
+    private boolean finished;
+    private long commandCount;
+    /**
+     * Constructs a rig description. Nothing is opened until the first slice runs.
+     *
+     * @param name         The rig name used in host messages.
+     * @param configPath   The configuration file of the rig.
+     * @param logDirectory The directory for the rig's port logs.
+     * @param scenarioPath The scenario file with the rig's commands.
+     * @param outputPath   The file receiving the rig's standard output.
+     * @param errorPath    The file receiving the rig's error output, or null for the host's error stream.
+     */
+    public Rig(String name, String configPath, String logDirectory, String scenarioPath, String outputPath, String errorPath) {
+        this.name = name;
+        this.configPath = configPath;
+        this.logDirectory = logDirectory;
+        this.scenarioPath = scenarioPath;
+        this.outputPath = outputPath;
+        this.errorPath = errorPath;
+    }
+    /**
+     * Executes up to {@code slice} commands of the scenario on the calling thread.
+     * Output of the rig is routed to its own files while the slice runs.
+     *
+     * @param slice The maximum number of commands to execute.
+     * @return true if the rig has more commands to run, false if it finished.
+     * @throws IOException If the scenario or output file cannot be used.
+     */
+    public boolean runSlice(int slice) throws IOException {
+        if (finished) return false;
+        if (system == null) open();
+
+        ConsoleRouter.bind(out, err);
+        try {
+            int executed = 0;
+            while (executed < slice) {
+                if (!scenario.next()) {
+                    System.err.println(name + ": Scenario ended without exit.");
+                    close();
+                    return false;
+                }
+                String command = scenario.getCommand();
+                system.execute(command, scenario.getParts());
+                commandCount++;
+                executed++;
+                if (command.equals("exit")) {
+                    close();
+                    return false;
+                }
+            }
+            out.flush();
+            err.flush();
+            return true;
+        } finally {
+            ConsoleRouter.unbind();
+        }
+    }
+    /**
+     * Releases the rig's files after a failure.
+     */
+    public void abort() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Already failing, nothing more to report
+        }
+    }
+    /**
+     * Returns the rig name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+    /**
+     * Returns the number of commands executed so far.
+     *
+     * @return The command count.
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    private void open() throws IOException {
+        out = openStream(outputPath);
+        err = errorPath == null ? ConsoleRouter.originalErr() : openStream(errorPath);
+        system = new hwSystem(logDirectory);
+        ConsoleRouter.bind(out, err);
+        try {
+            system.loadConfiguration(configPath);
+            scenario = compile(scenarioPath);
+        } finally {
+            ConsoleRouter.unbind();
+        }
+    }
+
+    private static Scenario.Cursor compile(String path) throws IOException {
+        ScenarioCompiler compiler = new ScenarioCompiler();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!compiler.addLine(line)) break;
+            }
+        }
+        return compiler.finish().cursor();
+    }
+
+    private static PrintStream openStream(String path) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) file.getParentFile().mkdirs();
+        return new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16), false);
+    }
+
+    private void close() throws IOException {
+        finished = true;
+        if (system != null) system.close();
+        system = null;
+        if (out != null) out.close();
+        if (err != null && errorPath != null) err.close();
+        scenario = null;
+    }
+}
@@ -0,0 +1,139 @@
+package hwSystem.Host;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+/**
+ * Hosts many independent simulator rigs in one JVM.
+ *
+ * <p>Rigs are read from a host file with one rig per line:
+ * <pre>
+ * # configFile logDirectory scenarioFile outputFile [errorFile]
+ * rigA/config.txt rigA/logs rigA/scenario.txt rigA/output.txt rigA/errors.txt
+ * </pre>
+ * Without an error file, errors of the rig go to the host's error stream.
+ *
+ * <p>All rigs share a fixed worker pool. A rig runs one slice of commands and then
+ * queues itself behind the other rigs, so the pool is time-sliced fairly
+ * between them no matter how long each scenario is.
+ */
+public class RigHost {
+    private final int threads;
+    private final int slice;
+    private final ArrayList<Rig> rigs;
+    /**
+     * Constructs a host.
+     *
+     * @param threads The number of worker threads.
+     * @param slice   The number of commands a rig runs before yielding.
+     */
+    public RigHost(int threads, int slice) {
+        if (threads < 1 || slice < 1) {
+            throw new IllegalArgumentException("Threads and slice must be positive.");
+        }
+        this.threads = threads;
+        this.slice = slice;
+        this.rigs = new ArrayList<>();
+    }
+    /**
+     * Loads the rig descriptions from a host file.
+     *
+     * @param hostFilePath The host file path.
+     * @throws IOException If the file cannot be read or a line is malformed.
+     */
+    public void load(String hostFilePath) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(hostFilePath))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split("\\s+");
+                if (parts.length != 4 && parts.length != 5) {
+                    throw new IOException("Line " + lineNumber + ": expected <configFile> <logDirectory> <scenarioFile> <outputFile> [errorFile].");
+                }
+                String errorFile = parts.length == 5 ? parts[4] : null;
+                rigs.add(new Rig("rig" + rigs.size(), parts[0], parts[1], parts[2], parts[3], errorFile));
+            }
+        }
+    }
+    /**
+     * Adds a rig to the host.
+     *
+     * @param rig The rig to host.
+     */
+    public void addRig(Rig rig) {
+        rigs.add(rig);
+    }
+    /**
+     * Runs all rigs to completion on the shared worker pool.
+     *
+     * @return The total number of commands executed by all rigs.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public long runAll() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(rigs.size());
+        try {
+            Iterator<Rig> it = rigs.iterator();
+            while (it.hasNext()) {
+                pool.execute(new SliceTask(it.next(), pool, done));
+            }
+            done.await();
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = 0;
+        Iterator<Rig> it = rigs.iterator();
+        while (it.hasNext()) {
+            total += it.next().getCommandCount();
+        }
+        return total;
+    }
+    /**
+     * Returns the number of hosted rigs.
+     *
+     * @return The rig count.
+     */
+    public int getRigCount() {
+        return rigs.size();
+    }
+    /**
+     * Runs one slice of a rig and requeues it at the back of the pool's queue.
+     */
+    private class SliceTask implements Runnable {
+        private final Rig rig;
+        private final ExecutorService pool;
+        private final CountDownLatch done;
+
+        SliceTask(Rig rig, ExecutorService pool, CountDownLatch done) {
+            this.rig = rig;
+            this.pool = pool;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            boolean more;
+            try {
+                more = rig.runSlice(slice);
+            } catch (IOException | RuntimeException e) {
+                System.err.println(rig.getName() + ": Error: " + e.getMessage());
+                rig.abort();
+                more = false;
+            }
+            if (more) {
+                pool.execute(this);
+            } else {
+                done.countDown();
+            }
+        }
+    }
+}
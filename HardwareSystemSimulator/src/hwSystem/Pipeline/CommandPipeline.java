@@ -0,0 +1,244 @@
+package hwSystem.Pipeline;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.Devices.ChangeFeed;
+import hwSystem.Devices.DeviceChange;
+import hwSystem.Scenario.Scenario;
+import hwSystem.hwSystem;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+/**
+ * Executes a command queue in stages so that commands for different ports overlap.
+ *
+ * <p>The stages run on their own threads and are connected by bounded queues:
+ * <ol>
+ *     <li>parse: steps through the compiled scenario, whose commands are already
+ *         split into their parts,</li>
+ *     <li>dispatch: resolves the port a command targets and hands it to the lane
+ *         of that port,</li>
+ *     <li>lanes: execute the commands of their ports, in order,</li>
+ *     <li>output: writes the captured output of every command in the original
+ *         command order and records its device changes in the change feed.</li>
+ * </ol>
+ * All commands for one port go through the same lane, so every device sees its
+ * commands in order. {@code addDev} and {@code rmDev} also go to the lane of their
+ * port, and the other lanes keep reading their devices meanwhile; the dispatcher only
+ * waits for the change itself, so that the commands after it are routed to the
+ * device's new port. Commands that scan devices ({@code list}, {@code pollSensors},
+ * {@code exit}, ...) are barriers: the dispatcher waits until all lanes are idle and the
+ * changes before them are recorded, and runs them alone. The output and the sequence
+ * numbers of the change feed are therefore the same as when the commands run one by one.
+ */
+public class CommandPipeline {
+    /** Capacity of the queues between the parse, dispatch and lane stages. */
+    public static final int QUEUE_CAPACITY = 1024;
+    /** Maximum number of commands between dispatch and output. */
+    public static final int MAX_IN_FLIGHT = 4096;
+
+    private static final Slot END = new Slot(null, null);
+
+    private final hwSystem system;
+    private final ChangeFeed changeFeed;
+    private final int laneCount;
+    private final BlockingQueue<Slot> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Slot> ordered = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+    private final ArrayList<BlockingQueue<Slot>> lanes;
+    private PrintStream sinkOut;
+    private PrintStream sinkErr;
+    /**
+     * Constructs a pipeline over a simulator.
+     *
+     * @param system    The simulator executing the commands.
+     * @param laneCount The number of lanes executing commands concurrently.
+     */
+    public CommandPipeline(hwSystem system, int laneCount) {
+        this.system = system;
+        this.changeFeed = system.getChangeFeed();
+        this.laneCount = laneCount;
+        this.lanes = new ArrayList<>();
+        int i = 0;
+        while (i < laneCount) {
+            lanes.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+            i++;
+        }
+    }
+    /**
+     * Executes all commands of a scenario and returns when their output is written.
+     * The output goes to the streams System.out and System.err point to for the
+     * calling thread.
+     *
+     * @param scenario The compiled scenario to execute.
+     */
+    public void run(Scenario scenario) {
+        ConsoleRouter.install();
+        sinkOut = ConsoleRouter.currentOut();
+        sinkErr = ConsoleRouter.currentErr();
+
+        Thread[] threads = new Thread[laneCount + 3];
+        threads[0] = new Thread(() -> parse(scenario), "pipeline-parse");
+        threads[1] = new Thread(this::dispatch, "pipeline-dispatch");
+        threads[2] = new Thread(this::writeOutput, "pipeline-output");
+        int i = 0;
+        while (i < laneCount) {
+            BlockingQueue<Slot> lane = lanes.get(i);
+            String name = "pipeline-lane-" + i;
+            threads[i + 3] = new Thread(() -> runLane(lane), name);
+            i++;
+        }
+        i = 0;
+        while (i < threads.length) {
+            threads[i].start();
+            i++;
+        }
+        i = 0;
+        while (i < threads.length) {
+            try {
+                threads[i].join();
+                i++;
+            } catch (InterruptedException e) {
+                // Keep waiting: the stages cannot be abandoned halfway
+            }
+        }
+        sinkOut.flush();
+        sinkErr.flush();
+    }
+
+    private void parse(Scenario scenario) {
+        try {
+            Scenario.Cursor cursor = scenario.cursor();
+            while (cursor.next()) {
+                parsed.put(new Slot(cursor.getCommand(), cursor.getParts()));
+            }
+            parsed.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        OutputCapture capture = new OutputCapture();
+        ConsoleRouter.bind(capture.out, capture.err);
+        Slot[] lastInLane = new Slot[laneCount];
+        Slot previous = null;
+        try {
+            while (true) {
+                Slot slot = parsed.take();
+                if (slot == END) break;
+                ordered.put(slot);
+
+                int port = system.getTargetPort(slot.parts);
+                int changedPort = port >= 0 ? -1 : system.getChangedPort(slot.parts);
+                if (port >= 0) {
+                    int lane = port % laneCount;
+                    lanes.get(lane).put(slot);
+                    lastInLane[lane] = slot;
+                } else if (changedPort >= 0) {
+                    // Device change: routing depends on its result, the lanes do not
+                    int lane = changedPort % laneCount;
+                    lanes.get(lane).put(slot);
+                    lastInLane[lane] = slot;
+                    slot.done.await();
+                } else {
+                    // Barrier: wait until every lane has finished its commands
+                    int i = 0;
+                    while (i < laneCount) {
+                        if (lastInLane[i] != null) lastInLane[i].done.await();
+                        lastInLane[i] = null;
+                        i++;
+                    }
+                    // and until the output stage has recorded their changes
+                    if (previous != null) previous.recorded.await();
+                    execute(slot, capture);
+                }
+                previous = slot;
+            }
+            int i = 0;
+            while (i < laneCount) {
+                lanes.get(i).put(END);
+                i++;
+            }
+            ordered.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ConsoleRouter.unbind();
+        }
+    }
+
+    private void runLane(BlockingQueue<Slot> lane) {
+        OutputCapture capture = new OutputCapture();
+        ConsoleRouter.bind(capture.out, capture.err);
+        changeFeed.hold();
+        try {
+            while (true) {
+                Slot slot = lane.take();
+                if (slot == END) break;
+                execute(slot, capture);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            changeFeed.release();
+            ConsoleRouter.unbind();
+        }
+    }
+
+    private void execute(Slot slot, OutputCapture capture) {
+        try {
+            system.execute(slot.command, slot.parts);
+        } catch (RuntimeException e) {
+            capture.err.println("Error: " + e);
+        }
+        capture.drainTo(slot);
+        slot.changes = changeFeed.takeHeld();
+        slot.done.countDown();
+    }
+
+    private void writeOutput() {
+        try {
+            while (true) {
+                Slot slot = ordered.take();
+                if (slot == END) break;
+                slot.done.await();
+                int position = 0;
+                int i = 0;
+                while (i < slot.segments.length) {
+                    int length = slot.segments[i];
+                    if (length > 0) {
+                        sinkOut.write(slot.output, position, length);
+                    } else {
+                        sinkErr.write(slot.output, position, -length);
+                        length = -length;
+                    }
+                    position += length;
+                    i++;
+                }
+                if (slot.changes != null) changeFeed.recordAll(slot.changes);
+                slot.recorded.countDown();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    /**
+     * One command on its way through the pipeline.
+     */
+    static final class Slot {
+        final String command;
+        final String[] parts;
+        final CountDownLatch done = new CountDownLatch(1);
+        // Counted down once the output stage has recorded the changes of the command
+        final CountDownLatch recorded = new CountDownLatch(1);
+        byte[] output;
+        int[] segments;
+        ArrayList<DeviceChange> changes;
+
+        Slot(String command, String[] parts) {
+            this.command = command;
+            this.parts = parts;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package hwSystem.Pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+/**
+ * Captures the standard and error output of one thread, keeping the order in which
+ * the two streams were written so it can be replayed exactly.
+ *
+ * <p>The output is recorded as one byte array plus a list of segments; a positive
+ * segment length belongs to standard output, a negative one to error output.
+ */
+class OutputCapture {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private int[] segments = new int[8];
+    private int segmentCount;
+
+    final PrintStream out = new PrintStream(new Sink(false), true, Charset.defaultCharset());
+    final PrintStream err = new PrintStream(new Sink(true), true, Charset.defaultCharset());
+    /**
+     * Moves the captured output into a command slot and starts a new capture.
+     *
+     * @param slot The slot of the command that produced the output.
+     */
+    void drainTo(CommandPipeline.Slot slot) {
+        out.flush();
+        err.flush();
+        slot.output = bytes.toByteArray();
+        slot.segments = Arrays.copyOf(segments, segmentCount);
+        bytes.reset();
+        segmentCount = 0;
+    }
+
+    private void append(byte[] b, int off, int len, boolean isErr) {
+        if (len == 0) return;
+        bytes.write(b, off, len);
+        int signed = isErr ? -len : len;
+        if (segmentCount > 0 && (segments[segmentCount - 1] < 0) == isErr) {
+            // Same stream as the previous write: extend the segment
+            segments[segmentCount - 1] += signed;
+            return;
+        }
+        if (segmentCount == segments.length) segments = Arrays.copyOf(segments, segmentCount * 2);
+        segments[segmentCount] = signed;
+        segmentCount++;
+    }
+
+    private final class Sink extends OutputStream {
+        private final boolean isErr;
+
+        Sink(boolean isErr) {
+            this.isErr = isErr;
+        }
+
+        @Override
+        public void write(int b) {
+            append(new byte[] { (byte) b }, 0, 1, isErr);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            append(b, off, len, isErr);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package hwSystem.Protocols;
+
+import hwSystem.Telemetry.Metrics;
+import hwSystem.Telemetry.ProtocolTransactionEvent;
+/**
+* Base of the protocols: keeps the port's log with its index, rotation, JFR events and
+* metrics. A protocol only supplies its name ({@link #getProtocolName()}).
+*/
+public abstract class AbstractProtocol implements Protocol {
+    private PortLog portLog;
+    private int portID;
+    private LogIndex logIndex;
+    private LogRotation logRotation;
+    private Metrics metrics;
+    // The text read() returns, e.g. "I2C:Reading."
+    private final String readResult;
+    /**
+    * Constructs a protocol and initializes the log with "Port Opened."
+    */
+    protected AbstractProtocol() {
+        readResult = getProtocolName() + ":Reading.";
+        portLog = new PortLog();
+        logIndex = new LogIndex(portLog);
+        portLog.add(LogOp.PORT_OPENED);
+        appended();
+    }
+    /**
+    * Logs a read operation and returns a description.
+    *
+    * @return The string indicating a read occurred.
+    */
+    @Override
+    public String read() {
+        portLog.add(LogOp.READING);
+        appended();
+        return readResult;
+    }
+    /**
+    * Logs a write operation to the protocol.
+    *
+    * @param data The data to be written.
+    */
+    @Override
+    public void write(String data) {
+        if (data == null || data.isEmpty()) {
+            System.err.printf("%s: ERROR - Cannot write empty data.\n", getProtocolName());
+            return;
+        }
+        /*log("Writing \"" + data + "\".");*/
+        log(data);
+    }
+    /**
+     * Logs a write operation with a constant message.
+     *
+     * @param op The opcode of the message.
+     */
+    @Override
+    public void write(LogOp op) {
+        portLog.add(op);
+        appended();
+    }
+    /**
+     * Logs a write operation with a string payload.
+     *
+     * @param op   The opcode of the message.
+     * @param data The data to be written.
+     */
+    @Override
+    public void write(LogOp op, String data) {
+        portLog.add(op, data);
+        appended();
+    }
+    /**
+     * Logs a write operation with an int payload.
+     *
+     * @param op    The opcode of the message.
+     * @param value The value to be written.
+     */
+    @Override
+    public void write(LogOp op, int value) {
+        portLog.add(op, value);
+        appended();
+    }
+    /**
+    * Pushes a new log entry to the protocol's log.
+    *
+    * @param entry The log message to push.
+    */
+    @Override
+    public void log(String entry) {
+        portLog.add(LogOp.TEXT, entry);
+        appended();
+    }
+    /**
+     * Indexes the entry just added to the log and rotates the log if needed.
+     */
+    private void appended() {
+        int position = portLog.size() - 1;
+        logIndex.add(position);
+        ProtocolTransactionEvent.emit(getProtocolName(), portID, portLog, position);
+        if (metrics != null) metrics.transaction(getProtocolName(), portID, portLog.getOp(position));
+        if (logRotation != null && logRotation.afterLog(portLog, logIndex)) {
+            logIndex.clear();
+        }
+    }
+    /**
+    * Returns the protocol’s log.
+    *
+    * @return The log of this port.
+    */
+    @Override
+    public PortLog getLogs() {
+        return portLog;
+    }
+    /**
+    * Returns the index over the protocol's log entries.
+    *
+    * @return The log index.
+    */
+    @Override
+    public LogIndex getLogIndex() {
+        return logIndex;
+    }
+    /**
+    * Enables rotation of the protocol's log into a compressed archive.
+    *
+    * @param rotation The rotation settings of this port.
+    */
+    @Override
+    public void setLogRotation(LogRotation rotation) {
+        this.logRotation = rotation;
+    }
+    /**
+    * Sets the metrics registry counting the reads and writes of this port.
+    *
+    * @param metrics The registry of the simulator owning the port.
+    */
+    @Override
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+    /**
+    * Returns the rotation of the protocol's log.
+    *
+    * @return The rotation settings, or null if the log is not rotated.
+    */
+    @Override
+    public LogRotation getLogRotation() {
+        return logRotation;
+    }
+    /**
+    * Replaces the log and its index, e.g. when a deactivated port is used again.
+    *
+    * @param log   The log to continue.
+    * @param index The index over that log.
+    */
+    @Override
+    public void restoreLog(PortLog log, LogIndex index) {
+        this.portLog = log;
+        this.logIndex = index;
+    }
+    /**
+    * Sets the protocol's port ID.
+    *
+    * @param id The port ID to set.
+    */
+    @Override
+    public void setPortID(int id) {
+        this.portID = id;
+    }
+    /**
+    * Gets the current port ID of the protocol.
+    *
+    * @return The port ID.
+    */
+    @Override
+    public int getPortID() {
+        return portID;
+    }
+}
@@ -0,0 +1,173 @@
+package hwSystem.Protocols;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+/**
+ * Random access to a rotated port log archive written by {@link LogRotation}.
+ *
+ * <p>Index record layout (big-endian, {@link LogRotation#INDEX_RECORD_SIZE} bytes):
+ * <pre>
+ * long offset in the .logz file
+ * int  compressed length
+ * int  uncompressed length
+ * int  entry count
+ * long sequence number of the first entry
+ * long timestamp of the first entry (microseconds)
+ * long timestamp of the last entry (microseconds)
+ * </pre>
+ */
+public class LogArchiveReader {
+    private final String archivePath;
+    private final ByteBuffer index;
+    private final int segmentCount;
+    /**
+     * Opens an archive by loading its segment index.
+     *
+     * @param archivePath The path of the .logz file.
+     * @throws IOException If the index cannot be read.
+     */
+    public LogArchiveReader(String archivePath) throws IOException {
+        this.archivePath = archivePath;
+        this.index = ByteBuffer.wrap(Files.readAllBytes(Path.of(archivePath + ".idx")));
+        this.segmentCount = index.capacity() / LogRotation.INDEX_RECORD_SIZE;
+    }
+    /**
+     * Returns the number of segments in the archive.
+     *
+     * @return The segment count.
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+    /**
+     * Returns the sequence number of the first entry of a segment.
+     *
+     * @param segment The segment number.
+     * @return The entry sequence number.
+     */
+    public long getFirstEntry(int segment) {
+        return index.getLong(segment * LogRotation.INDEX_RECORD_SIZE + 20);
+    }
+    /**
+     * Returns the number of entries in a segment.
+     *
+     * @param segment The segment number.
+     * @return The entry count.
+     */
+    public int getEntryCount(int segment) {
+        return index.getInt(segment * LogRotation.INDEX_RECORD_SIZE + 16);
+    }
+    /**
+     * Returns the timestamp of the first entry of a segment.
+     *
+     * @param segment The segment number.
+     * @return Microseconds since the simulator started.
+     */
+    public long getFirstTime(int segment) {
+        return index.getLong(segment * LogRotation.INDEX_RECORD_SIZE + 28);
+    }
+    /**
+     * Returns the timestamp of the last entry of a segment.
+     *
+     * @param segment The segment number.
+     * @return Microseconds since the simulator started.
+     */
+    public long getLastTime(int segment) {
+        return index.getLong(segment * LogRotation.INDEX_RECORD_SIZE + 36);
+    }
+    /**
+     * Finds the segment holding the entry with the given sequence number.
+     *
+     * @param entrySeq The entry sequence number (0 is the first entry ever logged).
+     * @return The segment number, or -1 if the entry is not archived.
+     */
+    public int findSegment(long entrySeq) {
+        int lo = 0;
+        int hi = segmentCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entrySeq < getFirstEntry(mid)) hi = mid - 1;
+            else if (entrySeq >= getFirstEntry(mid) + getEntryCount(mid)) lo = mid + 1;
+            else return mid;
+        }
+        return -1;
+    }
+    /**
+     * Finds the first segment whose last entry is not before the given time.
+     *
+     * @param time Microseconds since the simulator started.
+     * @return The segment number, or the segment count if all segments are older.
+     */
+    public int findSegmentByTime(long time) {
+        int lo = 0;
+        int hi = segmentCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (getLastTime(mid) < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    /**
+     * Decompresses one segment.
+     *
+     * @param segment The segment number.
+     * @return The entries of the segment, oldest first.
+     * @throws IOException If the archive cannot be read or is corrupt.
+     */
+    public String[] readSegment(int segment) throws IOException {
+        int base = segment * LogRotation.INDEX_RECORD_SIZE;
+        long offset = index.getLong(base);
+        byte[] compressed = new byte[index.getInt(base + 8)];
+        byte[] raw = new byte[index.getInt(base + 12)];
+        try (RandomAccessFile data = new RandomAccessFile(archivePath, "r")) {
+            data.seek(offset);
+            data.readFully(compressed);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                n += inflater.inflate(raw, n, raw.length - n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt log archive segment " + segment + ".");
+        } finally {
+            inflater.end();
+        }
+
+        String[] entries = new String[getEntryCount(segment)];
+        int start = 0;
+        int e = 0;
+        int i = 0;
+        while (i < raw.length && e < entries.length) {
+            if (raw[i] == '\n') {
+                entries[e] = new String(raw, start, i - start, StandardCharsets.UTF_8);
+                e++;
+                start = i + 1;
+            }
+            i++;
+        }
+        return entries;
+    }
+    /**
+     * Reads a single archived entry.
+     *
+     * @param entrySeq The entry sequence number.
+     * @return The entry text, or null if it is not archived.
+     * @throws IOException If the archive cannot be read.
+     */
+    public String readEntry(long entrySeq) throws IOException {
+        int segment = findSegment(entrySeq);
+        if (segment < 0) return null;
+        return readSegment(segment)[(int) (entrySeq - getFirstEntry(segment))];
+    }
+}
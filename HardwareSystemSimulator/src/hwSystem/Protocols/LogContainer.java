@@ -0,0 +1,164 @@
+package hwSystem.Protocols;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * Reads a log container written by {@link LogContainerWriter} and extracts the logs of
+ * single ports into their usual {@code <Protocol>_<portID>.log} files.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * int  magic "HWL1"
+ * segments: the .log bytes of one port each, newest entry first
+ * directory: one entry per port ({@link LogContainerWriter#ENTRY_SIZE} bytes)
+ *     byte protocol kind (see {@link PortTable#KIND_NAMES})
+ *     int  portID
+ *     long offset of the segment
+ *     int  length of the segment
+ * trailer ({@link LogContainerWriter#TRAILER_SIZE} bytes)
+ *     long offset of the directory
+ *     int  entry count
+ *     int  magic "HWLD"
+ * </pre>
+ * Only the last directory of the file is current; segments listed by earlier
+ * directories belong to earlier writes. Entries are in portID order.
+ */
+public class LogContainer {
+    private final Path path;
+    private final ByteBuffer directory;
+    private final int entryCount;
+    /**
+     * Opens a container by loading its directory.
+     *
+     * @param path The path of the container file.
+     * @throws IOException If the file cannot be read or is not a complete container.
+     */
+    public LogContainer(String path) throws IOException {
+        this.path = Path.of(path);
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 + LogContainerWriter.TRAILER_SIZE) throw new IOException("Not a log container: " + path);
+            ByteBuffer trailer = readAt(channel, size - LogContainerWriter.TRAILER_SIZE, LogContainerWriter.TRAILER_SIZE);
+            long directoryOffset = trailer.getLong(0);
+            int count = trailer.getInt(8);
+            long directorySize = (long) count * LogContainerWriter.ENTRY_SIZE;
+            if (trailer.getInt(12) != LogContainerWriter.DIRECTORY_MAGIC || count < 0
+                    || directoryOffset + directorySize + LogContainerWriter.TRAILER_SIZE != size
+                    || readAt(channel, 0, 4).getInt(0) != LogContainerWriter.MAGIC) {
+                throw new IOException("Not a complete log container: " + path);
+            }
+            this.directory = readAt(channel, directoryOffset, (int) directorySize);
+            this.entryCount = count;
+        }
+    }
+    /**
+     * Returns the number of port logs in the container.
+     *
+     * @return The entry count.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+    /**
+     * Returns the log name of an entry.
+     *
+     * @param entry The entry number.
+     * @return The name the .log file would have without extension, e.g. "I2C_0".
+     */
+    public String getName(int entry) {
+        int base = entry * LogContainerWriter.ENTRY_SIZE;
+        return PortTable.KIND_NAMES[directory.get(base)] + "_" + directory.getInt(base + 1);
+    }
+    /**
+     * Returns the length of the log of an entry.
+     *
+     * @param entry The entry number.
+     * @return The length in bytes.
+     */
+    public int getLength(int entry) {
+        return directory.getInt(entry * LogContainerWriter.ENTRY_SIZE + 13);
+    }
+    /**
+     * Finds the entry of a log by name.
+     *
+     * @param name The log name, e.g. "I2C_0" (a trailing ".log" is ignored).
+     * @return The entry number, or -1 if the container has no such log.
+     */
+    public int find(String name) {
+        if (name.endsWith(".log")) name = name.substring(0, name.length() - 4);
+        int separator = name.lastIndexOf('_');
+        if (separator < 0) return -1;
+        int portID;
+        try {
+            portID = Integer.parseInt(name.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        // Entries are written in portID order; a shard's container skips the other ports
+        int lo = 0;
+        int hi = entryCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midPort = directory.getInt(mid * LogContainerWriter.ENTRY_SIZE + 1);
+            if (midPort < portID) lo = mid + 1;
+            else if (midPort > portID) hi = mid - 1;
+            else return getName(mid).equals(name) ? mid : -1;
+        }
+        return -1;
+    }
+    /**
+     * Writes the log of an entry to {@code <outDir>/<name>.log}, replacing an existing file.
+     *
+     * @param entry  The entry number.
+     * @param outDir The directory to write to.
+     * @throws IOException If the log cannot be copied.
+     */
+    public void extract(int entry, String outDir) throws IOException {
+        new File(outDir).mkdirs();
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            copy(source, entry, outDir);
+        }
+    }
+    /**
+     * Writes the logs of all entries to {@code outDir}, sharing one open container file.
+     *
+     * @param outDir The directory to write to.
+     * @throws IOException If a log cannot be copied.
+     */
+    public void extractAll(String outDir) throws IOException {
+        new File(outDir).mkdirs();
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            int entry = 0;
+            while (entry < entryCount) {
+                copy(source, entry, outDir);
+                entry++;
+            }
+        }
+    }
+
+    private void copy(FileChannel source, int entry, String outDir) throws IOException {
+        long offset = directory.getLong(entry * LogContainerWriter.ENTRY_SIZE + 5);
+        long length = getLength(entry);
+        Path out = Path.of(outDir, getName(entry) + ".log");
+        try (FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long done = 0;
+            while (done < length) {
+                done += source.transferTo(offset + done, length - done, target);
+            }
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of log container.");
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,198 @@
+package hwSystem.Protocols;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Writes the logs of all ports into one container file, {@value #FILE_NAME}, instead of
+ * one {@code <Protocol>_<portID>.log} file per port.
+ *
+ * <p>The logs are rendered in batches of ports by a pool of writer threads and appended
+ * in port order with large sequential writes. Each port gets one segment holding exactly
+ * the bytes of its .log file; a directory of all segments and a trailer pointing to it
+ * follow the segments. See {@link LogContainer} for the layout.
+ *
+ * <p>Ports handled by another process of a sharded rig ({@link PortTable#isForeign(int)})
+ * are left out; each process writes its own container.
+ *
+ * <p>The first write of a run replaces the container. Later writes (e.g. a second
+ * {@code exit}) append new segments and a new directory, which replaces the previous
+ * one just as the .log files would be overwritten.
+ */
+public class LogContainerWriter {
+    /** Name of the container file in the log directory. */
+    public static final String FILE_NAME = "ports.hwl";
+    /** First four bytes of a container ("HWL1"). */
+    public static final int MAGIC = 0x48574c31;
+    /** Last four bytes of a container ("HWLD"). */
+    public static final int DIRECTORY_MAGIC = 0x48574c44;
+    /** Size of one directory entry. */
+    public static final int ENTRY_SIZE = 17;
+    /** Size of the trailer. */
+    public static final int TRAILER_SIZE = 16;
+
+    // Ports rendered by one task
+    private static final int BATCH_PORTS = 1024;
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final String path;
+    private final int threads;
+    private boolean started;
+    /**
+     * Constructs the writer of a log directory.
+     *
+     * @param logDirectory The directory holding the logs.
+     * @param fileName     The container file name, usually {@value #FILE_NAME}.
+     * @param threads      The number of writer threads (at least 1).
+     */
+    public LogContainerWriter(String logDirectory, String fileName, int threads) {
+        this.path = logDirectory + "/" + fileName;
+        this.threads = Math.max(threads, 1);
+    }
+    /**
+     * Returns the path of the container file.
+     *
+     * @return The path.
+     */
+    public String getPath() {
+        return path;
+    }
+    /**
+     * Writes the logs of all ports and empties them.
+     *
+     * @param ports The ports.
+     * @return The number of log bytes written, without the directory.
+     * @throws IOException If the container cannot be written.
+     */
+    public long write(PortTable ports) throws IOException {
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        int portCount = ports.size();
+        int entryCount = countOwnPorts(ports);
+        ByteBuffer directory = ByteBuffer.allocate(entryCount * ENTRY_SIZE + TRAILER_SIZE);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "log-writer-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long logBytes = 0;
+        try (FileChannel channel = open(file)) {
+            long offset = channel.size();
+            if (offset == 0) {
+                offset += writeFully(channel, ByteBuffer.allocate(4).putInt(MAGIC).flip());
+            }
+            // Batches are written in order; a few more are rendered ahead, which bounds memory
+            ArrayList<Future<Batch>> pending = new ArrayList<>();
+            int window = threads * 2;
+            int nextPort = 0;
+            while (nextPort < portCount || !pending.isEmpty()) {
+                while (nextPort < portCount && pending.size() < window) {
+                    int first = nextPort;
+                    int end = Math.min(first + BATCH_PORTS, portCount);
+                    pending.add(pool.submit(() -> render(ports, first, end)));
+                    nextPort = end;
+                }
+                Batch batch = await(pending.remove(0));
+                int i = 0;
+                while (i < batch.lengths.length) {
+                    if (batch.lengths[i] < 0) {
+                        i++;
+                        continue;
+                    }
+                    int portID = batch.first + i;
+                    directory.put((byte) PortTable.kindOf(ports.getProtocolName(portID)));
+                    directory.putInt(portID);
+                    directory.putLong(offset);
+                    directory.putInt(batch.lengths[i]);
+                    offset += batch.lengths[i];
+                    i++;
+                }
+                logBytes += writeFully(channel, ByteBuffer.wrap(batch.data.toByteArray()));
+            }
+            directory.putLong(offset);
+            directory.putInt(entryCount);
+            directory.putInt(DIRECTORY_MAGIC);
+            directory.flip();
+            writeFully(channel, directory);
+        } finally {
+            pool.shutdown();
+        }
+        started = true;
+        return logBytes;
+    }
+
+    private static int countOwnPorts(PortTable ports) {
+        int count = 0;
+        int portID = 0;
+        while (portID < ports.size()) {
+            if (!ports.isForeign(portID)) count++;
+            portID++;
+        }
+        return count;
+    }
+
+    private FileChannel open(File file) throws IOException {
+        if (started) {
+            return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static Batch render(PortTable ports, int first, int end) throws IOException {
+        Batch batch = new Batch(first, end - first);
+        int portID = first;
+        while (portID < end) {
+            if (ports.isForeign(portID)) {
+                batch.lengths[portID - first] = -1;
+            } else {
+                int before = batch.data.size();
+                ports.writeLog(portID, batch.data);
+                batch.lengths[portID - first] = batch.data.size() - before;
+            }
+            portID++;
+        }
+        return batch;
+    }
+
+    private static Batch await(Future<Batch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the log container.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+    /**
+     * The rendered logs of consecutive ports.
+     */
+    private static final class Batch {
+        final int first;
+        final int[] lengths;
+        final ByteArrayOutputStream data = new ByteArrayOutputStream(1 << 16);
+
+        Batch(int first, int count) {
+            this.first = first;
+            this.lengths = new int[count];
+        }
+    }
+}
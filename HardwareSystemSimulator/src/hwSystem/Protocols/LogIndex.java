@@ -0,0 +1,400 @@
+package hwSystem.Protocols;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+/**
+ * In-memory index over the log entries of one port, maintained on every log call.
+ *
+ * <p>Entries are indexed by operation type, by timestamp and by their opcode.
+ * Every opcode has one position list, and a prefix either matches all entries of
+ * an opcode or none (for constant messages, or when the prefix ends inside the
+ * constant text before the payload). Such queries are answered with a few binary
+ * searches instead of scanning the log. For prefixes that reach into a payload, each
+ * opcode with a payload also has a TreeMap from payload text to its positions, so
+ * the matching payloads are one sub-map. The payload maps are brought up to date by
+ * the next such query, not by every log call, and never render an entry.
+ */
+public class LogIndex {
+    /**
+     * Operation types of log entries.
+     */
+    public enum Op {
+        /** The port was opened. */
+        OPEN,
+        /** A read operation. */
+        READ,
+        /** Any write operation (turnON/turnOFF, display, wireless, motor). */
+        WRITE;
+        /**
+         * Returns the operation type of a log entry.
+         *
+         * @param entry The log entry text.
+         * @return The operation type.
+         */
+        public static Op classify(String entry) {
+            if (entry.equals("Reading.")) return READ;
+            if (entry.equals("Port Opened.")) return OPEN;
+            return WRITE;
+        }
+    }
+
+    private static final long EPOCH = System.nanoTime();
+
+    private final PortLog log;
+    private long[] times = new long[16];
+    private int size;
+    private final PositionList[] byOp;
+    private final PositionList[] byCode;
+    // Per opcode with a payload: payload text to positions, covering the first
+    // payloadsIndexed[code] positions of byCode[code]
+    private final TreeMap<String, PositionList>[] byPayload;
+    private final int[] payloadsIndexed;
+    /**
+     * Constructs an empty index over a port log.
+     *
+     * @param log The indexed log.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LogIndex(PortLog log) {
+        this.log = log;
+        byOp = newLists(Op.values().length);
+        byCode = newLists(LogOp.values().length);
+        byPayload = new TreeMap[LogOp.values().length];
+        payloadsIndexed = new int[LogOp.values().length];
+    }
+
+    /**
+     * Constructs an index over an existing log, e.g. when a deactivated port is used again.
+     *
+     * @param log   The indexed log.
+     * @param times The timestamps of all entries of the log, oldest first.
+     */
+    public LogIndex(PortLog log, long[] times) {
+        this(log);
+        if (times.length > 0) this.times = times;
+        while (size < times.length) {
+            byOp[log.getOp(size).ordinal()].add(size);
+            byCode[log.getCode(size).ordinal()].add(size);
+            size++;
+        }
+    }
+
+    private static PositionList[] newLists(int count) {
+        PositionList[] lists = new PositionList[count];
+        int i = 0;
+        while (i < count) {
+            lists[i] = new PositionList();
+            i++;
+        }
+        return lists;
+    }
+    /**
+     * Returns the current time on the index clock.
+     *
+     * @return Microseconds since the simulator started.
+     */
+    public static long now() {
+        return (System.nanoTime() - EPOCH) / 1000;
+    }
+    /**
+     * Indexes the entry just appended to the log. Entries must be added in log order.
+     *
+     * @param position The position of the entry in the port log.
+     */
+    public void add(int position) {
+        if (position != size) {
+            throw new IllegalStateException("Log index is out of sync with the log.");
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+        }
+        times[size] = now();
+        byOp[log.getOp(size).ordinal()].add(size);
+        byCode[log.getCode(size).ordinal()].add(size);
+        size++;
+    }
+    /**
+     * Removes all entries from the index, e.g. after the log was written out.
+     */
+    public void clear() {
+        size = 0;
+        int i = 0;
+        while (i < byOp.length) {
+            byOp[i].clear();
+            i++;
+        }
+        i = 0;
+        while (i < byCode.length) {
+            byCode[i].clear();
+            byPayload[i] = null;
+            payloadsIndexed[i] = 0;
+            i++;
+        }
+    }
+    /**
+     * Returns the number of indexed entries.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Returns the timestamps of all indexed entries.
+     *
+     * @return A copy holding exactly {@link #size()} timestamps, oldest first.
+     */
+    public long[] getTimes() {
+        return Arrays.copyOf(times, size);
+    }
+    /**
+     * Returns the timestamp of an entry.
+     *
+     * @param position The entry position.
+     * @return Microseconds since the simulator started.
+     */
+    public long getTime(int position) {
+        return times[position];
+    }
+    /**
+     * Returns the operation type of an entry.
+     *
+     * @param position The entry position.
+     * @return The operation type.
+     */
+    public Op getOp(int position) {
+        return log.getOp(position);
+    }
+    /**
+     * Finds the entries matching all given filters.
+     *
+     * @param op       The operation type, or null for any.
+     * @param fromTime The earliest timestamp in microseconds (inclusive).
+     * @param toTime   The latest timestamp in microseconds (inclusive).
+     * @param prefix   The text prefix, or null for any.
+     * @param limit    The maximum number of positions to return.
+     * @return The matching positions (newest first, at most {@code limit}) and the total match count.
+     */
+    public QueryResult query(Op op, long fromTime, long toTime, String prefix, int limit) {
+        int lo = lowerBound(fromTime);
+        int hi = lowerBound(toTime == Long.MAX_VALUE ? toTime : toTime + 1);
+        if (lo >= hi) return new QueryResult(new int[0], 0);
+
+        PositionList[] lists;
+        if (prefix == null) {
+            if (op == null) {
+                // Time range only: the positions are contiguous
+                int count = hi - lo;
+                int n = Math.min(limit, count);
+                int[] positions = new int[n];
+                int i = 0;
+                while (i < n) {
+                    positions[i] = hi - 1 - i;
+                    i++;
+                }
+                return new QueryResult(positions, count);
+            }
+            lists = new PositionList[] { byOp[op.ordinal()] };
+        } else {
+            LogOp[] codes = LogOp.values();
+            int count = 0;
+            lists = new PositionList[codes.length];
+            int i = 0;
+            while (i < codes.length) {
+                LogOp code = codes[i];
+                if (code.getOp() == null || op == null || code.getOp() == op) {
+                    if (code.getOp() != null && code.getPrefix().startsWith(prefix)) {
+                        lists[count] = byCode[i];
+                        count++;
+                    } else if (code.getPayload() != LogOp.Payload.NONE && prefix.startsWith(code.getPrefix())) {
+                        // Free text is classified per payload, as the type depends on the text
+                        PositionList[] matches = matchPayloads(code, prefix.substring(code.getPrefix().length()),
+                                code.getOp() == null ? op : null);
+                        if (count + matches.length > lists.length) {
+                            lists = Arrays.copyOf(lists, count + matches.length + codes.length);
+                        }
+                        System.arraycopy(matches, 0, lists, count, matches.length);
+                        count += matches.length;
+                    }
+                }
+                i++;
+            }
+            lists = Arrays.copyOf(lists, count);
+        }
+        return merge(lists, lo, hi, limit);
+    }
+    /**
+     * Returns the position lists of the payloads of an opcode whose entries start with
+     * the given text after the opcode prefix.
+     *
+     * @param code The opcode.
+     * @param rest The part of the query prefix after the opcode prefix.
+     * @param op   The operation type each entry must have, or null for any.
+     */
+    private PositionList[] matchPayloads(LogOp code, String rest, Op op) {
+        TreeMap<String, PositionList> payloads = indexPayloads(code);
+        PositionList[] lists = new PositionList[4];
+        int count = 0;
+        // Payloads starting with the rest of the prefix
+        NavigableMap<String, PositionList> matches = payloads.subMap(rest, true, rest + Character.MAX_VALUE, false);
+        Iterator<Map.Entry<String, PositionList>> it = matches.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PositionList> entry = it.next();
+            if (op == null || Op.classify(code.getPrefix() + entry.getKey() + code.getSuffix()) == op) {
+                if (count == lists.length) lists = Arrays.copyOf(lists, count * 2);
+                lists[count] = entry.getValue();
+                count++;
+            }
+        }
+        // Shorter payloads, where the prefix reaches into the suffix
+        int length = 0;
+        while (length < rest.length() && !code.getSuffix().isEmpty()) {
+            PositionList list = payloads.get(rest.substring(0, length));
+            if (list != null && code.getSuffix().startsWith(rest.substring(length))
+                    && (op == null || Op.classify(code.getPrefix() + rest.substring(0, length) + code.getSuffix()) == op)) {
+                if (count == lists.length) lists = Arrays.copyOf(lists, count * 2);
+                lists[count] = list;
+                count++;
+            }
+            length++;
+        }
+        return Arrays.copyOf(lists, count);
+    }
+    /**
+     * Adds the entries of an opcode logged since the last call to its payload map.
+     */
+    private TreeMap<String, PositionList> indexPayloads(LogOp code) {
+        int c = code.ordinal();
+        if (byPayload[c] == null) byPayload[c] = new TreeMap<>();
+        TreeMap<String, PositionList> payloads = byPayload[c];
+        PositionList list = byCode[c];
+        while (payloadsIndexed[c] < list.size()) {
+            int position = list.get(payloadsIndexed[c]);
+            String payload = log.getPayload(position);
+            PositionList positions = payloads.get(payload);
+            if (positions == null) {
+                positions = new PositionList();
+                payloads.put(payload, positions);
+            }
+            positions.add(position);
+            payloadsIndexed[c]++;
+        }
+        return payloads;
+    }
+    /**
+     * Counts the positions of the lists inside [lo, hi) and collects the newest ones.
+     */
+    private QueryResult merge(PositionList[] lists, int lo, int hi, int limit) {
+        int[] cursors = new int[lists.length];
+        int[] starts = new int[lists.length];
+        int count = 0;
+        int i = 0;
+        while (i < lists.length) {
+            starts[i] = lists[i].lowerBound(lo);
+            cursors[i] = lists[i].lowerBound(hi) - 1;
+            count += cursors[i] - starts[i] + 1;
+            i++;
+        }
+
+        int[] positions = new int[Math.min(limit, count)];
+        if (positions.length == 0) return new QueryResult(positions, count);
+        // Lists with entries left, newest entry first; a prefix may match many payloads
+        PriorityQueue<Integer> newest = new PriorityQueue<>(lists.length,
+                (a, b) -> Integer.compare(lists[b].get(cursors[b]), lists[a].get(cursors[a])));
+        i = 0;
+        while (i < lists.length) {
+            if (cursors[i] >= starts[i]) newest.add(i);
+            i++;
+        }
+        int n = 0;
+        while (n < positions.length) {
+            int best = newest.poll();
+            positions[n] = lists[best].get(cursors[best]);
+            cursors[best]--;
+            if (cursors[best] >= starts[best]) newest.add(best);
+            n++;
+        }
+        return new QueryResult(positions, count);
+    }
+    /**
+     * Returns the first position whose timestamp is not before the given time.
+     */
+    private int lowerBound(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+    /**
+     * The result of an index query.
+     */
+    public static class QueryResult {
+        private final int[] positions;
+        private final int count;
+
+        QueryResult(int[] positions, int count) {
+            this.positions = positions;
+            this.count = count;
+        }
+        /**
+         * Returns the positions of the newest matching entries.
+         *
+         * @return Positions in the port log, newest first.
+         */
+        public int[] getPositions() {
+            return positions;
+        }
+        /**
+         * Returns the total number of matching entries.
+         *
+         * @return The match count.
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+    /**
+     * A growable, sorted list of int positions.
+     */
+    private static class PositionList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size] = value;
+            size++;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int lowerBound(int value) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < value) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
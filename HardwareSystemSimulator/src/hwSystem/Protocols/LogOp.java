@@ -0,0 +1,115 @@
+package hwSystem.Protocols;
+
+import java.nio.charset.StandardCharsets;
+/**
+ * Opcodes of port log entries.
+ *
+ * <p>The constant part of every message is encoded to UTF-8 once, here. A log entry is
+ * stored as its opcode plus an optional payload (a string or an int) and is only rendered
+ * to text or bytes when it is queried or written out.
+ */
+public enum LogOp {
+    /** "Port Opened." */
+    PORT_OPENED("Port Opened.", "", Payload.NONE, LogIndex.Op.OPEN),
+    /** "Reading." */
+    READING("Reading.", "", Payload.NONE, LogIndex.Op.READ),
+    /** "Writing "turnON"." */
+    TURN_ON("Writing \"turnON\".", "", Payload.NONE, LogIndex.Op.WRITE),
+    /** "Writing "turnOFF"." */
+    TURN_OFF("Writing \"turnOFF\".", "", Payload.NONE, LogIndex.Op.WRITE),
+    /** Wireless send: "Writing \"data\"." */
+    SEND_DATA("Writing \\\"", "\\\".", Payload.TEXT, LogIndex.Op.WRITE),
+    /** Display output: "printDisplay data" */
+    PRINT_DISPLAY("printDisplay ", "", Payload.TEXT, LogIndex.Op.WRITE),
+    /** Motor speed: "setMotorSpeed speed" */
+    SET_MOTOR_SPEED("setMotorSpeed ", "", Payload.INT, LogIndex.Op.WRITE),
+    /** Free text logged through {@link Protocol#log(String)} or {@link Protocol#write(String)}. */
+    TEXT("", "", Payload.TEXT, null);
+
+    /**
+     * Kinds of payload an opcode carries.
+     */
+    public enum Payload {
+        /** No payload, the entry is a constant message. */
+        NONE,
+        /** A string payload. */
+        TEXT,
+        /** An int payload. */
+        INT
+    }
+
+    private static final LogOp[] VALUES = values();
+
+    private final String prefix;
+    private final String suffix;
+    private final byte[] prefixBytes;
+    private final byte[] suffixBytes;
+    private final Payload payload;
+    private final LogIndex.Op op;
+
+    LogOp(String prefix, String suffix, Payload payload, LogIndex.Op op) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        this.suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        this.payload = payload;
+        this.op = op;
+    }
+    /**
+     * Returns the opcode with the given ordinal.
+     *
+     * @param code The opcode ordinal.
+     * @return The opcode.
+     */
+    public static LogOp of(int code) {
+        return VALUES[code];
+    }
+    /**
+     * Returns the text before the payload (the whole message for constant opcodes).
+     *
+     * @return The message prefix.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+    /**
+     * Returns the text after the payload.
+     *
+     * @return The message suffix.
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+    /**
+     * Returns the UTF-8 encoding of the prefix. The array must not be modified.
+     *
+     * @return The encoded prefix.
+     */
+    byte[] getPrefixBytes() {
+        return prefixBytes;
+    }
+    /**
+     * Returns the UTF-8 encoding of the suffix. The array must not be modified.
+     *
+     * @return The encoded suffix.
+     */
+    byte[] getSuffixBytes() {
+        return suffixBytes;
+    }
+    /**
+     * Returns the kind of payload this opcode carries.
+     *
+     * @return The payload kind.
+     */
+    public Payload getPayload() {
+        return payload;
+    }
+    /**
+     * Returns the operation type of entries with this opcode.
+     *
+     * @return The operation type, or null for {@link #TEXT}, which is classified per entry.
+     */
+    public LogIndex.Op getOp() {
+        return op;
+    }
+}
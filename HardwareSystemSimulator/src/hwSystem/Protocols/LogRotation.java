@@ -0,0 +1,167 @@
+package hwSystem.Protocols;
+
+import hwSystem.Telemetry.LogFlushEvent;
+import hwSystem.Telemetry.Metrics;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+/**
+ * Size and time based rotation of one port's log into a compressed, seekable archive.
+ *
+ * <p>When the in-memory log of a port grows past the size limit, or its oldest entry is
+ * older than the time limit, the entries are rolled into a segment. Segments are
+ * deflate-compressed on a shared background thread and appended to
+ * {@code <Protocol>_<portID>.logz}; {@code <Protocol>_<portID>.logz.idx} holds one
+ * fixed-size record per segment (see {@link LogArchiveReader}) so any segment can be
+ * located and decompressed on its own.
+ *
+ * <p>Inside a segment entries are stored oldest first, one per line.
+ */
+public class LogRotation {
+    /** Size of one segment record in the index file. */
+    public static final int INDEX_RECORD_SIZE = 44;
+
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicReference<Future<?>> LAST_TASK = new AtomicReference<>();
+
+    private final String archivePath;
+    private final long maxBytes;
+    private final long maxAgeMicros;
+    private final Metrics metrics;
+
+    private long activeBytes;
+    private long firstEntrySeq;
+    private long archivedBytes;
+    /**
+     * Constructs the rotation of one port.
+     *
+     * @param logDirectory The directory holding the port logs.
+     * @param logName      The log file base name, e.g. "I2C_0".
+     * @param maxBytes     Roll when the active log holds this many bytes (0 for no size limit).
+     * @param maxSeconds   Roll when the oldest active entry is this old (0 for no time limit).
+     * @param metrics      The registry receiving the archiving times, or null for none.
+     */
+    public LogRotation(String logDirectory, String logName, long maxBytes, long maxSeconds, Metrics metrics) {
+        this.archivePath = logDirectory + "/" + logName + ".logz";
+        this.maxBytes = maxBytes;
+        this.maxAgeMicros = maxSeconds * 1_000_000;
+        this.metrics = metrics;
+    }
+    /**
+     * Accounts for a new entry and rolls the active log if a limit is reached.
+     * The caller must clear its log index when this method returns true.
+     *
+     * @param log   The active log of the port (entry already added).
+     * @param index The log index of the active log.
+     * @return true if the active log was rolled into the archive.
+     */
+    public boolean afterLog(PortLog log, LogIndex index) {
+        activeBytes += log.length(log.size() - 1) + 1;
+        boolean full = maxBytes > 0 && activeBytes >= maxBytes;
+        boolean old = maxAgeMicros > 0 && index.size() > 0 && LogIndex.now() - index.getTime(0) >= maxAgeMicros;
+        if (!full && !old) return false;
+
+        long firstTime = index.getTime(0);
+        long lastTime = index.getTime(index.size() - 1);
+        long seq = firstEntrySeq;
+        PortLog segment = log.detach();
+        firstEntrySeq += segment.size();
+        activeBytes = 0;
+
+        Future<?> task = COMPRESSOR.submit(() -> appendSegment(segment, seq, firstTime, lastTime));
+        LAST_TASK.set(task);
+        return true;
+    }
+    /**
+     * Returns the number of entries moved to the archive so far.
+     *
+     * @return The archived entry count.
+     */
+    public long getArchivedEntries() {
+        return firstEntrySeq;
+    }
+    /**
+     * Returns the archive file path.
+     *
+     * @return The path of the .logz file.
+     */
+    public String getArchivePath() {
+        return archivePath;
+    }
+    /**
+     * Waits until all segments submitted so far (by any port) are written.
+     */
+    public static void awaitArchived() {
+        Future<?> last = LAST_TASK.get();
+        if (last == null) return;
+        try {
+            last.get();
+        } catch (Exception e) {
+            System.err.println("Error: Log archiving failed: " + e.getMessage());
+        }
+    }
+
+    private void appendSegment(PortLog segment, long seq, long firstTime, long lastTime) {
+        long start = System.nanoTime();
+        LogFlushEvent event = new LogFlushEvent();
+        event.begin();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try {
+            segment.writeOldestFirst(raw);
+        } catch (IOException e) {
+            // Not thrown by ByteArrayOutputStream
+        }
+        byte[] input = raw.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 4 + 64);
+        byte[] chunk = new byte[1 << 16];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        deflater.end();
+
+        File archive = new File(archivePath);
+        archive.getParentFile().mkdirs();
+        try (RandomAccessFile data = new RandomAccessFile(archive, "rw");
+             RandomAccessFile idx = new RandomAccessFile(archivePath + ".idx", "rw")) {
+            if (seq == 0) {
+                // First segment of this run: start a fresh archive
+                data.setLength(0);
+                idx.setLength(0);
+                archivedBytes = 0;
+            }
+            data.seek(archivedBytes);
+            data.write(compressed.toByteArray());
+
+            ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+            record.putLong(archivedBytes).putInt(compressed.size()).putInt(input.length)
+                  .putInt(segment.size()).putLong(seq).putLong(firstTime).putLong(lastTime);
+            idx.seek(idx.length());
+            idx.write(record.array());
+            archivedBytes += compressed.size();
+        } catch (IOException e) {
+            System.err.println("Error: Cannot archive log segment: " + archivePath);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(LogFlushEvent.ROTATION, 1, segment.size(), compressed.size());
+            event.commit();
+        }
+        if (metrics != null) metrics.flush(LogFlushEvent.ROTATION, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,18 @@
+package hwSystem.Protocols;
+
+/**
+ * What is kept of a deactivated port: its log, trimmed to size, the timestamps of
+ * the log entries and the rotation state of the log. The protocol object and the
+ * log index are rebuilt from it when the port is used again.
+ */
+final class ParkedPort {
+    final PortLog log;
+    final long[] times;
+    final LogRotation rotation;
+
+    ParkedPort(PortLog log, long[] times, LogRotation rotation) {
+        this.log = log;
+        this.times = times;
+        this.rotation = rotation;
+    }
+}
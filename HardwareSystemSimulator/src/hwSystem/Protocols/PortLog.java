@@ -0,0 +1,354 @@
+package hwSystem.Protocols;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * The log of one port, stored as compact (opcode, payload) records.
+ *
+ * <p>Every entry is one opcode byte. Payloads are kept in side arrays, one per payload
+ * kind, that only hold the entries with such a payload; a bitmap per kind with a running
+ * count every 64 entries finds the payload of an entry. A constant entry such as
+ * "Reading." costs about 1.4 bytes. Text is only produced when an entry is rendered with
+ * {@link #get(int)} or written out with {@link #writeNewestFirst(OutputStream)}, using
+ * the pre-encoded bytes of {@link LogOp}.
+ */
+public class PortLog {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] codes;
+    private int size;
+    // Payloads in entry order, and which entries have them
+    private String[] texts;
+    private Slots textSlots;
+    private int[] values;
+    private Slots valueSlots;
+    /**
+     * Constructs an empty log.
+     */
+    public PortLog() {
+        reset();
+    }
+
+    private PortLog(PortLog from) {
+        this.codes = from.codes;
+        this.size = from.size;
+        this.texts = from.texts;
+        this.textSlots = from.textSlots;
+        this.values = from.values;
+        this.valueSlots = from.valueSlots;
+    }
+    /**
+     * Appends a constant entry.
+     *
+     * @param op The opcode, which must not carry a payload.
+     */
+    public void add(LogOp op) {
+        if (size == codes.length) grow();
+        codes[size] = (byte) op.ordinal();
+        size++;
+    }
+    /**
+     * Appends an entry with a string payload.
+     *
+     * @param op   The opcode.
+     * @param text The payload.
+     */
+    public void add(LogOp op, String text) {
+        if (size == codes.length) grow();
+        int slot = textSlots.add(size);
+        if (slot == texts.length) texts = Arrays.copyOf(texts, slot * 2);
+        texts[slot] = text;
+        codes[size] = (byte) op.ordinal();
+        size++;
+    }
+    /**
+     * Appends an entry with an int payload.
+     *
+     * @param op    The opcode.
+     * @param value The payload.
+     */
+    public void add(LogOp op, int value) {
+        if (size == codes.length) grow();
+        int slot = valueSlots.add(size);
+        if (slot == values.length) values = Arrays.copyOf(values, slot * 2);
+        values[slot] = value;
+        codes[size] = (byte) op.ordinal();
+        size++;
+    }
+    /**
+     * Returns the number of entries.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Returns whether the log has no entries.
+     *
+     * @return true if the log is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * Returns the opcode of an entry.
+     *
+     * @param position The entry position (0 is the oldest).
+     * @return The opcode.
+     */
+    public LogOp getCode(int position) {
+        return LogOp.of(codes[position]);
+    }
+    /**
+     * Returns the operation type of an entry.
+     *
+     * @param position The entry position.
+     * @return The operation type.
+     */
+    public LogIndex.Op getOp(int position) {
+        LogOp code = getCode(position);
+        return code.getOp() != null ? code.getOp() : LogIndex.Op.classify(String.valueOf(text(position)));
+    }
+    /**
+     * Renders an entry as text.
+     *
+     * @param position The entry position.
+     * @return The log entry text.
+     */
+    public String get(int position) {
+        LogOp code = getCode(position);
+        switch (code.getPayload()) {
+            case TEXT:
+                return code.getPrefix() + text(position) + code.getSuffix();
+            case INT:
+                return code.getPrefix() + value(position) + code.getSuffix();
+            default:
+                return code.getPrefix();
+        }
+    }
+    /**
+     * Returns the payload of an entry as it appears in the rendered text.
+     *
+     * @param position The entry position.
+     * @return The payload text, or "" for a constant entry.
+     */
+    public String getPayload(int position) {
+        switch (getCode(position).getPayload()) {
+            case TEXT:
+                return String.valueOf(text(position));
+            case INT:
+                return Integer.toString(value(position));
+            default:
+                return "";
+        }
+    }
+    /**
+     * Returns the length of an entry's text, without rendering it.
+     *
+     * @param position The entry position.
+     * @return The number of characters of the entry.
+     */
+    public int length(int position) {
+        LogOp code = getCode(position);
+        int length = code.getPrefix().length() + code.getSuffix().length();
+        switch (code.getPayload()) {
+            case TEXT:
+                return length + String.valueOf(text(position)).length();
+            case INT:
+                return length + digits(value(position));
+            default:
+                return length;
+        }
+    }
+    /**
+     * Writes all entries, newest first, one per line.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeNewestFirst(OutputStream out) throws IOException {
+        int i = size - 1;
+        while (i >= 0) {
+            writeEntry(i, out);
+            out.write('\n');
+            i--;
+        }
+    }
+    /**
+     * Writes all entries, oldest first, one per line.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeOldestFirst(OutputStream out) throws IOException {
+        int i = 0;
+        while (i < size) {
+            writeEntry(i, out);
+            out.write('\n');
+            i++;
+        }
+    }
+    /**
+     * Writes one entry in binary form, e.g. to hand its port over to another process.
+     *
+     * @param position The entry position.
+     * @param out      The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void exportEntry(int position, DataOutput out) throws IOException {
+        LogOp code = getCode(position);
+        out.writeByte(codes[position]);
+        if (code.getPayload() == LogOp.Payload.TEXT) {
+            byte[] text = String.valueOf(text(position)).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        } else if (code.getPayload() == LogOp.Payload.INT) {
+            out.writeInt(value(position));
+        }
+    }
+    /**
+     * Appends an entry written by {@link #exportEntry(int, DataOutput)}.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If reading fails.
+     */
+    public void importEntry(DataInput in) throws IOException {
+        LogOp code = LogOp.of(in.readByte());
+        if (code.getPayload() == LogOp.Payload.TEXT) {
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            add(code, new String(text, StandardCharsets.UTF_8));
+        } else if (code.getPayload() == LogOp.Payload.INT) {
+            add(code, in.readInt());
+        } else {
+            add(code);
+        }
+    }
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        // Drop payload references so they can be collected
+        Arrays.fill(texts, 0, textSlots.count, null);
+        textSlots.clear();
+        valueSlots.clear();
+        size = 0;
+    }
+    /**
+     * Shrinks the storage to the current number of entries, e.g. for a log kept
+     * while its port is inactive. The log grows again on the next append.
+     */
+    public void trimToSize() {
+        codes = Arrays.copyOf(codes, Math.max(size, 1));
+        texts = Arrays.copyOf(texts, Math.max(textSlots.count, 1));
+        values = Arrays.copyOf(values, Math.max(valueSlots.count, 1));
+        textSlots.trimToSize();
+        valueSlots.trimToSize();
+    }
+    /**
+     * Moves all entries into a new log and leaves this log empty.
+     *
+     * @return A log holding the former entries of this log.
+     */
+    public PortLog detach() {
+        PortLog detached = new PortLog(this);
+        reset();
+        return detached;
+    }
+
+    private void writeEntry(int position, OutputStream out) throws IOException {
+        LogOp code = getCode(position);
+        out.write(code.getPrefixBytes());
+        if (code.getPayload() == LogOp.Payload.TEXT) {
+            out.write(String.valueOf(text(position)).getBytes(StandardCharsets.UTF_8));
+        } else if (code.getPayload() == LogOp.Payload.INT) {
+            out.write(Integer.toString(value(position)).getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write(code.getSuffixBytes());
+    }
+
+    private String text(int position) {
+        return texts[textSlots.of(position)];
+    }
+
+    private int value(int position) {
+        return values[valueSlots.of(position)];
+    }
+
+    private void grow() {
+        codes = Arrays.copyOf(codes, codes.length * 2);
+    }
+
+    private void reset() {
+        codes = new byte[INITIAL_CAPACITY];
+        size = 0;
+        texts = new String[INITIAL_CAPACITY];
+        textSlots = new Slots();
+        values = new int[INITIAL_CAPACITY];
+        valueSlots = new Slots();
+    }
+
+    private static int digits(int value) {
+        int n = value < 0 ? 2 : 1;
+        long v = Math.abs((long) value);
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+    /**
+     * Maps the entries that have one kind of payload to consecutive slots of its side
+     * array: a bit per entry, and the number of such entries before every block of 64.
+     */
+    private static final class Slots {
+        private long[] bits = new long[1];
+        private int[] ranks = new int[1];
+        // Blocks whose rank is set; entries are added in order
+        private int blocks;
+        int count;
+        /**
+         * Marks an entry as having a payload.
+         *
+         * @return The slot of its payload.
+         */
+        int add(int position) {
+            int block = position >>> 6;
+            if (block >= bits.length) {
+                int capacity = Math.max(bits.length * 2, block + 1);
+                bits = Arrays.copyOf(bits, capacity);
+                ranks = Arrays.copyOf(ranks, capacity);
+            }
+            while (blocks <= block) {
+                ranks[blocks] = count;
+                blocks++;
+            }
+            bits[block] |= 1L << position;
+            return count++;
+        }
+        /**
+         * Returns the slot of an entry marked with {@link #add(int)}.
+         */
+        int of(int position) {
+            int block = position >>> 6;
+            return ranks[block] + Long.bitCount(bits[block] & ((1L << position) - 1));
+        }
+
+        void clear() {
+            Arrays.fill(bits, 0, blocks, 0);
+            blocks = 0;
+            count = 0;
+        }
+
+        void trimToSize() {
+            int capacity = Math.max(blocks, 1);
+            bits = Arrays.copyOf(bits, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+        }
+    }
+}
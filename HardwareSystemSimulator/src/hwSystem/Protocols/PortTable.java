@@ -0,0 +1,378 @@
+package hwSystem.Protocols;
+
+import hwSystem.Telemetry.Metrics;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * The ports of a simulator, stored as one protocol kind per port.
+ *
+ * <p>A port's {@link Protocol} object (with its log and log index) is only created
+ * when the port is first used through {@link #get(int)}. Until then the port costs
+ * one byte and two empty reference slots, and its log is the single "Port Opened."
+ * entry every new port starts with, which {@link #writeInactiveLog(int, OutputStream)}
+ * renders directly.
+ *
+ * <p>A port whose device was removed is turned back into a descriptor with
+ * {@link #deactivate(int)}: only its log entries and their timestamps are kept, and
+ * the protocol object is created again on the next use. Memory is therefore
+ * proportional to the ports in use plus the log entries not yet written out.
+ */
+public class PortTable {
+    /** Protocol names by kind. */
+    public static final String[] KIND_NAMES = { "I2C", "SPI", "UART", "OneWire" };
+
+    private static final byte[] PORT_OPENED_LINE = (LogOp.PORT_OPENED.getPrefix() + "\n").getBytes(StandardCharsets.UTF_8);
+    // Set on a port whose initial "Port Opened." entry was already written out
+    private static final byte FLUSHED = (byte) 0x80;
+    // Set on a port handled by another process of a sharded rig
+    private static final byte FOREIGN = 0x40;
+    private static final byte KIND_MASK = 0x3f;
+
+    private byte[] kinds = new byte[16];
+    private Protocol[] protocols = new Protocol[16];
+    private ParkedPort[] parked = new ParkedPort[16];
+    private int size;
+
+    private String rotationDirectory;
+    private long rotationBytes;
+    private long rotationSeconds;
+    private Metrics metrics;
+    /**
+     * Returns the kind of a protocol name.
+     *
+     * @param name The protocol name, e.g. "SPI".
+     * @return The kind, or -1 if the protocol is unknown.
+     */
+    public static int kindOf(String name) {
+        int kind = 0;
+        while (kind < KIND_NAMES.length) {
+            if (KIND_NAMES[kind].equals(name)) return kind;
+            kind++;
+        }
+        return -1;
+    }
+    /**
+     * Appends a port. Its portID is the current port count.
+     *
+     * @param kind The protocol kind.
+     */
+    public void add(int kind) {
+        if (size == kinds.length) grow(size * 2);
+        kinds[size] = (byte) kind;
+        size++;
+    }
+    /**
+     * Appends ports in bulk.
+     *
+     * @param newKinds The protocol kinds of the new ports.
+     * @param count    The number of kinds to take from the array.
+     */
+    public void addAll(byte[] newKinds, int count) {
+        if (size + count > kinds.length) grow(Math.max(size + count, kinds.length * 2));
+        System.arraycopy(newKinds, 0, kinds, size, count);
+        size += count;
+    }
+    /**
+     * Returns the number of ports.
+     *
+     * @return The port count.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Returns the number of ports whose protocol object currently exists.
+     *
+     * @return The materialized port count.
+     */
+    public int getMaterializedCount() {
+        int count = 0;
+        int portID = 0;
+        while (portID < size) {
+            if (protocols[portID] != null) count++;
+            portID++;
+        }
+        return count;
+    }
+    /**
+     * Returns the protocol name of a port without creating its protocol object.
+     *
+     * @param portID The port.
+     * @return The protocol name.
+     */
+    public String getProtocolName(int portID) {
+        return KIND_NAMES[kinds[portID] & KIND_MASK];
+    }
+    /**
+     * Returns the protocol of a port, creating it on first use or after it was deactivated.
+     *
+     * @param portID The port.
+     * @return The protocol object.
+     */
+    public Protocol get(int portID) {
+        Protocol protocol = protocols[portID];
+        if (protocol == null) {
+            protocol = create(portID);
+            protocols[portID] = protocol;
+        }
+        return protocol;
+    }
+    /**
+     * Returns the protocol of a port if it has been created.
+     *
+     * @param portID The port.
+     * @return The protocol object, or null if the port is not in use.
+     */
+    public Protocol peek(int portID) {
+        return protocols[portID];
+    }
+    /**
+     * Returns the number of log entries held by a port.
+     *
+     * @param portID The port.
+     * @return The log size.
+     */
+    public int getLogSize(int portID) {
+        Protocol protocol = protocols[portID];
+        if (protocol != null) return protocol.getLogs().size();
+        if (parked[portID] != null) return parked[portID].log.size();
+        return (kinds[portID] & FLUSHED) != 0 ? 0 : 1;
+    }
+    /**
+     * Writes the log of a port, newest entry first, and empties it. Ports not in use are
+     * written without creating their protocol object. Different ports may be written
+     * concurrently.
+     *
+     * @param portID The port.
+     * @param out    The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeLog(int portID, OutputStream out) throws IOException {
+        Protocol protocol = protocols[portID];
+        if (protocol == null) {
+            writeInactiveLog(portID, out);
+            return;
+        }
+        PortLog log = protocol.getLogs();
+        // Entries are rendered from their pre-encoded opcodes here
+        log.writeNewestFirst(out);
+        log.clear();
+        protocol.getLogIndex().clear();
+    }
+    /**
+     * Writes the log of a port that is not in use, newest entry first, and empties it
+     * like the log of an active port after it was written out.
+     *
+     * @param portID A port for which {@link #peek(int)} returns null.
+     * @param out    The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeInactiveLog(int portID, OutputStream out) throws IOException {
+        ParkedPort state = parked[portID];
+        if (state != null) {
+            state.log.writeNewestFirst(out);
+            if (state.rotation == null) {
+                parked[portID] = null;
+            } else {
+                // The rotation keeps counting segments across the written-out entries
+                parked[portID] = new ParkedPort(new PortLog(), new long[0], state.rotation);
+            }
+        } else if ((kinds[portID] & FLUSHED) == 0) {
+            out.write(PORT_OPENED_LINE);
+        }
+        kinds[portID] |= FLUSHED;
+    }
+    /**
+     * Returns whether a port is handled by another process of a sharded rig.
+     * Such ports are neither listed nor written out.
+     *
+     * @param portID The port.
+     * @return true if the port is foreign.
+     */
+    public boolean isForeign(int portID) {
+        return (kinds[portID] & FOREIGN) != 0;
+    }
+    /**
+     * Marks a port as handled by another process of a sharded rig, or by this one.
+     *
+     * @param portID  The port.
+     * @param foreign true if another process handles the port.
+     */
+    public void setForeign(int portID, boolean foreign) {
+        if (foreign) {
+            kinds[portID] |= FOREIGN;
+        } else {
+            kinds[portID] &= ~FOREIGN;
+        }
+    }
+    /**
+     * Hands a port over to another process of a sharded rig: writes its log entries with
+     * their ages to the stream, empties the log and marks the port as foreign. The port
+     * should have no device; it is deactivated first.
+     *
+     * @param portID The port.
+     * @param out    The stream to write to, read by {@link #adopt(int, DataInputStream)}.
+     * @throws IOException If writing fails.
+     */
+    public void release(int portID, DataOutputStream out) throws IOException {
+        deactivate(portID);
+        ParkedPort state = parked[portID];
+        if (state != null) {
+            int count = state.log.size();
+            long now = LogIndex.now();
+            out.writeInt(count);
+            int i = 0;
+            while (i < count) {
+                // Ages, because every process has its own index clock
+                out.writeLong(now - state.times[i]);
+                state.log.exportEntry(i, out);
+                i++;
+            }
+            parked[portID] = null;
+        } else {
+            // -1: only the initial entry, which the new owner has as well
+            out.writeInt((kinds[portID] & FLUSHED) != 0 ? 0 : -1);
+        }
+        kinds[portID] |= FLUSHED;
+        setForeign(portID, true);
+    }
+    /**
+     * Takes over a port released by another process of a sharded rig with
+     * {@link #release(int, DataOutputStream)}. The port keeps its log and the log index
+     * is rebuilt on the next use, as for a deactivated port.
+     *
+     * @param portID The port.
+     * @param in     The stream to read from.
+     * @throws IOException If reading fails.
+     */
+    public void adopt(int portID, DataInputStream in) throws IOException {
+        protocols[portID] = null;
+        parked[portID] = null;
+        int count = in.readInt();
+        if (count < 0) {
+            kinds[portID] &= ~FLUSHED;
+        } else {
+            kinds[portID] |= FLUSHED;
+        }
+        if (count > 0) {
+            PortLog log = new PortLog();
+            long[] times = new long[count];
+            long now = LogIndex.now();
+            int i = 0;
+            while (i < count) {
+                // Entries older than this process are dated at its start
+                times[i] = Math.max(now - in.readLong(), 0);
+                log.importEntry(in);
+                i++;
+            }
+            parked[portID] = new ParkedPort(log, times, rotationDirectory != null ? newRotation(portID) : null);
+        }
+        setForeign(portID, false);
+    }
+    /**
+     * Turns a port back into a descriptor, e.g. after its device was removed.
+     * The log entries, their timestamps and the log rotation are kept; the protocol
+     * object and the log index are dropped and rebuilt on the next {@link #get(int)}.
+     *
+     * @param portID The port.
+     */
+    public void deactivate(int portID) {
+        Protocol protocol = protocols[portID];
+        if (protocol == null) return;
+        protocols[portID] = null;
+        PortLog log = protocol.getLogs();
+        if (log.isEmpty() && protocol.getLogRotation() == null) {
+            // Everything was written out already
+            kinds[portID] |= FLUSHED;
+            return;
+        }
+        log.trimToSize();
+        parked[portID] = new ParkedPort(log, protocol.getLogIndex().getTimes(), protocol.getLogRotation());
+    }
+    /**
+     * Enables log rotation for all ports, including ports created later.
+     *
+     * @param logDirectory The directory holding the port logs.
+     * @param maxBytes     Roll when the active log holds this many bytes (0 for no size limit).
+     * @param maxSeconds   Roll when the oldest active entry is this old (0 for no time limit).
+     */
+    public void setLogRotation(String logDirectory, long maxBytes, long maxSeconds) {
+        rotationDirectory = logDirectory;
+        rotationBytes = maxBytes;
+        rotationSeconds = maxSeconds;
+        int portID = 0;
+        while (portID < size) {
+            if (protocols[portID] != null) applyRotation(protocols[portID]);
+            if (parked[portID] != null && parked[portID].rotation == null) {
+                parked[portID] = new ParkedPort(parked[portID].log, parked[portID].times, newRotation(portID));
+            }
+            portID++;
+        }
+    }
+
+    /**
+     * Sets the metrics registry counting the reads and writes of all ports, including
+     * ports created later, and the archiving times of their log rotation.
+     *
+     * @param metrics The registry of the simulator owning the ports.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        int portID = 0;
+        while (portID < size) {
+            if (protocols[portID] != null) protocols[portID].setMetrics(metrics);
+            portID++;
+        }
+    }
+
+    private Protocol create(int portID) {
+        Protocol protocol;
+        switch (kinds[portID] & KIND_MASK) {
+            case 0:
+                protocol = new I2C();
+                break;
+            case 1:
+                protocol = new SPI();
+                break;
+            case 2:
+                protocol = new UART();
+                break;
+            default:
+                protocol = new OneWire();
+        }
+        protocol.setPortID(portID);
+        protocol.setMetrics(metrics);
+        ParkedPort state = parked[portID];
+        if (state != null) {
+            parked[portID] = null;
+            protocol.restoreLog(state.log, new LogIndex(state.log, state.times));
+            protocol.setLogRotation(state.rotation);
+            return protocol;
+        }
+        if ((kinds[portID] & FLUSHED) != 0) {
+            // The initial entry was already written out with the other logs
+            protocol.getLogs().clear();
+            protocol.getLogIndex().clear();
+        }
+        if (rotationDirectory != null) applyRotation(protocol);
+        return protocol;
+    }
+
+    private void applyRotation(Protocol protocol) {
+        protocol.setLogRotation(newRotation(protocol.getPortID()));
+    }
+
+    private LogRotation newRotation(int portID) {
+        return new LogRotation(rotationDirectory, getProtocolName(portID) + "_" + portID, rotationBytes, rotationSeconds, metrics);
+    }
+
+    private void grow(int capacity) {
+        kinds = Arrays.copyOf(kinds, capacity);
+        protocols = Arrays.copyOf(protocols, capacity);
+        parked = Arrays.copyOf(parked, capacity);
+    }
+}
@@ -1,6 +1,6 @@
 package hwSystem.Protocols;
 
-import java.util.Stack;
+import hwSystem.Telemetry.Metrics;
 /**
  * Interface representing a communication protocol used by devices.
  * Examples include I2C, SPI, UART, and OneWire.
@@ -18,6 +18,26 @@ public interface Protocol {
      * @param data The data string to write.
      */
     void write(String data);
+    /**
+     * Writes a constant message to the protocol.
+     *
+     * @param op The opcode of the message.
+     */
+    void write(LogOp op);
+    /**
+     * Writes a message with a string payload to the protocol.
+     *
+     * @param op   The opcode of the message.
+     * @param data The payload.
+     */
+    void write(LogOp op, String data);
+    /**
+     * Writes a message with an int payload to the protocol.
+     *
+     * @param op    The opcode of the message.
+     * @param value The payload.
+     */
+    void write(LogOp op, int value);
     /**
      * Returns the name of the protocol.
      *
@@ -25,17 +45,48 @@ public interface Protocol {
      */
     String getProtocolName();
     /**
-     * Logs an entry to the protocol’s log stack.
+     * Logs a free-text entry to the protocol’s log.
      *
      * @param entry The log entry to store.
      */
     void log(String entry);
     /**
-     * Returns the stack of log entries for the protocol.
+     * Returns the log of the protocol.
+     *
+     * @return The port log.
+     */
+    PortLog getLogs();
+    /**
+     * Returns the index over the protocol's log entries.
+     *
+     * @return The log index.
+     */
+    LogIndex getLogIndex();
+    /**
+     * Enables rotation of the protocol's log into a compressed archive.
+     *
+     * @param rotation The rotation settings of this port.
+     */
+    void setLogRotation(LogRotation rotation);
+    /**
+     * Returns the rotation of the protocol's log.
+     *
+     * @return The rotation settings, or null if the log is not rotated.
+     */
+    LogRotation getLogRotation();
+    /**
+     * Sets the metrics registry counting the reads and writes of this port.
+     *
+     * @param metrics The registry of the simulator owning the port.
+     */
+    void setMetrics(Metrics metrics);
+    /**
+     * Replaces the log and its index, e.g. when a deactivated port is used again.
      *
-     * @return The log stack.
+     * @param log   The log to continue.
+     * @param index The index over that log.
      */
-    Stack<String> getLogs();
+    void restoreLog(PortLog log, LogIndex index);
     /**
      * Sets the port ID associated with the protocol.
      *
@@ -0,0 +1,67 @@
+package hwSystem.Replay;
+/**
+ * One recorded command of a session journal.
+ */
+public class JournalEntry {
+    private final long offsetMicros;
+    private final String command;
+    private final byte[] stdout;
+    private final byte[] stderr;
+    private final long logDelta;
+    /**
+     * Constructs a journal entry.
+     *
+     * @param offsetMicros Arrival time of the command, relative to the session start.
+     * @param command      The command line.
+     * @param stdout       The standard output produced by the command.
+     * @param stderr       The error output produced by the command.
+     * @param logDelta     The change in the number of buffered port log entries.
+     */
+    public JournalEntry(long offsetMicros, String command, byte[] stdout, byte[] stderr, long logDelta) {
+        this.offsetMicros = offsetMicros;
+        this.command = command;
+        this.stdout = stdout;
+        this.stderr = stderr;
+        this.logDelta = logDelta;
+    }
+    /**
+     * Returns the arrival time relative to the session start.
+     *
+     * @return The offset in microseconds.
+     */
+    public long getOffsetMicros() {
+        return offsetMicros;
+    }
+    /**
+     * Returns the command line.
+     *
+     * @return The command.
+     */
+    public String getCommand() {
+        return command;
+    }
+    /**
+     * Returns the recorded standard output.
+     *
+     * @return The output bytes.
+     */
+    public byte[] getStdout() {
+        return stdout;
+    }
+    /**
+     * Returns the recorded error output.
+     *
+     * @return The error bytes.
+     */
+    public byte[] getStderr() {
+        return stderr;
+    }
+    /**
+     * Returns the change in buffered log entries caused by the command.
+     *
+     * @return The log entry delta.
+     */
+    public long getLogDelta() {
+        return logDelta;
+    }
+}
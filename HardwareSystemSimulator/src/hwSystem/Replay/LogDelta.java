@@ -0,0 +1,46 @@
+package hwSystem.Replay;
+
+import hwSystem.hwSystem;
+/**
+ * Measures the change in buffered log entries caused by one command.
+ *
+ * <p>Counting all ports costs a pass over the port table, so a command with a single
+ * target port (see {@link hwSystem#getTargetPort(String[])} and
+ * {@link hwSystem#getChangedPort(String[])}) only counts the entries of that port,
+ * which are the only ones it can change. Other commands count all ports.
+ */
+final class LogDelta {
+    private final hwSystem system;
+    private int portID;
+    private long before;
+    /**
+     * Constructs a counter for the given system.
+     *
+     * @param system The simulator the commands run on.
+     */
+    LogDelta(hwSystem system) {
+        this.system = system;
+    }
+    /**
+     * Counts the entries before a command runs.
+     *
+     * @param parts The whitespace-separated parts of the command.
+     */
+    void begin(String[] parts) {
+        portID = system.getTargetPort(parts);
+        if (portID < 0) portID = system.getChangedPort(parts);
+        before = count();
+    }
+    /**
+     * Counts the entries after the command has run.
+     *
+     * @return The change since {@link #begin(String[])}.
+     */
+    long end() {
+        return count() - before;
+    }
+
+    private long count() {
+        return portID >= 0 ? system.getLogEntryCount(portID) : system.getLogEntryCount();
+    }
+}
@@ -0,0 +1,168 @@
+package hwSystem.Replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+/**
+ * Compact binary journal of a command session.
+ *
+ * <p>Layout: a plain header ({@code int} magic "HWJ1") followed by a deflate-compressed body.
+ * The body starts with the configuration file (varint length + its bytes, text or binary)
+ * and holds one record per command:
+ * <pre>
+ * byte    1 (record) or 0 (end)
+ * varint  microseconds since the previous command arrived
+ * bytes   command, stdout, stderr (each varint length + UTF-8 bytes)
+ * zigzag  change in buffered log entries
+ * </pre>
+ */
+public class SessionJournal implements Closeable {
+    /** Magic number at the start of every journal ("HWJ1"). */
+    public static final int MAGIC = 0x48574A31;
+
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private long lastOffset;
+
+    private SessionJournal(DataOutputStream out, DataInputStream in) {
+        this.out = out;
+        this.in = in;
+    }
+    /**
+     * Creates a journal file and writes its header.
+     *
+     * @param path       The journal file path.
+     * @param config The configuration file the session runs with, text or binary, as is.
+     * @return A journal open for writing.
+     * @throws IOException If the file cannot be created.
+     */
+    public static SessionJournal create(String path, byte[] config) throws IOException {
+        OutputStream file = new BufferedOutputStream(new FileOutputStream(path), 1 << 16);
+        new DataOutputStream(file).writeInt(MAGIC);
+        SessionJournal journal = new SessionJournal(new DataOutputStream(
+                new BufferedOutputStream(new DeflaterOutputStream(file), 1 << 16)), null);
+        journal.writeBytes(config);
+        return journal;
+    }
+    /**
+     * Opens a journal file for reading.
+     *
+     * @param path The journal file path.
+     * @return A journal open for reading.
+     * @throws IOException If the file cannot be read or is not a journal.
+     */
+    public static SessionJournal open(String path) throws IOException {
+        InputStream file = new BufferedInputStream(new FileInputStream(path), 1 << 16);
+        if (new DataInputStream(file).readInt() != MAGIC) {
+            file.close();
+            throw new IOException("Not a session journal: " + path);
+        }
+        return new SessionJournal(null, new DataInputStream(
+                new BufferedInputStream(new InflaterInputStream(file), 1 << 16)));
+    }
+    /**
+     * Reads the configuration stored at the start of the journal.
+     * Must be called once, before the first entry is read.
+     *
+     * @return The bytes of the configuration file, for {@code hwSystem.loadConfiguration(InputStream)}.
+     * @throws IOException If reading fails.
+     */
+    public byte[] readConfig() throws IOException {
+        return readBytes();
+    }
+    /**
+     * Appends an entry to the journal.
+     *
+     * @param entry The entry to write.
+     * @throws IOException If writing fails.
+     */
+    public void write(JournalEntry entry) throws IOException {
+        out.writeByte(1);
+        writeVarLong(entry.getOffsetMicros() - lastOffset);
+        lastOffset = entry.getOffsetMicros();
+        writeBytes(entry.getCommand().getBytes(StandardCharsets.UTF_8));
+        writeBytes(entry.getStdout());
+        writeBytes(entry.getStderr());
+        writeVarLong((entry.getLogDelta() << 1) ^ (entry.getLogDelta() >> 63));
+    }
+    /**
+     * Reads the next entry of the journal.
+     *
+     * @return The entry, or null at the end of the journal.
+     * @throws IOException If reading fails or the journal is truncated.
+     */
+    public JournalEntry read() throws IOException {
+        int tag;
+        try {
+            tag = in.readByte();
+        } catch (EOFException e) {
+            throw new IOException("Journal is truncated.");
+        }
+        if (tag == 0) return null;
+        lastOffset += readVarLong();
+        String command = new String(readBytes(), StandardCharsets.UTF_8);
+        byte[] stdout = readBytes();
+        byte[] stderr = readBytes();
+        long zigzag = readVarLong();
+        return new JournalEntry(lastOffset, command, stdout, stderr, (zigzag >>> 1) ^ -(zigzag & 1));
+    }
+    /**
+     * Closes the journal. A journal open for writing is terminated with an end marker.
+     *
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.writeByte(0);
+            out.close();
+        }
+        if (in != null) in.close();
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private byte[] readBytes() throws IOException {
+        long length = readVarLong();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt journal.");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (shift < 64) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+        throw new IOException("Corrupt journal.");
+    }
+}
@@ -0,0 +1,113 @@
+package hwSystem.Replay;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.hwSystem;
+import hwSystem.Scenario.Scenario;
+import hwSystem.Scenario.ScenarioCompiler;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+/**
+ * Runs a command session like {@link hwSystem#run()} and {@link hwSystem#runCommands()},
+ * while recording every command with its arrival time, its output and the change
+ * in buffered log entries into a {@link SessionJournal}.
+ * Output is still printed to the console as usual. The session is compiled like a
+ * scenario file, so a command expanded from a repeat block, macro or range is recorded
+ * once per execution, with the arrival time of its source line.
+ */
+public class SessionRecorder {
+    private final hwSystem system;
+    private final SessionJournal journal;
+    /**
+     * Constructs a recorder.
+     *
+     * @param system  The simulator to run commands on.
+     * @param journal The journal receiving the recorded entries.
+     */
+    public SessionRecorder(hwSystem system, SessionJournal journal) {
+        this.system = system;
+        this.journal = journal;
+    }
+    /**
+     * Reads and compiles commands until exit (or end of input), then executes and records them.
+     *
+     * @param input The stream to read commands from.
+     * @return The number of recorded commands.
+     * @throws IOException If reading the input or writing the journal fails.
+     */
+    public long record(InputStream input) throws IOException {
+        ScenarioCompiler compiler = new ScenarioCompiler();
+        // Arrival time of each source line; index 0 is line 1
+        ArrayList<Long> arrivals = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            arrivals.add((System.nanoTime() - start) / 1000);
+            if (!compiler.addLine(line)) break;
+        }
+        Scenario.Cursor commands = compiler.finish().cursor();
+
+        ConsoleRouter.install();
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(new TeeStream(outBytes, ConsoleRouter.originalOut()), true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(new TeeStream(errBytes, ConsoleRouter.originalErr()), true, StandardCharsets.UTF_8);
+
+        long count = 0;
+        LogDelta logDelta = new LogDelta(system);
+        ConsoleRouter.bind(out, err);
+        try {
+            while (commands.next()) {
+                String command = commands.getCommand();
+                logDelta.begin(commands.getParts());
+                system.execute(command, commands.getParts());
+                out.flush();
+                err.flush();
+                journal.write(new JournalEntry(arrivals.get(commands.getLine() - 1), command, outBytes.toByteArray(),
+                        errBytes.toByteArray(), logDelta.end()));
+                outBytes.reset();
+                errBytes.reset();
+                count++;
+            }
+        } finally {
+            ConsoleRouter.unbind();
+        }
+        return count;
+    }
+    /**
+     * Writes to a capture buffer and to the console at the same time.
+     */
+    private static final class TeeStream extends OutputStream {
+        private final OutputStream capture;
+        private final OutputStream console;
+
+        TeeStream(OutputStream capture, OutputStream console) {
+            this.capture = capture;
+            this.console = console;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            capture.write(b);
+            console.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            capture.write(b, off, len);
+            console.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            console.flush();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package hwSystem.Replay;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.hwSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * Re-executes a recorded session journal on a fresh simulator and verifies that
+ * every command produces the recorded output and log change.
+ *
+ * <p>Pacing: a speed of 1 replays at the original pace, N replays N times faster,
+ * and 0 replays as fast as possible.
+ */
+public class SessionReplayer {
+    private static final int MAX_REPORTED_MISMATCHES = 10;
+    private static final long SPIN_NANOS = 50_000;
+
+    private final String logDirectory;
+    private final double speed;
+
+    private long commands;
+    private long mismatches;
+    private long elapsedNanos;
+    private long maxLagNanos;
+    private long recordedMicros;
+    /**
+     * Constructs a replayer.
+     *
+     * @param logDirectory The log directory of the replayed simulator.
+     * @param speed        The replay speed factor (0 for as fast as possible).
+     */
+    public SessionReplayer(String logDirectory, double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Replay speed must not be negative.");
+        }
+        this.logDirectory = logDirectory;
+        this.speed = speed;
+    }
+    /**
+     * Replays a journal. Mismatching commands are reported on the console.
+     *
+     * @param journal The journal to replay.
+     * @return true if every command matched its recording.
+     * @throws IOException If the journal cannot be read.
+     */
+    public boolean replay(SessionJournal journal) throws IOException {
+        hwSystem system = new hwSystem(logDirectory);
+        system.loadConfiguration(new ByteArrayInputStream(journal.readConfig()));
+
+        ConsoleRouter.install();
+        PrintStream report = ConsoleRouter.originalOut();
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(outBytes, false, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(errBytes, false, StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        LogDelta logDeltas = new LogDelta(system);
+        ConsoleRouter.bind(out, err);
+        try {
+            JournalEntry entry;
+            while ((entry = journal.read()) != null) {
+                if (speed > 0) {
+                    long due = start + (long) (entry.getOffsetMicros() * 1000 / speed);
+                    waitUntil(due);
+                    maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - due);
+                }
+
+                String[] parts = entry.getCommand().trim().split("\\s+");
+                logDeltas.begin(parts);
+                system.execute(entry.getCommand(), parts);
+                out.flush();
+                err.flush();
+                long logDelta = logDeltas.end();
+
+                if (!Arrays.equals(outBytes.toByteArray(), entry.getStdout())
+                        || !Arrays.equals(errBytes.toByteArray(), entry.getStderr())
+                        || logDelta != entry.getLogDelta()) {
+                    mismatches++;
+                    if (mismatches <= MAX_REPORTED_MISMATCHES) {
+                        report.printf("Mismatch at command %d \"%s\":%n  expected: %s%s  log %+d%n  actual:   %s%s  log %+d%n",
+                                commands + 1, entry.getCommand(),
+                                new String(entry.getStdout(), StandardCharsets.UTF_8),
+                                new String(entry.getStderr(), StandardCharsets.UTF_8), entry.getLogDelta(),
+                                outBytes.toString(StandardCharsets.UTF_8),
+                                errBytes.toString(StandardCharsets.UTF_8), logDelta);
+                    }
+                }
+                outBytes.reset();
+                errBytes.reset();
+                recordedMicros = entry.getOffsetMicros();
+                commands++;
+            }
+        } finally {
+            ConsoleRouter.unbind();
+            system.close();
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return mismatches == 0;
+    }
+    /**
+     * Prints a summary of the last replay.
+     *
+     * @param out The stream to print to.
+     */
+    public void printSummary(PrintStream out) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Replayed %d commands in %.3f s (recorded %.3f s), %.0f commands/s.%n",
+                commands, seconds, recordedMicros / 1e6, seconds > 0 ? commands / seconds : 0.0);
+        if (speed > 0) {
+            out.printf("Max schedule lag: %d us.%n", maxLagNanos / 1000);
+        }
+        out.printf("%d mismatches.%n", mismatches);
+    }
+
+    private static void waitUntil(long due) {
+        while (true) {
+            long remaining = due - System.nanoTime();
+            if (remaining <= 0) return;
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package hwSystem.Scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+/**
+ * A compiled scenario stored as a binary opcode stream and executed straight from
+ * a memory-mapped file.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * int     magic "HWS2"
+ * int     CRC32 of everything after this field
+ * int     string count, then per string: int length, UTF-8 bytes
+ * int     command count, then per command: int line string, int part count, part strings
+ * int     maximum loop nesting
+ * int     instruction stream length, then the instructions:
+ *           COMMAND         byte 0, int command
+ *           LOOP            byte 1, long count
+ *           END             byte 2, int offset of the LOOP instruction in the stream
+ *           TURN_ON         byte 3, int command, int portID
+ *           TURN_OFF        byte 4, int command, int portID
+ *           ADD_DEV         byte 5, int command, int portID, int devID, int device name string
+ *           RM_DEV          byte 6, int command, int portID
+ *           READ_SENSOR     byte 7, int command, int devID
+ *           PRINT_DISPLAY   byte 8, int command, int devID, int message string
+ *           READ_WIRELESS   byte 9, int command, int devID
+ *           WRITE_WIRELESS  byte 10, int command, int devID, int message string
+ *           SET_MOTOR_SPEED byte 11, int command, int devID, int speed
+ * </pre>
+ * Commands whose arguments are valid are compiled to the opcode of their verb, with
+ * the numbers already parsed and messages already joined, so running them only
+ * checks the state of the rig (see {@link Cursor#getOpcode()}). All other commands,
+ * and verbs without an opcode, stay COMMAND and run like a text scenario. The command
+ * table keeps the line and parts of every command for the pipeline, sharded rigs and
+ * error messages.
+ *
+ * <p>Every distinct string and every distinct command is stored once, so a scenario
+ * that runs the same command a million times holds it once, and the instruction stream
+ * costs 5 to 17 bytes per command. The scenario is validated when it is compiled
+ * ({@link #compile(String, String)}); opening it only checks the CRC, decodes the
+ * command table and maps the instruction stream, which is never parsed.
+ */
+public final class BinaryScenario implements Scenario {
+    /** The magic number at the start of a binary scenario. */
+    public static final int MAGIC = 0x48575332;
+    /** Opcode of turnON &lt;portID&gt;. */
+    public static final byte TURN_ON = 3;
+    /** Opcode of turnOFF &lt;portID&gt;. */
+    public static final byte TURN_OFF = 4;
+    /** Opcode of addDev &lt;devName&gt; &lt;portID&gt; &lt;devID&gt;. */
+    public static final byte ADD_DEV = 5;
+    /** Opcode of rmDev &lt;portID&gt;. */
+    public static final byte RM_DEV = 6;
+    /** Opcode of readSensor &lt;devID&gt;. */
+    public static final byte READ_SENSOR = 7;
+    /** Opcode of printDisplay &lt;devID&gt; &lt;message&gt;. */
+    public static final byte PRINT_DISPLAY = 8;
+    /** Opcode of readWireless &lt;devID&gt;. */
+    public static final byte READ_WIRELESS = 9;
+    /** Opcode of writeWireless &lt;devID&gt; &lt;message&gt;. */
+    public static final byte WRITE_WIRELESS = 10;
+    /** Opcode of setMotorSpeed &lt;devID&gt; &lt;speed&gt;. */
+    public static final byte SET_MOTOR_SPEED = 11;
+
+    // Magic of the first format, which stored every command as COMMAND
+    private static final int OLD_MAGIC = 0x48575331;
+    private static final int HEADER_SIZE = 8;
+
+    private final String[] strings;
+    private final String[] lines;
+    private final String[][] parts;
+    private final int maxDepth;
+    private final MappedByteBuffer code;
+
+    private BinaryScenario(String[] strings, String[] lines, String[][] parts, int maxDepth, MappedByteBuffer code) {
+        this.strings = strings;
+        this.lines = lines;
+        this.parts = parts;
+        this.maxDepth = maxDepth;
+        this.code = code;
+    }
+    /**
+     * Returns whether a file is a binary scenario.
+     *
+     * @param path The file.
+     * @return true if the file starts with {@link #MAGIC} or the magic of an older format.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinary(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(path))) {
+            if (in.available() < 4) return false;
+            int magic = in.readInt();
+            return magic == MAGIC || magic == OLD_MAGIC;
+        }
+    }
+    /**
+     * Compiles a text scenario into a binary scenario. Commands are validated against
+     * the argument rules of their verbs; problems are reported as warnings.
+     *
+     * @param textPath   The text scenario.
+     * @param binaryPath The binary scenario to write.
+     * @return The number of commands one run of the scenario executes.
+     * @throws IOException If reading or writing fails.
+     */
+    public static long compile(String textPath, String binaryPath) throws IOException {
+        ScenarioCompiler compiler = new ScenarioCompiler(true);
+        try (BufferedReader reader = new BufferedReader(new FileReader(textPath, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!compiler.addLine(line)) break;
+            }
+        }
+        Program program = compiler.finish();
+        write(program, binaryPath);
+        return program.getCommandCount();
+    }
+    /**
+     * Opens a binary scenario.
+     *
+     * @param path The file written by {@link #compile(String, String)}.
+     * @return The scenario.
+     * @throws IOException If the file cannot be read, is not a binary scenario or is damaged.
+     */
+    public static BinaryScenario open(String path) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Scenario file is too large.");
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.limit() >= HEADER_SIZE && file.getInt(0) == OLD_MAGIC) {
+            throw new IOException("Binary scenario has an older format, compile it again: " + path);
+        }
+        if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary scenario: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(file.duplicate().position(HEADER_SIZE));
+        if ((int) crc.getValue() != file.getInt(4)) {
+            throw new IOException("Binary scenario is damaged (CRC mismatch): " + path);
+        }
+
+        ByteBuffer in = file.duplicate().position(HEADER_SIZE);
+        String[] strings = new String[in.getInt()];
+        int i = 0;
+        while (i < strings.length) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            i++;
+        }
+        int commandCount = in.getInt();
+        String[] lines = new String[commandCount];
+        String[][] parts = new String[commandCount][];
+        i = 0;
+        while (i < commandCount) {
+            lines[i] = strings[in.getInt()];
+            String[] commandParts = new String[in.getInt()];
+            int k = 0;
+            while (k < commandParts.length) {
+                commandParts[k] = strings[in.getInt()];
+                k++;
+            }
+            parts[i] = commandParts;
+            i++;
+        }
+        int maxDepth = in.getInt();
+        int length = in.getInt();
+        MappedByteBuffer code = file.slice(in.position(), length);
+        return new BinaryScenario(strings, lines, parts, maxDepth, code);
+    }
+    /**
+     * Returns the number of distinct commands in the command table.
+     *
+     * @return The command count.
+     */
+    public int getDistinctCommandCount() {
+        return lines.length;
+    }
+
+    @Override
+    public Cursor cursor() {
+        return new StreamCursor();
+    }
+
+    private static void write(Program program, String binaryPath) throws IOException {
+        HashMap<String, Integer> stringIDs = new HashMap<>();
+        ArrayList<String> strings = new ArrayList<>();
+        HashMap<String, Integer> commandIDs = new HashMap<>();
+        ByteArrayOutputStream commandBytes = new ByteArrayOutputStream();
+        DataOutputStream commandTable = new DataOutputStream(commandBytes);
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(codeBytes);
+        int[] offsets = new int[program.size()];
+        int[] operands = new int[3];
+
+        int pc = 0;
+        while (pc < program.size()) {
+            offsets[pc] = stream.size();
+            byte op = program.getOp(pc);
+            if (op == Program.COMMAND) {
+                String line = program.getCommand(pc);
+                byte opcode = resolve(program.getParts(pc), operands, stringIDs, strings);
+                stream.writeByte(opcode);
+                Integer id = commandIDs.get(line);
+                if (id == null) {
+                    id = commandIDs.size();
+                    commandIDs.put(line, id);
+                    String[] commandParts = program.getParts(pc);
+                    commandTable.writeInt(intern(line, stringIDs, strings));
+                    commandTable.writeInt(commandParts.length);
+                    int k = 0;
+                    while (k < commandParts.length) {
+                        commandTable.writeInt(intern(commandParts[k], stringIDs, strings));
+                        k++;
+                    }
+                }
+                stream.writeInt(id);
+                int count = operandCount(opcode);
+                int k = 0;
+                while (k < count) {
+                    stream.writeInt(operands[k]);
+                    k++;
+                }
+            } else if (op == Program.LOOP) {
+                stream.writeByte(op);
+                stream.writeLong(program.getArg(pc));
+            } else {
+                stream.writeByte(op);
+                stream.writeInt(offsets[(int) program.getArg(pc)]);
+            }
+            pc++;
+        }
+
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeInt(strings.size());
+        int i = 0;
+        while (i < strings.size()) {
+            byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            body.writeInt(bytes.length);
+            body.write(bytes);
+            i++;
+        }
+        body.writeInt(commandIDs.size());
+        commandBytes.writeTo(body);
+        body.writeInt(program.getMaxDepth());
+        body.writeInt(codeBytes.size());
+        codeBytes.writeTo(body);
+        body.flush();
+
+        CRC32 crc = new CRC32();
+        byte[] all = bodyBytes.toByteArray();
+        crc.update(all);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryPath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt((int) crc.getValue());
+            out.write(all);
+        }
+    }
+
+    /**
+     * Finds the opcode of a command whose arguments pass the checks of its handler, and
+     * its operands: numbers parsed like the handler parses them, strings as indexes
+     * into the string table.
+     *
+     * @return The opcode, or {@link Program#COMMAND} if the command must run as text.
+     */
+    private static byte resolve(String[] parts, int[] operands, HashMap<String, Integer> ids, ArrayList<String> strings) {
+        try {
+            switch (parts[0]) {
+                case "turnON":
+                    return withID(parts, operands, TURN_ON);
+                case "turnOFF":
+                    return withID(parts, operands, TURN_OFF);
+                case "rmDev":
+                    return withID(parts, operands, RM_DEV);
+                case "readSensor":
+                    return withID(parts, operands, READ_SENSOR);
+                case "readWireless":
+                    return withID(parts, operands, READ_WIRELESS);
+                case "addDev":
+                    if (parts.length != 4) return Program.COMMAND;
+                    operands[0] = Integer.parseInt(parts[2]);
+                    operands[1] = Integer.parseInt(parts[3]);
+                    operands[2] = intern(parts[1], ids, strings);
+                    return ADD_DEV;
+                case "printDisplay":
+                case "writeWireless":
+                    if (parts.length < 3) return Program.COMMAND;
+                    operands[0] = Integer.parseInt(parts[1]);
+                    // The handlers join the message parts with single spaces
+                    operands[1] = intern(String.join(" ", Arrays.asList(parts).subList(2, parts.length)), ids, strings);
+                    return parts[0].equals("printDisplay") ? PRINT_DISPLAY : WRITE_WIRELESS;
+                case "setMotorSpeed":
+                    if (parts.length != 3) return Program.COMMAND;
+                    operands[0] = Integer.parseInt(parts[1]);
+                    operands[1] = Integer.parseInt(parts[2]);
+                    return SET_MOTOR_SPEED;
+                default:
+                    return Program.COMMAND;
+            }
+        } catch (NumberFormatException e) {
+            // The handler reports the error at run time
+            return Program.COMMAND;
+        }
+    }
+
+    private static byte withID(String[] parts, int[] operands, byte opcode) {
+        if (parts.length != 2) return Program.COMMAND;
+        operands[0] = Integer.parseInt(parts[1]);
+        return opcode;
+    }
+
+    private static int operandCount(byte opcode) {
+        switch (opcode) {
+            case ADD_DEV:
+                return 3;
+            case PRINT_DISPLAY:
+            case WRITE_WIRELESS:
+            case SET_MOTOR_SPEED:
+                return 2;
+            case Program.COMMAND:
+                return 0;
+            default:
+                return 1;
+        }
+    }
+
+    private static int intern(String text, HashMap<String, Integer> ids, ArrayList<String> strings) {
+        Integer id = ids.get(text);
+        if (id == null) {
+            id = strings.size();
+            ids.put(text, id);
+            strings.add(text);
+        }
+        return id;
+    }
+
+    private final class StreamCursor implements Cursor {
+        private final long[] remaining = new long[maxDepth + 1];
+        private int depth;
+        private int pc;
+        private int command;
+        private byte opcode;
+        private final int[] operands = new int[3];
+
+        @Override
+        public boolean next() {
+            int end = code.limit();
+            while (pc < end) {
+                byte op = code.get(pc);
+                if (op != Program.LOOP && op != Program.END) {
+                    opcode = op;
+                    command = code.getInt(pc + 1);
+                    pc += 5;
+                    int count = operandCount(op);
+                    int k = 0;
+                    while (k < count) {
+                        operands[k] = code.getInt(pc);
+                        pc += 4;
+                        k++;
+                    }
+                    return true;
+                }
+                if (op == Program.LOOP) {
+                    remaining[depth] = code.getLong(pc + 1);
+                    depth++;
+                    pc += 9;
+                } else if (remaining[depth - 1] > 1) {
+                    // END: jump back to the first instruction of the loop body
+                    remaining[depth - 1]--;
+                    pc = code.getInt(pc + 1) + 9;
+                } else {
+                    depth--;
+                    pc += 5;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String getCommand() {
+            return lines[command];
+        }
+
+        @Override
+        public String[] getParts() {
+            return parts[command];
+        }
+
+        @Override
+        public byte getOpcode() {
+            return opcode;
+        }
+
+        @Override
+        public int getOperand(int index) {
+            return operands[index];
+        }
+
+        @Override
+        public String getText() {
+            return strings[operands[operandCount(opcode) - 1]];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package hwSystem.Scenario;
+
+import java.util.HashMap;
+/**
+ * Argument rules of the simulator commands, used to validate scenarios at compile time.
+ */
+final class CommandSpec {
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final HashMap<String, CommandSpec> SPECS = new HashMap<>();
+
+    static {
+        define("addDev", 3, 3, 2, 3);
+        define("turnON", 1, 1, 1);
+        define("turnOFF", 1, 1, 1);
+        define("rmDev", 1, 1, 1);
+        define("list", 1, 1);
+        define("readSensor", 1, 1, 1);
+        define("printDisplay", 2, UNLIMITED, 1);
+        define("readWireless", 1, 1, 1);
+        define("writeWireless", 2, UNLIMITED, 1);
+        define("setMotorSpeed", 2, 2, 1, 2);
+        define("setSignal", 3, UNLIMITED, 1);
+        define("replayTrace", 2, 3, 1);
+        define("seekTrace", 2, 2, 1, 2);
+        define("queryLog", 1, UNLIMITED, 1);
+        define("pollSensors", 0, 0);
+        define("sensorHistory", 1, 1, 1);
+        define("changesSince", 1, 1, 1);
+        define("exit", 0, 0);
+        define("addWorker", 0, 0);
+    }
+
+    private final int minArgs;
+    private final int maxArgs;
+    private final int[] numericArgs;
+
+    private CommandSpec(int minArgs, int maxArgs, int[] numericArgs) {
+        this.minArgs = minArgs;
+        this.maxArgs = maxArgs;
+        this.numericArgs = numericArgs;
+    }
+
+    private static void define(String verb, int minArgs, int maxArgs, int... numericArgs) {
+        SPECS.put(verb, new CommandSpec(minArgs, maxArgs, numericArgs));
+    }
+    /**
+     * Checks a command against the rules of its verb.
+     *
+     * @param parts The parts of the command.
+     * @return A description of the problem, or null if the command is valid.
+     */
+    static String check(String[] parts) {
+        CommandSpec spec = SPECS.get(parts[0]);
+        if (spec == null) return "unknown command: " + parts[0];
+        int args = parts.length - 1;
+        if (args < spec.minArgs || args > spec.maxArgs) {
+            return parts[0] + " takes " + (spec.minArgs == spec.maxArgs ? Integer.toString(spec.minArgs)
+                    : spec.maxArgs == UNLIMITED ? "at least " + spec.minArgs : spec.minArgs + " to " + spec.maxArgs)
+                    + " arguments, not " + args + ".";
+        }
+        int i = 0;
+        while (i < spec.numericArgs.length) {
+            int arg = spec.numericArgs[i];
+            if (arg <= args && !isNumber(parts[arg])) {
+                return "argument " + arg + " of " + parts[0] + " is not a number: " + parts[arg];
+            }
+            i++;
+        }
+        return null;
+    }
+
+    private static boolean isNumber(String text) {
+        try {
+            Long.parseLong(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
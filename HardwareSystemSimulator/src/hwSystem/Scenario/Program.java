@@ -0,0 +1,172 @@
+package hwSystem.Scenario;
+
+import java.util.Arrays;
+/**
+ * A compiled scenario: a flat list of instructions produced by {@link ScenarioCompiler}.
+ *
+ * <p>A command instruction holds the command line and its parts, split once at
+ * compile time, and the number of its source line. Loops are a LOOP instruction with the repeat count and an END
+ * instruction pointing back to it; macros and ranges are expanded by the compiler,
+ * so a {@link Cursor} only follows jumps and never looks at the text again.
+ */
+public final class Program implements Scenario {
+    static final byte COMMAND = 0;
+    static final byte LOOP = 1;
+    static final byte END = 2;
+
+    private byte[] ops = new byte[64];
+    private long[] args = new long[64];
+    private String[] commands = new String[64];
+    private String[][] parts = new String[64][];
+    private int size;
+    private int maxDepth;
+    /**
+     * Returns the number of instructions.
+     *
+     * @return The instruction count.
+     */
+    public int size() {
+        return size;
+    }
+    /**
+     * Returns the number of commands one run of the program executes, loops included.
+     *
+     * @return The command count, saturated at Long.MAX_VALUE.
+     */
+    public long getCommandCount() {
+        long[] factors = new long[maxDepth + 1];
+        factors[0] = 1;
+        int depth = 0;
+        long count = 0;
+        int pc = 0;
+        while (pc < size) {
+            if (ops[pc] == COMMAND) {
+                count = saturatedAdd(count, factors[depth]);
+            } else if (ops[pc] == LOOP) {
+                factors[depth + 1] = saturatedMultiply(factors[depth], args[pc]);
+                depth++;
+            } else {
+                depth--;
+            }
+            pc++;
+        }
+        return count;
+    }
+    @Override
+    public Cursor cursor() {
+        return new ProgramCursor();
+    }
+
+    void addCommand(String command, String[] commandParts, int line) {
+        add(COMMAND, line);
+        commands[size - 1] = command;
+        parts[size - 1] = commandParts;
+    }
+
+    void addLoop(long count, int depth) {
+        add(LOOP, count);
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void addEnd(int loopStart) {
+        add(END, loopStart);
+    }
+
+    byte getOp(int index) {
+        return ops[index];
+    }
+
+    long getArg(int index) {
+        return args[index];
+    }
+
+    String getCommand(int index) {
+        return commands[index];
+    }
+
+    String[] getParts(int index) {
+        return parts[index];
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    void truncate(int newSize) {
+        Arrays.fill(commands, newSize, size, null);
+        Arrays.fill(parts, newSize, size, null);
+        size = newSize;
+    }
+
+    private void add(byte op, long arg) {
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            args = Arrays.copyOf(args, capacity);
+            commands = Arrays.copyOf(commands, capacity);
+            parts = Arrays.copyOf(parts, capacity);
+        }
+        ops[size] = op;
+        args[size] = arg;
+        size++;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        if (a != 0 && b > Long.MAX_VALUE / a) return Long.MAX_VALUE;
+        return a * b;
+    }
+    private final class ProgramCursor implements Cursor {
+        private final long[] remaining = new long[maxDepth + 1];
+        private int depth;
+        private int pc;
+        private String command;
+        private String[] commandParts;
+        private int line;
+
+        @Override
+        public boolean next() {
+            while (pc < size) {
+                byte op = ops[pc];
+                if (op == COMMAND) {
+                    command = commands[pc];
+                    commandParts = parts[pc];
+                    line = (int) args[pc];
+                    pc++;
+                    return true;
+                }
+                if (op == LOOP) {
+                    remaining[depth] = args[pc];
+                    depth++;
+                    pc++;
+                } else if (remaining[depth - 1] > 1) {
+                    // END: jump back to the first instruction of the loop body
+                    remaining[depth - 1]--;
+                    pc = (int) args[pc] + 1;
+                } else {
+                    depth--;
+                    pc++;
+                }
+            }
+            return false;
+        }
+        @Override
+        public String getCommand() {
+            return command;
+        }
+
+        @Override
+        public String[] getParts() {
+            return commandParts;
+        }
+
+        @Override
+        public int getLine() {
+            return line;
+        }
+    }
+}
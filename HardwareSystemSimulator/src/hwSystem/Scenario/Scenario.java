@@ -0,0 +1,99 @@
+package hwSystem.Scenario;
+
+/**
+ * A scenario ready to run: a sequence of commands that are already split into
+ * their parts. Implemented by the in-memory {@link Program} and by the memory-mapped
+ * {@link BinaryScenario}.
+ */
+public interface Scenario {
+    /**
+     * Receives the commands of a scenario.
+     */
+    interface Sink {
+        /**
+         * Executes one command.
+         *
+         * @param command The command line.
+         * @param parts   The whitespace-separated parts of the command. Shared by all
+         *                executions of the same command and must not be modified.
+         */
+        void execute(String command, String[] parts);
+    }
+    /**
+     * Steps through the commands of a scenario, following its loops.
+     */
+    interface Cursor {
+        /**
+         * Moves to the next command.
+         *
+         * @return false if the scenario has ended.
+         */
+        boolean next();
+        /**
+         * Returns the current command line.
+         *
+         * @return The command line.
+         */
+        String getCommand();
+        /**
+         * Returns the parts of the current command.
+         *
+         * @return The parts; must not be modified.
+         */
+        String[] getParts();
+        /**
+         * Returns the source line the current command was compiled from; for a
+         * command of a macro or a range, the line of the call.
+         *
+         * @return The line number starting at 1, or 0 if the scenario does not record it.
+         */
+        default int getLine() {
+            return 0;
+        }
+        /**
+         * Returns the opcode of the current command. A command with an opcode other than
+         * 0 has valid arguments, which are available through {@link #getOperand(int)}
+         * and {@link #getText()}; see {@link BinaryScenario} for the opcodes.
+         *
+         * @return The opcode, or 0 if the command must be executed from its parts.
+         */
+        default byte getOpcode() {
+            return 0;
+        }
+        /**
+         * Returns a number argument of the current command, e.g. the portID of turnON.
+         *
+         * @param index The index of the operand, in the order of {@link BinaryScenario}.
+         * @return The operand.
+         */
+        default int getOperand(int index) {
+            throw new UnsupportedOperationException();
+        }
+        /**
+         * Returns the text argument of the current command: the device name of addDev
+         * or the message of printDisplay and writeWireless.
+         *
+         * @return The text.
+         */
+        default String getText() {
+            throw new UnsupportedOperationException();
+        }
+    }
+    /**
+     * Returns a new cursor at the start of the scenario.
+     *
+     * @return The cursor.
+     */
+    Cursor cursor();
+    /**
+     * Executes the whole scenario.
+     *
+     * @param sink The receiver of the commands.
+     */
+    default void run(Sink sink) {
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            sink.execute(cursor.getCommand(), cursor.getParts());
+        }
+    }
+}
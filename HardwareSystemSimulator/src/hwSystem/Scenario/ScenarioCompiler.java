@@ -0,0 +1,281 @@
+package hwSystem.Scenario;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+/**
+ * Compiles the scenario language into a {@link Program}.
+ *
+ * <p>Besides plain command lines the language has:
+ * <ul>
+ *     <li>{@code repeat N {} ... {@code }} to run the enclosed lines N times,</li>
+ *     <li>{@code macro name p1 p2 {} ... {@code }} to define a macro, whose body
+ *         refers to its parameters as {@code $p1}, {@code $p2}; a line
+ *         {@code name a b} expands it,</li>
+ *     <li>ranges {@code a..b} as the portID or devID of a command (the first
+ *         argument, the portID of addDev) or as one argument of a macro call, which
+ *         expand into one line per value from a to b; message text stays literal,</li>
+ *     <li>comments: lines starting with {@code #}.</li>
+ * </ul>
+ * Lines are compiled as they arrive; {@link #addLine(String)} returns false after the
+ * top-level {@code exit}, like the plain command reader. Errors are reported on
+ * System.err with their line number and the offending line is skipped.
+ */
+public class ScenarioCompiler {
+    /** Maximum nesting of macro calls, which also stops recursive macros. */
+    public static final int MAX_MACRO_DEPTH = 32;
+    /** Maximum number of values of one range. */
+    public static final long MAX_RANGE = 1 << 24;
+
+    private static final Pattern RANGE = Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)");
+    private static final Pattern PARAMETER = Pattern.compile("\\$(\\w+)");
+
+    private final Program program = new Program();
+    private final HashMap<String, Macro> macros = new HashMap<>();
+    private final ArrayList<Integer> openLoops = new ArrayList<>();
+    private Macro defining;
+    private int definingDepth;
+    private int lineNumber;
+    private boolean exited;
+    private final boolean validate;
+    /**
+     * Constructs a compiler that accepts any command; the handlers report invalid ones when they run.
+     */
+    public ScenarioCompiler() {
+        this(false);
+    }
+    /**
+     * Constructs a compiler.
+     *
+     * @param validate Whether to check every command against the argument rules of its
+     *                 verb and report problems as warnings. The commands are compiled anyway.
+     */
+    public ScenarioCompiler(boolean validate) {
+        this.validate = validate;
+    }
+    /**
+     * Compiles one source line.
+     *
+     * @param line The line as read from the scenario.
+     * @return false once the top-level exit command was compiled.
+     */
+    public boolean addLine(String line) {
+        if (exited) return false;
+        lineNumber++;
+        compile(line.trim(), 0);
+        return !exited;
+    }
+    /**
+     * Ends compilation. Blocks that are still open are closed with an error.
+     *
+     * @return The compiled program.
+     */
+    public Program finish() {
+        if (defining != null) {
+            error("macro " + defining.name + " is not closed.");
+            defining = null;
+        }
+        while (!openLoops.isEmpty()) {
+            error("repeat block is not closed.");
+            compile("}", 0);
+        }
+        return program;
+    }
+
+    private void compile(String line, int macroDepth) {
+        if (defining != null) {
+            collectMacroLine(line);
+            return;
+        }
+        if (line.startsWith("#")) return;
+        if (line.equals("}")) {
+            closeLoop();
+            return;
+        }
+        String[] parts = line.split("\\s+");
+        if (parts[0].equals("repeat") && parts[parts.length - 1].equals("{")) {
+            openLoop(parts);
+            return;
+        }
+        if (parts[0].equals("macro") && parts[parts.length - 1].equals("{")) {
+            openMacro(parts);
+            return;
+        }
+        if (parts[0].equals("exit") && (!openLoops.isEmpty() || macroDepth > 0)) {
+            error("exit is only allowed at the top level.");
+            return;
+        }
+        int range = findRange(parts);
+        if (range < 0) {
+            emit(line, parts, macroDepth);
+            return;
+        }
+        Matcher matcher = RANGE.matcher(parts[range]);
+        matcher.matches();
+        long from;
+        long to;
+        try {
+            from = Long.parseLong(matcher.group(1));
+            to = Long.parseLong(matcher.group(2));
+        } catch (NumberFormatException e) {
+            from = 0;
+            to = Long.MAX_VALUE;
+        }
+        if (Math.abs(to - from) >= MAX_RANGE || Math.abs(to - from) < 0) {
+            error("range " + parts[range] + " has more than " + MAX_RANGE + " values.");
+            return;
+        }
+        long step = from <= to ? 1 : -1;
+        long value = from;
+        while (true) {
+            String[] expanded = parts.clone();
+            expanded[range] = Long.toString(value);
+            emit(String.join(" ", expanded), expanded, macroDepth);
+            if (value == to) break;
+            value += step;
+        }
+    }
+
+    private void emit(String line, String[] parts, int macroDepth) {
+        Macro macro = macros.get(parts[0]);
+        if (macro == null) {
+            if (validate && !line.isEmpty()) {
+                String problem = CommandSpec.check(parts);
+                if (problem != null) warning(problem);
+            }
+            program.addCommand(line, parts, lineNumber);
+            if (line.equals("exit")) exited = true;
+            return;
+        }
+        if (parts.length - 1 != macro.parameters.length) {
+            error("macro " + macro.name + " takes " + macro.parameters.length
+                    + (macro.parameters.length == 1 ? " argument." : " arguments."));
+            return;
+        }
+        if (macroDepth == MAX_MACRO_DEPTH) {
+            error("macro calls are nested too deeply (recursive macro " + macro.name + "?).");
+            return;
+        }
+        HashMap<String, String> values = new HashMap<>();
+        int i = 0;
+        while (i < macro.parameters.length) {
+            values.put(macro.parameters[i], parts[i + 1]);
+            i++;
+        }
+        Iterator<String> it = macro.body.iterator();
+        while (it.hasNext()) {
+            compile(substitute(it.next(), values), macroDepth + 1);
+        }
+    }
+
+    private void openLoop(String[] parts) {
+        if (parts.length != 3) {
+            error("usage: repeat <count> {");
+            return;
+        }
+        long count;
+        try {
+            count = Long.parseLong(parts[1].replace("_", ""));
+        } catch (NumberFormatException e) {
+            count = -1;
+        }
+        if (count < 0) {
+            error("invalid repeat count: " + parts[1]);
+            count = 0;
+        }
+        openLoops.add(program.size());
+        program.addLoop(count, openLoops.size());
+    }
+
+    private void closeLoop() {
+        if (openLoops.isEmpty()) {
+            error("} without an open block.");
+            return;
+        }
+        int start = openLoops.remove(openLoops.size() - 1);
+        if (program.size() == start + 1 || program.getArg(start) == 0) {
+            // Nothing to repeat: drop the loop and its body
+            program.truncate(start);
+            return;
+        }
+        program.addEnd(start);
+    }
+
+    private void openMacro(String[] parts) {
+        if (parts.length < 3) {
+            error("usage: macro <name> [parameters] {");
+            definingDepth = 1;
+            defining = new Macro("", new String[0]);
+            return;
+        }
+        String[] parameters = new String[parts.length - 3];
+        System.arraycopy(parts, 2, parameters, 0, parameters.length);
+        defining = new Macro(parts[1], parameters);
+        definingDepth = 1;
+    }
+
+    private void collectMacroLine(String line) {
+        if (line.equals("}")) {
+            definingDepth--;
+            if (definingDepth == 0) {
+                if (!defining.name.isEmpty()) macros.put(defining.name, defining);
+                defining = null;
+                return;
+            }
+        } else if (line.endsWith("{")) {
+            definingDepth++;
+        }
+        defining.body.add(line);
+    }
+
+    private int findRange(String[] parts) {
+        if (!macros.containsKey(parts[0])) {
+            // Only the id argument of a command expands; payloads such as messages stay literal
+            int id = parts[0].equals("addDev") ? 2 : 1;
+            return id < parts.length && RANGE.matcher(parts[id]).matches() ? id : -1;
+        }
+        int found = -1;
+        int i = 1;
+        while (i < parts.length) {
+            if (RANGE.matcher(parts[i]).matches()) {
+                // Only the first range expands; a second one stays literal text
+                if (found < 0) found = i;
+            }
+            i++;
+        }
+        return found;
+    }
+
+    private static String substitute(String line, HashMap<String, String> values) {
+        if (line.indexOf('$') < 0) return line;
+        Matcher matcher = PARAMETER.matcher(line);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = values.get(matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private void error(String message) {
+        System.err.println("Error: Scenario line " + lineNumber + ": " + message);
+    }
+
+    private void warning(String message) {
+        System.err.println("Warning: Scenario line " + lineNumber + ": " + message);
+    }
+
+    private static final class Macro {
+        final String name;
+        final String[] parameters;
+        final ArrayList<String> body = new ArrayList<>();
+
+        Macro(String name, String[] parameters) {
+            this.name = name;
+            this.parameters = parameters;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package hwSystem.Server;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.hwSystem;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Serves the command language of one hwSystem to many local clients.
+ *
+ * <p>Clients connect over TCP (bound to the loopback address) or a Unix domain socket
+ * and send commands as lines. A client may pipeline any number of commands without
+ * waiting; every command gets exactly one response, in the order the client sent them.
+ * A response is framed as a header line followed by the captured output:
+ * <pre>
+ * R &lt;stdoutBytes&gt; &lt;stderrBytes&gt;\n
+ * &lt;stdout bytes&gt;&lt;stderr bytes&gt;
+ * </pre>
+ *
+ * <p>A single selector thread does all socket I/O, and a single worker thread executes
+ * commands, because hwSystem is not thread-safe. {@code exit} ends the client's
+ * session; {@code shutdown} writes the port logs and stops the server. A client that
+ * shuts down its output after the last command still receives every response.
+ *
+ * <p>Once {@code shutdown} is received or {@link #stop()} is called, the server takes
+ * no new commands from any client. The commands taken before still run, and their
+ * responses are written before the connections are closed.
+ */
+public class CommandServer {
+    /**
+     * Executes the commands received by a server.
+     */
+    public interface Handler {
+        /**
+         * Executes one command. Output goes to System.out and System.err.
+         *
+         * @param command The command line.
+         */
+        void execute(String command);
+    }
+
+    private static final int MAX_LINE = 64 * 1024;
+    private static final int MAX_IN_FLIGHT = 4096;
+    // How long a stopping server keeps writing responses to clients that do not read them
+    private static final long DRAIN_MILLIS = 5000;
+
+    private final Handler handler;
+    private final SocketAddress address;
+    private final ExecutorService worker;
+    private final Queue<Connection> pendingWrites;
+    private final AtomicBoolean wakeupPending;
+
+    private Selector selector;
+    private ServerSocketChannel server;
+    private volatile boolean running;
+    // Whether new commands are taken; cleared before the server stops
+    private volatile boolean accepting;
+    /**
+     * Constructs a server for the given system.
+     *
+     * @param system  The simulator instance to drive.
+     * @param address "unix:&lt;path&gt;" for a Unix domain socket, otherwise a TCP port number.
+     */
+    public CommandServer(hwSystem system, String address) {
+        this(system::execute, address);
+    }
+    /**
+     * Constructs a server executing commands with the given handler.
+     *
+     * @param handler The executor of the commands; called on a single thread.
+     * @param address "unix:&lt;path&gt;" for a Unix domain socket, otherwise a TCP port number.
+     */
+    public CommandServer(Handler handler, String address) {
+        this.handler = handler;
+        this.address = parseAddress(address);
+        this.worker = Executors.newSingleThreadExecutor();
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.wakeupPending = new AtomicBoolean();
+    }
+    /**
+     * Opens the listening socket. Clients can connect once this method returns.
+     *
+     * @throws IOException If the socket cannot be opened.
+     */
+    public void open() throws IOException {
+        ConsoleRouter.install();
+        selector = Selector.open();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        accepting = true;
+        running = true;
+    }
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return The bound socket address.
+     * @throws IOException If the server is not open.
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+    /**
+     * Runs the selector loop until {@code shutdown} is received or {@link #stop()} is called.
+     *
+     * @throws IOException If the selector fails.
+     */
+    public void serve() throws IOException {
+        try {
+            while (running) {
+                selector.select();
+                handleKeys(true);
+            }
+            drain();
+        } finally {
+            close();
+        }
+    }
+    /**
+     * Stops the server loop. Safe to call from any thread. Commands already taken
+     * still run and get their responses.
+     */
+    public void stop() {
+        accepting = false;
+        running = false;
+        if (selector != null) selector.wakeup();
+    }
+
+    private void handleKeys(boolean reading) throws IOException {
+        wakeupPending.set(false);
+        flushPendingWrites();
+
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                if (reading) accept();
+            } else {
+                Connection connection = (Connection) key.attachment();
+                if (key.isWritable()) connection.writeOut();
+                if (reading && key.isValid() && key.isReadable()) connection.readIn();
+            }
+        }
+    }
+    /**
+     * Lets the worker finish the commands taken so far and writes their responses.
+     */
+    private void drain() throws IOException {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long deadline = System.currentTimeMillis() + DRAIN_MILLIS;
+        flushPendingWrites();
+        while (hasPendingOutput() && System.currentTimeMillis() < deadline) {
+            selector.select(100);
+            handleKeys(false);
+        }
+    }
+
+    private boolean hasPendingOutput() {
+        Iterator<SelectionKey> it = selector.keys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            Connection connection = (Connection) key.attachment();
+            if (key.isValid() && connection != null && !connection.output.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void flushPendingWrites() throws IOException {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            connection.writeOut();
+        }
+    }
+
+    private void close() throws IOException {
+        worker.shutdown();
+        Iterator<SelectionKey> it = selector.keys().iterator();
+        while (it.hasNext()) {
+            it.next().channel().close();
+        }
+        selector.close();
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+
+    private void requestWrite(Connection connection) {
+        pendingWrites.add(connection);
+        if (wakeupPending.compareAndSet(false, true)) selector.wakeup();
+    }
+
+    private static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(Path.of(address.substring(5)));
+        }
+        try {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Address must be a port number or unix:<path>.");
+        }
+    }
+    /**
+     * Per-thread capture of the output of one command.
+     */
+    private static final class Capture {
+        final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(outBytes, false, StandardCharsets.UTF_8);
+        final PrintStream err = new PrintStream(errBytes, false, StandardCharsets.UTF_8);
+
+        ByteBuffer frame() {
+            out.flush();
+            err.flush();
+            byte[] header = ("R " + outBytes.size() + " " + errBytes.size() + "\n").getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer frame = ByteBuffer.allocate(header.length + outBytes.size() + errBytes.size());
+            frame.put(header).put(outBytes.toByteArray()).put(errBytes.toByteArray()).flip();
+            outBytes.reset();
+            errBytes.reset();
+            return frame;
+        }
+    }
+
+    private static final ThreadLocal<Capture> CAPTURE = ThreadLocal.withInitial(Capture::new);
+    /**
+     * One client connection with its input buffer and ordered response queue.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+        private final Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ByteBuffer[] batch = new ByteBuffer[64];
+        private volatile boolean closing;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void readIn() throws IOException {
+            int n;
+            try {
+                n = channel.read(input);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (n < 0) {
+                // The client finished sending: answer the commands already read, then close
+                closing = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                if (inFlight.get() == 0) close();
+                return;
+            }
+            input.flip();
+            int lineStart = input.position();
+            int i = lineStart;
+            while (i < input.limit()) {
+                if (input.get(i) == '\n') {
+                    int end = i;
+                    if (end > lineStart && input.get(end - 1) == '\r') end--;
+                    submit(new String(input.array(), lineStart, end - lineStart, StandardCharsets.UTF_8).trim());
+                    lineStart = i + 1;
+                }
+                i++;
+            }
+            input.position(lineStart);
+            input.compact();
+            if (!input.hasRemaining()) {
+                System.err.println("Error: Command line too long, closing connection.");
+                close();
+                return;
+            }
+            if (inFlight.get() >= MAX_IN_FLIGHT) {
+                // Stop reading until responses drain (backpressure)
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        void submit(String command) {
+            if (closing) return;
+            if (!accepting) {
+                // The server is stopping: close once the earlier responses are written
+                closing = true;
+                if (inFlight.get() == 0) requestWrite(this);
+                return;
+            }
+            inFlight.incrementAndGet();
+            if (command.equals("exit")) {
+                closing = true;
+                worker.execute(() -> respond(CAPTURE.get().frame()));
+                return;
+            }
+            if (command.equals("shutdown")) {
+                closing = true;
+                // Commands that arrive from now on would run after exit wrote the logs
+                accepting = false;
+                worker.execute(() -> {
+                    execute("exit");
+                    stop();
+                });
+                return;
+            }
+            worker.execute(() -> execute(command));
+        }
+
+        private void execute(String command) {
+            Capture capture = CAPTURE.get();
+            ConsoleRouter.bind(capture.out, capture.err);
+            try {
+                handler.execute(command);
+            } catch (RuntimeException e) {
+                capture.err.println("Error: " + e);
+            } finally {
+                ConsoleRouter.unbind();
+            }
+            respond(capture.frame());
+        }
+
+        private void respond(ByteBuffer frame) {
+            output.add(frame);
+            requestWrite(this);
+        }
+
+        void writeOut() throws IOException {
+            if (!channel.isOpen()) return;
+            try {
+                while (!output.isEmpty()) {
+                    // Gather queued frames into one write
+                    int count = 0;
+                    Iterator<ByteBuffer> it = output.iterator();
+                    while (it.hasNext() && count < batch.length) {
+                        batch[count] = it.next();
+                        count++;
+                    }
+                    channel.write(batch, 0, count);
+                    int done = 0;
+                    while (done < count && !batch[done].hasRemaining()) {
+                        output.poll();
+                        inFlight.decrementAndGet();
+                        done++;
+                    }
+                    Arrays.fill(batch, 0, count, null);
+                    if (done < count) break;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            // A closing connection reads no more commands
+            int ops = closing ? 0 : SelectionKey.OP_READ;
+            if (!output.isEmpty()) ops |= SelectionKey.OP_WRITE;
+            if (inFlight.get() >= MAX_IN_FLIGHT) ops &= ~SelectionKey.OP_READ;
+            if (closing && inFlight.get() == 0) {
+                close();
+                return;
+            }
+            if (key.isValid()) key.interestOps(ops);
+        }
+
+        void close() throws IOException {
+            closing = true;
+            key.cancel();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package hwSystem.Server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+/**
+ * The driver side of a {@link RingServer}: sends commands through the shared-memory
+ * command ring and receives their responses.
+ *
+ * <p>Commands are published in batches; call {@link #flush()} before waiting for the
+ * response of the last command sent. {@link #send(String)} waits while the command ring
+ * is full, which needs the responses to be received meanwhile: either receive on a
+ * second thread, or use {@link #offer(String)} and {@link #poll()} on one. Sending and
+ * receiving may each be done by one thread at a time.
+ */
+public class RingClient implements AutoCloseable {
+    /**
+     * The output of one command.
+     */
+    public static final class Response {
+        private final byte[] out;
+        private final byte[] err;
+
+        private Response(byte[] out, byte[] err) {
+            this.out = out;
+            this.err = err;
+        }
+        /**
+         * Returns the standard output of the command.
+         *
+         * @return The UTF-8 bytes written to System.out.
+         */
+        public byte[] getOut() {
+            return out;
+        }
+        /**
+         * Returns the error output of the command.
+         *
+         * @return The UTF-8 bytes written to System.err.
+         */
+        public byte[] getErr() {
+            return err;
+        }
+    }
+
+    private final SharedRing commands;
+    private final SharedRing responses;
+    /**
+     * Attaches to the ring file of a running simulator.
+     *
+     * @param path          The ring file.
+     * @param timeoutMillis How long to wait for the simulator to create the file.
+     * @throws IOException If the file is not ready within the timeout.
+     */
+    public RingClient(Path path, long timeoutMillis) throws IOException {
+        RingFile file = RingFile.attach(path, timeoutMillis);
+        this.commands = file.commands();
+        this.responses = file.responses();
+    }
+    /**
+     * Sends a command if the command ring has room for it.
+     *
+     * @param command The command line.
+     * @return false if the ring is full.
+     */
+    public boolean offer(String command) {
+        byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+        return commands.offer(bytes, 0, bytes.length);
+    }
+    /**
+     * Sends a command, waiting while the command ring is full.
+     *
+     * @param command The command line.
+     * @return false if the simulator has ended the session.
+     */
+    public boolean send(String command) {
+        byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+        return commands.write(bytes, 0, bytes.length);
+    }
+    /**
+     * Publishes the commands sent so far to the simulator.
+     */
+    public void flush() {
+        commands.publish();
+    }
+    /**
+     * Receives the next response if it has been published.
+     *
+     * @return The response, or null if none is available yet.
+     */
+    public Response poll() {
+        return decode(responses.poll());
+    }
+    /**
+     * Receives the next response, waiting for it.
+     *
+     * @return The response, or null once the simulator has ended the session and all
+     *         responses have been received.
+     */
+    public Response take() {
+        return decode(responses.take());
+    }
+    /**
+     * Ends the session: publishes the remaining commands and tells the simulator that
+     * no more follow. Responses can still be received.
+     */
+    @Override
+    public void close() {
+        commands.close();
+    }
+
+    private Response decode(byte[] record) {
+        if (record == null) return null;
+        int outLength = (record[0] & 0xff) | (record[1] & 0xff) << 8 | (record[2] & 0xff) << 16 | (record[3] & 0xff) << 24;
+        // Free the space at once so the simulator never waits on responses already read
+        responses.release();
+        return new Response(Arrays.copyOfRange(record, 4, 4 + outLength), Arrays.copyOfRange(record, 4 + outLength, record.length));
+    }
+}
@@ -0,0 +1,131 @@
+package hwSystem.Server;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * A memory-mapped file shared by the simulator and one driver process, holding a
+ * {@link SharedRing} for commands (driver to simulator) and one for responses.
+ *
+ * <p>Layout, all numbers little-endian:
+ * <pre>
+ * 0    int   magic "HWR1", written last by the simulator once the file is ready
+ * 4    int   command ring capacity C (a power of two)
+ * 8    int   response ring capacity R (a power of two)
+ * 64   command ring:  control block ({@value SharedRing#CONTROL_SIZE} bytes), then C data bytes
+ * 64 + {@value SharedRing#CONTROL_SIZE} + C
+ *      response ring: control block, then R data bytes
+ * </pre>
+ * A command record is the UTF-8 command line without the line break. A response record
+ * is an int with the number of stdout bytes, the stdout bytes and then the stderr bytes.
+ * Drivers in other languages map the same file and follow the same protocol.
+ *
+ * <p>Place the file on a memory file system such as {@code /dev/shm} so that the pages
+ * are never written back to a disk.
+ */
+public class RingFile {
+    /** First four bytes of a ready ring file ("HWR1"). */
+    public static final int MAGIC = 0x31525748;
+    /** Default capacity of each ring. */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private static final int HEADER_SIZE = 64;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final SharedRing commands;
+    private final SharedRing responses;
+
+    private RingFile(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        int commandCapacity = buffer.getInt(4);
+        int responseCapacity = buffer.getInt(8);
+        this.commands = new SharedRing(buffer, HEADER_SIZE, commandCapacity);
+        this.responses = new SharedRing(buffer, HEADER_SIZE + SharedRing.CONTROL_SIZE + commandCapacity, responseCapacity);
+    }
+    /**
+     * Creates a new ring file, replacing an existing one. Used by the simulator.
+     *
+     * @param path     The file.
+     * @param capacity The capacity of each ring, a power of two of at least 4 KB.
+     * @return The ring file.
+     * @throws IOException If the file cannot be created.
+     */
+    public static RingFile create(Path path, int capacity) throws IOException {
+        if (capacity < 4096 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two of at least 4096 bytes.");
+        }
+        Files.deleteIfExists(path);
+        long size = HEADER_SIZE + 2L * (SharedRing.CONTROL_SIZE + capacity);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(4, capacity);
+        buffer.putInt(8, capacity);
+        INT.setRelease(buffer, 0, MAGIC);
+        return new RingFile(path, buffer);
+    }
+    /**
+     * Maps a ring file created by the simulator, waiting for it to appear. Used by drivers.
+     *
+     * @param path          The file.
+     * @param timeoutMillis How long to wait for the simulator.
+     * @return The ring file.
+     * @throws IOException If the file is not ready within the timeout.
+     */
+    public static RingFile attach(Path path, long timeoutMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            if (Files.exists(path) && Files.size(path) >= HEADER_SIZE) {
+                MappedByteBuffer buffer;
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                }
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if ((int) INT.getAcquire(buffer, 0) == MAGIC) return new RingFile(path, buffer);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IOException("No ring file at " + path + ".");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + path + ".");
+            }
+        }
+    }
+    /**
+     * Returns the path of the file.
+     *
+     * @return The path.
+     */
+    public Path getPath() {
+        return path;
+    }
+    /**
+     * Returns the ring carrying commands from the driver to the simulator.
+     *
+     * @return The command ring.
+     */
+    public SharedRing commands() {
+        return commands;
+    }
+    /**
+     * Returns the ring carrying responses from the simulator to the driver.
+     *
+     * @return The response ring.
+     */
+    public SharedRing responses() {
+        return responses;
+    }
+}
@@ -0,0 +1,160 @@
+package hwSystem.Server;
+
+import hwSystem.ConsoleRouter;
+import hwSystem.hwSystem;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+/**
+ * Serves the command language of one hwSystem to a driver process through a
+ * shared-memory {@link RingFile} instead of standard input.
+ *
+ * <p>The driver writes commands into the command ring and may run any number ahead;
+ * every command gets exactly one response record in the response ring, in order.
+ * Commands are executed on the serving thread as soon as they are published, and the
+ * responses of a run of commands are published together, when the command ring is
+ * empty or every {@value #PUBLISH_EVERY} commands. A waiting side spins briefly before
+ * it yields and parks, so a busy driver sees microsecond round trips without a system
+ * call per command.
+ *
+ * <p>As with standard input, {@code exit} writes the port logs and ends the session;
+ * a driver that closes the command ring without {@code exit} ends it without logs.
+ * The server then closes both rings and deletes the file.
+ */
+public class RingServer {
+    /** Responses written before they are published even if more commands are waiting. */
+    public static final int PUBLISH_EVERY = 256;
+
+    private final CommandServer.Handler handler;
+    private final RingFile file;
+
+    private final Capture outBytes = new Capture();
+    private final Capture errBytes = new Capture();
+    private final PrintStream out = new PrintStream(outBytes, false, StandardCharsets.UTF_8);
+    private final PrintStream err = new PrintStream(errBytes, false, StandardCharsets.UTF_8);
+    private byte[] record = new byte[4096];
+    private long commandCount;
+    /**
+     * Constructs a server for the given system.
+     *
+     * @param system The simulator instance to drive.
+     * @param file   The ring file, created with {@link RingFile#create}.
+     */
+    public RingServer(hwSystem system, RingFile file) {
+        this(system::execute, file);
+    }
+    /**
+     * Constructs a server executing commands with the given handler.
+     *
+     * @param handler The executor of the commands; called on the serving thread.
+     * @param file    The ring file, created with {@link RingFile#create}.
+     */
+    public RingServer(CommandServer.Handler handler, RingFile file) {
+        this.handler = handler;
+        this.file = file;
+    }
+    /**
+     * Returns the number of commands executed so far.
+     *
+     * @return The command count.
+     */
+    public long getCommandCount() {
+        return commandCount;
+    }
+    /**
+     * Executes commands until {@code exit} or until the driver closes the command ring.
+     *
+     * @throws IOException If the ring file cannot be deleted afterwards.
+     */
+    public void serve() throws IOException {
+        SharedRing commands = file.commands();
+        SharedRing responses = file.responses();
+        ConsoleRouter.install();
+        ConsoleRouter.bind(out, err);
+        try {
+            int idle = 0;
+            int unpublished = 0;
+            while (true) {
+                byte[] bytes = commands.poll();
+                if (bytes == null) {
+                    responses.publish();
+                    commands.release();
+                    unpublished = 0;
+                    if (commands.isClosed()) {
+                        // The driver publishes its last commands before it closes the ring
+                        bytes = commands.poll();
+                        if (bytes == null) break;
+                    } else {
+                        idle = SharedRing.idle(idle);
+                        continue;
+                    }
+                }
+                idle = 0;
+                String command = new String(bytes, StandardCharsets.UTF_8).trim();
+                execute(command);
+                if (!respond(responses)) break;
+                unpublished++;
+                if (unpublished == PUBLISH_EVERY) {
+                    responses.publish();
+                    commands.release();
+                    unpublished = 0;
+                }
+                if (command.equals("exit")) break;
+            }
+        } finally {
+            ConsoleRouter.unbind();
+            responses.close();
+            commands.close();
+            Files.deleteIfExists(file.getPath());
+        }
+    }
+
+    private void execute(String command) {
+        try {
+            handler.execute(command);
+        } catch (RuntimeException e) {
+            err.println("Error: " + e);
+        }
+        commandCount++;
+    }
+    /**
+     * Writes the captured output as one response record: an int with the stdout length,
+     * the stdout bytes and the stderr bytes.
+     */
+    private boolean respond(SharedRing responses) {
+        out.flush();
+        err.flush();
+        int outLength = outBytes.size();
+        int length = 4 + outLength + errBytes.size();
+        if (length > responses.getMaxRecord()) {
+            // Keep the order of responses; the driver learns that the output was lost
+            outBytes.reset();
+            errBytes.reset();
+            err.println("Error: Output of " + length + " bytes exceeds the response ring.");
+            err.flush();
+            outLength = 0;
+            length = 4 + errBytes.size();
+        }
+        if (record.length < length) record = new byte[Math.max(length, record.length * 2)];
+        record[0] = (byte) outLength;
+        record[1] = (byte) (outLength >>> 8);
+        record[2] = (byte) (outLength >>> 16);
+        record[3] = (byte) (outLength >>> 24);
+        outBytes.copyTo(record, 4);
+        errBytes.copyTo(record, 4 + outLength);
+        outBytes.reset();
+        errBytes.reset();
+        return responses.write(record, 0, length);
+    }
+    /**
+     * The captured output of one stream, copied into the response record without an
+     * intermediate array.
+     */
+    private static final class Capture extends ByteArrayOutputStream {
+        void copyTo(byte[] target, int position) {
+            System.arraycopy(buf, 0, target, position, count);
+        }
+    }
+}
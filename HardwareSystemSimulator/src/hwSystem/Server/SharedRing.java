@@ -0,0 +1,226 @@
+package hwSystem.Server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * A lock-free single-producer/single-consumer ring of byte records in shared memory.
+ *
+ * <p>The ring is a region of a {@link RingFile}: a control block with three 64-byte
+ * lines, the producer position ({@code tail}), the consumer position ({@code head}) and
+ * a closed flag, followed by the data area. Positions count bytes since the ring was
+ * created and never wrap; a position maps to data offset {@code position & (capacity - 1)}.
+ * A record is an int length followed by the bytes, padded to a multiple of 4, so the
+ * length never straddles the end of the data area while the bytes may.
+ *
+ * <p>The producer writes records behind {@code tail} and publishes them with one
+ * release store of {@code tail}; the consumer reads {@code tail} with an acquire load,
+ * reads the records and frees their space with a release store of {@code head}. Both
+ * sides keep a cached copy of the other side's position and only load it when the
+ * cached value says the ring is full or empty, so a batch of records costs two shared
+ * stores and no system call. Each side must be used by a single thread.
+ */
+public class SharedRing {
+    /** Size of the control block in front of the data area. */
+    public static final int CONTROL_SIZE = 192;
+
+    private static final int TAIL = 0;
+    private static final int HEAD = 64;
+    private static final int CLOSED = 128;
+    // Waiting: spin, then yield, then park with this interval
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 4096 : 0;
+    private static final int YIELDS = 64;
+    private static final long PARK_NANOS = 20_000;
+
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final int control;
+    private final int data;
+    private final int capacity;
+    private final int mask;
+
+    // Producer side
+    private long tail;
+    private long cachedHead;
+    private long published;
+    // Consumer side
+    private long head;
+    private long cachedTail;
+    private long released;
+    /**
+     * Constructs a view of a ring in a mapped file.
+     *
+     * @param buffer   The mapped file, in little-endian order.
+     * @param control  The offset of the control block.
+     * @param capacity The size of the data area, a power of two; it follows the control block.
+     */
+    SharedRing(ByteBuffer buffer, int control, int capacity) {
+        this.buffer = buffer;
+        this.control = control;
+        this.data = control + CONTROL_SIZE;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.tail = (long) LONG.getAcquire(buffer, control + TAIL);
+        this.published = tail;
+        this.head = (long) LONG.getAcquire(buffer, control + HEAD);
+        this.released = head;
+        this.cachedHead = head;
+        this.cachedTail = tail;
+    }
+    /**
+     * Returns the largest record that fits into the ring.
+     *
+     * @return The maximum record length in bytes.
+     */
+    public int getMaxRecord() {
+        return capacity - 4;
+    }
+    /**
+     * Writes a record if there is room for it. The record becomes visible to the consumer
+     * with the next {@link #publish()}.
+     *
+     * @param bytes  The record bytes.
+     * @param offset The offset of the record in {@code bytes}.
+     * @param length The length of the record.
+     * @return false if the ring is full.
+     * @throws IllegalArgumentException If the record can never fit into the ring.
+     */
+    public boolean offer(byte[] bytes, int offset, int length) {
+        int size = align(length);
+        if (size > capacity) throw new IllegalArgumentException("Record of " + length + " bytes exceeds the ring capacity.");
+        if (tail + size - cachedHead > capacity) {
+            cachedHead = (long) LONG.getAcquire(buffer, control + HEAD);
+            if (tail + size - cachedHead > capacity) return false;
+        }
+        int at = (int) (tail & mask);
+        buffer.putInt(data + at, length);
+        copyIn(bytes, offset, length, (at + 4) & mask);
+        tail += size;
+        return true;
+    }
+    /**
+     * Writes a record, publishing and waiting while the ring is full.
+     *
+     * @param bytes  The record bytes.
+     * @param offset The offset of the record in {@code bytes}.
+     * @param length The length of the record.
+     * @return false if the consumer closed the ring.
+     */
+    public boolean write(byte[] bytes, int offset, int length) {
+        if (offer(bytes, offset, length)) return true;
+        publish();
+        int idle = 0;
+        while (!offer(bytes, offset, length)) {
+            if (isClosed()) return false;
+            idle = idle(idle);
+        }
+        return true;
+    }
+    /**
+     * Makes the written records visible to the consumer.
+     */
+    public void publish() {
+        if (published == tail) return;
+        LONG.setRelease(buffer, control + TAIL, tail);
+        published = tail;
+    }
+    /**
+     * Reads the next record if one has been published. Its space is freed with the
+     * next {@link #release()}.
+     *
+     * @return The record bytes, or null if the ring is empty.
+     */
+    public byte[] poll() {
+        if (head == cachedTail) {
+            cachedTail = (long) LONG.getAcquire(buffer, control + TAIL);
+            if (head == cachedTail) return null;
+        }
+        int at = (int) (head & mask);
+        int length = buffer.getInt(data + at);
+        if (length < 0 || align(length) > cachedTail - head) {
+            throw new IllegalStateException("Corrupt ring record at position " + head + ".");
+        }
+        byte[] bytes = new byte[length];
+        copyOut(bytes, length, (at + 4) & mask);
+        head += align(length);
+        return bytes;
+    }
+    /**
+     * Reads the next record, releasing and waiting while the ring is empty.
+     *
+     * @return The record bytes, or null once the ring is closed and empty.
+     */
+    public byte[] take() {
+        byte[] bytes = poll();
+        if (bytes != null) return bytes;
+        release();
+        int idle = 0;
+        while ((bytes = poll()) == null) {
+            // The closed flag is set after the last publish, so check for records once more
+            if (isClosed()) return poll();
+            idle = idle(idle);
+        }
+        return bytes;
+    }
+    /**
+     * Frees the space of the records read so far for the producer.
+     */
+    public void release() {
+        if (released == head) return;
+        LONG.setRelease(buffer, control + HEAD, head);
+        released = head;
+    }
+    /**
+     * Marks the ring as closed: the producer writes no more records, or the consumer
+     * reads no more. Publishes the records written so far.
+     */
+    public void close() {
+        publish();
+        release();
+        INT.setRelease(buffer, control + CLOSED, 1);
+    }
+    /**
+     * Returns whether either side has closed the ring.
+     *
+     * @return true if the ring is closed.
+     */
+    public boolean isClosed() {
+        return (int) INT.getAcquire(buffer, control + CLOSED) != 0;
+    }
+    /**
+     * Waits a little longer each time it is called in a row.
+     *
+     * @param idle The number of calls so far.
+     * @return The number of calls including this one.
+     */
+    static int idle(int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else if (idle < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    private static int align(int length) {
+        return (length + 4 + 3) & ~3;
+    }
+
+    private void copyIn(byte[] bytes, int offset, int length, int at) {
+        int first = Math.min(length, capacity - at);
+        buffer.put(data + at, bytes, offset, first);
+        if (first < length) buffer.put(data, bytes, offset + first, length - first);
+    }
+
+    private void copyOut(byte[] bytes, int length, int at) {
+        int first = Math.min(length, capacity - at);
+        buffer.get(data + at, bytes, 0, first);
+        if (first < length) buffer.get(data, bytes, first, length - first);
+    }
+}
@@ -0,0 +1,79 @@
+package hwSystem.Shard;
+
+import hwSystem.Signals.FastRandom;
+import java.util.Arrays;
+/**
+ * Consistent hashing of portIDs onto the worker processes of a sharded rig.
+ *
+ * <p>Every worker owns {@value #VIRTUAL_NODES} points on a ring of 64-bit hashes; a port
+ * belongs to the worker owning the first point at or after the port's hash. Adding a
+ * worker only moves the ports that fall just before its new points, about
+ * 1/(workers + 1) of all ports, all of them to the new worker.
+ *
+ * <p>The ring depends only on the number of workers, so the coordinator and every
+ * worker compute the same assignment without exchanging it.
+ */
+public class HashRing {
+    /** Points per worker; more points spread the ports more evenly. */
+    public static final int VIRTUAL_NODES = 128;
+    /** Maximum number of workers; the worker index is kept in the low bits of a point. */
+    public static final int MAX_WORKERS = 1 << 12;
+
+    private static final long WORKER_MASK = MAX_WORKERS - 1;
+    private static final long PORT_SALT = 0x5f356495L;
+
+    private long[] points = new long[0];
+    private int workerCount;
+    /**
+     * Constructs a ring with the given number of workers.
+     *
+     * @param workers The number of workers (1 to {@value #MAX_WORKERS}).
+     */
+    public HashRing(int workers) {
+        if (workers < 1) throw new IllegalArgumentException("At least one worker is needed.");
+        while (workerCount < workers) {
+            addWorker();
+        }
+    }
+    /**
+     * Adds the points of the next worker.
+     *
+     * @return The index of the new worker.
+     */
+    public int addWorker() {
+        if (workerCount == MAX_WORKERS) throw new IllegalStateException("At most " + MAX_WORKERS + " workers.");
+        int worker = workerCount;
+        long[] grown = Arrays.copyOf(points, points.length + VIRTUAL_NODES);
+        int i = 0;
+        while (i < VIRTUAL_NODES) {
+            long hash = FastRandom.mix64(((long) worker << 32) | i);
+            grown[points.length + i] = (hash & ~WORKER_MASK) | worker;
+            i++;
+        }
+        Arrays.sort(grown);
+        points = grown;
+        workerCount++;
+        return worker;
+    }
+    /**
+     * Returns the number of workers.
+     *
+     * @return The worker count.
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+    /**
+     * Returns the worker a port belongs to.
+     *
+     * @param portID The port.
+     * @return The worker index.
+     */
+    public int ownerOf(int portID) {
+        long hash = FastRandom.mix64(portID ^ PORT_SALT) | WORKER_MASK;
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) index = -index - 1;
+        if (index == points.length) index = 0;
+        return (int) (points[index] & WORKER_MASK);
+    }
+}
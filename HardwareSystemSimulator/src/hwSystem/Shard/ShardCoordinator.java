@@ -0,0 +1,847 @@
+package hwSystem.Shard;
+
+import hwSystem.BinaryConfig;
+import hwSystem.ConfigReader;
+import hwSystem.Devices.ChangeFeed;
+import hwSystem.Devices.DeviceChange;
+import hwSystem.Devices.DeviceTable;
+import hwSystem.Scenario.Scenario;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+/**
+ * Runs one logical rig as several simulator processes on the same machine. The ports of
+ * the configuration are spread over the {@link ShardWorker}s with a {@link HashRing}, so
+ * the rig is not bounded by the heap and cores of one JVM.
+ *
+ * <p>The coordinator steps through the scenario and sends every command to the worker
+ * that handles it; the workers execute their commands concurrently, and an output
+ * thread writes the outputs in command order. The output is the same as that of a
+ * single process:
+ * <ul>
+ *     <li>turnON, turnOFF, queryLog: the worker of the port</li>
+ *     <li>commands addressed by devID: the worker of the device's port</li>
+ *     <li>addDev, rmDev: barriers; afterwards the other workers learn that the devID
+ *         is used or free again</li>
+ *     <li>list, pollSensors: every worker; the rows are merged in portID or devID order</li>
+ *     <li>changesSince: answered by the coordinator, which keeps the changes of all
+ *         workers in one feed</li>
+ *     <li>exit: every worker writes the logs of its ports, each into the log directory</li>
+ *     <li>addWorker: starts one more worker and moves the ports without a device that
+ *         the ring now assigns to it; ports with a device move once it is removed</li>
+ * </ul>
+ * Everything else goes to worker 0. The coordinator learns the device state it needs for
+ * routing and merging from the changes that workers report after every command that
+ * adds, removes, turns or sets a device. The routing state belongs to the dispatching
+ * thread and only changes at addDev and rmDev; the power states and the feed belong to
+ * the output thread, which applies the changes in command order.
+ */
+public class ShardCoordinator {
+    /** Maximum number of commands between dispatch and output. */
+    public static final int MAX_IN_FLIGHT = 4096;
+    /** Ports per handover file when ports move to another worker. */
+    public static final int HANDOVER_PORTS = 4000;
+
+    private static final Slot END = new Slot(Kind.ROUTED, null, 0);
+    private static final byte[] EMPTY = new byte[0];
+    /**
+     * How the output of a command is put together.
+     */
+    private enum Kind {
+        /** The output of one worker. */
+        ROUTED,
+        /** The merged rows of all workers. */
+        LIST,
+        /** The merged readings of all workers. */
+        POLL,
+        /** The output of worker 0 and the errors of all workers. */
+        EXIT,
+        /** Changes from the coordinator's feed. */
+        CHANGES
+    }
+
+    private final String configPath;
+    private final String logDirectory;
+    private final int initialWorkers;
+    private final HashRing ring;
+    private final ArrayList<WorkerLink> links = new ArrayList<>();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final BlockingQueue<Slot> ordered = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+    private Path workDirectory;
+    private int portCount;
+    private boolean logRotation;
+    // Worker handling each port; ports with a device only move at rmDev
+    private int[] owner;
+    // Copy of owner handed to pollSensors slots, replaced after a port moves
+    private int[] pollOwners;
+    // Device on each port: devID (-1 if none) and category
+    private int[] portDevIDs;
+    private byte[] portCategories;
+    // Port of each devID per category (-1 if none), and the highest devID ever used
+    private final int[][] devPorts = new int[4][0];
+    private final int[] maxDevIDs = {-1, -1, -1, -1};
+    // Output thread: power state of each port and port of each sensor devID
+    private boolean[] portOn;
+    private int[] sensorPorts = new int[0];
+    private Slot last;
+    private int handoverCount;
+    private PrintStream sinkOut;
+    private PrintStream sinkErr;
+    /**
+     * Constructs a coordinator and reads the configuration.
+     * Configuration errors are reported here; the workers read the same file.
+     *
+     * @param configPath   The configuration of the rig.
+     * @param logDirectory The directory the workers write their logs to.
+     * @param workers      The number of workers to start with.
+     */
+    public ShardCoordinator(String configPath, String logDirectory, int workers) {
+        this.configPath = configPath;
+        this.logDirectory = logDirectory;
+        this.initialWorkers = workers;
+        this.ring = new HashRing(workers);
+        readConfiguration();
+        owner = new int[portCount];
+        portDevIDs = new int[portCount];
+        portCategories = new byte[portCount];
+        portOn = new boolean[portCount];
+        Arrays.fill(portDevIDs, -1);
+        int portID = 0;
+        while (portID < portCount) {
+            owner[portID] = ring.ownerOf(portID);
+            portID++;
+        }
+    }
+    /**
+     * Starts the workers and waits until all of them accept commands.
+     *
+     * @throws IOException If a worker cannot be started.
+     */
+    public void start() throws IOException {
+        workDirectory = Files.createTempDirectory("hw-shard-");
+        Process[] processes = new Process[initialWorkers];
+        int i = 0;
+        while (i < initialWorkers) {
+            processes[i] = WorkerLink.launch(i, initialWorkers, configPath, logDirectory, workDirectory);
+            i++;
+        }
+        i = 0;
+        while (i < initialWorkers) {
+            links.add(WorkerLink.connect(i, processes[i], workDirectory));
+            i++;
+        }
+    }
+    /**
+     * Executes all commands of a scenario and returns when their output is written.
+     *
+     * @param scenario The compiled scenario.
+     */
+    public void run(Scenario scenario) {
+        sinkOut = System.out;
+        sinkErr = System.err;
+        Thread output = new Thread(this::writeOutput, "shard-output");
+        output.start();
+        Scenario.Cursor cursor = scenario.cursor();
+        while (cursor.next()) {
+            String[] parts = cursor.getParts();
+            if (parts.length > 0) dispatch(parts);
+        }
+        flushAll();
+        enqueue(END);
+        while (output.isAlive()) {
+            try {
+                output.join();
+            } catch (InterruptedException e) {
+                // Keep waiting: the outputs cannot be abandoned halfway
+            }
+        }
+        sinkOut.flush();
+        sinkErr.flush();
+    }
+    /**
+     * Stops the workers without writing logs and removes their sockets.
+     */
+    public void close() {
+        Iterator<WorkerLink> it = links.iterator();
+        while (it.hasNext()) {
+            it.next().stop();
+        }
+        if (workDirectory == null) return;
+        try (Stream<Path> files = Files.walk(workDirectory)) {
+            Iterator<Path> paths = files.sorted(Comparator.reverseOrder()).iterator();
+            while (paths.hasNext()) {
+                Files.deleteIfExists(paths.next());
+            }
+        } catch (IOException e) {
+            System.err.println("Error: Cannot remove " + workDirectory + ": " + e.getMessage());
+        }
+    }
+
+    private void readConfiguration() {
+        ConfigReader.Handler handler = new ConfigReader.Handler() {
+            @Override
+            public void setting(String key, String value) {
+                switch (key) {
+                    case "Change feed retention":
+                        changeFeed.setRetention(Integer.parseInt(value));
+                        break;
+                    case "Log rotation size":
+                    case "Log rotation interval":
+                        if (Long.parseLong(value) > 0) logRotation = true;
+                        break;
+                    default:
+                        // Applied by the workers
+                }
+            }
+
+            @Override
+            public void ports(byte[] kinds, int count) {
+                portCount += count;
+            }
+        };
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(configPath), 1 << 16)) {
+            if (BinaryConfig.isBinary(in)) {
+                BinaryConfig.read(in, handler);
+            } else {
+                new ConfigReader(new InputStreamReader(in)).parse(handler);
+            }
+        } catch (FileNotFoundException e) {
+            System.err.println("Error: Configuration file not found.");
+        } catch (IOException e) {
+            System.err.println("Error: Could not read configuration: " + e.getMessage());
+        }
+    }
+
+    private void dispatch(String[] parts) {
+        switch (parts[0]) {
+            case "turnON":
+            case "turnOFF":
+                enqueue(send(ownerOfPort(parts), parts, true));
+                break;
+            case "queryLog":
+                enqueue(send(ownerOfPort(parts), parts, false));
+                break;
+            case "readSensor":
+            case "setSignal":
+            case "seekTrace":
+            case "sensorHistory":
+            case "replayTrace":
+                enqueue(send(ownerOfDevice(DeviceTable.SENSOR, parts), parts, false));
+                break;
+            case "printDisplay":
+                enqueue(send(ownerOfDevice(DeviceTable.DISPLAY, parts), parts, false));
+                break;
+            case "readWireless":
+            case "writeWireless":
+                enqueue(send(ownerOfDevice(DeviceTable.WIRELESS_IO, parts), parts, false));
+                break;
+            case "setMotorSpeed":
+                enqueue(send(ownerOfDevice(DeviceTable.MOTOR_DRIVER, parts), parts, true));
+                break;
+            case "addDev":
+                changeDevice(parts, parts.length == 4 ? parsePort(parts[2]) : -1);
+                break;
+            case "rmDev":
+                changeDevice(parts, parts.length == 2 ? parsePort(parts[1]) : -1);
+                break;
+            case "list":
+                if (parts.length == 2) broadcast(Kind.LIST, parts, String.join(" ", parts));
+                else enqueue(send(0, parts, false));
+                break;
+            case "pollSensors":
+                if (parts.length == 1) broadcastPoll(parts);
+                else enqueue(send(0, parts, false));
+                break;
+            case "changesSince":
+                enqueue(new Slot(Kind.CHANGES, parts, 0));
+                break;
+            case "exit":
+                // Plain exit would end the worker's session
+                broadcast(Kind.EXIT, parts, "@exit");
+                break;
+            case "addWorker":
+                handleAddWorker(parts);
+                break;
+            default:
+                enqueue(send(0, parts, false));
+        }
+    }
+
+    private int ownerOfPort(String[] parts) {
+        int portID = parts.length >= 2 ? parsePort(parts[1]) : -1;
+        return portID >= 0 ? owner[portID] : 0;
+    }
+
+    private int ownerOfDevice(int category, String[] parts) {
+        if (parts.length < 2) return 0;
+        int devID;
+        try {
+            devID = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        // Devices are only added and removed at barriers, so devPorts is current
+        int portID = devID >= 0 && devID < devPorts[category].length ? devPorts[category][devID] : -1;
+        return portID >= 0 ? owner[portID] : 0;
+    }
+
+    private int parsePort(String text) {
+        try {
+            int portID = Integer.parseInt(text);
+            return portID >= 0 && portID < portCount ? portID : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    /**
+     * Sends a command to one worker, followed by {@code @changes} if it may change devices.
+     */
+    private Slot send(int worker, String[] parts, boolean changes) {
+        Slot slot = new Slot(Kind.ROUTED, parts, changes ? 2 : 1);
+        WorkerLink link = links.get(worker);
+        link.send(String.join(" ", parts), slot.responses[0]);
+        if (changes) {
+            slot.changes = slot.responses[1];
+            link.send("@changes", slot.changes);
+        }
+        return slot;
+    }
+
+    private void broadcast(Kind kind, String[] parts, String command) {
+        Slot slot = new Slot(kind, parts, links.size());
+        int i = 0;
+        while (i < links.size()) {
+            links.get(i).send(command, slot.responses[i]);
+            i++;
+        }
+        enqueue(slot);
+    }
+    /**
+     * Sends pollSensors to every worker. The slot keeps the worker of each port as it is
+     * now, because a later rmDev may move a port before the readings are written.
+     */
+    private void broadcastPoll(String[] parts) {
+        if (pollOwners == null) pollOwners = owner.clone();
+        Slot slot = new Slot(Kind.POLL, parts, links.size());
+        slot.owners = pollOwners;
+        int i = 0;
+        while (i < links.size()) {
+            links.get(i).send(parts[0], slot.responses[i]);
+            i++;
+        }
+        enqueue(slot);
+    }
+    /**
+     * Runs addDev or rmDev and waits for its result, then tells the other workers about
+     * the devID and moves a port whose device was removed to the worker the ring assigns
+     * it to. Commands sent to the other workers before keep running.
+     */
+    private void changeDevice(String[] parts, int portID) {
+        int worker = portID >= 0 ? owner[portID] : 0;
+        int devIDBefore = portID >= 0 ? portDevIDs[portID] : -1;
+        Slot slot = send(worker, parts, true);
+        links.get(worker).flush();
+        await(slot.ready);
+        enqueue(slot);
+        updateRouting(parseChanges(slot.changes.out));
+        if (portID < 0 || portDevIDs[portID] == devIDBefore) return;
+
+        boolean added = portDevIDs[portID] >= 0;
+        int devID = added ? portDevIDs[portID] : devIDBefore;
+        claim(portCategories[portID], devID, added, worker);
+        if (!added && ring.ownerOf(portID) != worker) {
+            byte[] errors = move(worker, ring.ownerOf(portID), new int[] {portID}, 1);
+            if (errors.length > 0) enqueue(text(EMPTY, errors));
+        }
+    }
+
+    private void claim(int category, int devID, boolean used, int except) {
+        int i = 0;
+        while (i < links.size()) {
+            if (i != except) links.get(i).send("@claim " + category + " " + devID + (used ? " 1" : " 0"), ignored());
+            i++;
+        }
+    }
+    /**
+     * Moves ports without a device from one worker to another through a handover file.
+     *
+     * @return The errors reported by the workers.
+     */
+    private byte[] move(int from, int to, int[] portIDs, int count) {
+        Path file = workDirectory.resolve("handover-" + handoverCount++ + ".bin");
+        StringBuilder release = new StringBuilder("@release ").append(file);
+        int i = 0;
+        while (i < count) {
+            release.append(' ').append(portIDs[i]);
+            i++;
+        }
+        WorkerLink.Response released = new WorkerLink.Response(new CountDownLatch(1));
+        WorkerLink.Response adopted = new WorkerLink.Response(new CountDownLatch(1));
+        links.get(from).send(release.toString(), released);
+        links.get(from).flush();
+        await(released.done);
+        links.get(to).send("@adopt " + file, adopted);
+        links.get(to).flush();
+        await(adopted.done);
+        i = 0;
+        while (i < count) {
+            owner[portIDs[i]] = to;
+            i++;
+        }
+        pollOwners = null;
+        byte[] errors = Arrays.copyOf(released.err, released.err.length + adopted.err.length);
+        System.arraycopy(adopted.err, 0, errors, released.err.length, adopted.err.length);
+        return errors;
+    }
+    /**
+    * Starts one more worker and moves the ports without a device that the ring now
+    * assigns to it. Ports with a device stay where they are until it is removed.
+    *
+    * @param parts Array of command parts: addWorker
+    */
+    private void handleAddWorker(String[] parts) {
+        if (parts.length != 1) {
+            enqueue(text("Usage: addWorker\n".getBytes(StandardCharsets.UTF_8), EMPTY));
+            return;
+        }
+        if (logRotation) {
+            // Rotated archives are written by the process that logged the entries
+            enqueue(text(EMPTY, "Error: addWorker is not supported with log rotation.\n".getBytes(StandardCharsets.UTF_8)));
+            return;
+        }
+        if (links.size() == HashRing.MAX_WORKERS) {
+            enqueue(text(EMPTY, ("Error: At most " + HashRing.MAX_WORKERS + " workers.\n").getBytes(StandardCharsets.UTF_8)));
+            return;
+        }
+        drain();
+        int index = links.size();
+        WorkerLink link;
+        try {
+            link = WorkerLink.connect(index, WorkerLink.launch(index, initialWorkers, configPath, logDirectory, workDirectory), workDirectory);
+        } catch (IOException e) {
+            enqueue(text(EMPTY, ("Error: Cannot start worker: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8)));
+            return;
+        }
+        links.add(link);
+        ring.addWorker();
+
+        // The new worker rejects the devIDs in use and knows the devID range of each category
+        int category = 0;
+        while (category < devPorts.length) {
+            if (maxDevIDs[category] >= 0) link.send("@claim " + category + " " + maxDevIDs[category] + " 0", ignored());
+            int devID = 0;
+            while (devID < devPorts[category].length) {
+                if (devPorts[category][devID] >= 0) link.send("@claim " + category + " " + devID + " 1", ignored());
+                devID++;
+            }
+            category++;
+        }
+
+        int[][] batches = new int[index][HANDOVER_PORTS];
+        int[] fill = new int[index];
+        int moved = 0;
+        int waiting = 0;
+        StringBuilder errors = new StringBuilder();
+        int portID = 0;
+        while (portID < portCount) {
+            int from = owner[portID];
+            if (ring.ownerOf(portID) == from) {
+                portID++;
+                continue;
+            }
+            if (portDevIDs[portID] >= 0) {
+                waiting++;
+                portID++;
+                continue;
+            }
+            batches[from][fill[from]] = portID;
+            fill[from]++;
+            if (fill[from] == HANDOVER_PORTS) {
+                errors.append(new String(move(from, index, batches[from], fill[from]), StandardCharsets.UTF_8));
+                moved += fill[from];
+                fill[from] = 0;
+            }
+            portID++;
+        }
+        int from = 0;
+        while (from < index) {
+            if (fill[from] > 0) {
+                errors.append(new String(move(from, index, batches[from], fill[from]), StandardCharsets.UTF_8));
+                moved += fill[from];
+            }
+            from++;
+        }
+        String message = "Added worker " + index + ": moved " + moved + " ports, " + waiting
+                + " waiting for their device to be removed.\n";
+        enqueue(text(message.getBytes(StandardCharsets.UTF_8), errors.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void enqueue(Slot slot) {
+        if (!ordered.offer(slot)) {
+            // The output thread waits for commands that may still be in a batch
+            flushAll();
+            try {
+                ordered.put(slot);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (slot != END) last = slot;
+    }
+    /**
+     * Waits until every command sent so far is executed and its output written.
+     */
+    private void drain() {
+        flushAll();
+        if (last != null) await(last.written);
+    }
+
+    private void flushAll() {
+        Iterator<WorkerLink> it = links.iterator();
+        while (it.hasNext()) {
+            it.next().flush();
+        }
+    }
+
+    private void writeOutput() {
+        while (true) {
+            Slot slot;
+            try {
+                slot = ordered.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (slot == END) break;
+            await(slot.ready);
+            switch (slot.kind) {
+                case LIST:
+                    writeList(slot);
+                    break;
+                case POLL:
+                    writePoll(slot);
+                    break;
+                case EXIT:
+                    write(slot.responses[0].out, EMPTY);
+                    int i = 0;
+                    while (i < slot.responses.length) {
+                        write(EMPTY, slot.responses[i].err);
+                        i++;
+                    }
+                    break;
+                case CHANGES:
+                    writeChanges(slot.parts);
+                    break;
+                default:
+                    write(slot.responses[0].out, slot.responses[0].err);
+            }
+            if (slot.changes != null) record(parseChanges(slot.changes.out));
+            slot.written.countDown();
+        }
+    }
+
+    private void write(byte[] out, byte[] err) {
+        if (out.length > 0) sinkOut.write(out, 0, out.length);
+        if (err.length > 0) {
+            // Keep the order when both streams go to the same file
+            sinkOut.flush();
+            sinkErr.write(err, 0, err.length);
+            sinkErr.flush();
+        }
+    }
+    /**
+     * Merges the listings of all workers: one header, then the rows in portID order
+     * (list ports) or devID order (list &lt;DeviceType&gt;).
+     */
+    private void writeList(Slot slot) {
+        WorkerLink.Response first = slot.responses[0];
+        String header = new String(first.out, StandardCharsets.UTF_8);
+        if (first.err.length > 0 || !header.startsWith("list of")) {
+            // Usage or unknown type: the same on every worker
+            write(first.out, first.err);
+            return;
+        }
+        int keyField = slot.parts[1].equalsIgnoreCase("ports") ? 0 : 1;
+        int workers = slot.responses.length;
+        String[][] rows = new String[workers][];
+        int[] next = new int[workers];
+        int i = 0;
+        while (i < workers) {
+            String text = new String(slot.responses[i].out, StandardCharsets.UTF_8);
+            String body = text.substring(text.indexOf('\n') + 1);
+            rows[i] = body.isEmpty() ? new String[0] : body.split("\n");
+            i++;
+        }
+        StringBuilder merged = new StringBuilder(header.substring(0, header.indexOf('\n') + 1));
+        while (true) {
+            int best = -1;
+            long bestKey = Long.MAX_VALUE;
+            i = 0;
+            while (i < workers) {
+                if (next[i] < rows[i].length) {
+                    long key = rowKey(rows[i][next[i]], keyField);
+                    if (key < bestKey) {
+                        best = i;
+                        bestKey = key;
+                    }
+                }
+                i++;
+            }
+            if (best < 0) break;
+            merged.append(rows[best][next[best]]).append('\n');
+            next[best]++;
+        }
+        write(merged.toString().getBytes(StandardCharsets.UTF_8), EMPTY);
+    }
+
+    private static long rowKey(String row, int field) {
+        int start = 0;
+        while (field > 0) {
+            start = row.indexOf(' ', start) + 1;
+            field--;
+        }
+        int end = row.indexOf(' ', start);
+        try {
+            return Long.parseLong(end < 0 ? row.substring(start) : row.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE - 1;
+        }
+    }
+    /**
+     * Merges the readings of all workers in devID order, as one process reads its sensors.
+     */
+    private void writePoll(Slot slot) {
+        int[] positions = new int[slot.responses.length];
+        StringBuilder merged = new StringBuilder();
+        int polled = 0;
+        int devID = 0;
+        while (devID < sensorPorts.length) {
+            int portID = sensorPorts[devID];
+            if (portID >= 0 && portOn[portID]) {
+                int worker = slot.owners[portID];
+                byte[] out = slot.responses[worker].out;
+                int start = positions[worker];
+                int end = start;
+                while (end < out.length && out[end] != '\n') end++;
+                if (end < out.length) {
+                    merged.append(new String(out, start, end + 1 - start, StandardCharsets.UTF_8));
+                    positions[worker] = end + 1;
+                    polled++;
+                }
+            }
+            devID++;
+        }
+        merged.append("Polled ").append(polled).append(" sensors.\n");
+        write(merged.toString().getBytes(StandardCharsets.UTF_8), EMPTY);
+        int i = 0;
+        while (i < slot.responses.length) {
+            write(EMPTY, slot.responses[i].err);
+            i++;
+        }
+    }
+    /**
+    * Prints the device changes of all workers after the given sequence number.
+    *
+    * @param parts Array of command parts: changesSince &lt;seq&gt;
+    */
+    private void writeChanges(String[] parts) {
+        StringBuilder out = new StringBuilder();
+        StringBuilder err = new StringBuilder();
+        long seq = -1;
+        if (parts.length != 2) {
+            out.append("Usage: changesSince <seq>\n");
+        } else {
+            try {
+                seq = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                seq = -1;
+            }
+            if (seq < 0) err.append("Error: Invalid seq.\n");
+        }
+        if (seq >= 0) {
+            ArrayList<DeviceChange> changes = changeFeed.since(seq);
+            if (changes == null) {
+                err.append("Error: Changes after ").append(seq).append(" are no longer kept (oldest kept: ")
+                   .append(changeFeed.getOldestSeq()).append("). Use list ports.\n");
+            } else {
+                Iterator<DeviceChange> it = changes.iterator();
+                while (it.hasNext()) {
+                    out.append(it.next()).append('\n');
+                }
+                out.append("Changes up to ").append(changeFeed.getLatestSeq()).append(".\n");
+            }
+        }
+        write(out.toString().getBytes(StandardCharsets.UTF_8), err.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    /**
+     * Parses the changes a worker printed for {@code @changes}, one
+     * "seq command portID name devID [speed]" line each.
+     */
+    private static ArrayList<DeviceChange> parseChanges(byte[] printed) {
+        ArrayList<DeviceChange> changes = new ArrayList<>();
+        if (printed.length == 0) return changes;
+        String[] lines = new String(printed, StandardCharsets.UTF_8).split("\n");
+        int i = 0;
+        while (i < lines.length) {
+            String[] fields = lines[i].split(" ");
+            if (fields.length >= 5) {
+                changes.add(new DeviceChange(Long.parseLong(fields[0]), kindOf(fields[1]), Integer.parseInt(fields[2]),
+                        fields[3], Integer.parseInt(fields[4]), fields.length > 5 ? Integer.parseInt(fields[5]) : 0));
+            }
+            i++;
+        }
+        return changes;
+    }
+    /**
+     * Applies added and removed devices to the routing state (dispatching thread).
+     */
+    private void updateRouting(ArrayList<DeviceChange> changes) {
+        Iterator<DeviceChange> it = changes.iterator();
+        while (it.hasNext()) {
+            DeviceChange change = it.next();
+            int category = categoryOf(change.getName());
+            int devID = change.getDevID();
+            int portID = change.getPortID();
+            if (change.getKind() == DeviceChange.Kind.ADDED) {
+                devPorts[category] = ensureSize(devPorts[category], devID);
+                devPorts[category][devID] = portID;
+                maxDevIDs[category] = Math.max(maxDevIDs[category], devID);
+                portDevIDs[portID] = devID;
+                portCategories[portID] = (byte) category;
+            } else if (change.getKind() == DeviceChange.Kind.REMOVED) {
+                devPorts[category][devID] = -1;
+                portDevIDs[portID] = -1;
+            }
+        }
+    }
+    /**
+     * Records changes in the feed and applies them to the power states (output thread).
+     */
+    private void record(ArrayList<DeviceChange> changes) {
+        Iterator<DeviceChange> it = changes.iterator();
+        while (it.hasNext()) {
+            DeviceChange change = it.next();
+            int portID = change.getPortID();
+            boolean sensor = categoryOf(change.getName()) == DeviceTable.SENSOR;
+            switch (change.getKind()) {
+                case ADDED:
+                    if (sensor) {
+                        sensorPorts = ensureSize(sensorPorts, change.getDevID());
+                        sensorPorts[change.getDevID()] = portID;
+                    }
+                    portOn[portID] = false;
+                    break;
+                case REMOVED:
+                    if (sensor) sensorPorts[change.getDevID()] = -1;
+                    break;
+                case TURNED_ON:
+                    portOn[portID] = true;
+                    break;
+                case TURNED_OFF:
+                    portOn[portID] = false;
+                    break;
+                default:
+                    // Motor speeds only go to the feed
+            }
+            changeFeed.record(change.getKind(), portID, change.getName(), change.getDevID(), change.getSpeed());
+        }
+    }
+
+    private static int[] ensureSize(int[] ports, int devID) {
+        if (devID < ports.length) return ports;
+        int[] grown = Arrays.copyOf(ports, Math.max(devID + 1, ports.length * 2));
+        Arrays.fill(grown, ports.length, grown.length, -1);
+        return grown;
+    }
+
+    private static DeviceChange.Kind kindOf(String command) {
+        DeviceChange.Kind[] kinds = DeviceChange.Kind.values();
+        int i = 0;
+        while (i < kinds.length) {
+            if (kinds[i].getCommand().equals(command)) return kinds[i];
+            i++;
+        }
+        throw new IllegalArgumentException("Unknown change: " + command);
+    }
+
+    private static int categoryOf(String deviceName) {
+        switch (deviceName) {
+            case "DHT11":
+            case "BME280":
+            case "MPU6050":
+            case "GY951":
+                return DeviceTable.SENSOR;
+            case "LCD":
+            case "OLED":
+                return DeviceTable.DISPLAY;
+            case "Bluetooth":
+            case "Wifi":
+                return DeviceTable.WIRELESS_IO;
+            default:
+                return DeviceTable.MOTOR_DRIVER;
+        }
+    }
+
+    private static Slot text(byte[] out, byte[] err) {
+        Slot slot = new Slot(Kind.ROUTED, null, 1);
+        slot.responses[0].out = out;
+        slot.responses[0].err = err;
+        slot.ready.countDown();
+        return slot;
+    }
+
+    private static WorkerLink.Response ignored() {
+        return new WorkerLink.Response(new CountDownLatch(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // Keep waiting: the worker answers every command
+            }
+        }
+    }
+    /**
+     * One command on its way from dispatch to output.
+     */
+    private static final class Slot {
+        final Kind kind;
+        final String[] parts;
+        final CountDownLatch ready;
+        final WorkerLink.Response[] responses;
+        final CountDownLatch written = new CountDownLatch(1);
+        // Changes still to apply when the output is written
+        WorkerLink.Response changes;
+        // Worker of each port when a pollSensors slot was dispatched
+        int[] owners;
+
+        Slot(Kind kind, String[] parts, int responseCount) {
+            this.kind = kind;
+            this.parts = parts;
+            this.ready = new CountDownLatch(responseCount);
+            this.responses = new WorkerLink.Response[responseCount];
+            int i = 0;
+            while (i < responseCount) {
+                responses[i] = new WorkerLink.Response(ready);
+                i++;
+            }
+        }
+    }
+}
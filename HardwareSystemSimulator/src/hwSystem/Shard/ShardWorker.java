@@ -0,0 +1,187 @@
+package hwSystem.Shard;
+
+import hwSystem.Api.SimulatorException;
+import hwSystem.Devices.DeviceChange;
+import hwSystem.Server.CommandServer;
+import hwSystem.hwSystem;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+/**
+ * One worker process of a sharded rig: a full simulator that handles the ports the
+ * {@link HashRing} assigns to it, served to the {@link ShardCoordinator} over a local
+ * socket by a {@link CommandServer}.
+ *
+ * <p>Every worker loads the whole configuration, so portIDs, protocols and device
+ * limits are the same everywhere; ports of other workers stay unused and are left out
+ * of listings and logs. Besides the simulator commands a worker understands these
+ * control commands from the coordinator:
+ * <ul>
+ *     <li>{@code @changes}: prints the device changes since the last {@code @changes}</li>
+ *     <li>{@code @claim <category> <devID> <0|1>}: a devID is used on another worker</li>
+ *     <li>{@code @release <file> <portID>...}: hands ports over with their logs, through the file</li>
+ *     <li>{@code @adopt <file>}: takes over the ports of a handover file</li>
+ *     <li>{@code @exit}: runs the exit command (plain exit ends the client session)</li>
+ *     <li>{@code @stop}: stops the worker without writing logs</li>
+ * </ul>
+ */
+public class ShardWorker implements CommandServer.Handler {
+    private final hwSystem system;
+    private CommandServer server;
+    private long changesSeen;
+    /**
+     * Constructs a worker and assigns its initial ports.
+     *
+     * @param configPath     The configuration of the rig.
+     * @param logDirectory   The log directory shared by all workers.
+     * @param index          The index of this worker.
+     * @param initialWorkers The number of workers the rig started with; workers added
+     *                       later start without ports and adopt theirs.
+     */
+    public ShardWorker(String configPath, String logDirectory, int index, int initialWorkers) {
+        system = new hwSystem(logDirectory);
+        system.setLogContainerName("ports-" + index + ".hwl");
+        system.loadConfiguration(configPath);
+        HashRing ring = new HashRing(initialWorkers);
+        int portCount = system.getPortCount();
+        int portID = 0;
+        while (portID < portCount) {
+            if (index >= initialWorkers || ring.ownerOf(portID) != index) system.setForeignPort(portID, true);
+            portID++;
+        }
+    }
+    /**
+     * Entry point of a worker process, started by the coordinator.
+     *
+     * @param args [0] = config file, [1] = log directory, [2] = socket address,
+     *             [3] = worker index, [4] = initial worker count
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.err.println("Usage: java hwSystem.Shard.ShardWorker <configFilePath> <logDirectoryPath> <unix:path> <index> <initialWorkers>");
+            System.exit(1);
+        }
+        try {
+            new ShardWorker(args[0], args[1], Integer.parseInt(args[3]), Integer.parseInt(args[4])).serve(args[2]);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    /**
+     * Serves the coordinator until it sends {@code @stop}.
+     *
+     * @param address "unix:&lt;path&gt;" or a TCP port, as for {@link CommandServer}.
+     * @throws IOException If the socket cannot be opened.
+     */
+    public void serve(String address) throws IOException {
+        server = new CommandServer(this, address);
+        server.open();
+        // The coordinator connects once it reads this line
+        System.out.println("Listening on " + server.getLocalAddress() + ".");
+        System.out.flush();
+        try {
+            server.serve();
+        } finally {
+            system.close();
+        }
+    }
+
+    @Override
+    public void execute(String command) {
+        if (!command.startsWith("@")) {
+            system.execute(command);
+            return;
+        }
+        String[] parts = command.split(" ");
+        try {
+            switch (parts[0]) {
+                case "@changes":
+                    printChanges();
+                    break;
+                case "@claim":
+                    system.setForeignDevID(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), parts[3].equals("1"));
+                    break;
+                case "@release":
+                    release(parts);
+                    break;
+                case "@adopt":
+                    adopt(parts[1]);
+                    break;
+                case "@exit":
+                    system.execute("exit");
+                    break;
+                case "@stop":
+                    server.stop();
+                    break;
+                default:
+                    System.err.println("Error: Unknown control command: " + parts[0]);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error: " + parts[0] + " failed: " + e.getMessage());
+        }
+    }
+
+    private void printChanges() {
+        ArrayList<DeviceChange> changes = system.getChangeFeed().since(changesSeen);
+        StringBuilder out = new StringBuilder();
+        Iterator<DeviceChange> it = changes.iterator();
+        while (it.hasNext()) {
+            out.append(it.next()).append('\n');
+        }
+        changesSeen = system.getChangeFeed().getLatestSeq();
+        System.out.print(out);
+    }
+    /**
+     * Writes the released ports to the handover file: an int port count, then per port
+     * an int portID, an int length and the port state (see {@link hwSystem#releasePort(int)}).
+     * Ports that cannot be released are reported and left out.
+     */
+    private void release(String[] parts) throws IOException {
+        ByteArrayOutputStream states = new ByteArrayOutputStream();
+        DataOutputStream entries = new DataOutputStream(states);
+        int count = 0;
+        int i = 2;
+        while (i < parts.length) {
+            try {
+                int portID = Integer.parseInt(parts[i]);
+                byte[] state = system.releasePort(portID);
+                entries.writeInt(portID);
+                entries.writeInt(state.length);
+                entries.write(state);
+                count++;
+            } catch (SimulatorException e) {
+                System.err.println("Error: Cannot release port " + parts[i] + ": " + e.getMessage());
+            }
+            i++;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(parts[1]), 1 << 16))) {
+            out.writeInt(count);
+            states.writeTo(out);
+        }
+    }
+
+    private void adopt(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+            int count = in.readInt();
+            int i = 0;
+            while (i < count) {
+                int portID = in.readInt();
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                system.adoptPort(portID, state);
+                i++;
+            }
+        }
+        Files.delete(Path.of(path));
+    }
+}
@@ -0,0 +1,236 @@
+package hwSystem.Shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+/**
+ * The connection of the coordinator to one worker process.
+ *
+ * <p>Commands are collected into batches and written with one socket write per
+ * {@value #BATCH_BYTES} bytes; the worker executes them in order and answers every
+ * command with one frame (see {@link hwSystem.Server.CommandServer}). A reader thread
+ * matches the frames to the waiting {@link Response}s in the order the commands were sent.
+ */
+final class WorkerLink {
+    /** Size at which a batch of commands is written without waiting for more. */
+    static final int BATCH_BYTES = 32 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+    /**
+     * The answer of a worker to one command.
+     */
+    static final class Response {
+        final CountDownLatch done;
+        byte[] out = EMPTY;
+        byte[] err = EMPTY;
+        /**
+         * Constructs a response.
+         *
+         * @param done Counted down when the response has arrived.
+         */
+        Response(CountDownLatch done) {
+            this.done = done;
+        }
+    }
+
+    private final int index;
+    private final Process process;
+    private final SocketChannel channel;
+    private final ConcurrentLinkedQueue<Response> pending = new ConcurrentLinkedQueue<>();
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream(BATCH_BYTES * 2);
+    private volatile boolean stopped;
+
+    private WorkerLink(int index, Process process, SocketChannel channel) {
+        this.index = index;
+        this.process = process;
+        this.channel = channel;
+        Thread reader = new Thread(this::readResponses, "shard-link-" + index);
+        reader.setDaemon(true);
+        reader.start();
+    }
+    /**
+     * Starts a worker process. Workers load their configuration concurrently; connect
+     * to each with {@link #connect(int, Process, Path)}.
+     *
+     * @param index          The index of the worker.
+     * @param initialWorkers The number of workers the rig started with.
+     * @param configPath     The configuration of the rig.
+     * @param logDirectory   The log directory of the rig.
+     * @param workDirectory  The directory for the socket and the worker's error output.
+     * @return The worker process.
+     * @throws IOException If the process cannot be started.
+     */
+    static Process launch(int index, int initialWorkers, String configPath, String logDirectory,
+                          Path workDirectory) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), ShardWorker.class.getName(),
+                configPath, logDirectory, "unix:" + socketPath(index, workDirectory),
+                Integer.toString(index), Integer.toString(initialWorkers));
+        // Configuration errors are reported once, by the coordinator
+        builder.redirectError(errorPath(index, workDirectory).toFile());
+        return builder.start();
+    }
+    /**
+     * Waits until a worker accepts connections and connects to it.
+     *
+     * @param index         The index of the worker.
+     * @param process       The process started by {@link #launch}.
+     * @param workDirectory The directory passed to {@link #launch}.
+     * @return The connected link.
+     * @throws IOException If the worker ended before accepting connections.
+     */
+    static WorkerLink connect(int index, Process process, Path workDirectory) throws IOException {
+        // The worker prints one line once it accepts connections
+        BufferedReader ready = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        if (ready.readLine() == null) {
+            Path errors = errorPath(index, workDirectory);
+            String reason = Files.exists(errors) ? Files.readString(errors).trim() : "";
+            throw new IOException("Worker " + index + " did not start." + (reason.isEmpty() ? "" : " " + reason));
+        }
+        Thread drain = new Thread(() -> discard(ready), "shard-worker-out-" + index);
+        drain.setDaemon(true);
+        drain.start();
+
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socketPath(index, workDirectory)));
+        return new WorkerLink(index, process, channel);
+    }
+
+    private static Path socketPath(int index, Path workDirectory) {
+        return workDirectory.resolve("worker-" + index + ".sock");
+    }
+
+    private static Path errorPath(int index, Path workDirectory) {
+        return workDirectory.resolve("worker-" + index + ".err");
+    }
+    /**
+     * Returns the index of the worker.
+     *
+     * @return The worker index.
+     */
+    int getIndex() {
+        return index;
+    }
+    /**
+     * Queues a command. It is written with the current batch.
+     *
+     * @param command  The command line.
+     * @param response Receives the output of the command.
+     */
+    void send(String command, Response response) {
+        pending.add(response);
+        if (stopped) {
+            failPending();
+            return;
+        }
+        byte[] line = (command + "\n").getBytes(StandardCharsets.UTF_8);
+        batch.write(line, 0, line.length);
+        if (batch.size() >= BATCH_BYTES) flush();
+    }
+    /**
+     * Writes the queued commands.
+     */
+    void flush() {
+        if (batch.size() == 0) return;
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        batch.reset();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            stopped = true;
+            failPending();
+        }
+    }
+    /**
+     * Stops the worker without writing logs and waits for the process to end.
+     */
+    void stop() {
+        if (!stopped) {
+            send("@stop", new Response(new CountDownLatch(1)));
+            flush();
+        }
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed by the worker
+        }
+    }
+
+    private void readResponses() {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            while (true) {
+                // Frame header: "R <stdoutBytes> <stderrBytes>\n"
+                String header = readLine(in);
+                String[] sizes = header.split(" ");
+                byte[] out = new byte[Integer.parseInt(sizes[1])];
+                byte[] err = new byte[Integer.parseInt(sizes[2])];
+                in.readFully(out);
+                in.readFully(err);
+                Response response = pending.poll();
+                if (response == null) continue;
+                response.out = out;
+                response.err = err;
+                response.done.countDown();
+            }
+        } catch (IOException | RuntimeException e) {
+            stopped = true;
+            failPending();
+        }
+    }
+
+    private synchronized void failPending() {
+        byte[] message = ("Error: Worker " + index + " stopped.\n").getBytes(StandardCharsets.UTF_8);
+        Response response;
+        while ((response = pending.poll()) != null) {
+            response.err = message;
+            response.done.countDown();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = in.read();
+        while (c != '\n') {
+            if (c < 0) throw new EOFException();
+            line.append((char) c);
+            c = in.read();
+        }
+        return line.toString();
+    }
+
+    private static void discard(BufferedReader in) {
+        try {
+            while (in.readLine() != null) {
+                // The worker's console output is not part of the rig's output
+            }
+        } catch (IOException e) {
+            // The worker has ended
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package hwSystem.Signals;
+/**
+ * A signal that always returns the same value.
+ * This is the default source of every sensor.
+ */
+public class ConstantSignal implements SignalSource {
+    private final float value;
+    /**
+     * Constructs a constant signal.
+     *
+     * @param value The value returned for every tick.
+     */
+    public ConstantSignal(float value) {
+        this.value = value;
+    }
+
+    @Override
+    public float sample(long tick) {
+        return value;
+    }
+
+    @Override
+    public String getKind() {
+        return "constant";
+    }
+}
@@ -0,0 +1,143 @@
+package hwSystem.Signals;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * Replays one column of a CSV file as a signal.
+ * The file is memory-mapped and parsed in place, one line per tick,
+ * so values are never copied into Strings. Lines whose column is not a
+ * number (e.g. a header) are skipped, and playback wraps around at the end of the file.
+ * The first tick read returns the first value of the file.
+ */
+public class CsvReplaySignal implements SignalSource {
+    private final MappedByteBuffer buffer;
+    private final int column;
+    private final int limit;
+
+    private int position;
+    private long lastTick;
+    private float value;
+    /**
+     * Constructs a CSV replay signal by mapping the given file.
+     *
+     * @param path   The CSV file to replay.
+     * @param column The zero-based column to read.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public CsvReplaySignal(String path, int column) throws IOException {
+        if (column < 0) {
+            throw new IllegalArgumentException("CSV column must not be negative.");
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("CSV file is too large to map: " + path);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.column = column;
+        this.limit = buffer.limit();
+        this.position = 0;
+        this.lastTick = -1;
+        if (!advance()) {
+            throw new IllegalArgumentException("CSV file has no numeric values in column " + column + ": " + path);
+        }
+    }
+
+    @Override
+    public float sample(long tick) {
+        if (lastTick < 0) {
+            // The first read is the origin of the sequence
+            lastTick = tick;
+        }
+        while (lastTick < tick) {
+            lastTick++;
+            advance();
+        }
+        return value;
+    }
+
+    @Override
+    public String getKind() {
+        return "csv";
+    }
+    /**
+     * Moves to the next line holding a numeric value in the selected column.
+     *
+     * @return false if the whole file holds no usable line.
+     */
+    private boolean advance() {
+        int start = position;
+        boolean wrapped = false;
+        while (true) {
+            if (position >= limit) {
+                if (wrapped) return false;
+                wrapped = true;
+                position = 0;
+            }
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') lineEnd++;
+            boolean parsed = parseLine(position, lineEnd);
+            position = lineEnd + 1;
+            if (parsed) return true;
+            if (wrapped && position > start) return false;
+        }
+    }
+    /**
+     * Parses the selected column of the line [from, to) into {@code value}.
+     *
+     * @return true if the column holds a number.
+     */
+    private boolean parseLine(int from, int to) {
+        int i = from;
+        int col = 0;
+        while (col < column && i < to) {
+            if (buffer.get(i) == ',') col++;
+            i++;
+        }
+        if (col < column) return false;
+        while (i < to && buffer.get(i) == ' ') i++;
+
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        double result = 0;
+        int digits = 0;
+        while (i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+            result = result * 10 + (buffer.get(i) - '0');
+            digits++;
+            i++;
+        }
+        if (i < to && buffer.get(i) == '.') {
+            i++;
+            double scale = 0.1;
+            while (i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+                result += (buffer.get(i) - '0') * scale;
+                scale *= 0.1;
+                digits++;
+                i++;
+            }
+        }
+        if (digits == 0) return false;
+        if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negExp = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negExp = buffer.get(i) == '-';
+                i++;
+            }
+            int exp = 0;
+            while (i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9') {
+                exp = exp * 10 + (buffer.get(i) - '0');
+                i++;
+            }
+            result *= Math.pow(10, negExp ? -exp : exp);
+        }
+        value = (float) (negative ? -result : result);
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package hwSystem.Signals;
+/**
+ * A small, fast, seeded pseudo random number generator based on SplitMix64.
+ * Values can be derived statelessly from (seed, index) pairs, which lets
+ * signal sources evaluate any tick on demand without keeping a generator per tick.
+ */
+public final class FastRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+    /**
+     * Constructs a generator with the given seed.
+     *
+     * @param seed The initial seed.
+     */
+    public FastRandom(long seed) {
+        this.state = seed;
+    }
+    /**
+     * Returns the next pseudo random 64-bit value.
+     *
+     * @return A random long.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+    /**
+     * Returns the next pseudo random float in the range [-1, 1).
+     *
+     * @return A random float.
+     */
+    public float nextSignedFloat() {
+        return toSignedFloat(nextLong());
+    }
+    /**
+     * Returns a pseudo random float in [-1, 1) for the given seed and index.
+     * The same pair always produces the same value.
+     *
+     * @param seed  The seed of the sequence.
+     * @param index The position in the sequence.
+     * @return A random float.
+     */
+    public static float signedFloatAt(long seed, long index) {
+        return toSignedFloat(mix64(seed + (index + 1) * GOLDEN_GAMMA));
+    }
+    /**
+     * SplitMix64 finalizer.
+     *
+     * @param z The value to mix.
+     * @return The mixed value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static float toSignedFloat(long bits) {
+        // 24 random bits mapped to [0, 1), then to [-1, 1)
+        return ((bits >>> 40) * 0x1.0p-24f) * 2.0f - 1.0f;
+    }
+}
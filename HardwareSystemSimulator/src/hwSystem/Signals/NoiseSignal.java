@@ -0,0 +1,32 @@
+package hwSystem.Signals;
+/**
+ * Uniform noise around a mean value.
+ * Each tick maps to its own seeded random value, so no state is kept between reads.
+ */
+public class NoiseSignal implements SignalSource {
+    private final float mean;
+    private final float amplitude;
+    private final long seed;
+    /**
+     * Constructs a noise signal.
+     *
+     * @param mean      The mean value.
+     * @param amplitude The maximum deviation from the mean.
+     * @param seed      The seed of the random sequence.
+     */
+    public NoiseSignal(float mean, float amplitude, long seed) {
+        this.mean = mean;
+        this.amplitude = amplitude;
+        this.seed = seed;
+    }
+
+    @Override
+    public float sample(long tick) {
+        return mean + amplitude * FastRandom.signedFloatAt(seed, tick);
+    }
+
+    @Override
+    public String getKind() {
+        return "noise";
+    }
+}
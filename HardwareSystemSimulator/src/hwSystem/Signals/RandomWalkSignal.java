@@ -0,0 +1,60 @@
+package hwSystem.Signals;
+/**
+ * A bounded random walk. Every tick moves the value by at most {@code step}
+ * in a random direction, clamped to [min, max].
+ * The first tick read is the starting point, and steps are only
+ * computed when a newer tick is requested.
+ */
+public class RandomWalkSignal implements SignalSource {
+    private final float step;
+    private final float min;
+    private final float max;
+    private final long seed;
+
+    private long lastTick;
+    private float value;
+    /**
+     * Constructs a random walk signal.
+     *
+     * @param start The value at the first tick read.
+     * @param step  The maximum change per tick.
+     * @param min   The lower bound.
+     * @param max   The upper bound.
+     * @param seed  The seed of the random sequence.
+     */
+    public RandomWalkSignal(float start, float step, float min, float max, long seed) {
+        if (min > max) {
+            throw new IllegalArgumentException("Random walk min must not exceed max.");
+        }
+        this.step = step;
+        this.min = min;
+        this.max = max;
+        this.seed = seed;
+        this.value = clamp(start);
+        this.lastTick = -1;
+    }
+
+    @Override
+    public float sample(long tick) {
+        if (lastTick < 0) {
+            // The first read is the origin of the sequence
+            lastTick = tick;
+        }
+        while (lastTick < tick) {
+            lastTick++;
+            value = clamp(value + step * FastRandom.signedFloatAt(seed, lastTick));
+        }
+        return value;
+    }
+
+    @Override
+    public String getKind() {
+        return "walk";
+    }
+
+    private float clamp(float v) {
+        if (v < min) return min;
+        if (v > max) return max;
+        return v;
+    }
+}
@@ -0,0 +1,82 @@
+package hwSystem.Signals;
+
+import java.io.IOException;
+/**
+ * Creates signal sources from their textual description, as used by the
+ * {@code setSignal} command.
+ *
+ * <p>Supported kinds and arguments:
+ * <ul>
+ *     <li>{@code constant <value>}</li>
+ *     <li>{@code sine <offset> <amplitude> <period>}</li>
+ *     <li>{@code walk <start> <step> [<min> <max>]}</li>
+ *     <li>{@code noise <mean> <amplitude>}</li>
+ *     <li>{@code csv <path> [<column>]}</li>
+ * </ul>
+ */
+public final class SignalFactory {
+    /**
+     * Usage text listing the supported signal kinds.
+     */
+    public static final String KINDS = "<constant|sine|walk|noise|csv> [args...]";
+
+    private SignalFactory() {
+        // Not used
+    }
+    /**
+     * Creates a signal source.
+     *
+     * @param kind  The signal kind.
+     * @param args  The command parts holding the arguments.
+     * @param from  The index of the first argument in {@code args}.
+     * @param seed  The seed used by random signals.
+     * @return The created signal source.
+     * @throws IllegalArgumentException If the kind or its arguments are invalid.
+     */
+    public static SignalSource create(String kind, String[] args, int from, long seed) {
+        int count = args.length - from;
+        switch (kind) {
+            case "constant":
+                requireArgs(kind, count, 1, 1, "<value>");
+                return new ConstantSignal(parse(args[from]));
+            case "sine":
+                requireArgs(kind, count, 3, 3, "<offset> <amplitude> <period>");
+                return new SineSignal(parse(args[from]), parse(args[from + 1]), parse(args[from + 2]));
+            case "walk":
+                requireArgs(kind, count, 2, 4, "<start> <step> [<min> <max>]");
+                if (count == 3) {
+                    throw new IllegalArgumentException("walk needs both <min> and <max>.");
+                }
+                float min = count == 4 ? parse(args[from + 2]) : -Float.MAX_VALUE;
+                float max = count == 4 ? parse(args[from + 3]) : Float.MAX_VALUE;
+                return new RandomWalkSignal(parse(args[from]), parse(args[from + 1]), min, max, seed);
+            case "noise":
+                requireArgs(kind, count, 2, 2, "<mean> <amplitude>");
+                return new NoiseSignal(parse(args[from]), parse(args[from + 1]), seed);
+            case "csv":
+                requireArgs(kind, count, 1, 2, "<path> [<column>]");
+                int column = count == 2 ? (int) parse(args[from + 1]) : 0;
+                try {
+                    return new CsvReplaySignal(args[from], column);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Cannot open CSV file: " + args[from]);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown signal kind: " + kind);
+        }
+    }
+
+    private static void requireArgs(String kind, int count, int min, int max, String usage) {
+        if (count < min || count > max) {
+            throw new IllegalArgumentException("Usage: " + kind + " " + usage);
+        }
+    }
+
+    private static float parse(String s) {
+        try {
+            return Float.parseFloat(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + s);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package hwSystem.Signals;
+/**
+ * Interface representing a source of simulated sensor values.
+ * Sources are evaluated lazily: a value is only computed when a sensor is read.
+ */
+public interface SignalSource {
+    /**
+     * Returns the signal value for the given sample tick.
+     * Calling this method repeatedly with the same tick returns the same value.
+     *
+     * @param tick The sample index of the sensor (incremented once per read).
+     * @return The simulated value at that tick.
+     */
+    float sample(long tick);
+    /**
+     * Returns the name of the signal kind (e.g., "sine", "noise").
+     *
+     * @return The signal kind.
+     */
+    String getKind();
+}
@@ -0,0 +1,34 @@
+package hwSystem.Signals;
+/**
+ * A sine wave signal: offset + amplitude * sin(2 * PI * tick / period).
+ */
+public class SineSignal implements SignalSource {
+    private final float offset;
+    private final float amplitude;
+    private final double step;
+    /**
+     * Constructs a sine signal.
+     *
+     * @param offset    The center value of the wave.
+     * @param amplitude The peak deviation from the offset.
+     * @param period    The number of ticks in one full wave (must be positive).
+     */
+    public SineSignal(float offset, float amplitude, float period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Sine period must be positive.");
+        }
+        this.offset = offset;
+        this.amplitude = amplitude;
+        this.step = 2.0 * Math.PI / period;
+    }
+
+    @Override
+    public float sample(long tick) {
+        return offset + amplitude * (float) Math.sin(step * tick);
+    }
+
+    @Override
+    public String getKind() {
+        return "sine";
+    }
+}
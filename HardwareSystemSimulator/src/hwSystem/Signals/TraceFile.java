@@ -0,0 +1,248 @@
+package hwSystem.Signals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * A read-only, memory-mapped columnar sensor trace.
+ *
+ * <p>File layout (little-endian):
+ * <pre>
+ * int   magic ("HWTR")
+ * int   version (1)
+ * long  row count
+ * int   column count
+ * int   reserved
+ * long  reserved
+ * 16 bytes per column: zero-padded ASCII column name
+ * long[rows]  timestamps in microseconds, non-decreasing
+ * float[rows] values of column 0
+ * float[rows] values of column 1 ...
+ * </pre>
+ *
+ * <p>The file is mapped in 1 GiB chunks, so traces larger than 2 GiB are supported
+ * and nothing but a sparse timestamp index is kept on the heap.
+ */
+public class TraceFile {
+    /** Magic number at the start of every trace file ("HWTR"). */
+    public static final int MAGIC = 0x48575452;
+    /** Current format version. */
+    public static final int VERSION = 1;
+    /** Size of the fixed part of the header in bytes. */
+    public static final int HEADER_SIZE = 32;
+    /** Size of one column name in bytes. */
+    public static final int NAME_SIZE = 16;
+    /** One timestamp of every {@code INDEX_STRIDE} rows is kept in the sparse index. */
+    public static final int INDEX_STRIDE = 4096;
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final String path;
+    private final MappedByteBuffer[] chunks;
+    private final long rowCount;
+    private final String[] columnNames;
+    private final long timestampOffset;
+    private final long[] sparseIndex;
+    /**
+     * Opens and maps a trace file.
+     *
+     * @param path The trace file path.
+     * @throws IOException If the file cannot be read or is not a valid trace.
+     */
+    public TraceFile(String path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            int chunkCount = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[chunkCount];
+            int i = 0;
+            while (i < chunkCount) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+                i++;
+            }
+
+            if (getInt(0) != MAGIC || getInt(4) != VERSION) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            rowCount = getLong(8);
+            int columnCount = getInt(16);
+            if (rowCount < 1 || columnCount < 0) {
+                throw new IOException("Empty or corrupt trace file: " + path);
+            }
+            // Validate the header against the file size before allocating anything for it
+            timestampOffset = HEADER_SIZE + (long) columnCount * NAME_SIZE;
+            if (size < timestampOffset) {
+                throw new IOException("Truncated trace file: " + path);
+            }
+            try {
+                long rowBytes = Math.addExact(8, Math.multiplyExact(4L, columnCount));
+                if (size - timestampOffset < Math.multiplyExact(rowCount, rowBytes)) {
+                    throw new IOException("Truncated trace file: " + path);
+                }
+            } catch (ArithmeticException e) {
+                throw new IOException("Corrupt trace file: " + path);
+            }
+            columnNames = new String[columnCount];
+            i = 0;
+            while (i < columnCount) {
+                columnNames[i] = readName(HEADER_SIZE + (long) i * NAME_SIZE);
+                i++;
+            }
+        }
+        sparseIndex = new long[(int) ((rowCount + INDEX_STRIDE - 1) / INDEX_STRIDE)];
+        int k = 0;
+        while (k < sparseIndex.length) {
+            sparseIndex[k] = getTimestamp((long) k * INDEX_STRIDE);
+            k++;
+        }
+    }
+    /**
+     * Returns the path of the trace file.
+     *
+     * @return The file path.
+     */
+    public String getPath() {
+        return path;
+    }
+    /**
+     * Returns the number of rows in the trace.
+     *
+     * @return The row count.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+    /**
+     * Returns the index of the column with the given name.
+     *
+     * @param name The column name.
+     * @return The column index, or -1 if there is no such column.
+     */
+    public int findColumn(String name) {
+        int i = 0;
+        while (i < columnNames.length) {
+            if (columnNames[i].equals(name)) return i;
+            i++;
+        }
+        return -1;
+    }
+    /**
+     * Returns the timestamp of a row.
+     *
+     * @param row The row index.
+     * @return The timestamp in microseconds.
+     */
+    public long getTimestamp(long row) {
+        return getLong(timestampOffset + row * 8);
+    }
+    /**
+     * Returns the value of a column at a row.
+     *
+     * @param column The column index.
+     * @param row    The row index.
+     * @return The stored value.
+     */
+    public float getValue(int column, long row) {
+        long offset = timestampOffset + rowCount * 8 + (column * rowCount + row) * 4;
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getFloat((int) (offset & CHUNK_MASK));
+    }
+    /**
+     * Returns the first timestamp of the trace.
+     *
+     * @return The timestamp in microseconds.
+     */
+    public long getStartTimestamp() {
+        return sparseIndex[0];
+    }
+    /**
+     * Returns the last timestamp of the trace.
+     *
+     * @return The timestamp in microseconds.
+     */
+    public long getEndTimestamp() {
+        return getTimestamp(rowCount - 1);
+    }
+    /**
+     * Finds the last row whose timestamp is not after the given timestamp.
+     * The sparse index narrows the search to one block, which is then
+     * binary searched in the mapped timestamp column.
+     *
+     * @param timestamp The timestamp to seek to, in microseconds.
+     * @return The row index (0 if the timestamp is before the trace).
+     */
+    public long seek(long timestamp) {
+        if (timestamp <= sparseIndex[0]) return 0;
+
+        int lo = 0;
+        int hi = sparseIndex.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (sparseIndex[mid] <= timestamp) lo = mid;
+            else hi = mid - 1;
+        }
+
+        long low = (long) lo * INDEX_STRIDE;
+        long high = Math.min(low + INDEX_STRIDE, rowCount) - 1;
+        while (low < high) {
+            long mid = (low + high + 1) >>> 1;
+            if (getTimestamp(mid) <= timestamp) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    private String readName(long offset) {
+        byte[] bytes = new byte[NAME_SIZE];
+        int len = 0;
+        while (len < NAME_SIZE) {
+            byte b = chunks[(int) ((offset + len) >>> CHUNK_SHIFT)].get((int) ((offset + len) & CHUNK_MASK));
+            if (b == 0) break;
+            bytes[len] = b;
+            len++;
+        }
+        return new String(bytes, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    private int getInt(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & CHUNK_MASK));
+    }
+
+    private long getLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+    /**
+     * Encodes the fixed header and column names of a trace file.
+     *
+     * @param rowCount    The number of rows.
+     * @param columnNames The column names (at most 16 ASCII bytes each).
+     * @return A buffer holding the header, ready to be written.
+     */
+    static ByteBuffer encodeHeader(long rowCount, String[] columnNames) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + columnNames.length * NAME_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(rowCount).putInt(columnNames.length).putInt(0).putLong(0);
+        int i = 0;
+        while (i < columnNames.length) {
+            byte[] name = columnNames[i].getBytes(StandardCharsets.US_ASCII);
+            if (name.length > NAME_SIZE) {
+                throw new IllegalArgumentException("Column name too long: " + columnNames[i]);
+            }
+            header.position(HEADER_SIZE + i * NAME_SIZE);
+            header.put(name);
+            i++;
+        }
+        header.position(0);
+        return header;
+    }
+}
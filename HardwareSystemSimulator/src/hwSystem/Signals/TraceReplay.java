@@ -0,0 +1,81 @@
+package hwSystem.Signals;
+/**
+ * Plays a {@link TraceFile} back for one sensor.
+ * All channels of the sensor share one replay, so the values returned for a
+ * tick always come from the same trace row.
+ *
+ * <p>With a speed of 0 the replay steps one row per read. With a positive speed
+ * the trace position follows the wall clock scaled by the speed (e.g. 3600 plays
+ * one hour of trace per second). Playback loops back to the start at the end of the trace.
+ */
+public class TraceReplay {
+    private final TraceFile trace;
+    private final double speed;
+
+    private long startRow;
+    private long startTimestamp;
+    private long wallStart;
+    private long firstTick;
+
+    private long cachedTick;
+    private long cachedRow;
+    /**
+     * Constructs a replay of a trace.
+     *
+     * @param trace The mapped trace file.
+     * @param speed The playback speed (0 for one row per read).
+     */
+    public TraceReplay(TraceFile trace, double speed) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Replay speed must not be negative.");
+        }
+        this.trace = trace;
+        this.speed = speed;
+        seek(trace.getStartTimestamp());
+    }
+    /**
+     * Moves the replay to the given trace timestamp.
+     * The next read returns the row at or just before that timestamp.
+     *
+     * @param timestamp The trace timestamp in microseconds.
+     */
+    public void seek(long timestamp) {
+        startRow = trace.seek(timestamp);
+        startTimestamp = trace.getTimestamp(startRow);
+        firstTick = -1;
+        cachedTick = -1;
+    }
+    /**
+     * Returns the trace row to use for the given sensor tick.
+     *
+     * @param tick The sensor sample tick.
+     * @return The trace row.
+     */
+    public long rowAt(long tick) {
+        if (tick == cachedTick) return cachedRow;
+        if (firstTick < 0) {
+            firstTick = tick;
+            wallStart = System.nanoTime();
+        }
+
+        long rows = trace.getRowCount();
+        if (speed == 0) {
+            cachedRow = (startRow + (tick - firstTick)) % rows;
+        } else {
+            long span = trace.getEndTimestamp() - trace.getStartTimestamp() + 1;
+            long elapsed = (long) ((System.nanoTime() - wallStart) / 1000.0 * speed);
+            long position = (startTimestamp - trace.getStartTimestamp() + elapsed) % span;
+            cachedRow = trace.seek(trace.getStartTimestamp() + position);
+        }
+        cachedTick = tick;
+        return cachedRow;
+    }
+    /**
+     * Returns the replayed trace file.
+     *
+     * @return The trace file.
+     */
+    public TraceFile getTrace() {
+        return trace;
+    }
+}
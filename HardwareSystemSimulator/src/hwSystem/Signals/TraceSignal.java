@@ -0,0 +1,28 @@
+package hwSystem.Signals;
+/**
+ * A signal reading one column of a trace through a shared {@link TraceReplay}.
+ */
+public class TraceSignal implements SignalSource {
+    private final TraceReplay replay;
+    private final int column;
+    /**
+     * Constructs a trace signal.
+     *
+     * @param replay The replay that selects the row for each tick.
+     * @param column The column index in the trace.
+     */
+    public TraceSignal(TraceReplay replay, int column) {
+        this.replay = replay;
+        this.column = column;
+    }
+
+    @Override
+    public float sample(long tick) {
+        return replay.getTrace().getValue(column, replay.rowAt(tick));
+    }
+
+    @Override
+    public String getKind() {
+        return "trace";
+    }
+}
@@ -0,0 +1,179 @@
+package hwSystem.Signals;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * Writes a columnar trace file (see {@link TraceFile}) row by row.
+ * Every column has its own buffer which is flushed to the column's
+ * region of the file with positional writes, so rows are streamed
+ * to disk without keeping the trace in memory.
+ */
+public class TraceWriter implements Closeable {
+    private static final int BUFFER_ROWS = 16384;
+
+    private final FileChannel channel;
+    private final long rowCount;
+    private final ByteBuffer timestamps;
+    private final ByteBuffer[] columns;
+    private final long timestampOffset;
+
+    private long rowsWritten;
+    private long rowsFlushed;
+    private long lastTimestamp;
+    /**
+     * Creates a trace file with a fixed number of rows.
+     *
+     * @param path        The output file path.
+     * @param rowCount    The number of rows that will be appended.
+     * @param columnNames The column names.
+     * @throws IOException If the file cannot be created.
+     */
+    public TraceWriter(String path, long rowCount, String[] columnNames) throws IOException {
+        if (rowCount < 1) {
+            throw new IllegalArgumentException("A trace needs at least one row.");
+        }
+        ByteBuffer header = TraceFile.encodeHeader(rowCount, columnNames);
+        this.channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.rowCount = rowCount;
+        this.timestampOffset = header.remaining();
+        while (header.hasRemaining()) channel.write(header);
+
+        this.timestamps = ByteBuffer.allocate(BUFFER_ROWS * 8).order(ByteOrder.LITTLE_ENDIAN);
+        this.columns = new ByteBuffer[columnNames.length];
+        int i = 0;
+        while (i < columns.length) {
+            columns[i] = ByteBuffer.allocate(BUFFER_ROWS * 4).order(ByteOrder.LITTLE_ENDIAN);
+            i++;
+        }
+        this.lastTimestamp = Long.MIN_VALUE;
+    }
+    /**
+     * Appends one row to the trace.
+     *
+     * @param timestamp The row timestamp in microseconds (non-decreasing).
+     * @param values    One value per column.
+     * @throws IOException If writing fails.
+     */
+    public void append(long timestamp, float[] values) throws IOException {
+        if (rowsWritten >= rowCount) {
+            throw new IllegalStateException("Trace already holds " + rowCount + " rows.");
+        }
+        if (values.length != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " values per row.");
+        }
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Timestamps must not decrease.");
+        }
+        lastTimestamp = timestamp;
+        timestamps.putLong(timestamp);
+        int i = 0;
+        while (i < columns.length) {
+            columns[i].putFloat(values[i]);
+            i++;
+        }
+        rowsWritten++;
+        if (!timestamps.hasRemaining()) flush();
+    }
+    /**
+     * Flushes the remaining rows and closes the file.
+     *
+     * @throws IOException If writing fails or fewer rows than declared were appended.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (rowsWritten != rowCount) {
+                throw new IOException("Trace declared " + rowCount + " rows but " + rowsWritten + " were written.");
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        writeAt(timestamps, timestampOffset + rowsFlushed * 8);
+        long columnBase = timestampOffset + rowCount * 8;
+        int i = 0;
+        while (i < columns.length) {
+            writeAt(columns[i], columnBase + (i * rowCount + rowsFlushed) * 4);
+            i++;
+        }
+        rowsFlushed = rowsWritten;
+    }
+
+    private void writeAt(ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+    }
+    /**
+     * Converts a CSV file into a trace file. The first line must be a header
+     * naming the columns; the first column holds timestamps in microseconds.
+     *
+     * @param csvPath   The CSV input file.
+     * @param tracePath The trace output file.
+     * @return The number of rows written.
+     * @throws IOException If reading or writing fails, or the CSV is malformed.
+     */
+    public static long convertCsv(String csvPath, String tracePath) throws IOException {
+        String[] header;
+        long rows = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(csvPath))) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("CSV file is empty: " + csvPath);
+            }
+            header = line.split(",");
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) rows++;
+            }
+        }
+        if (header.length < 2) {
+            throw new IOException("CSV needs a timestamp column and at least one value column.");
+        }
+        String[] names = new String[header.length - 1];
+        int i = 0;
+        while (i < names.length) {
+            names[i] = header[i + 1].trim();
+            i++;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(csvPath));
+             TraceWriter writer = new TraceWriter(tracePath, rows, names)) {
+            reader.readLine();
+            float[] values = new float[names.length];
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) continue;
+                String[] cells = line.split(",");
+                if (cells.length != header.length) {
+                    throw new IOException("Wrong number of columns on line " + lineNumber + ".");
+                }
+                try {
+                    i = 0;
+                    while (i < values.length) {
+                        values[i] = Float.parseFloat(cells[i + 1].trim());
+                        i++;
+                    }
+                    writer.append(Long.parseLong(cells[0].trim()), values);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid value on line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,46 @@
+package hwSystem.Telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight Recorder event for one executed command, from dispatch to the return of
+ * its handler. The duration of the event is the execution time of the command.
+ *
+ * <p>Usage: create the event and call {@link #begin()} before dispatching, then
+ * fill in the fields only if {@link #shouldCommit()} returns true. Without a
+ * running recording this costs two checks and no allocation once compiled.
+ */
+@Name("hwSystem.Command")
+@Label("Command Dispatch")
+@Category({ "Hardware System Simulator", "Commands" })
+@Description("Execution of one simulator command")
+@StackTrace(false)
+public class CommandEvent extends Event {
+    @Label("Verb")
+    @Description("The command name, e.g. readSensor")
+    private String verb;
+
+    @Label("Port")
+    @Description("The port the command operates on, or -1")
+    private int port;
+
+    @Label("Device ID")
+    @Description("The devID the command names, or -1")
+    private int devID;
+    /**
+     * Sets the fields of the event.
+     *
+     * @param verb  The command name.
+     * @param port  The target port, or -1.
+     * @param devID The devID, or -1.
+     */
+    public void set(String verb, int port, int devID) {
+        this.verb = verb;
+        this.port = port;
+        this.devID = devID;
+    }
+}
@@ -0,0 +1,53 @@
+package hwSystem.Telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight Recorder event for one batch of log output: the .log files written on
+ * exit, or one segment written to a rotated log archive.
+ */
+@Name("hwSystem.LogFlush")
+@Label("Log Flush")
+@Category({ "Hardware System Simulator", "Logs" })
+@Description("Port log entries written to disk")
+@StackTrace(false)
+public class LogFlushEvent extends Event {
+    /** Kind of the batch written on exit. */
+    public static final String EXIT = "exit";
+    /** Kind of a segment written to a log archive. */
+    public static final String ROTATION = "rotation";
+
+    @Label("Kind")
+    @Description("exit or rotation")
+    private String kind;
+
+    @Label("Ports")
+    private int ports;
+
+    @Label("Entries")
+    private long entries;
+
+    @Label("Bytes")
+    @Description("Bytes written to disk")
+    @DataAmount
+    private long bytes;
+    /**
+     * Sets the fields of the event.
+     *
+     * @param kind    {@link #EXIT} or {@link #ROTATION}.
+     * @param ports   The number of ports in the batch.
+     * @param entries The number of log entries written.
+     * @param bytes   The number of bytes written.
+     */
+    public void set(String kind, int ports, long entries, long bytes) {
+        this.kind = kind;
+        this.ports = ports;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,200 @@
+package hwSystem.Telemetry;
+
+import hwSystem.Protocols.LogIndex;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+/**
+ * Registry of the live counters and gauges of one simulator, rendered in the
+ * Prometheus text exposition format by {@link #writeTo(StringBuilder)}.
+ *
+ * <p>Counters are {@link LongAdder}s, so the command handlers, pipeline lanes and
+ * protocol implementations update them without contending on one memory location.
+ * Until {@link #enable()} is called every update returns after one flag check.
+ * Every hwSystem owns its registry and hands it to its ports, so several simulators
+ * in one process (e.g. hosted rigs) never mix their series.
+ */
+public final class Metrics {
+    /** Device categories by the category constants of the device table. */
+    private static final String[] CATEGORY_NAMES = { "Sensor", "Display", "WirelessIO", "MotorDriver" };
+
+    private volatile boolean enabled;
+
+    private final ConcurrentSkipListMap<String, LongAdder> commandCounts = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, PortCounters> portCounts = new ConcurrentSkipListMap<>();
+    private final LongAdder[] devicesOn = newAdders(CATEGORY_NAMES.length);
+    private final ConcurrentSkipListMap<String, LongAdder[]> flushTimes = new ConcurrentSkipListMap<>();
+    private final CopyOnWriteArrayList<Gauge> gaugeList = new CopyOnWriteArrayList<>();
+    /**
+     * Starts collecting metrics.
+     */
+    public void enable() {
+        enabled = true;
+    }
+    /**
+     * Returns whether metrics are collected.
+     *
+     * @return true after {@link #enable()}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    /**
+     * Counts an executed command.
+     *
+     * @param verb The command name, or "unknown" for unknown commands.
+     */
+    public void command(String verb) {
+        if (!enabled) return;
+        commandCounts.computeIfAbsent(verb, k -> new LongAdder()).increment();
+    }
+    /**
+     * Counts one entry appended to a port log.
+     *
+     * @param protocol The protocol name.
+     * @param portID   The port.
+     * @param op       The operation type of the entry.
+     */
+    public void transaction(String protocol, int portID, LogIndex.Op op) {
+        if (!enabled || op == LogIndex.Op.OPEN) return;
+        PortCounters counters = portCounts.get(portID);
+        if (counters == null) {
+            counters = portCounts.computeIfAbsent(portID, k -> new PortCounters(protocol));
+        }
+        (op == LogIndex.Op.READ ? counters.reads : counters.writes).increment();
+    }
+    /**
+     * Records a device being turned ON or OFF.
+     *
+     * @param category The device table category of the device.
+     * @param delta    1 when the device was turned ON, -1 when it was turned OFF.
+     */
+    public void deviceOn(int category, int delta) {
+        if (!enabled) return;
+        devicesOn[category].add(delta);
+    }
+    /**
+     * Records the latency of writing a batch of log entries.
+     *
+     * @param kind  The kind of batch, see {@link LogFlushEvent}.
+     * @param nanos The time the batch took.
+     */
+    public void flush(String kind, long nanos) {
+        if (!enabled) return;
+        LongAdder[] summary = flushTimes.computeIfAbsent(kind, k -> newAdders(2));
+        summary[0].add(nanos);
+        summary[1].increment();
+    }
+    /**
+     * Registers a gauge whose value is read on every scrape. A gauge registered again
+     * under the same name replaces the earlier one.
+     *
+     * @param name  The metric name.
+     * @param help  The description of the metric.
+     * @param value The source of the current value.
+     */
+    public synchronized void gauge(String name, String help, LongSupplier value) {
+        int i = 0;
+        while (i < gaugeList.size()) {
+            if (gaugeList.get(i).name.equals(name)) {
+                gaugeList.set(i, new Gauge(name, help, value));
+                return;
+            }
+            i++;
+        }
+        gaugeList.add(new Gauge(name, help, value));
+    }
+    /**
+     * Renders all metrics in the text exposition format.
+     *
+     * @param out The builder to append to.
+     */
+    public void writeTo(StringBuilder out) {
+        header(out, "hw_commands_total", "Commands executed, by verb.", "counter");
+        Iterator<Map.Entry<String, LongAdder>> commands = commandCounts.entrySet().iterator();
+        while (commands.hasNext()) {
+            Map.Entry<String, LongAdder> entry = commands.next();
+            out.append("hw_commands_total{verb=\"").append(entry.getKey()).append("\"} ")
+               .append(entry.getValue().sum()).append('\n');
+        }
+
+        header(out, "hw_port_operations_total", "Protocol reads and writes, by port.", "counter");
+        Iterator<Map.Entry<Integer, PortCounters>> ports = portCounts.entrySet().iterator();
+        while (ports.hasNext()) {
+            Map.Entry<Integer, PortCounters> entry = ports.next();
+            PortCounters counters = entry.getValue();
+            portLine(out, counters.protocol, entry.getKey(), "read", counters.reads.sum());
+            portLine(out, counters.protocol, entry.getKey(), "write", counters.writes.sum());
+        }
+
+        header(out, "hw_devices_on", "Devices currently ON, by category.", "gauge");
+        int category = 0;
+        while (category < CATEGORY_NAMES.length) {
+            out.append("hw_devices_on{category=\"").append(CATEGORY_NAMES[category]).append("\"} ")
+               .append(devicesOn[category].sum()).append('\n');
+            category++;
+        }
+
+        header(out, "hw_log_flush_seconds", "Time spent writing port logs, by kind.", "summary");
+        Iterator<Map.Entry<String, LongAdder[]>> flushes = flushTimes.entrySet().iterator();
+        while (flushes.hasNext()) {
+            Map.Entry<String, LongAdder[]> entry = flushes.next();
+            out.append("hw_log_flush_seconds_sum{kind=\"").append(entry.getKey()).append("\"} ")
+               .append(entry.getValue()[0].sum() / 1e9).append('\n');
+            out.append("hw_log_flush_seconds_count{kind=\"").append(entry.getKey()).append("\"} ")
+               .append(entry.getValue()[1].sum()).append('\n');
+        }
+
+        Iterator<Gauge> gauges = gaugeList.iterator();
+        while (gauges.hasNext()) {
+            Gauge gauge = gauges.next();
+            header(out, gauge.name, gauge.help, "gauge");
+            out.append(gauge.name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void portLine(StringBuilder out, String protocol, int portID, String op, long value) {
+        out.append("hw_port_operations_total{protocol=\"").append(protocol).append("\",port=\"").append(portID)
+           .append("\",op=\"").append(op).append("\"} ").append(value).append('\n');
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        int i = 0;
+        while (i < count) {
+            adders[i] = new LongAdder();
+            i++;
+        }
+        return adders;
+    }
+
+    private static final class PortCounters {
+        final String protocol;
+        final LongAdder reads = new LongAdder();
+        final LongAdder writes = new LongAdder();
+
+        PortCounters(String protocol) {
+            this.protocol = protocol;
+        }
+    }
+
+    private static final class Gauge {
+        final String name;
+        final String help;
+        final LongSupplier value;
+
+        Gauge(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
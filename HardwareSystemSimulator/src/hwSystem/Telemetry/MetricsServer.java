@@ -0,0 +1,77 @@
+package hwSystem.Telemetry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+/**
+ * Serves {@link Metrics} over HTTP on the loopback interface, at {@code /metrics},
+ * for scraping by a monitoring system.
+ */
+public class MetricsServer {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Metrics metrics;
+    /**
+     * Binds the server to a local port.
+     *
+     * @param port    The TCP port on 127.0.0.1 (0 for any free port).
+     * @param metrics The registry to serve.
+     * @throws IOException If the port cannot be bound.
+     */
+    public MetricsServer(int port, Metrics metrics) throws IOException {
+        this.metrics = metrics;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+    }
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+    /**
+     * Stops the server. Requests in progress are given up to one second to finish.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+    /**
+     * Returns the bound TCP port.
+     *
+     * @return The port number.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        StringBuilder text = new StringBuilder(4096);
+        metrics.writeTo(text);
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
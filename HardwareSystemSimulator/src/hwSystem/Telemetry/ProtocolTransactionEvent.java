@@ -0,0 +1,61 @@
+package hwSystem.Telemetry;
+
+import hwSystem.Protocols.PortLog;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+/**
+ * Flight Recorder event for one protocol transaction, i.e. one entry appended to
+ * a port log.
+ *
+ * <p>Transactions are the hottest path of the simulator, so {@link #emit} first
+ * checks a cached {@link EventType}: without a recording that enables this event
+ * nothing is allocated or rendered.
+ */
+@Name("hwSystem.ProtocolTransaction")
+@Label("Protocol Transaction")
+@Category({ "Hardware System Simulator", "Protocols" })
+@Description("One read or write on a port")
+@StackTrace(false)
+public class ProtocolTransactionEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(ProtocolTransactionEvent.class);
+
+    @Label("Protocol")
+    private String protocol;
+
+    @Label("Port")
+    private int portID;
+
+    @Label("Bytes")
+    @Description("Size of the rendered log entry")
+    @DataAmount
+    private int bytes;
+
+    @Label("Operation")
+    @Description("The opcode of the log entry, e.g. READING")
+    private String op;
+    /**
+     * Records a transaction if the event is enabled.
+     *
+     * @param protocol The protocol name.
+     * @param portID   The port.
+     * @param log      The port log.
+     * @param position The position of the entry just appended.
+     */
+    public static void emit(String protocol, int portID, PortLog log, int position) {
+        if (!TYPE.isEnabled()) return;
+        ProtocolTransactionEvent event = new ProtocolTransactionEvent();
+        if (event.shouldCommit()) {
+            event.protocol = protocol;
+            event.portID = portID;
+            event.bytes = log.length(position);
+            event.op = log.getCode(position).name();
+            event.commit();
+        }
+    }
+}
@@ -33,39 +33,87 @@ package hwSystem;
  * @author Alperen
  * @version 3.0
  */
+import hwSystem.Api.ReadingListener;
+import hwSystem.Api.SensorReading;
+import hwSystem.Api.SimulatorException;
+import hwSystem.Api.WirelessMessage;
 import hwSystem.Devices.*;
+import hwSystem.Pipeline.CommandPipeline;
 import hwSystem.Protocols.*;
+import hwSystem.Scenario.BinaryScenario;
+import hwSystem.Scenario.Program;
+import hwSystem.Scenario.Scenario;
+import hwSystem.Scenario.ScenarioCompiler;
+import hwSystem.Signals.FastRandom;
+import hwSystem.Signals.SignalFactory;
+import hwSystem.Signals.SignalSource;
+import hwSystem.Signals.TraceFile;
+import hwSystem.Signals.TraceReplay;
+import hwSystem.Signals.TraceSignal;
+import hwSystem.Telemetry.CommandEvent;
+import hwSystem.Telemetry.LogFlushEvent;
+import hwSystem.Telemetry.Metrics;
+import hwSystem.Telemetry.MetricsServer;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Scanner;
-import java.util.Stack;
 import java.util.Iterator;
 /**
 * The main class that manages the entire hardware system.
 * It handles device management, protocol communication, and command execution.
 */
 public class hwSystem {
-    private ArrayList<Protocol> ports;
-    private ArrayList<Device> devices;
+    private PortTable ports;
+    // Connected devices by portID and by devID, readable without locks while devices change
+    private DeviceRegistry registry;
 
     private int maxSensors;
     private int maxDisplays;
     private int maxWirelessIOs;
     private int maxMotorDrivers;
 
-    private ArrayList<Sensor> sensors;
-    private ArrayList<Display> displays;
-    private ArrayList<WirelessIO> wirelessIOs;
-    private ArrayList<MotorDriver> motorDrivers;
     
-    private Queue<String> commandQueue;
+    private long signalSeed;
+    private long logRotationBytes;
+    private long logRotationSeconds;
+    private boolean logContainer;
+    private int logWriterThreads = Runtime.getRuntime().availableProcessors();
+    private LogContainerWriter containerWriter;
+    private String logContainerName = LogContainerWriter.FILE_NAME;
+    // devIDs used by the other processes of a sharded rig, per device category
+    private boolean[][] foreignDevIDs = new boolean[4][0];
+    private ArrayList<TraceReplay> traceReplays;
+    private String deviceTableMode;
+    private DeviceTable deviceTable;
+    private int pipelineLanes;
+    private boolean loadReport;
+    private int metricsPort = -1;
+    private Metrics metrics;
+    private MetricsServer metricsServer;
+    private ReadingListener readingListener;
+    private ChangeFeed changeFeed;
+    // devID of the device on each port, for change records and listings
+    private int[] portDevIDs;
+    private ListingView portListing;
+    // Listings per device category (see DeviceTable.SENSOR etc.)
+    private ListingView[] deviceListings;
+
+    private ScenarioCompiler scenario;
     private String logDirectory;
     /**
      * Constructs a hwSystem instance and initializes the log directory path.
@@ -73,74 +121,167 @@ public class hwSystem {
      * @param logDirectory The directory where protocol logs will be stored.
      */
     public hwSystem(String logDirectory) {
-        ports = new ArrayList<>();
-        devices = new ArrayList<>();
-        sensors = new ArrayList<>();
-        displays = new ArrayList<>();
-        wirelessIOs = new ArrayList<>();
-        motorDrivers = new ArrayList<>();
-        commandQueue = new LinkedList<>();
+        ports = new PortTable();
+        metrics = new Metrics();
+        ports.setMetrics(metrics);
+        registry = new DeviceRegistry();
+        traceReplays = new ArrayList<>();
+        changeFeed = new ChangeFeed();
+        portDevIDs = new int[16];
+        portListing = new ListingView("list of ports:", this::appendPortRow);
+        deviceListings = new ListingView[] {
+            new ListingView("list of Sensors:", (devID, out) -> appendDeviceRow(registry.snapshot().getCategory(DeviceTable.SENSOR), devID, out)),
+            new ListingView("list of Displays:", (devID, out) -> appendDeviceRow(registry.snapshot().getCategory(DeviceTable.DISPLAY), devID, out)),
+            new ListingView("list of WirelessIOs:", (devID, out) -> appendDeviceRow(registry.snapshot().getCategory(DeviceTable.WIRELESS_IO), devID, out)),
+            new ListingView("list of Motor drivers:", (devID, out) -> appendDeviceRow(registry.snapshot().getCategory(DeviceTable.MOTOR_DRIVER), devID, out))
+        };
+        scenario = new ScenarioCompiler();
         this.logDirectory = logDirectory;
     }
 /**
  * Loads the hardware system configuration from a file.
  * Parses the number and type of devices and initializes protocol ports accordingly.
+ * The file may be a text configuration or a binary one (see {@link BinaryConfig}).
  *
- * @param configFilePath Path to the configuration text file.
+ * @param configFilePath Path to the configuration file.
  */
 public void loadConfiguration(String configFilePath) {
-    try {
-        File file = new File(configFilePath);
-        Scanner scanner = new Scanner(file);
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
-
-            if (line.startsWith("Port Configuration:")) {
-                String[] portArray = line.split(":")[1].trim().split(",");
-                List<String> portList = Arrays.asList(portArray);
-                Iterator<String> portIt = portList.iterator();
-                int portID = 0;
-                while (portIt.hasNext()) {
-                    String port = portIt.next().trim();
-
-                    Protocol protocol = null;
-                    switch (port) {
-                        case "I2C":
-                            protocol = new I2C();
-                            break;
-                        case "SPI":
-                            protocol = new SPI();
-                            break;
-                        case "UART":
-                            protocol = new UART();
-                            break;
-                        case "OneWire":
-                            protocol = new OneWire();
-                            break;
-                        default:
-                            System.err.println("Error: Unknown protocol in configuration: " + port);
-                    }
-                    if (protocol != null) {
-                        protocol.setPortID(portID);
-                        ports.add(protocol);
-                        portID++;
-                    }
-                }
-            } else if (line.startsWith("# of sensors:")) {
-                maxSensors = Integer.parseInt(line.split(":")[1].trim());
-            } else if (line.startsWith("# of displays:")) {
-                maxDisplays = Integer.parseInt(line.split(":")[1].trim());
-            } else if (line.startsWith("# of wireless adapters:")) {
-                maxWirelessIOs = Integer.parseInt(line.split(":")[1].trim());
-            } else if (line.startsWith("# of motor drivers:")) {
-                maxMotorDrivers = Integer.parseInt(line.split(":")[1].trim());
-            }
-        }
-        scanner.close();
-
+    try (InputStream in = new FileInputStream(configFilePath)) {
+        loadConfiguration(in);
     } catch (FileNotFoundException e) {
         System.err.println("Error: Configuration file not found.");
+    } catch (IOException e) {
+        System.err.println("Error: Could not read configuration: " + e.getMessage());
+    }
+}
+/**
+ * Loads the hardware system configuration from a stream holding a text or binary configuration.
+ *
+ * @param configInput Stream with the configuration.
+ */
+public void loadConfiguration(InputStream configInput) {
+    long start = System.nanoTime();
+    int firstNewPort = ports.size();
+    ConfigReader.Handler handler = new ConfigReader.Handler() {
+        @Override
+        public void setting(String key, String value) {
+            applySetting(key, value);
+        }
+
+        @Override
+        public void ports(byte[] kinds, int count) {
+            ports.addAll(kinds, count);
+        }
+    };
+    try {
+        BufferedInputStream in = new BufferedInputStream(configInput, 1 << 16);
+        if (BinaryConfig.isBinary(in)) {
+            BinaryConfig.read(in, handler);
+        } else {
+            new ConfigReader(new InputStreamReader(in)).parse(handler);
+        }
+    } catch (IOException e) {
+        System.err.println("Error: Could not read configuration: " + e.getMessage());
+    }
+    if (deviceTable == null && deviceTableMode != null) {
+        if (deviceTableMode.equals("on") || deviceTableMode.equals("heap")) {
+            deviceTable = new DeviceTable(new HeapDeviceStore());
+        } else if (deviceTableMode.equals("offheap")) {
+            deviceTable = new DeviceTable(new OffHeapDeviceStore());
+        } else if (!deviceTableMode.equals("off")) {
+            System.err.println("Error: Unknown device table mode: " + deviceTableMode);
+        }
+    }
+    if (deviceTable != null) {
+        while (deviceTable.getPortCount() < ports.size()) {
+            deviceTable.addPort(ports.getProtocolName(deviceTable.getPortCount()));
+        }
+    }
+    portListing.setRowCount(ports.size());
+    // Sized once here, so device changes running in pipeline lanes never replace the array
+    if (portDevIDs.length < ports.size()) portDevIDs = Arrays.copyOf(portDevIDs, ports.size());
+    if (logRotationBytes > 0 || logRotationSeconds > 0) {
+        ports.setLogRotation(logDirectory, logRotationBytes, logRotationSeconds);
+    }
+    if (logContainer && containerWriter == null) {
+        containerWriter = new LogContainerWriter(logDirectory, logContainerName, logWriterThreads);
+    }
+    if (metricsPort >= 0 && metricsServer == null) {
+        startMetrics();
+    }
+    if (loadReport) {
+        System.err.printf("Loaded %d ports in %d ms (%d materialized).%n", ports.size() - firstNewPort,
+                (System.nanoTime() - start) / 1_000_000, ports.getMaterializedCount());
+    }
+}
+/**
+ * Starts the metrics endpoint on the configured port and registers the gauges of this simulator.
+ */
+private void startMetrics() {
+    try {
+        metricsServer = new MetricsServer(metricsPort, metrics);
+    } catch (IOException e) {
+        System.err.println("Error: Cannot start metrics endpoint: " + e.getMessage());
+        return;
+    }
+    metrics.gauge("hw_log_backlog_entries", "Log entries held in memory, not yet written out.", this::getLogEntryCount);
+    metrics.gauge("hw_ports_active", "Ports whose protocol object currently exists.", ports::getMaterializedCount);
+    metrics.enable();
+    metricsServer.start();
+    System.err.println("Metrics on http://127.0.0.1:" + metricsServer.getPort() + "/metrics");
+}
+/**
+ * Applies one "key: value" setting of the configuration.
+ *
+ * @param key   The setting name.
+ * @param value The setting value.
+ */
+private void applySetting(String key, String value) {
+    switch (key) {
+        case "# of sensors":
+            maxSensors = Integer.parseInt(value);
+            break;
+        case "# of displays":
+            maxDisplays = Integer.parseInt(value);
+            break;
+        case "# of wireless adapters":
+            maxWirelessIOs = Integer.parseInt(value);
+            break;
+        case "# of motor drivers":
+            maxMotorDrivers = Integer.parseInt(value);
+            break;
+        case "Signal seed":
+            signalSeed = Long.parseLong(value);
+            break;
+        case "Log rotation size":
+            logRotationBytes = Long.parseLong(value) * 1024;
+            break;
+        case "Log rotation interval":
+            logRotationSeconds = Long.parseLong(value);
+            break;
+        case "Pipeline lanes":
+            pipelineLanes = Integer.parseInt(value);
+            break;
+        case "Device table":
+            deviceTableMode = value.toLowerCase();
+            break;
+        case "Load report":
+            loadReport = value.equalsIgnoreCase("on");
+            break;
+        case "Metrics port":
+            metricsPort = Integer.parseInt(value);
+            break;
+        case "Change feed retention":
+            changeFeed.setRetention(Integer.parseInt(value));
+            break;
+        case "Log container":
+            logContainer = value.equalsIgnoreCase("on");
+            break;
+        case "Log writer threads":
+            logWriterThreads = Integer.parseInt(value);
+            break;
+        default:
+            // Unknown settings are ignored
     }
 }
     /**
@@ -148,70 +289,310 @@ public void loadConfiguration(String configFilePath) {
     * This method reads until EOF is reached.
     */
     public void run() {
-        Scanner scanner = new Scanner(System.in);
-        while (true) {
-            String command = scanner.nextLine().trim();
-            commandQueue.add(command);
-    
-            if (command.equals("exit")) {
-                break;
+        run(System.in);
+    }
+    /**
+    * Reads a scenario from the given input stream and compiles it for execution.
+    * This method reads until the exit command is reached. Besides plain commands the
+    * scenario may use repeat blocks, macros and ranges (see {@link ScenarioCompiler}).
+    *
+    * @param input The stream to read commands from.
+    */
+    public void run(InputStream input) {
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input), 1 << 16);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!scenario.addLine(line)) {
+                    break;
+                }
             }
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Error: Could not read commands: " + e.getMessage());
         }
-        scanner.close();
     }
     /**
-    * Executes all queued commands one by one by dispatching to corresponding handlers.
+    * Executes the scenario read by {@link #run(InputStream)} by dispatching each command to its handler.
     * Commands include device operations such as addDev, turnON, readSensor, etc.
+    * Repeated commands are split only once, at compile time.
     */
     public void runCommands() {
-        while (true) {
-            String command = commandQueue.poll(); // sadece poll kullanılıyor
-            if (command == null) break; // Queue boşsa çık
-    
-            String[] parts = command.trim().split("\\s+");
-            if (parts.length == 0) continue;
-    
-            switch (parts[0]) {
-                case "turnON":
-                    handleTurnON(parts);
-                    break;
-                case "turnOFF":
-                    handleTurnOFF(parts);
-                    break;
-                case "addDev":
-                    handleAddDev(parts);
+        Program program = scenario.finish();
+        scenario = new ScenarioCompiler();
+        runScenario(program);
+    }
+    /**
+    * Executes a compiled scenario, e.g. a {@link BinaryScenario} mapped from a file.
+    * With "Pipeline lanes" configured above 1, commands for different ports run
+    * concurrently in a {@link CommandPipeline}; the output is the same.
+    *
+    * @param compiled The scenario to execute.
+    */
+    public void runScenario(Scenario compiled) {
+        if (pipelineLanes > 1) {
+            new CommandPipeline(this, pipelineLanes).run(compiled);
+            return;
+        }
+        Scenario.Cursor cursor = compiled.cursor();
+        while (cursor.next()) {
+            if (cursor.getOpcode() == 0) execute(cursor.getCommand(), cursor.getParts());
+            else executeOpcode(cursor);
+        }
+    }
+    /**
+    * Executes a command that was compiled to an opcode. Its arguments were checked at
+    * compile time, so it goes straight to the typed method; the output is the same as
+    * from {@link #execute(String, String[])}.
+    *
+    * @param cursor The cursor at the command.
+    */
+    private void executeOpcode(Scenario.Cursor cursor) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        try {
+            switch (cursor.getOpcode()) {
+                case BinaryScenario.TURN_ON:
+                    turnOn(cursor.getOperand(0));
                     break;
-                case "list":
-                    handleList(parts);
+                case BinaryScenario.TURN_OFF:
+                    turnOff(cursor.getOperand(0));
                     break;
-                case "rmDev":
-                    handleRmDev(parts);
+                case BinaryScenario.ADD_DEV:
+                    addDevice(cursor.getText(), cursor.getOperand(0), cursor.getOperand(1));
+                    System.out.printf("Device added.\n");
                     break;
-                case "readSensor":
-                    handleReadSensor(parts);
+                case BinaryScenario.RM_DEV:
+                    removeDevice(cursor.getOperand(0));
+                    System.out.println("Device removed.");
                     break;
-                case "printDisplay":
-                    handlePrintDisplay(parts);
+                case BinaryScenario.READ_SENSOR:
+                    System.out.println(readSensor(cursor.getOperand(0)).getText());
                     break;
-                case "readWireless":
-                    handleReadWireless(parts);
+                case BinaryScenario.PRINT_DISPLAY:
+                    printDisplay(cursor.getOperand(0), cursor.getText());
                     break;
-                case "writeWireless":
-                    handleWriteWireless(parts);
+                case BinaryScenario.READ_WIRELESS:
+                    System.out.println(readWireless(cursor.getOperand(0)));
                     break;
-                case "setMotorSpeed":
-                    handleSetMotorSpeed(parts);
+                case BinaryScenario.WRITE_WIRELESS:
+                    writeWireless(cursor.getOperand(0), cursor.getText());
                     break;
-                case "exit":
-                    System.out.println("Exiting ...");
-                    writeLogsToFiles();
+                case BinaryScenario.SET_MOTOR_SPEED:
+                    setMotorSpeed(cursor.getOperand(0), cursor.getOperand(1));
                     break;
                 default:
-                    System.err.println("Unknown command: " + command);
+                    execute(cursor.getCommand(), cursor.getParts());
+                    return;
             }
-            /*if (!command.equals("exit")) {
-                System.out.println();
-            }*/
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+        String[] parts = cursor.getParts();
+        metrics.command(parts[0]);
+        event.end();
+        if (event.shouldCommit()) commit(event, parts);
+    }
+    /**
+    * Releases the resources of the simulator that outlive the commands, i.e. stops
+    * the metrics endpoint. The port logs are written by the exit command, not here.
+    */
+    public void close() {
+        if (metricsServer != null) {
+            metricsServer.stop();
+            metricsServer = null;
+        }
+    }
+    /**
+    * Executes a single command immediately by dispatching it to its handler.
+    * Output is written to System.out and errors to System.err.
+    *
+    * @param command The command line, e.g. "readSensor 0".
+    */
+    public void execute(String command) {
+        execute(command, command.trim().split("\\s+"));
+    }
+    /**
+    * Executes a single command that has already been split into its parts.
+    *
+    * @param command The command line, used in error messages.
+    * @param parts   The whitespace-separated parts of the command.
+    */
+    public void execute(String command, String[] parts) {
+        if (parts.length == 0) return;
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        boolean known = true;
+    
+        switch (parts[0]) {
+            case "turnON":
+                handleTurnON(parts);
+                break;
+            case "turnOFF":
+                handleTurnOFF(parts);
+                break;
+            case "addDev":
+                handleAddDev(parts);
+                break;
+            case "list":
+                handleList(parts);
+                break;
+            case "rmDev":
+                handleRmDev(parts);
+                break;
+            case "readSensor":
+                handleReadSensor(parts);
+                break;
+            case "printDisplay":
+                handlePrintDisplay(parts);
+                break;
+            case "readWireless":
+                handleReadWireless(parts);
+                break;
+            case "writeWireless":
+                handleWriteWireless(parts);
+                break;
+            case "setMotorSpeed":
+                handleSetMotorSpeed(parts);
+                break;
+            case "setSignal":
+                handleSetSignal(parts);
+                break;
+            case "replayTrace":
+                handleReplayTrace(parts);
+                break;
+            case "seekTrace":
+                handleSeekTrace(parts);
+                break;
+            case "queryLog":
+                handleQueryLog(parts);
+                break;
+            case "pollSensors":
+                handlePollSensors(parts);
+                break;
+            case "sensorHistory":
+                handleSensorHistory(parts);
+                break;
+            case "changesSince":
+                handleChangesSince(parts);
+                break;
+            case "exit":
+                System.out.println("Exiting ...");
+                writeLogsToFiles();
+                break;
+            case "addWorker":
+                System.err.println("Error: addWorker requires a sharded rig (--shard).");
+                break;
+            default:
+                System.err.println("Unknown command: " + command);
+                known = false;
+        }
+        metrics.command(known ? parts[0] : "unknown");
+        event.end();
+        if (event.shouldCommit()) commit(event, parts);
+    }
+
+    private void commit(CommandEvent event, String[] parts) {
+        // Resolved only while recording; addDev names its port and devID directly
+        boolean isAddDev = parts[0].equals("addDev") && parts.length == 4;
+        event.set(parts[0], isAddDev ? parseOrMinusOne(parts[2]) : getTargetPort(parts),
+                isAddDev ? parseOrMinusOne(parts[3]) : getTargetDevID(parts));
+        event.commit();
+    }
+    /**
+    * Returns the port a command operates on. Commands for different ports do not
+    * affect each other and may run concurrently, as long as each port sees its
+    * commands in order. Commands that add, remove, list or scan devices, and
+    * commands with invalid targets, return -1 and must run alone.
+    *
+    * @param parts The whitespace-separated parts of the command.
+    * @return The target portID, or -1.
+    */
+    public int getTargetPort(String[] parts) {
+        if (parts.length < 2) return -1;
+        int id;
+        try {
+            id = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (id < 0) return -1;
+        Device device = null;
+        switch (parts[0]) {
+            case "turnON":
+            case "turnOFF":
+            case "queryLog":
+                return id < ports.size() ? id : -1;
+            case "readSensor":
+            case "setSignal":
+            case "seekTrace":
+            case "sensorHistory":
+                device = registry.getDevice(DeviceTable.SENSOR, id);
+                break;
+            case "printDisplay":
+                device = registry.getDevice(DeviceTable.DISPLAY, id);
+                break;
+            case "readWireless":
+            case "writeWireless":
+                device = registry.getDevice(DeviceTable.WIRELESS_IO, id);
+                break;
+            case "setMotorSpeed":
+                device = registry.getDevice(DeviceTable.MOTOR_DRIVER, id);
+                break;
+            default:
+                return -1;
+        }
+        return device == null ? -1 : device.getProtocol().getPortID();
+    }
+    /**
+    * Returns the port whose device an addDev or rmDev command changes. Such a command may
+    * run while commands for other ports run, because the devices are published in
+    * snapshots that readers load without locks (see {@link DeviceRegistry}); the
+    * commands after it must only be routed once it has finished.
+    *
+    * @param parts The whitespace-separated parts of the command.
+    * @return The portID, or -1 for other commands and invalid ports.
+    */
+    public int getChangedPort(String[] parts) {
+        int index;
+        if (parts[0].equals("addDev") && parts.length == 4) {
+            index = 2;
+        } else if (parts[0].equals("rmDev") && parts.length == 2) {
+            index = 1;
+        } else {
+            return -1;
+        }
+        int portID = parseOrMinusOne(parts[index]);
+        return portID < ports.size() ? portID : -1;
+    }
+    /**
+    * Returns the devID a command names, for commands addressed by devID.
+    *
+    * @param parts The whitespace-separated parts of the command.
+    * @return The devID, or -1.
+    */
+    private int getTargetDevID(String[] parts) {
+        if (parts.length < 2) return -1;
+        switch (parts[0]) {
+            case "readSensor":
+            case "setSignal":
+            case "seekTrace":
+            case "sensorHistory":
+            case "printDisplay":
+            case "readWireless":
+            case "writeWireless":
+            case "setMotorSpeed":
+                return parseOrMinusOne(parts[1]);
+            default:
+                return -1;
+        }
+    }
+
+    private static int parseOrMinusOne(String number) {
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
     /**
@@ -233,9 +614,26 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            turnOn(portID);
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Turns ON the device connected to the given port.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public void turnOn(int portID) {
+        DeviceRegistry.Snapshot devices = registry.snapshot();
+        DeviceRegistry.Slots<Sensor> sensors = devices.getSensors();
+        DeviceRegistry.Slots<Display> displays = devices.getDisplays();
+        DeviceRegistry.Slots<WirelessIO> wirelessIOs = devices.getWirelessIOs();
+        DeviceRegistry.Slots<MotorDriver> motorDrivers = devices.getMotorDrivers();
         if (portID < 0 || portID >= ports.size()) {
-            System.err.println("Error: Invalid portID.");
-            return;
+            throw new SimulatorException("Invalid portID.");
         }
     
         Protocol targetPort = ports.get(portID);
@@ -245,7 +643,9 @@ public void loadConfiguration(String configFilePath) {
         while (itS.hasNext()) {
             Sensor s = itS.next();
             if (s != null && s.getProtocol() == targetPort) {
+                Device.State before = s.getState();
                 s.turnON();
+                syncState(s, before);
                 return;
             }
         }
@@ -255,7 +655,9 @@ public void loadConfiguration(String configFilePath) {
         while (itD.hasNext()) {
             Display d = itD.next();
             if (d != null && d.getProtocol() == targetPort) {
+                Device.State before = d.getState();
                 d.turnON();
+                syncState(d, before);
                 return;
             }
         }
@@ -265,7 +667,9 @@ public void loadConfiguration(String configFilePath) {
         while (itW.hasNext()) {
             WirelessIO w = itW.next();
             if (w != null && w.getProtocol() == targetPort) {
+                Device.State before = w.getState();
                 w.turnON();
+                syncState(w, before);
                 return;
             }
         }
@@ -275,12 +679,14 @@ public void loadConfiguration(String configFilePath) {
         while (itM.hasNext()) {
             MotorDriver m = itM.next();
             if (m != null && m.getProtocol() == targetPort) {
+                Device.State before = m.getState();
                 m.turnON();
+                syncState(m, before);
                 return;
             }
         }
     
-        System.err.println("Error: No device connected to this port.");
+        throw new SimulatorException("No device connected to this port.");
     }
     /**
     * Turns OFF the device connected to the given port.
@@ -301,9 +707,26 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            turnOff(portID);
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Turns OFF the device connected to the given port.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public void turnOff(int portID) {
+        DeviceRegistry.Snapshot devices = registry.snapshot();
+        DeviceRegistry.Slots<Sensor> sensors = devices.getSensors();
+        DeviceRegistry.Slots<Display> displays = devices.getDisplays();
+        DeviceRegistry.Slots<WirelessIO> wirelessIOs = devices.getWirelessIOs();
+        DeviceRegistry.Slots<MotorDriver> motorDrivers = devices.getMotorDrivers();
         if (portID < 0 || portID >= ports.size()) {
-            System.err.println("Error: Invalid portID.");
-            return;
+            throw new SimulatorException("Invalid portID.");
         }
     
         Protocol targetPort = ports.get(portID);
@@ -313,7 +736,9 @@ public void loadConfiguration(String configFilePath) {
         while (itS.hasNext()) {
             Sensor s = itS.next();
             if (s != null && s.getProtocol() == targetPort) {
+                Device.State before = s.getState();
                 s.turnOFF();
+                syncState(s, before);
                 return;
             }
         }
@@ -323,7 +748,9 @@ public void loadConfiguration(String configFilePath) {
         while (itD.hasNext()) {
             Display d = itD.next();
             if (d != null && d.getProtocol() == targetPort) {
+                Device.State before = d.getState();
                 d.turnOFF();
+                syncState(d, before);
                 return;
             }
         }
@@ -333,7 +760,9 @@ public void loadConfiguration(String configFilePath) {
         while (itW.hasNext()) {
             WirelessIO w = itW.next();
             if (w != null && w.getProtocol() == targetPort) {
+                Device.State before = w.getState();
                 w.turnOFF();
+                syncState(w, before);
                 return;
             }
         }
@@ -343,11 +772,30 @@ public void loadConfiguration(String configFilePath) {
         while (itM.hasNext()) {
             MotorDriver m = itM.next();
             if (m != null && m.getProtocol() == targetPort) {
+                Device.State before = m.getState();
                 m.turnOFF();
+                syncState(m, before);
                 return;
             }
         }
-        System.err.println("Error: No device connected to this port.");
+        throw new SimulatorException("No device connected to this port.");
+    }
+    /**
+     * Returns the state of the device connected to the given port.
+     *
+     * @param portID The port of the device.
+     * @return The device state.
+     * @throws SimulatorException If the port is invalid or has no device.
+     */
+    public Device.State getDeviceState(int portID) {
+        if (portID < 0 || portID >= ports.size()) {
+            throw new SimulatorException("Invalid portID.");
+        }
+        Device device = registry.getDevice(portID);
+        if (device == null) {
+            throw new SimulatorException("No device connected to this port.");
+        }
+        return device.getState();
     }
     /**
     * Lists either all ports or all devices of a specified type.
@@ -361,68 +809,19 @@ public void loadConfiguration(String configFilePath) {
         }
     
         if (parts[1].equalsIgnoreCase("ports")) {
-            listPorts();
+            portListing.writeTo(System.out);
             return;
         }
     
         String type = parts[1].toLowerCase();
-    
         if (type.equals("sensor")) {
-            System.out.println("list of Sensors:");
-            Iterator<Sensor> it = sensors.iterator();
-            int devID = 0;
-            while (it.hasNext()) {
-                Sensor s = it.next();
-                if (s != null) {
-                    int portID = ports.indexOf(s.getProtocol());
-                    String protocol = s.getProtocol().getProtocolName();
-                    System.out.printf("%s %d %d %s\n", s.getName(), devID, portID, protocol);
-                }
-                devID++;
-            }
-    
+            deviceListings[DeviceTable.SENSOR].writeTo(System.out);
         } else if (type.equals("display")) {
-            System.out.println("list of Displays:");
-            Iterator<Display> it = displays.iterator();
-            int devID = 0;
-            while (it.hasNext()) {
-                Display d = it.next();
-                if (d != null) {
-                    int portID = ports.indexOf(d.getProtocol());
-                    String protocol = d.getProtocol().getProtocolName();
-                    System.out.printf("%s %d %d %s\n", d.getName(), devID, portID, protocol);
-                }
-                devID++;
-            }
-    
+            deviceListings[DeviceTable.DISPLAY].writeTo(System.out);
         } else if (type.equals("wirelessio")) {
-            System.out.println("list of WirelessIOs:");
-            Iterator<WirelessIO> it = wirelessIOs.iterator();
-            int devID = 0;
-            while (it.hasNext()) {
-                WirelessIO w = it.next();
-                if (w != null) {
-                    int portID = ports.indexOf(w.getProtocol());
-                    String protocol = w.getProtocol().getProtocolName();
-                    System.out.printf("%s %d %d %s\n", w.getName(), devID, portID, protocol);
-                }
-                devID++;
-            }
-    
+            deviceListings[DeviceTable.WIRELESS_IO].writeTo(System.out);
         } else if (type.equals("motordriver")) {
-            System.out.println("list of Motor drivers:");
-            Iterator<MotorDriver> it = motorDrivers.iterator();
-            int devID = 0;
-            while (it.hasNext()) {
-                MotorDriver m = it.next();
-                if (m != null) {
-                    int portID = ports.indexOf(m.getProtocol());
-                    String protocol = m.getProtocol().getProtocolName();
-                    System.out.printf("%s %d %d %s\n", m.getName(), devID, portID, protocol);
-                }
-                devID++;
-            }
-    
+            deviceListings[DeviceTable.MOTOR_DRIVER].writeTo(System.out);
         } else {
             System.err.println("Error: Unknown device type.");
             System.err.println("Valid types: Sensor, Display, WirelessIO, MotorDriver.");
@@ -451,210 +850,177 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            addDevice(devName, portID, devID);
+            /*System.out.printf("%s added successfully to port %d with devID %d\n", devName, portID, devID);*/
+            System.out.printf("Device added.\n");
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Adds a device to a port under the given devID.
+     * Verifies type compatibility, slot limits, and port availability.
+     *
+     * @param devName The device name, e.g. "DHT11" (see {@link hwSystem.Api.DeviceModel}).
+     * @param portID  The port to connect the device to.
+     * @param devID   The devID within the device's category.
+     * @throws SimulatorException If the device cannot be added.
+     */
+    public void addDevice(String devName, int portID, int devID) {
         if (portID < 0 || portID >= ports.size()) {
-            System.err.println("Error: Invalid portID.");
-            return;
+            throw new SimulatorException("Invalid portID.");
         }
     
         Protocol selectedProtocol = ports.get(portID);
         Device newDevice = null;
     
         // Is port full
-        if (portID < devices.size() && devices.get(portID) != null) {
-            System.err.println("Error: Port " + portID + " is already occupied.");
-            return;
+        if (registry.getDevice(portID) != null) {
+            throw new SimulatorException("Port " + portID + " is already occupied.");
         }
     
         switch (devName) {
             case "DHT11":
                 if (!(selectedProtocol instanceof OneWire)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxSensors) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxSensors);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxSensors));
                 }
                 newDevice = new DHT11(selectedProtocol);
-                while (sensors.size() <= devID) sensors.add(null);
-                if (sensors.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Sensor.");
-                    return;
+                if (isDevIDInUse(DeviceTable.SENSOR, devID)) {
+                    throw new SimulatorException("devID already in use for Sensor.");
                 }
-                sensors.set(devID, (Sensor) newDevice);
                 break;
     
             case "BME280":
                 if (!(selectedProtocol instanceof I2C || selectedProtocol instanceof SPI)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxSensors) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxSensors);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxSensors));
                 }
                 newDevice = new BME280(selectedProtocol);
-                while (sensors.size() <= devID) sensors.add(null);
-                if (sensors.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Sensor.");
-                    return;
+                if (isDevIDInUse(DeviceTable.SENSOR, devID)) {
+                    throw new SimulatorException("devID already in use for Sensor.");
                 }
-                sensors.set(devID, (Sensor) newDevice);
                 break;
     
             case "MPU6050":
                 if (!(selectedProtocol instanceof I2C)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxSensors) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxSensors);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxSensors));
                 }
                 newDevice = new MPU6050(selectedProtocol);
-                while (sensors.size() <= devID) sensors.add(null);
-                if (sensors.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Sensor.");
-                    return;
+                if (isDevIDInUse(DeviceTable.SENSOR, devID)) {
+                    throw new SimulatorException("devID already in use for Sensor.");
                 }
-                sensors.set(devID, (Sensor) newDevice);
                 break;
     
             case "GY951":
                 if (!(selectedProtocol instanceof SPI || selectedProtocol instanceof UART)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxSensors) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxSensors);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxSensors));
                 }
                 newDevice = new GY951(selectedProtocol);
-                while (sensors.size() <= devID) sensors.add(null);
-                if (sensors.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Sensor.");
-                    return;
+                if (isDevIDInUse(DeviceTable.SENSOR, devID)) {
+                    throw new SimulatorException("devID already in use for Sensor.");
                 }
-                sensors.set(devID, (Sensor) newDevice);
                 break;
     
             case "LCD":
                 if (!(selectedProtocol instanceof I2C)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxDisplays) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxDisplays);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxDisplays));
                 }
                 newDevice = new LCD(selectedProtocol);
-                while (displays.size() <= devID) displays.add(null);
-                if (displays.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Display.");
-                    return;
+                if (isDevIDInUse(DeviceTable.DISPLAY, devID)) {
+                    throw new SimulatorException("devID already in use for Display.");
                 }
-                displays.set(devID, (Display) newDevice);
                 break;
     
             case "OLED":
                 if (!(selectedProtocol instanceof SPI)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxDisplays) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxDisplays);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxDisplays));
                 }
                 newDevice = new OLED(selectedProtocol);
-                while (displays.size() <= devID) displays.add(null);
-                if (displays.get(devID) != null) {
-                    System.err.println("Error: devID already in use for Display.");
-                    return;
+                if (isDevIDInUse(DeviceTable.DISPLAY, devID)) {
+                    throw new SimulatorException("devID already in use for Display.");
                 }
-                displays.set(devID, (Display) newDevice);
                 break;
     
             case "Bluetooth":
                 if (!(selectedProtocol instanceof UART)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxWirelessIOs) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxWirelessIOs);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxWirelessIOs));
                 }
                 newDevice = new Bluetooth(selectedProtocol);
-                while (wirelessIOs.size() <= devID) wirelessIOs.add(null);
-                if (wirelessIOs.get(devID) != null) {
-                    System.err.println("Error: devID already in use for WirelessIO.");
-                    return;
+                if (isDevIDInUse(DeviceTable.WIRELESS_IO, devID)) {
+                    throw new SimulatorException("devID already in use for WirelessIO.");
                 }
-                wirelessIOs.set(devID, (WirelessIO) newDevice);
                 break;
     
             case "Wifi":
                 if (!(selectedProtocol instanceof SPI || selectedProtocol instanceof UART)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxWirelessIOs) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxWirelessIOs);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxWirelessIOs));
                 }
                 newDevice = new Wifi(selectedProtocol);
-                while (wirelessIOs.size() <= devID) wirelessIOs.add(null);
-                if (wirelessIOs.get(devID) != null) {
-                    System.err.println("Error: devID already in use for WirelessIO.");
-                    return;
+                if (isDevIDInUse(DeviceTable.WIRELESS_IO, devID)) {
+                    throw new SimulatorException("devID already in use for WirelessIO.");
                 }
-                wirelessIOs.set(devID, (WirelessIO) newDevice);
                 break;
     
             case "PCA9685":
                 if (!(selectedProtocol instanceof I2C)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxMotorDrivers) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxMotorDrivers);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxMotorDrivers));
                 }
                 newDevice = new PCA9685(selectedProtocol);
-                while (motorDrivers.size() <= devID) motorDrivers.add(null);
-                if (motorDrivers.get(devID) != null) {
-                    System.err.println("Error: devID already in use for MotorDriver.");
-                    return;
+                if (isDevIDInUse(DeviceTable.MOTOR_DRIVER, devID)) {
+                    throw new SimulatorException("devID already in use for MotorDriver.");
                 }
-                motorDrivers.set(devID, (MotorDriver) newDevice);
                 break;
     
             case "SparkFunMD":
                 if (!(selectedProtocol instanceof SPI)) {
-                    System.err.println("Error: Device and protocol mismatch.");
-                    return;
+                    throw new SimulatorException("Device and protocol mismatch.");
                 }
                 if (devID >= maxMotorDrivers) {
-                    System.err.printf("Error: All slots are full for %s. Maximum limit reached: %d\n", devName, maxMotorDrivers);
-                    return;
+                    throw new SimulatorException(String.format("All slots are full for %s. Maximum limit reached: %d", devName, maxMotorDrivers));
                 }
                 newDevice = new SparkFunMD(selectedProtocol);
-                while (motorDrivers.size() <= devID) motorDrivers.add(null);
-                if (motorDrivers.get(devID) != null) {
-                    System.err.println("Error: devID already in use for MotorDriver.");
-                    return;
+                if (isDevIDInUse(DeviceTable.MOTOR_DRIVER, devID)) {
+                    throw new SimulatorException("devID already in use for MotorDriver.");
                 }
-                motorDrivers.set(devID, (MotorDriver) newDevice);
                 break;
     
             default:
-                System.err.println("Error: Unknown device type.");
-                return;
-        }
-        while (devices.size() <= portID) devices.add(null);
-        devices.set(portID, newDevice);
-
-        /*System.out.printf("%s added successfully to port %d with devID %d\n", devName, portID, devID);*/
-        System.out.printf("Device added.\n");
+                throw new SimulatorException("Unknown device type.");
+        }
+        registry.add(portID, categoryOf(newDevice), devID, newDevice);
+        if (deviceTable != null) deviceTable.attach(portID, categoryOf(newDevice), devID, newDevice);
+        if (portID >= portDevIDs.length) portDevIDs = Arrays.copyOf(portDevIDs, Math.max(portID + 1, portDevIDs.length * 2));
+        portDevIDs[portID] = devID;
+        portListing.invalidate(portID);
+        deviceListings[categoryOf(newDevice)].invalidate(devID);
+        changeFeed.record(DeviceChange.Kind.ADDED, portID, newDevice.getName(), devID, 0);
     }
     /**
     * Removes the device connected to the given port.
@@ -676,93 +1042,47 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
-        if (portID < 0 || portID >= ports.size()) {
-            System.err.println("Error: Invalid portID.");
-            return;
+        try {
+            removeDevice(portID);
+            System.out.println("Device removed.");
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
         }
-    
-        if (portID >= devices.size()) {
-            System.err.println("Error: No device connected to this port.");
-            return;
+    }
+    /**
+     * Removes the device connected to the given port.
+     * Device must be OFF to be removed.
+     *
+     * @param portID The port of the device.
+     * @throws SimulatorException If the port has no device or the device is ON.
+     */
+    public void removeDevice(int portID) {
+        if (portID < 0 || portID >= ports.size()) {
+            throw new SimulatorException("Invalid portID.");
         }
     
-        Device device = devices.get(portID);
+        Device device = registry.getDevice(portID);
         if (device == null) {
-            System.err.println("Error: No device connected to this port.");
-            return;
+            throw new SimulatorException("No device connected to this port.");
         }
     
         if (device.getState() == Device.State.ON) {
-            System.err.println("Error: Device is ON. Turn it OFF before removal.");
-            return;
+            throw new SimulatorException("Device is ON. Turn it OFF before removal.");
         }
     
-        // Sensor
+        // Port'taki cihazı kaldır
+        int devID = portDevIDs[portID];
+        registry.remove(portID, categoryOf(device), devID);
         if (device instanceof Sensor) {
-            Iterator<Sensor> it = sensors.iterator();
-            int i = 0;
-            while (it.hasNext()) {
-                Sensor s = it.next();
-                if (s == device) {
-                    sensors.set(i, null);
-                    break;
-                }
-                i++;
+            synchronized (traceReplays) {
+                if (devID < traceReplays.size()) traceReplays.set(devID, null);
             }
-            /*System.out.println("Sensor removed.");*/
-            System.out.println("Device removed.");
         }
-    
-        // Display
-        else if (device instanceof Display) {
-            Iterator<Display> it = displays.iterator();
-            int i = 0;
-            while (it.hasNext()) {
-                Display d = it.next();
-                if (d == device) {
-                    displays.set(i, null);
-                    break;
-                }
-                i++;
-            }
-            /*System.out.println("Display removed.");*/
-            System.out.println("Device removed.");
-        }
-    
-        // WirelessIO
-        else if (device instanceof WirelessIO) {
-            Iterator<WirelessIO> it = wirelessIOs.iterator();
-            int i = 0;
-            while (it.hasNext()) {
-                WirelessIO w = it.next();
-                if (w == device) {
-                    wirelessIOs.set(i, null);
-                    break;
-                }
-                i++;
-            }
-            /*System.out.println("WirelessIO removed.");*/
-            System.out.println("Device removed.");
-        }
-    
-        // MotorDriver
-        else if (device instanceof MotorDriver) {
-            Iterator<MotorDriver> it = motorDrivers.iterator();
-            int i = 0;
-            while (it.hasNext()) {
-                MotorDriver m = it.next();
-                if (m == device) {
-                    motorDrivers.set(i, null);
-                    break;
-                }
-                i++;
-            }
-            /*System.out.println("MotorDriver removed.");*/
-            System.out.println("Device removed.");
-        }
-    
-        // Port'taki cihazı kaldır
-        devices.set(portID, null);
+        if (deviceTable != null) deviceTable.detach(portID, device);
+        ports.deactivate(portID);
+        portListing.invalidate(portID);
+        deviceListings[categoryOf(device)].invalidate(portDevIDs[portID]);
+        changeFeed.record(DeviceChange.Kind.REMOVED, portID, device.getName(), portDevIDs[portID], 0);
     }
     /**
     * Reads and prints the data from a sensor with the given devID.
@@ -783,25 +1103,39 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            System.out.println(readSensor(devID).getText());
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Reads a sensor with the given devID.
+     *
+     * @param devID The devID of the sensor.
+     * @return The reading.
+     * @throws SimulatorException If there is no such sensor or it is OFF.
+     */
+    public SensorReading readSensor(int devID) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
         if (devID < 0 || devID >= sensors.size()) {
-            System.err.println("Error: Invalid devID for Sensor.");
-            return;
+            throw new SimulatorException("Invalid devID for Sensor.");
         }
     
         Sensor s = sensors.get(devID);
         if (s == null) {
-            System.err.println("Error: No sensor found at this devID.");
-            return;
+            throw new SimulatorException("No sensor found at this devID.");
         }
     
         if (s.getState() != Device.State.ON) {
-            System.err.println("Error: Device is OFF. Turn it ON to read data.");
-            return;
+            throw new SimulatorException("Device is OFF. Turn it ON to read data.");
         }
     
-        /*System.out.printf("%s %s: %s\n", s.getName(), s.getDevType(), s.data2String());*/
-        /*System.out.println(s.data2String());*/
-        System.out.println(s.readSensor());
+        s.sample();
+        SensorReading reading = toReading(devID, s, null);
+        recordSample(s);
+        if (readingListener != null) readingListener.sensorRead(reading);
+        return reading;
     }
     /**
     * Sends a string to a display device with the given devID for printing.
@@ -822,32 +1156,45 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        // String catonate with StingBuilder AI assisted feature
+        StringBuilder message = new StringBuilder();
+        List<String> partsList = Arrays.asList(parts);
+        Iterator<String> it = partsList.listIterator(2); // Start with second index
+    
+        while (it.hasNext()) {
+            message.append(it.next());
+            if (it.hasNext()) message.append(" ");
+        }
+    
+        try {
+            printDisplay(devID, message.toString());
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Prints a message on a display with the given devID.
+     *
+     * @param devID   The devID of the display.
+     * @param message The text to print.
+     * @throws SimulatorException If there is no such display or it is OFF.
+     */
+    public void printDisplay(int devID, String message) {
+        DeviceRegistry.Slots<Display> displays = registry.snapshot().getDisplays();
         if (devID < 0 || devID >= displays.size()) {
-            System.err.println("Error: Invalid devID for Display.");
-            return;
+            throw new SimulatorException("Invalid devID for Display.");
         }
     
         Display display = displays.get(devID);
         if (display == null) {
-            System.err.println("Error: No Display exists with this devID.");
-            return;
+            throw new SimulatorException("No Display exists with this devID.");
         }
     
         if (display.getState() != Device.State.ON) {
-            System.err.println("Error: Device is OFF. Turn it ON to print.");
-            return;
+            throw new SimulatorException("Device is OFF. Turn it ON to print.");
         }
     
-        // String catonate with StingBuilder AI assisted feature
-        StringBuilder message = new StringBuilder();
-        List<String> partsList = Arrays.asList(parts);
-        Iterator<String> it = partsList.listIterator(2); // Start with second index
-    
-        while (it.hasNext()) {
-            message.append(it.next());
-            if (it.hasNext()) message.append(" ");
-        }
-        display.printData(message.toString());
+        display.printData(message);
     }
     /**
     * Receives the last message from a wireless IO device with the given devID.
@@ -868,24 +1215,40 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            String received = readWireless(devID);
+            System.out.println(received);
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Receives the last message from a wireless IO device with the given devID.
+     *
+     * @param devID The devID of the wireless IO device.
+     * @return The received message.
+     * @throws SimulatorException If there is no such device or it is OFF.
+     */
+    public String readWireless(int devID) {
+        DeviceRegistry.Slots<WirelessIO> wirelessIOs = registry.snapshot().getWirelessIOs();
         if (devID < 0 || devID >= wirelessIOs.size()) {
-            System.err.println("Error: Invalid devID for WirelessIO.");
-            return;
+            throw new SimulatorException("Invalid devID for WirelessIO.");
         }
     
         WirelessIO w = wirelessIOs.get(devID);
         if (w == null) {
-            System.err.println("Error: No wireless adapter at this devID.");
-            return;
+            throw new SimulatorException("No wireless adapter at this devID.");
         }
     
         if (w.getState() != Device.State.ON) {
-            System.err.println("Error: Device is OFF. Turn it ON to read.");
-            return;
+            throw new SimulatorException("Device is OFF. Turn it ON to read.");
         }
     
         String received = w.recvData();
-        System.out.println(received);
+        if (readingListener != null) {
+            readingListener.messageReceived(new WirelessMessage(devID, w.getProtocol().getPortID(), w.getName(), received));
+        }
+        return received;
     }
     /**
     * Sends a string via a wireless IO device with the given devID.
@@ -906,22 +1269,6 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
-        if (devID < 0 || devID >= wirelessIOs.size()) {
-            System.err.println("Error: Invalid devID for WirelessIO.");
-            return;
-        }
-    
-        WirelessIO w = wirelessIOs.get(devID);
-        if (w == null) {
-            System.err.println("Error: No WirelessIO exists with this devID.");
-            return;
-        }
-    
-        if (w.getState() != Device.State.ON) {
-            System.err.println("Error: Device is OFF. Turn it ON to write.");
-            return;
-        }
-    
         // String catonate with iterator (AI assisted)
         StringBuilder message = new StringBuilder();
         List<String> partsList = Arrays.asList(parts);
@@ -932,7 +1279,35 @@ public void loadConfiguration(String configFilePath) {
             if (it.hasNext()) message.append(" ");
         }
     
-        w.sendData(message.toString());
+        try {
+            writeWireless(devID, message.toString());
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Sends a message via a wireless IO device with the given devID.
+     *
+     * @param devID   The devID of the wireless IO device.
+     * @param message The text to send.
+     * @throws SimulatorException If there is no such device or it is OFF.
+     */
+    public void writeWireless(int devID, String message) {
+        DeviceRegistry.Slots<WirelessIO> wirelessIOs = registry.snapshot().getWirelessIOs();
+        if (devID < 0 || devID >= wirelessIOs.size()) {
+            throw new SimulatorException("Invalid devID for WirelessIO.");
+        }
+    
+        WirelessIO w = wirelessIOs.get(devID);
+        if (w == null) {
+            throw new SimulatorException("No WirelessIO exists with this devID.");
+        }
+    
+        if (w.getState() != Device.State.ON) {
+            throw new SimulatorException("Device is OFF. Turn it ON to write.");
+        }
+    
+        w.sendData(message);
     }
     /**
     * Sets the motor speed of a motor driver device with the given devID.
@@ -955,134 +1330,684 @@ public void loadConfiguration(String configFilePath) {
             return;
         }
     
+        try {
+            setMotorSpeed(devID, speed);
+        } catch (SimulatorException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    /**
+     * Sets the motor speed of a motor driver with the given devID.
+     *
+     * @param devID The devID of the motor driver.
+     * @param speed The new speed.
+     * @throws SimulatorException If there is no such motor driver or it is OFF.
+     */
+    public void setMotorSpeed(int devID, int speed) {
+        DeviceRegistry.Slots<MotorDriver> motorDrivers = registry.snapshot().getMotorDrivers();
         if (devID < 0 || devID >= motorDrivers.size()) {
-            System.err.println("Error: Invalid devID for MotorDriver.");
-            return;
+            throw new SimulatorException("Invalid devID for MotorDriver.");
         }
     
         MotorDriver m = motorDrivers.get(devID);
         if (m == null) {
-            System.err.println("Error: No motor driver at this devID.");
-            return;
+            throw new SimulatorException("No motor driver at this devID.");
         }
     
         if (m.getState() != Device.State.ON) {
-            System.err.println("Error: Device is OFF. Turn it ON to set speed.");
-            return;
+            throw new SimulatorException("Device is OFF. Turn it ON to set speed.");
         }
     
         m.setMotorSpeed(speed);
+        changeFeed.record(DeviceChange.Kind.SPEED_SET, m.getProtocol().getPortID(), m.getName(), devID, speed);
     }
     /**
-    * Writes the protocol logs of each port to individual log files under the log directory.
-    * The logs are written in reverse order (LIFO) starting from the most recent.
+    * Replaces the signal source of a sensor channel with the given devID.
+    * Random signals are seeded from the configured seed and the devID,
+    * so runs with the same configuration produce the same readings.
+    *
+    * @param parts Array of command parts: setSignal <devID> <channel> <kind> [args...]
     */
-    private void writeLogsToFiles() { /* AI assisted function getParentFile().mkdirs etc... */
-        Iterator<Protocol> it = ports.iterator();
+    private void handleSetSignal(String[] parts) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
+        if (parts.length < 4) {
+            System.out.println("Usage: setSignal <devID> <channel> " + SignalFactory.KINDS);
+            return;
+        }
     
+        int devID;
+        try {
+            devID = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid devID.");
+            return;
+        }
+    
+        if (devID < 0 || devID >= sensors.size()) {
+            System.err.println("Error: Invalid devID for Sensor.");
+            return;
+        }
+    
+        Sensor s = sensors.get(devID);
+        if (s == null) {
+            System.err.println("Error: No sensor found at this devID.");
+            return;
+        }
+    
+        SignalSource source;
+        try {
+            source = SignalFactory.create(parts[3], parts, 4, FastRandom.mix64(signalSeed + devID));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+    
+        if (!s.setSignal(parts[2], source)) {
+            System.err.println("Error: Unknown channel for " + s.getName() + ". Valid channels: " + s.getChannels() + ".");
+            return;
+        }
+        System.out.println(s.getName() + ": Using " + source.getKind() + " signal for " + parts[2] + ".");
+    }
+    /**
+    * Replays a recorded trace file on a sensor with the given devID.
+    * Each channel of the sensor is bound to the trace column with the same name.
+    *
+    * @param parts Array of command parts: replayTrace <devID> <traceFile> [speed]
+    */
+    private void handleReplayTrace(String[] parts) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
+        if (parts.length != 3 && parts.length != 4) {
+            System.out.println("Usage: replayTrace <devID> <traceFile> [speed]");
+            return;
+        }
+    
+        int devID;
+        double speed = 0;
+        try {
+            devID = Integer.parseInt(parts[1]);
+            if (parts.length == 4) speed = Double.parseDouble(parts[3]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: devID and speed must be numbers.");
+            return;
+        }
+    
+        if (devID < 0 || devID >= sensors.size()) {
+            System.err.println("Error: Invalid devID for Sensor.");
+            return;
+        }
+    
+        Sensor s = sensors.get(devID);
+        if (s == null) {
+            System.err.println("Error: No sensor found at this devID.");
+            return;
+        }
+    
+        TraceReplay replay;
+        try {
+            replay = new TraceReplay(new TraceFile(parts[2]), speed);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+    
+        String[] channels = s.getChannels().split("\\|");
+        List<String> channelList = Arrays.asList(channels);
+        Iterator<String> it = channelList.iterator();
         while (it.hasNext()) {
-            Protocol port = it.next();
-            String fileName = logDirectory + "/" + port.getProtocolName() + "_" + port.getPortID() + ".log";
+            if (replay.getTrace().findColumn(it.next()) < 0) {
+                System.err.println("Error: Trace must have the columns: " + s.getChannels() + ".");
+                return;
+            }
+        }
+        it = channelList.iterator();
+        while (it.hasNext()) {
+            String channel = it.next();
+            s.setSignal(channel, new TraceSignal(replay, replay.getTrace().findColumn(channel)));
+        }
+        synchronized (traceReplays) {
+            while (traceReplays.size() <= devID) traceReplays.add(null);
+            traceReplays.set(devID, replay);
+        }
+        System.out.println(s.getName() + ": Replaying " + replay.getTrace().getRowCount() + " samples from " + parts[2] + ".");
+    }
+    /**
+    * Moves the trace replay of a sensor to the given trace timestamp.
+    *
+    * @param parts Array of command parts: seekTrace <devID> <timestamp>
+    */
+    private void handleSeekTrace(String[] parts) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
+        if (parts.length != 3) {
+            System.out.println("Usage: seekTrace <devID> <timestamp>");
+            return;
+        }
     
-            try {
-                File logFile = new File(fileName);
-                logFile.getParentFile().mkdirs();
-                FileWriter writer = new FileWriter(logFile);
-                Stack<String> logs = port.getLogs();
-    
-                while (true) {
-                    try {
-                        writer.write(logs.pop() + "\n");
-                    } catch (Exception e) {
-                        break; // If stack empty then exit
+        int devID;
+        long timestamp;
+        try {
+            devID = Integer.parseInt(parts[1]);
+            timestamp = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: devID and timestamp must be integers.");
+            return;
+        }
+    
+        TraceReplay replay;
+        synchronized (traceReplays) {
+            replay = devID >= 0 && devID < traceReplays.size() ? traceReplays.get(devID) : null;
+        }
+        if (replay == null) {
+            System.err.println("Error: No trace is replayed on this devID.");
+            return;
+        }
+    
+        replay.seek(timestamp);
+        System.out.println(sensors.get(devID).getName() + ": Seeking trace to " + timestamp + ".");
+    }
+    /**
+    * Answers a query over the log of a port using its log index.
+    * Prints the number of matches followed by the newest matching entries
+    * as "&lt;ms&gt; &lt;op&gt; &lt;entry&gt;", where ms is the time since the simulator started.
+    *
+    * @param parts Array of command parts: queryLog <portID> [op=read|write|open] [from=ms] [to=ms] [limit=n] [prefix=text]
+    */
+    private void handleQueryLog(String[] parts) {
+        if (parts.length < 2) {
+            System.out.println("Usage: queryLog <portID> [op=read|write|open] [from=ms] [to=ms] [limit=n] [prefix=text]");
+            return;
+        }
+    
+        int portID;
+        try {
+            portID = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid portID format.");
+            return;
+        }
+    
+        if (portID < 0 || portID >= ports.size()) {
+            System.err.println("Error: Invalid portID.");
+            return;
+        }
+    
+        LogIndex.Op op = null;
+        long from = 0;
+        long to = Long.MAX_VALUE;
+        int limit = 20;
+        String prefix = null;
+        int i = 2;
+        try {
+            while (i < parts.length) {
+                String filter = parts[i];
+                if (filter.startsWith("op=")) {
+                    op = LogIndex.Op.valueOf(filter.substring(3).toUpperCase());
+                } else if (filter.startsWith("from=")) {
+                    from = Long.parseLong(filter.substring(5)) * 1000;
+                } else if (filter.startsWith("to=")) {
+                    to = Long.parseLong(filter.substring(3)) * 1000 + 999;
+                } else if (filter.startsWith("limit=")) {
+                    limit = Integer.parseInt(filter.substring(6));
+                } else if (filter.startsWith("prefix=")) {
+                    // The prefix takes the rest of the command, spaces included
+                    StringBuilder text = new StringBuilder(filter.substring(7));
+                    List<String> partsList = Arrays.asList(parts);
+                    Iterator<String> it = partsList.listIterator(i + 1);
+                    while (it.hasNext()) {
+                        text.append(" ").append(it.next());
                     }
+                    prefix = text.toString();
+                    break;
+                } else {
+                    System.err.println("Error: Unknown filter: " + filter);
+                    return;
                 }
-                writer.close();
+                i++;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Invalid filter value: " + parts[i]);
+            return;
+        }
+        if (limit < 0) {
+            System.err.println("Error: Invalid filter value: limit must not be negative.");
+            return;
+        }
+    
+        boolean wasActive = ports.peek(portID) != null;
+        Protocol port = ports.get(portID);
+        PortLog logs = port.getLogs();
+        LogIndex.QueryResult result = port.getLogIndex().query(op, from, to, prefix, limit);
+        System.out.println(result.getCount() + " matching entries.");
+        int[] positions = result.getPositions();
+        int k = 0;
+        while (k < positions.length) {
+            int position = positions[k];
+            System.out.printf("%d %s %s\n", port.getLogIndex().getTime(position) / 1000,
+                    port.getLogIndex().getOp(position).name().toLowerCase(), logs.get(position));
+            k++;
+        }
+        // A port without a device is only activated for the duration of the query
+        if (!wasActive) ports.deactivate(portID);
+    }
+    /**
+     * Returns the feed of device changes (add, remove, ON, OFF, motor speed).
+     *
+     * @return The change feed.
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+    /**
+     * Sets the listener receiving every sensor reading and received wireless message.
+     *
+     * @param listener The listener, or null for none.
+     */
+    public void setReadingListener(ReadingListener listener) {
+        readingListener = listener;
+    }
+    /**
+     * Writes the port logs to the log directory, like the exit command.
+     */
+    public void writeLogs() {
+        writeLogsToFiles();
+    }
+    /**
+    * Writes the protocol logs of each port to individual log files under the log directory.
+    * The logs are written in reverse order (LIFO) starting from the most recent.
+    * With log rotation enabled, only the active segment is written here; older
+    * entries are already in the port's compressed archive. With the log container
+    * enabled, all logs go into a single file instead (see {@link LogContainerWriter}).
+    */
+    private void writeLogsToFiles() { /* AI assisted function getParentFile().mkdirs etc... */
+        LogRotation.awaitArchived();
+        long flushStart = System.nanoTime();
+        LogFlushEvent event = new LogFlushEvent();
+        event.begin();
+        boolean measured = event.isEnabled();
+        long entries = 0;
+        long bytes = 0;
+        int portID = 0;
+        if (containerWriter != null) {
+            while (measured && portID < ports.size()) {
+                if (!ports.isForeign(portID)) entries += ports.getLogSize(portID);
+                portID++;
+            }
+            try {
+                bytes = containerWriter.write(ports);
             } catch (IOException e) {
-                System.err.println("Error writing log file for port: " + port.getProtocolName() + "_" + port.getPortID());
+                System.err.println("Error writing log container: " + e.getMessage());
+            }
+        } else {
+            while (portID < ports.size()) {
+                if (ports.isForeign(portID)) {
+                    // Written by the process handling the port
+                    portID++;
+                    continue;
+                }
+                if (measured) entries += ports.getLogSize(portID);
+                String fileName = logDirectory + "/" + ports.getProtocolName(portID) + "_" + portID + ".log";
+
+                try {
+                    File logFile = new File(fileName);
+                    logFile.getParentFile().mkdirs();
+                    OutputStream writer = new BufferedOutputStream(new FileOutputStream(logFile));
+                    ports.writeLog(portID, writer);
+                    writer.close();
+                    if (measured) bytes += logFile.length();
+                } catch (IOException e) {
+                    System.err.println("Error writing log file for port: " + ports.getProtocolName(portID) + "_" + portID);
+                }
+                portID++;
             }
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(LogFlushEvent.EXIT, ports.size(), entries, bytes);
+            event.commit();
+        }
+        metrics.flush(LogFlushEvent.EXIT, System.nanoTime() - flushStart);
     }    
     /**
-    * Lists all ports along with their status (occupied/empty), device details if occupied.
+     * Returns the number of configured ports.
+     *
+     * @return The port count.
+     */
+    public int getPortCount() {
+        return ports.size();
+    }
+    /**
+     * Sets the name of the log container file in the log directory. Must be called
+     * before the configuration is loaded.
+     *
+     * @param fileName The file name, by default {@value LogContainerWriter#FILE_NAME}.
+     */
+    public void setLogContainerName(String fileName) {
+        logContainerName = fileName;
+    }
+    /**
+     * Marks a port as handled by another process of a sharded rig (see
+     * {@link hwSystem.Shard.ShardCoordinator}), or by this one again. Foreign ports are
+     * left out of "list ports" and of the logs written on exit.
+     *
+     * @param portID  The port.
+     * @param foreign true if another process handles the port.
+     */
+    public void setForeignPort(int portID, boolean foreign) {
+        ports.setForeign(portID, foreign);
+        portListing.invalidate(portID);
+    }
+    /**
+     * Marks a devID as used by a device of another process of a sharded rig, so that
+     * addDev rejects it as if the device were connected here. The devID range of the
+     * category grows as if the device had been added here, so commands for devIDs
+     * without a device fail with the same message in every process.
+     *
+     * @param category The device category, e.g. {@link DeviceTable#SENSOR}.
+     * @param devID    The devID.
+     * @param used     true while the other process uses the devID.
+     */
+    public void setForeignDevID(int category, int devID, boolean used) {
+        registry.reserve(category, devID);
+        boolean[] usedIDs = foreignDevIDs[category];
+        if (devID >= usedIDs.length) {
+            if (!used) return;
+            usedIDs = Arrays.copyOf(usedIDs, Math.max(devID + 1, usedIDs.length * 2));
+            foreignDevIDs[category] = usedIDs;
+        }
+        usedIDs[devID] = used;
+    }
+
+    private boolean isForeignDevID(int category, int devID) {
+        return devID < foreignDevIDs[category].length && foreignDevIDs[category][devID];
+    }
+    /**
+    * Returns whether a devID is taken by a device here or in another process of a sharded rig.
+    * A negative devID fails like an ArrayList index.
+    */
+    private boolean isDevIDInUse(int category, int devID) {
+        DeviceRegistry.Slots<?> slots = registry.snapshot().getCategory(category);
+        return (devID < slots.size() && slots.get(devID) != null) || isForeignDevID(category, devID);
+    }
+    /**
+     * Hands a port without a device over to another process of a sharded rig: its log
+     * entries and their timestamps leave this process and the port becomes foreign.
+     *
+     * @param portID The port.
+     * @return The state of the port, to be passed to {@link #adoptPort(int, byte[])} there.
+     * @throws SimulatorException If the port is invalid or has a device.
+     */
+    public byte[] releasePort(int portID) {
+        if (portID < 0 || portID >= ports.size()) {
+            throw new SimulatorException("Invalid portID.");
+        }
+        if (registry.getDevice(portID) != null) {
+            throw new SimulatorException("Port " + portID + " is already occupied.");
+        }
+        ByteArrayOutputStream state = new ByteArrayOutputStream();
+        try {
+            ports.release(portID, new DataOutputStream(state));
+        } catch (IOException e) {
+            // Not thrown by an in-memory stream
+            throw new SimulatorException(e.getMessage());
+        }
+        portListing.invalidate(portID);
+        return state.toByteArray();
+    }
+    /**
+     * Takes over a port released by another process of a sharded rig, with its log.
+     *
+     * @param portID The port.
+     * @param state  The state returned by {@link #releasePort(int)}.
+     * @throws SimulatorException If the port is invalid or the state is incomplete.
+     */
+    public void adoptPort(int portID, byte[] state) {
+        if (portID < 0 || portID >= ports.size()) {
+            throw new SimulatorException("Invalid portID.");
+        }
+        try {
+            ports.adopt(portID, new DataInputStream(new ByteArrayInputStream(state)));
+        } catch (IOException e) {
+            throw new SimulatorException("Incomplete port state: " + e.getMessage());
+        }
+        portListing.invalidate(portID);
+    }
+    /**
+    * Returns the number of log entries currently held by all ports.
+    *
+    * @return The total number of buffered log entries.
+    */
+    public long getLogEntryCount() {
+        long count = 0;
+        int portID = 0;
+        while (portID < ports.size()) {
+            count += ports.getLogSize(portID);
+            portID++;
+        }
+        return count;
+    }
+    /**
+    * Returns the number of log entries currently held by one port.
+    *
+    * @param portID The port.
+    * @return The number of buffered log entries of the port.
     */
-    private void listPorts() {
-        System.out.println("list of ports:");
+    public long getLogEntryCount(int portID) {
+        return ports.getLogSize(portID);
+    }
+    /**
+    * Renders the "list ports" line of a port: its status and, if occupied, the device details.
+    */
+    private void appendPortRow(int portID, StringBuilder out) {
+        if (ports.isForeign(portID)) return;
+        out.append(portID).append(' ').append(ports.getProtocolName(portID));
+        Device device = registry.getDevice(portID);
+        if (device == null) {
+            out.append(" empty\n");
+            return;
+        }
+        out.append(" occupied ").append(device.getName()).append(' ').append(device.getDevType())
+           .append(' ').append(portDevIDs[portID])
+           .append(device.getState() == Device.State.ON ? " ON\n" : " OFF\n");
+    }
+    /**
+    * Renders the "list &lt;DeviceType&gt;" line of a devID, if a device uses it.
+    */
+    private static void appendDeviceRow(DeviceRegistry.Slots<?> category, int devID, StringBuilder out) {
+        Device device = devID < category.size() ? category.get(devID) : null;
+        if (device == null) return;
+        Protocol protocol = device.getProtocol();
+        out.append(device.getName()).append(' ').append(devID).append(' ')
+           .append(protocol.getPortID()).append(' ').append(protocol.getProtocolName()).append('\n');
+    }
+    /**
+    * Reads every sensor that is ON, in devID order, and prints the readings.
+    * With the device table enabled the sensors to read are found by a linear scan
+    * of the table instead of checking every sensor object.
+    *
+    * @param parts Array of command parts: pollSensors
+    */
+    private void handlePollSensors(String[] parts) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
+        if (parts.length != 1) {
+            System.out.println("Usage: pollSensors");
+            return;
+        }
 
-        Iterator<Protocol> portIt = ports.iterator();
-        int portIndex = 0;
-        while (portIt.hasNext()) {
-            Protocol protocol = portIt.next();
-            String status = "empty";
-            String devName = "";
-            String devType = "";
-            String state = "";
-            int devID = -1;
-    
-            Device device = null;
-            if (portIndex < devices.size()) {
-                device = devices.get(portIndex);
+        int polled = 0;
+        if (deviceTable != null) {
+            int[] devIDs = deviceTable.findOn(DeviceTable.SENSOR);
+            int i = 0;
+            while (i < devIDs.length) {
+                Sensor s = sensors.get(devIDs[i]);
+                String text = s.readSensor();
+                System.out.println(text);
+                recordSample(s);
+                if (readingListener != null) readingListener.sensorRead(toReading(devIDs[i], s, text));
+                i++;
             }
-            if (device != null) {
-                status = "occupied";
-                devName = device.getName();
-                devType = device.getDevType();
-                state = (device.getState() == Device.State.ON) ? "ON" : "OFF";
-                
-                if (device instanceof Sensor) {
-                    Iterator<Sensor> it = sensors.iterator();
-                    int index = 0;
-                    while (it.hasNext()) {
-                        Sensor s = it.next();
-                        if (s == device) {
-                            devID = index;
-                            break;
-                        }
-                        index++;
-                    }
-                } else if (device instanceof Display) {
-                    Iterator<Display> it = displays.iterator();
-                    int index = 0;
-                    while (it.hasNext()) {
-                        Display d = it.next();
-                        if (d == device) {
-                            devID = index;
-                            break;
-                        }
-                        index++;
-                    }
-                } else if (device instanceof WirelessIO) {
-                    Iterator<WirelessIO> it = wirelessIOs.iterator();
-                    int index = 0;
-                    while (it.hasNext()) {
-                        WirelessIO w = it.next();
-                        if (w == device) {
-                            devID = index;
-                            break;
-                        }
-                        index++;
-                    }
-                } else if (device instanceof MotorDriver) {
-                    Iterator<MotorDriver> it = motorDrivers.iterator();
-                    int index = 0;
-                    while (it.hasNext()) {
-                        MotorDriver m = it.next();
-                        if (m == device) {
-                            devID = index;
-                            break;
-                        }
-                        index++;
-                    }
+            polled = devIDs.length;
+        } else {
+            Iterator<Sensor> it = sensors.iterator();
+            int devID = 0;
+            while (it.hasNext()) {
+                Sensor s = it.next();
+                if (s != null && s.getState() == Device.State.ON) {
+                    String text = s.readSensor();
+                    System.out.println(text);
+                    if (readingListener != null) readingListener.sensorRead(toReading(devID, s, text));
+                    polled++;
                 }
+                devID++;
             }
-            if (status.equals("empty")) {
-                System.out.printf("%d %s empty\n", portIndex, protocol.getProtocolName());
-            } else {
-                System.out.printf("%d %s %s %s %s %d %s\n",
-                        portIndex, protocol.getProtocolName(), status, devName, devType, devID, state);
-            }
-            portIndex++;
         }
-        /*System.out.println();*/
-    }    
-}
\ No newline at end of file
+        System.out.println("Polled " + polled + " sensors.");
+    }
+    /**
+    * Prints the last readings of a sensor, newest first, from the device table.
+    * The readings are read through a flyweight view of the table row.
+    *
+    * @param parts Array of command parts: sensorHistory <devID>
+    */
+    private void handleSensorHistory(String[] parts) {
+        DeviceRegistry.Slots<Sensor> sensors = registry.snapshot().getSensors();
+        if (parts.length != 2) {
+            System.out.println("Usage: sensorHistory <devID>");
+            return;
+        }
+        if (deviceTable == null) {
+            System.err.println("Error: sensorHistory requires the device table.");
+            return;
+        }
+
+        int devID;
+        try {
+            devID = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid devID.");
+            return;
+        }
+
+        int portID = deviceTable.findPort(DeviceTable.SENSOR, devID);
+        if (portID < 0) {
+            System.err.println("Error: No sensor found at this devID.");
+            return;
+        }
+
+        DeviceView view = new DeviceView(deviceTable).moveTo(portID);
+        boolean twoChannels = sensors.get(devID) instanceof IMUSensor;
+        StringBuilder history = new StringBuilder();
+        history.append(view.getName()).append(' ').append(devID).append(": ")
+               .append(view.getReadCount()).append(" reads.\n");
+        int age = 0;
+        while (age < view.getSampleCount()) {
+            history.append(String.format("%.2f", view.getSampleA(age)));
+            if (twoChannels) history.append(String.format(" %.2f", view.getSampleB(age)));
+            history.append('\n');
+            age++;
+        }
+        System.out.print(history);
+    }
+    /**
+    * Prints the device changes after the given sequence number, oldest first, and the
+    * latest sequence number, from which the next changesSince continues.
+    *
+    * @param parts Array of command parts: changesSince <seq>
+    */
+    private void handleChangesSince(String[] parts) {
+        if (parts.length != 2) {
+            System.out.println("Usage: changesSince <seq>");
+            return;
+        }
+
+        long seq;
+        try {
+            seq = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid seq.");
+            return;
+        }
+        if (seq < 0) {
+            System.err.println("Error: Invalid seq.");
+            return;
+        }
+
+        ArrayList<DeviceChange> changes = changeFeed.since(seq);
+        if (changes == null) {
+            System.err.println("Error: Changes after " + seq + " are no longer kept (oldest kept: "
+                    + changeFeed.getOldestSeq() + "). Use list ports.");
+            return;
+        }
+        StringBuilder out = new StringBuilder();
+        Iterator<DeviceChange> it = changes.iterator();
+        while (it.hasNext()) {
+            out.append(it.next()).append('\n');
+        }
+        out.append("Changes up to ").append(changeFeed.getLatestSeq()).append(".\n");
+        System.out.print(out);
+    }
+    /**
+    * Records a change of the power state of a device in the devices-ON metrics,
+    * the listings and the change feed. With the device table enabled the device
+    * already wrote its state into its row.
+    *
+    * @param device The device whose state changed.
+    * @param before The state of the device before the command.
+    */
+    private void syncState(Device device, Device.State before) {
+        if (device.getState() != before) {
+            boolean on = device.getState() == Device.State.ON;
+            metrics.deviceOn(categoryOf(device), on ? 1 : -1);
+            int portID = device.getProtocol().getPortID();
+            portListing.invalidate(portID);
+            changeFeed.record(on ? DeviceChange.Kind.TURNED_ON : DeviceChange.Kind.TURNED_OFF, portID, device.getName(), portDevIDs[portID], 0);
+        }
+    }
+    /**
+    * Copies the current values of a sensor into the device table, if enabled.
+    *
+    * @param s The sensor that was just read.
+    */
+    private void recordSample(Sensor s) {
+        if (deviceTable == null) return;
+        int portID = s.getProtocol().getPortID();
+        if (s instanceof TempSensor) {
+            deviceTable.recordSample(portID, ((TempSensor) s).getTemp(), 0);
+        } else if (s instanceof IMUSensor) {
+            IMUSensor imu = (IMUSensor) s;
+            deviceTable.recordSample(portID, imu.getAccel(), imu.getRot());
+        }
+    }
+    /**
+    * Builds the typed reading of a sensor that was just read, from the values of
+    * its getters.
+    *
+    * @param devID The devID of the sensor.
+    * @param s     The sensor that was read.
+    * @param text  The reading as printed, or null to format it only when requested.
+    * @return The reading.
+    */
+    private static SensorReading toReading(int devID, Sensor s, String text) {
+        float temperature = Float.NaN;
+        float accel = Float.NaN;
+        float rot = Float.NaN;
+        if (s instanceof TempSensor) {
+            temperature = ((TempSensor) s).getTemp();
+        } else if (s instanceof IMUSensor) {
+            IMUSensor imu = (IMUSensor) s;
+            accel = imu.getAccel();
+            rot = imu.getRot();
+        }
+        return new SensorReading(devID, s.getProtocol().getPortID(), s.getName(), s.getSensType(), temperature, accel, rot, text);
+    }
+    /**
+    * Returns the device table category of a device.
+    *
+    * @param device The device.
+    * @return The category, e.g. {@link DeviceTable#SENSOR}.
+    */
+    private static int categoryOf(Device device) {
+        if (device instanceof Sensor) return DeviceTable.SENSOR;
+        if (device instanceof Display) return DeviceTable.DISPLAY;
+        if (device instanceof WirelessIO) return DeviceTable.WIRELESS_IO;
+        return DeviceTable.MOTOR_DRIVER;
+    }
+}